@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.common.db.datasource.test;
+
+import static com.redhat.rhn.common.db.datasource.test.RowMapperTest.COLUMNS;
+import static com.redhat.rhn.common.db.datasource.test.RowMapperTest.reflectionMap;
+import static com.redhat.rhn.common.db.datasource.test.RowMapperTest.resultSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.redhat.rhn.common.db.datasource.RowMapper;
+import com.redhat.rhn.common.db.datasource.test.RowMapperTest.WideDto;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the mapping of a wide result set with reflection and with a row mapper looked up for every row, as done
+ * when elaborating the results of a query. The number of rows is set with the benchmark.rowmapper.rows property.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class RowMapperBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rowmapper.rows", 50_000);
+
+    @Test
+    public void benchmarkWideResultSet() throws Exception {
+        List<WideDto> expected = new ArrayList<>(ROWS);
+        ResultSet rs = resultSet(ROWS);
+        long start = System.nanoTime();
+        while (rs.next()) {
+            WideDto dto = new WideDto();
+            reflectionMap(rs, dto, false);
+            expected.add(dto);
+        }
+        long reflectionNanos = System.nanoTime() - start;
+
+        List<WideDto> actual = new ArrayList<>(ROWS);
+        rs = resultSet(ROWS);
+        start = System.nanoTime();
+        while (rs.next()) {
+            WideDto dto = new WideDto();
+            RowMapper.forColumns(WideDto.class, COLUMNS).map(rs, dto, false);
+            actual.add(dto);
+        }
+        long mapperNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+        System.out.printf("Mapping %d rows of %d columns: reflection %d ms, row mapper %d ms%n", ROWS,
+                COLUMNS.size(), TimeUnit.NANOSECONDS.toMillis(reflectionNanos),
+                TimeUnit.NANOSECONDS.toMillis(mapperNanos));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.frontend.xmlrpc.test;
+
+import static com.redhat.rhn.frontend.xmlrpc.test.HandlerDispatchTableTest.reflectionFind;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.redhat.rhn.domain.product.Tuple2;
+import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.domain.user.UserFactory;
+import com.redhat.rhn.frontend.xmlrpc.HandlerDispatchTable;
+import com.redhat.rhn.frontend.xmlrpc.system.SystemHandler;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookup of methods of the system handler, with its hundreds of overloads, by reflection and with a
+ * dispatch table. The number of calls is set with the benchmark.dispatch.calls property.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class HandlerDispatchTableBenchmark {
+
+    private static final int CALLS = Integer.getInteger("benchmark.dispatch.calls", 20_000);
+
+    @Test
+    public void benchmarkSystemHandler() throws Exception {
+        User user = UserFactory.createUser();
+        List<Tuple2<String, List<Object>>> calls = List.of(
+                new Tuple2<>("system.list_systems", List.of(user)),
+                new Tuple2<>("system.get_details", List.of(user, 1000010000)),
+                new Tuple2<>("system.get_details", List.of(user, 1000010000L)),
+                new Tuple2<>("system.schedule_apply_errata", List.of(user, 1000010000, List.of(1, 2), true)));
+
+        // like HandlerFactory does when registering the handlers, build the table before the calls
+        HandlerDispatchTable.forClass(SystemHandler.class);
+
+        long start = System.nanoTime();
+        List<Method> expected = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            Tuple2<String, List<Object>> call = calls.get(i % calls.size());
+            expected.add(reflectionFind(SystemHandler.class, call.getA(), call.getB()));
+        }
+        long reflectionNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Method> actual = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            Tuple2<String, List<Object>> call = calls.get(i % calls.size());
+            HandlerDispatchTable table = HandlerDispatchTable.forClass(SystemHandler.class);
+            actual.add(table.find(table.getMethodName(call.getA()), call.getB()).getA().getMethod());
+        }
+        long tableNanos = System.nanoTime() - start;
+
+        assertEquals(expected, actual);
+        System.out.printf("Dispatching %d calls to SystemHandler: reflection %d ms, dispatch table %d ms%n", CALLS,
+                TimeUnit.NANOSECONDS.toMillis(reflectionNanos), TimeUnit.NANOSECONDS.toMillis(tableNanos));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd.test;
+
+import static com.redhat.rhn.taskomatic.task.repomd.test.AsyncWriterTest.TYPES;
+import static com.redhat.rhn.taskomatic.task.repomd.test.AsyncWriterTest.createFiles;
+import static com.redhat.rhn.taskomatic.task.repomd.test.AsyncWriterTest.snippet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.redhat.rhn.taskomatic.task.repomd.AsyncWriter;
+import com.redhat.rhn.taskomatic.task.repomd.CompressingDigestOutputWriter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sequential generation of the metadata files of a synthetic channel, flushing every file after each
+ * package, with the pipelined one. The number of packages is set with the benchmark.repomd.packages property.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class AsyncWriterBenchmark {
+
+    private static final int PACKAGES = Integer.getInteger("benchmark.repomd.packages", 100_000);
+
+    @Test
+    public void benchmarkChannelMetadata() throws Exception {
+        CompressingDigestOutputWriter[] sequentialFiles = createFiles();
+        List<Writer> sequential = new ArrayList<>();
+        for (CompressingDigestOutputWriter file : sequentialFiles) {
+            sequential.add(new BufferedWriter(new OutputStreamWriter(file)));
+        }
+        long start = System.nanoTime();
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                sequential.get(t).write(snippet(TYPES[t], pkg));
+                sequentialFiles[t].flush();
+            }
+        }
+        for (Writer writer : sequential) {
+            writer.close();
+        }
+        long sequentialNanos = System.nanoTime() - start;
+
+        CompressingDigestOutputWriter[] pipelinedFiles = createFiles();
+        List<Writer> pipelined = new ArrayList<>();
+        for (int t = 0; t < TYPES.length; t++) {
+            pipelined.add(new AsyncWriter(new OutputStreamWriter(pipelinedFiles[t]), "benchmark-" + TYPES[t]));
+        }
+        start = System.nanoTime();
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                pipelined.get(t).write(snippet(TYPES[t], pkg));
+            }
+        }
+        for (Writer writer : pipelined) {
+            writer.close();
+        }
+        long pipelinedNanos = System.nanoTime() - start;
+
+        for (int t = 0; t < TYPES.length; t++) {
+            assertEquals(sequentialFiles[t].getUncompressedChecksum(), pipelinedFiles[t].getUncompressedChecksum());
+        }
+        System.out.printf("Metadata of %d packages: sequential %d ms, pipelined %d ms%n", PACKAGES,
+                TimeUnit.NANOSECONDS.toMillis(sequentialNanos), TimeUnit.NANOSECONDS.toMillis(pipelinedNanos));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor.test;
+
+import static com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.QUEUES;
+import static com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.assertOrdered;
+import static com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.replayWorkStealing;
+import static com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.skewedTrace;
+
+import com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.TraceEvent;
+import com.suse.manager.reactor.test.WorkStealingEventDispatcherTest.TraceEventSource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the time needed to drain a skewed Salt event trace with the per-queue executors and with the
+ * work-stealing dispatcher.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class WorkStealingEventDispatcherBenchmark {
+
+    private static long replayPerQueue(List<TraceEvent> trace, TraceEventSource source) throws Exception {
+        List<ExecutorService> executors = IntStream.range(0, QUEUES)
+                .mapToObj(i -> Executors.newSingleThreadExecutor())
+                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        trace.forEach(event -> executors.get(event.queue()).execute(() -> source.handle(event)));
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void benchmarkSkewedTrace() throws Exception {
+        List<TraceEvent> trace = skewedTrace();
+
+        TraceEventSource perQueueSource = new TraceEventSource(trace);
+        long perQueue = replayPerQueue(trace, perQueueSource);
+        assertOrdered(trace, perQueueSource);
+
+        TraceEventSource workStealingSource = new TraceEventSource(trace);
+        long workStealing = replayWorkStealing(workStealingSource);
+        assertOrdered(trace, workStealingSource);
+
+        System.out.printf("Skewed trace of %d events: per-queue executors %d ms, work-stealing %d ms%n",
+                trace.size(), TimeUnit.NANOSECONDS.toMillis(perQueue), TimeUnit.NANOSECONDS.toMillis(workStealing));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.suse.oval.test;
+
+import static com.suse.oval.test.OvalParserTest.generateFeed;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.redhat.rhn.testing.TestUtils;
+
+import com.suse.oval.OvalParser;
+import com.suse.oval.ovaltypes.OvalRootType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the live heap and wall time of the whole-document and streaming parsing of a large generated feed.
+ * The live heap is measured after a full GC, while the whole document is held in memory or, when streaming,
+ * halfway through the definitions. The number of definitions is set with the benchmark.oval.definitions property.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class OvalParserBenchmark {
+
+    private static final int DEFINITIONS = Integer.getInteger("benchmark.oval.definitions", 20_000);
+
+    private final OvalParser parser = new OvalParser();
+
+    private static long getLiveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Test
+    public void benchmarkStreaming(@TempDir Path tempDir) throws Exception {
+        File ovalFile = generateFeed(tempDir.resolve("oval-benchmark.xml"), DEFINITIONS, 20);
+
+        // warm up the JAXB context
+        parser.parse(TestUtils.findTestData("/com/redhat/rhn/manager/audit/test/oval/oval-def-1.xml"));
+
+        long baseline = getLiveHeap();
+        long start = System.nanoTime();
+        OvalRootType root = parser.parse(ovalFile);
+        long fullTime = System.nanoTime() - start;
+        long fullHeap = getLiveHeap() - baseline;
+        int fullCount = root.getDefinitions().size();
+        root = null;
+
+        baseline = getLiveHeap();
+        AtomicInteger streamedCount = new AtomicInteger();
+        AtomicLong streamingHeap = new AtomicLong();
+        start = System.nanoTime();
+        parser.parseDefinitions(ovalFile, definition -> {
+            if (streamedCount.incrementAndGet() == DEFINITIONS / 2) {
+                streamingHeap.set(getLiveHeap());
+            }
+        });
+        long streamingTime = System.nanoTime() - start;
+
+        assertEquals(DEFINITIONS, fullCount);
+        assertEquals(DEFINITIONS, streamedCount.get());
+        System.out.printf("OVAL feed of %d MB with %d definitions: whole document %d ms / %d MB live heap, " +
+                        "streaming %d ms (including one full GC) / %d MB live heap%n",
+                ovalFile.length() >> 20, DEFINITIONS,
+                TimeUnit.NANOSECONDS.toMillis(fullTime), fullHeap >> 20,
+                TimeUnit.NANOSECONDS.toMillis(streamingTime), (streamingHeap.get() - baseline) >> 20);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.suse.oval.test;
+
+import static com.suse.oval.test.SystemPackageIndexTest.isPatchedLinear;
+import static com.suse.oval.test.SystemPackageIndexTest.pkg;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.suse.oval.ShallowSystemPackage;
+import com.suse.oval.SystemPackageIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the audit of many systems for a few CVEs with linear scans of the installed packages and with a
+ * {@link SystemPackageIndex} per system. The number of systems is set with the benchmark.audit.systems property.
+ *
+ * Not part of the unit tests: run it with "ant -f manager-build.xml benchmark".
+ */
+public class SystemPackageIndexBenchmark {
+
+    private static final int SYSTEMS = Integer.getInteger("benchmark.audit.systems", 10_000);
+    private static final int PACKAGES_PER_SYSTEM = 3_000;
+    private static final int CVES = 3;
+    private static final int VULNERABLE_PACKAGES_PER_CVE = 8;
+
+    @Test
+    public void benchmarkAudit() {
+        // all the systems share the same package names, each system has its own versions
+        List<String> names = new ArrayList<>(PACKAGES_PER_SYSTEM);
+        for (int i = 0; i < PACKAGES_PER_SYSTEM; i++) {
+            names.add("package-" + i);
+        }
+        // vulnerable packages are spread over the whole list, the last one of each cve is not installed
+        List<List<String>> vulnerableByCve = new ArrayList<>();
+        for (int c = 0; c < CVES; c++) {
+            List<String> vulnerable = new ArrayList<>();
+            for (int v = 0; v < VULNERABLE_PACKAGES_PER_CVE - 1; v++) {
+                vulnerable.add(names.get((c * 997 + v * 373) % PACKAGES_PER_SYSTEM));
+            }
+            vulnerable.add("not-installed-" + c);
+            vulnerableByCve.add(vulnerable);
+        }
+        String fixVersion = "0:1.5-1";
+
+        long linearNanos = 0;
+        long indexNanos = 0;
+        long linearPatched = 0;
+        long indexPatched = 0;
+        for (int s = 0; s < SYSTEMS; s++) {
+            List<ShallowSystemPackage> installedPackages = new ArrayList<>(PACKAGES_PER_SYSTEM);
+            for (int i = 0; i < PACKAGES_PER_SYSTEM; i++) {
+                installedPackages.add(pkg(names.get(i), null, "1." + ((s + i) % 10), "1", "rpm"));
+            }
+
+            long start = System.nanoTime();
+            for (List<String> vulnerable : vulnerableByCve) {
+                linearPatched += vulnerable.stream()
+                        .filter(name -> isPatchedLinear(installedPackages, name, fixVersion))
+                        .count();
+            }
+            linearNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            SystemPackageIndex index = new SystemPackageIndex(installedPackages);
+            for (List<String> vulnerable : vulnerableByCve) {
+                indexPatched += vulnerable.stream()
+                        .filter(name -> !index.isInstalled(name) || index.isPatched(name, fixVersion))
+                        .count();
+            }
+            indexNanos += System.nanoTime() - start;
+        }
+
+        assertEquals(linearPatched, indexPatched);
+        System.out.printf("Audit of %d systems with %d packages for %d cves: linear scan %d ms, index %d ms%n",
+                SYSTEMS, PACKAGES_PER_SYSTEM, CVES, TimeUnit.NANOSECONDS.toMillis(linearNanos),
+                TimeUnit.NANOSECONDS.toMillis(indexNanos));
+    }
+}
@@ -22,13 +22,18 @@ import com.redhat.rhn.manager.content.ContentSyncManager;
 import com.suse.utils.CertificateUtils;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.Deflater;
 
 /**
  * ConfigDefaults is the place to store application specific Config settings
@@ -36,6 +41,8 @@ import java.util.Optional;
  */
 public class ConfigDefaults {
 
+    private static final Logger LOG = LogManager.getLogger(ConfigDefaults.class);
+
     private static ConfigDefaults instance = new ConfigDefaults();
 
     public static final List<String> SPACEWALK = Arrays.asList("Spacewalk", "Uyuni");
@@ -194,6 +201,8 @@ public class ConfigDefaults {
     private static final String REPORT_DB_PROTO = "reporting.hibernate.connection.driver_proto";
     public static final String REPORT_DB_BATCH_SIZE = "report_db_batch_size";
     public static final String REPORT_DB_HUB_WORKERS = "report_db_hub_workers";
+    public static final String REPORT_DB_HUB_DELTA_SYNC = "report_db_hub_delta_sync";
+    public static final String REPORT_DB_UPDATE_THREADS = "report_db_update_threads";
 
     public static final String LOOKUP_EXCEPT_SEND_EMAIL = "lookup_exception_email";
 
@@ -220,6 +229,8 @@ public class ConfigDefaults {
      * Taskomatic defaults
      */
     private static final String TASKOMATIC_CHANNEL_REPODATA_WORKERS = "java.taskomatic_channel_repodata_workers";
+    private static final String REPOMD_COMPRESSION_LEVEL = "java.repomd_compression_level";
+    private static final String REPOMD_INCREMENTAL = "java.repomd_incremental";
 
     /**
      * HTTP proxy defaults
@@ -242,8 +253,50 @@ public class ConfigDefaults {
 
     public static final String MESSAGE_QUEUE_THREAD_POOL_SIZE = "java.message_queue_thread_pool_size";
 
+    /**
+     * If true, concurrent message queue actions are executed in virtual threads (if supported by the JVM)
+     */
+    public static final String MESSAGE_QUEUE_VIRTUAL_THREADS = "java.message_queue_virtual_threads";
+
+    /**
+     * Maximum number of concurrently running actions per event type, as a comma separated list of
+     * EventMessageClassName:limit pairs
+     */
+    public static final String MESSAGE_QUEUE_CONCURRENCY_LIMITS = "java.message_queue_concurrency_limits";
+
     public static final String CVE_AUDIT_ENABLE_OVAL_METADATA = "java.cve_audit.enable_oval_metadata";
 
+    /**
+     * Number of products whose OVAL data is downloaded and extracted in parallel during the OVAL synchronization
+     */
+    public static final String CVE_AUDIT_OVAL_SYNC_THREADS = "java.cve_audit.oval_sync_threads";
+
+    /**
+     * Whether CVE audit queries read the precomputed CVE exposure of the systems
+     */
+    public static final String CVE_AUDIT_PRECOMPUTED_EXPOSURE = "java.cve_audit.precomputed_exposure";
+
+    /**
+     * How long, in seconds, the RBAC access decisions of the users are cached
+     */
+    public static final String RBAC_CACHE_TTL = "java.rbac_cache_ttl";
+
+    /**
+     * Maximum cost of the HTTP API calls of a user per minute, 0 disables the limit
+     */
+    public static final String API_RATE_LIMIT = "java.api_rate_limit";
+
+    /**
+     * Cost of the HTTP API methods, as a comma separated list of namespace.method:cost pairs. The other methods
+     * cost 1.
+     */
+    public static final String API_RATE_LIMIT_COSTS = "java.api_rate_limit_costs";
+
+    /**
+     * Whether the channels of a Content Lifecycle Management environment are aligned in parallel
+     */
+    public static final String CLM_PARALLEL_ALIGN = "java.clm_parallel_align";
+
     /**
      * Token lifetime in seconds
      */
@@ -309,6 +362,11 @@ public class ConfigDefaults {
      */
     public static final String SALT_EVENT_THREAD_POOL_SIZE = "java.salt_event_thread_pool_size";
 
+    /**
+     * If true, Salt events are dispatched to a pool of work-stealing workers instead of one thread per queue.
+     */
+    public static final String SALT_EVENT_WORK_STEALING = "java.salt_event_work_stealing";
+
     /**
      * Timeout in seconds of the presence ping performed in Salt Minions during salt batch calls
      */
@@ -335,6 +393,18 @@ public class ConfigDefaults {
      */
     public static final String SALT_BATCH_DELAY = "java.salt_batch_delay";
 
+    /**
+     * Number of connections to the Salt API used by the calls which wait for the minions to run a job, like state
+     * applies. When they are all in use, the next calls of this kind wait for a free connection.
+     */
+    public static final String SALT_API_JOB_CONNECTIONS = "java.salt_api_job_connections";
+
+    /**
+     * Number of connections to the Salt API reserved for short control calls, like pings, key management and
+     * target matching, so that long running jobs cannot starve them.
+     */
+    public static final String SALT_API_CONTROL_CONNECTIONS = "java.salt_api_control_connections";
+
     /**
      * Maximum number of events processed before COMMITTing to the database. Raising this to any value above 1 will
      * decrease reliability, as failures will result in the loss of more events, but can improve performance in
@@ -342,6 +412,17 @@ public class ConfigDefaults {
      */
     public static final String SALT_EVENTS_PER_COMMIT = "java.salt_events_per_commit";
 
+    /**
+     * If true, Salt events are consumed in batches: a whole window of events is popped at once, redundant events
+     * of the same minion are coalesced and listeners are notified with the whole batch.
+     */
+    public static final String SALT_EVENTS_BATCH_MODE = "java.salt_events_batch_mode";
+
+    /**
+     * Maximum number of events popped from a queue in a single batch when java.salt_events_batch_mode is enabled.
+     */
+    public static final String SALT_EVENTS_BATCH_SIZE = "java.salt_events_batch_size";
+
     /**
      * Single Sign-On associated config option name in rhn.conf
      */
@@ -929,6 +1010,33 @@ public class ConfigDefaults {
         return Config.get().getInt(TASKOMATIC_CHANNEL_REPODATA_WORKERS, 1);
     }
 
+    /**
+     * Returns true if the package metadata files of the channels are generated incrementally, reusing the compressed
+     * segments of the previous files whose packages did not change.
+     *
+     * @return true if the repository metadata is generated incrementally
+     */
+    public boolean isRepomdIncremental() {
+        return Config.get().getBoolean(REPOMD_INCREMENTAL, false);
+    }
+
+    /**
+     * Returns the gzip compression level of a repository metadata file. The level of each file can be set with
+     * {@code java.repomd_compression_level.<file>}, falling back to {@code java.repomd_compression_level}.
+     *
+     * @param metadataType the metadata file, e.g. "primary", "filelists", "other", "susedata" or "updateinfo"
+     * @return the compression level, from 0 to 9, or -1 for the default level of gzip
+     */
+    public int getRepomdCompressionLevel(String metadataType) {
+        int level = Config.get().getInt(REPOMD_COMPRESSION_LEVEL + "." + metadataType,
+                Config.get().getInt(REPOMD_COMPRESSION_LEVEL, Deflater.DEFAULT_COMPRESSION));
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            LOG.warn("Invalid compression level {} for {}, using the default level", level, metadataType);
+            return Deflater.DEFAULT_COMPRESSION;
+        }
+        return level;
+    }
+
     /**
      * Gets the proxy host.
      * @return the proxy host
@@ -1049,6 +1157,20 @@ public class ConfigDefaults {
         return Config.get().getFloat(SALT_BATCH_DELAY, 1);
     }
 
+    /**
+     * @return the number of connections to the Salt API for the calls waiting for minion jobs
+     */
+    public int getSaltApiJobConnections() {
+        return Math.max(1, Config.get().getInt(SALT_API_JOB_CONNECTIONS, 20));
+    }
+
+    /**
+     * @return the number of connections to the Salt API for the short control calls
+     */
+    public int getSaltApiControlConnections() {
+        return Math.max(1, Config.get().getInt(SALT_API_CONTROL_CONNECTIONS, 10));
+    }
+
     /**
      * Returns true if Prometheus monitoring is enabled
      * @return true if Prometheus monitoring is enabled
@@ -1102,6 +1224,61 @@ public class ConfigDefaults {
         return Config.get().getInt(SALT_EVENT_THREAD_POOL_SIZE, 8);
     }
 
+    /**
+     * Returns true if concurrent message queue actions should be executed in virtual threads.
+     * @return true if virtual threads are enabled for the message queue
+     */
+    public boolean isMessageQueueVirtualThreads() {
+        return Config.get().getBoolean(MESSAGE_QUEUE_VIRTUAL_THREADS, false);
+    }
+
+    /**
+     * Returns the maximum number of concurrently running message queue actions per event type.
+     * Event types without an explicit limit use message_queue_thread_pool_size.
+     * @return map of event message simple class names to their limit
+     */
+    public Map<String, Integer> getMessageQueueConcurrencyLimits() {
+        return getIntegerMap(MESSAGE_QUEUE_CONCURRENCY_LIMITS, "message queue concurrency limit");
+    }
+
+    /**
+     * Parses a list of name:value entries with integer values, ignoring the invalid ones with a warning
+     * @param key the configuration key of the list
+     * @param description what the values are, for the warnings
+     * @return map of the names to their values
+     */
+    private Map<String, Integer> getIntegerMap(String key, String description) {
+        Map<String, Integer> values = new HashMap<>();
+        for (String entry : Config.get().getList(key)) {
+            if (StringUtils.isBlank(entry)) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                LOG.warn("Ignoring invalid {}: {}", description, entry);
+                continue;
+            }
+            try {
+                values.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            }
+            catch (NumberFormatException e) {
+                LOG.warn("Ignoring invalid {}: {}", description, entry);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns true if Salt events should be dispatched to work-stealing workers.
+     * Workers process the events of one minion at a time, preferring the minions of their own queue and taking
+     * over the minions of other queues when idle. The number of workers is salt_event_thread_pool_size, read
+     * at startup.
+     * @return true if work-stealing is enabled
+     */
+    public boolean isSaltEventWorkStealing() {
+        return Config.get().getBoolean(SALT_EVENT_WORK_STEALING, false);
+    }
+
     /**
      * Maximum number of events processed before COMMITTing to the database.
      * Each thread in the pool as defined by salt_event_thread_pool_size will process up to salt_events_per_commit
@@ -1116,6 +1293,26 @@ public class ConfigDefaults {
         return Config.get().getInt(SALT_EVENTS_PER_COMMIT, 1);
     }
 
+    /**
+     * Returns true if Salt events should be consumed in batches.
+     * In batch mode each queue pops up to salt_events_batch_size events in one round-trip, coalesces
+     * redundant events of the same minion and processes the whole window in a single transaction.
+     *
+     * As with salt_events_per_commit, a failure will result in the loss of the whole batch.
+     * @return true if batch mode is enabled
+     */
+    public boolean isSaltEventsBatchMode() {
+        return Config.get().getBoolean(SALT_EVENTS_BATCH_MODE, false);
+    }
+
+    /**
+     * Maximum number of events popped and processed as a single batch when batch mode is enabled.
+     * @return the number of events per batch
+     */
+    public int getSaltEventsBatchSize() {
+        return Config.get().getInt(SALT_EVENTS_BATCH_SIZE, 500);
+    }
+
 
     /**
      * Returns the notifications type disabled.
@@ -1243,6 +1440,63 @@ public class ConfigDefaults {
         return Config.get().getBoolean(CVE_AUDIT_ENABLE_OVAL_METADATA, false);
     }
 
+    /**
+     * Returns the number of products whose OVAL data is downloaded and extracted in parallel during the OVAL
+     * synchronization. Loading into the database is done one product at a time.
+     *
+     * @return the number of OVAL synchronization threads
+     * */
+    public int getOvalSyncThreads() {
+        return Math.max(1, Config.get().getInt(CVE_AUDIT_OVAL_SYNC_THREADS, 4));
+    }
+
+    /**
+     * Returns true if the CVE audit of the systems reads the precomputed exposure table instead of evaluating the
+     * patch status of all the systems on every query.
+     *
+     * @return true if the precomputed CVE exposure is used
+     */
+    public boolean isCveAuditPrecomputedExposure() {
+        return Config.get().getBoolean(CVE_AUDIT_PRECOMPUTED_EXPOSURE, false);
+    }
+
+    /**
+     * Returns how long the RBAC access decisions of the users are cached, in seconds. The decisions are also
+     * invalidated when the roles, access groups or namespaces change, so this only bounds how long a change made
+     * outside of this process, like a direct change in the database, takes to apply.
+     *
+     * @return the time to live of the cached access decisions in seconds, 0 to disable the cache
+     */
+    public int getRbacCacheTtl() {
+        return Math.max(0, Config.get().getInt(RBAC_CACHE_TTL, 300));
+    }
+
+    /**
+     * Returns the maximum cost of the HTTP API calls of a user per minute
+     * @return the maximum cost per minute, 0 if the calls are not limited
+     */
+    public int getApiRateLimit() {
+        return Math.max(0, Config.get().getInt(API_RATE_LIMIT, 0));
+    }
+
+    /**
+     * Returns the cost of the HTTP API methods which do not cost 1
+     * @return map of namespace.method names to their cost
+     */
+    public Map<String, Integer> getApiRateLimitCosts() {
+        Map<String, Integer> costs = getIntegerMap(API_RATE_LIMIT_COSTS, "API rate limit cost");
+        costs.replaceAll((method, cost) -> Math.max(1, cost));
+        return costs;
+    }
+
+    /**
+     * Returns true if the channels of a Content Lifecycle Management environment are aligned in parallel
+     * @return true if the channels are aligned in parallel
+     */
+    public boolean isClmParallelAlign() {
+        return Config.get().getBoolean(CLM_PARALLEL_ALIGN);
+    }
+
     /**
      * Return the url to download advisory-map.csv, the map of errata patch id, announcement id and advisory URL
      *
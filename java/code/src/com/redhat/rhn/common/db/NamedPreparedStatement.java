@@ -17,13 +17,17 @@ package com.redhat.rhn.common.db;
 import com.redhat.rhn.common.db.datasource.DataResult;
 import com.redhat.rhn.common.translation.SqlExceptionTranslator;
 
+import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Our own preparedStatement class.  RHN wants to use named bind variables,
@@ -188,8 +192,7 @@ public final class NamedPreparedStatement {
             while (positions.hasNext()) {
                 Integer pos = positions.next();
                 try {
-                    Object value = map.get(name);
-                    ps.setObject(pos, value);
+                    setVar(ps, pos, map.get(name));
                 }
                 catch (SQLException e) {
                     throw SqlExceptionTranslator.sqlException(e);
@@ -198,6 +201,45 @@ public final class NamedPreparedStatement {
         }
     }
 
+    /* Collections are bound as a single array, so that a whole list can be
+     * passed to a query as "column = ANY(:list)" and the statement stays the
+     * same whatever the size of the list.
+     */
+    private static void setVar(PreparedStatement ps, int pos, Object value)
+        throws SQLException {
+        if (value instanceof Collection<?> values) {
+            if (values.isEmpty()) {
+                // let the database infer the array type from the query
+                ps.setObject(pos, "{}", Types.OTHER);
+            }
+            else {
+                ps.setArray(pos, ps.getConnection().createArrayOf(getArrayType(values),
+                        values.toArray()));
+            }
+        }
+        else {
+            ps.setObject(pos, value);
+        }
+    }
+
+    private static String getArrayType(Collection<?> values) {
+        Object first = values.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        if (first instanceof Long || first instanceof Integer || first instanceof Short) {
+            return "int8";
+        }
+        else if (first instanceof BigDecimal) {
+            return "numeric";
+        }
+        else if (first instanceof Boolean) {
+            return "bool";
+        }
+        else if (first instanceof String || first == null) {
+            return "varchar";
+        }
+        throw new IllegalArgumentException("Cannot bind a collection of " +
+                first.getClass().getName());
+    }
+
     private static void setOutputVars(CallableStatement cs,
             Map<String, List<Integer>> parameterMap, Map<String, Integer> map) {
 
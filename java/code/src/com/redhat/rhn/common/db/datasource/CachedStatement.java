@@ -20,7 +20,6 @@ import com.redhat.rhn.common.db.NamedPreparedStatement;
 import com.redhat.rhn.common.hibernate.HibernateHelper;
 import com.redhat.rhn.common.hibernate.HibernateRuntimeException;
 import com.redhat.rhn.common.translation.SqlExceptionTranslator;
-import com.redhat.rhn.common.util.MethodUtil;
 import com.redhat.rhn.common.util.StringUtil;
 
 import org.apache.logging.log4j.LogManager;
@@ -30,6 +29,7 @@ import org.hibernate.Session;
 import org.hibernate.jdbc.ReturningWork;
 
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
@@ -41,12 +41,16 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.persistence.FlushModeType;
 
@@ -67,7 +71,8 @@ public class CachedStatement implements Serializable {
 
     /**
      * The size above which queries are split into multiple queries, each of
-     * this size.
+     * this size. This only applies to the "%s" in clauses: collections bound
+     * to named parameters are passed as a single array.
      */
     public static final int BATCH_SIZE = 500;
 
@@ -281,6 +286,145 @@ public class CachedStatement implements Serializable {
         return internalExecute(parameters, inClause, mode);
     }
 
+    /**
+     * Executes the query and returns a stream reading its results while it is consumed. The results are fetched
+     * from the database in batches of the given size, and the elaborators of the mode are run on each chunk of
+     * BATCH_SIZE rows.
+     * The stream keeps a cursor open on the connection of the session: it must be closed, and consumed before the
+     * transaction ends.
+     * @param parameters the query parameters
+     * @param mode the mode of the query
+     * @param fetchSize the number of rows to fetch at once
+     * @param <T> the type of the returned items
+     * @return the stream of results
+     */
+    <T> Stream<T> stream(Map<String, ?> parameters, SelectMode mode, int fetchSize) {
+        this.sqlStatement = NamedPreparedStatement.replaceBindParams(sqlStatement, qMap);
+        if (sqlStatement.contains("%s")) {
+            // like execute(), an in clause query without in clause has no results
+            return Stream.empty();
+        }
+
+        PreparedStatement ps = doWithStolenConnection(connection -> {
+            if (log.isDebugEnabled()) {
+                log.debug("stream() - Executing: {}", sqlStatement);
+                log.debug("stream() - With: {}", parameters);
+            }
+            PreparedStatement statement = prepareStatement(connection, sqlStatement, mode);
+            try {
+                statement.setFetchSize(fetchSize);
+                NamedPreparedStatement.execute(statement, qMap, setupParamMap(parameters));
+                return statement;
+            }
+            catch (SQLException e) {
+                HibernateHelper.cleanupDB(statement);
+                throw SqlExceptionTranslator.sqlException(e);
+            }
+            catch (RuntimeException e) {
+                HibernateHelper.cleanupDB(statement);
+                throw e;
+            }
+        });
+
+        try {
+            ResultSetSpliterator<T> rows = new ResultSetSpliterator<>(ps.getResultSet(), mode, parameters);
+            return StreamSupport.stream(rows, false)
+                    .onClose(() -> HibernateHelper.cleanupDB(rows.rs, ps));
+        }
+        catch (SQLException e) {
+            HibernateHelper.cleanupDB(ps);
+            throw SqlExceptionTranslator.sqlException(e);
+        }
+    }
+
+    /**
+     * Reads the rows of a result set, elaborating them by chunks.
+     */
+    private class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet rs;
+        private final SelectMode mode;
+        private final Map<String, ?> parameters;
+        private final List<String> columns;
+        private final Constructor<?> constructor;
+        private final RowMapper mapper;
+        private final List<T> chunk = new ArrayList<>();
+        private Iterator<T> chunkIterator = chunk.iterator();
+        private boolean exhausted;
+
+        ResultSetSpliterator(ResultSet rsIn, SelectMode modeIn, Map<String, ?> parametersIn) throws SQLException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            rs = rsIn;
+            mode = modeIn;
+            parameters = parametersIn;
+            columns = getColumnNames(rs.getMetaData());
+
+            String className = mode.getClassString();
+            if (className == null || className.equals("java.util.Map")) {
+                constructor = null;
+                mapper = null;
+            }
+            else {
+                try {
+                    Class<?> clazz = Class.forName(className);
+                    constructor = clazz.getDeclaredConstructor();
+                    mapper = RowMapper.forColumns(clazz, columns);
+                }
+                catch (ClassNotFoundException | NoSuchMethodException e) {
+                    throw new ObjectCreateWrapperException("Could not create " + className, e);
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!chunkIterator.hasNext()) {
+                if (exhausted) {
+                    return false;
+                }
+                readChunk();
+                if (!chunkIterator.hasNext()) {
+                    return false;
+                }
+            }
+            action.accept(chunkIterator.next());
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readChunk() {
+            chunk.clear();
+            try {
+                while (chunk.size() < BATCH_SIZE) {
+                    if (!rs.next()) {
+                        exhausted = true;
+                        break;
+                    }
+                    if (mapper == null) {
+                        Row row = new Row();
+                        addToMap(columns, rs, row, -1);
+                        chunk.add((T) row);
+                    }
+                    else {
+                        Object obj = constructor.newInstance();
+                        mapper.map(rs, obj, false);
+                        chunk.add((T) obj);
+                    }
+                }
+            }
+            catch (SQLException e) {
+                throw SqlExceptionTranslator.sqlException(e);
+            }
+            catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+                throw new ObjectCreateWrapperException("Could not create " + mode.getClassString(), e);
+            }
+
+            if (!chunk.isEmpty() && !mode.getElaborators().isEmpty()) {
+                mode.elaborate(chunk, parameters);
+            }
+            chunkIterator = chunk.iterator();
+        }
+    }
+
     private Integer internalExecuteUpdateNoSubClause(Map<String, ?> parameters, Mode mode) {
         Object resultObj = executeChecking(sqlStatement, qMap, parameters, mode, null);
         if (resultObj instanceof Integer integer) {
@@ -631,6 +775,8 @@ public class CachedStatement implements Serializable {
             dr = new DataResult<>(mode);
         }
         String className = mode.getClassString();
+        Constructor<?> constructor = null;
+        RowMapper mapper = null;
         try {
             // Get the column names from the result set.
             List<String> columns = getColumnNames(rs.getMetaData());
@@ -676,10 +822,12 @@ public class CachedStatement implements Serializable {
                  * Otherwise, try to set the results to the class given.
                  */
                 else {
-                    Class<?> clazz = Class.forName(className);
                     Object obj;
                     if (pointers == null) {
-                        obj = clazz.getDeclaredConstructor().newInstance();
+                        if (constructor == null) {
+                            constructor = Class.forName(className).getDeclaredConstructor();
+                        }
+                        obj = constructor.newInstance();
                     }
                     else {
                         Integer pos = pointers.get(getObject(rs, getColumn()));
@@ -691,7 +839,10 @@ public class CachedStatement implements Serializable {
                         obj = currentResults.get(pos);
                     }
                     // if pointers are null, we are doing an elaborator.
-                    addToObject(columns, rs, obj, (pointers != null));
+                    if (mapper == null || !mapper.getType().equals(obj.getClass())) {
+                        mapper = RowMapper.forColumns(obj.getClass(), columns);
+                    }
+                    mapper.map(rs, obj, (pointers != null));
                     // bug 141664: Don't add to the DataResult if we are
                     // elaborating the data.
                     if (pointers == null) {
@@ -768,70 +919,6 @@ public class CachedStatement implements Serializable {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void addToObject(List<String> columns, ResultSet rs, Object obj,
-            boolean elaborator)
-        throws SQLException {
-
-        List<String> columnSkip;
-        if (elaborator && obj instanceof RowCallback cb) {
-            cb.callback(rs);
-            columnSkip = cb.getCallBackColumns();
-        }
-        else {
-            columnSkip = new ArrayList<>();
-        }
-
-        for (String columnName : columns) {
-            if (columnSkip.contains(columnName.toLowerCase())) {
-                continue;
-            }
-
-            String setName = StringUtil.beanify("set " + columnName.toLowerCase());
-            String getName = StringUtil.beanify("get " + columnName.toLowerCase());
-
-            boolean isList = false;
-            Method[] methods = obj.getClass().getMethods();
-            /*
-             * Now loop through the methods and find the set method for this
-             * column then decide if it takes a collection Note: This action
-             * might not complete correctly if there are two set methods with
-             * the same name
-             */
-            for (Method methodIn : methods) {
-                // getName() gets the name of the set method
-                // setName is the name of the set method
-                if (methodIn.getName().equals(setName)) {
-                    Class<?> paramType = methodIn.getParameterTypes()[0];
-                    if (Collection.class.isAssignableFrom(paramType)) {
-                        isList = true;
-                    }
-                    break;
-                }
-            }
-
-            if (isList) { // requires matching get method returning the same
-                // list
-                Collection<Object> c = (Collection<Object>) MethodUtil.callMethod(obj,
-                        getName);
-                if (c == null) {
-                    c = new ArrayList<>();
-                }
-                c.add(getObject(rs, columnName));
-                MethodUtil.callMethod(obj, setName, c);
-                continue;
-            }
-            /*
-             * Just call the set method. This will call the same set method
-             * multiple times. If the result set should be a list, but has a
-             * non-Collection set method, the attribute corresponding to this
-             * column will ultimately contain the last item found for this
-             * column.
-             */
-            MethodUtil.callMethod(obj, setName, getObject(rs, columnName));
-        } // while
-    }
-
     /**
      * Basically a wrapper to rs.getObject, except that it returns a timestamp
      * if the column returned is a date, a Long if the column returned is a
@@ -845,29 +932,7 @@ public class CachedStatement implements Serializable {
      * @throws SQLException if rs.getObject/rs.getTimestamp raise an exception.
      */
     private Object getObject(ResultSet rs, String columnName) throws SQLException {
-        Object columnValue = rs.getObject(columnName);
-        if (columnValue == null) {
-            return null;
-        }
-
-        // Workaround for problem where the JDBC driver returns a
-        // java.sql.Date that often times will not deliver time
-        // precision beyond 12:00AM Midnight so you get dates like
-        // this : August 23, 2005 12:00:00 AM PDT
-        // vs the real date: August 23, 2005 1:36:12 PM PDT
-        if (columnValue instanceof Date ||
-                ("oracle.sql.TIMESTAMPLTZ"
-                     .equals(columnValue.getClass().getCanonicalName())) ||
-                ("oracle.sql.TIMESTAMP"
-                     .equals(columnValue.getClass().getCanonicalName())) ||
-                ("oracle.sql.TIMESTAMPTZ"
-                     .equals(columnValue.getClass().getCanonicalName()))) {
-            return rs.getTimestamp(columnName);
-        }
-        else if (columnValue instanceof BigDecimal) {
-            return rs.getLong(columnName);
-        }
-        return columnValue;
+        return RowMapper.getObject(rs, rs.findColumn(columnName));
     }
 
     private List<String> getColumnNames(ResultSetMetaData rsmd) {
@@ -905,7 +970,7 @@ public class CachedStatement implements Serializable {
         if (obj instanceof Map) {
             return ((Map<String, Object>) obj).get(key);
         }
-        return MethodUtil.callMethod(obj, StringUtil.beanify("get " + key));
+        return RowMapper.get(obj, StringUtil.beanify("get " + key));
     }
 
     private Map<Object, Integer> generatePointers(List<Object> dr, String key) {
@@ -921,8 +986,7 @@ public class CachedStatement implements Serializable {
                 pointers.put(r.get(key), pos);
             }
             else {
-                Object keyData = MethodUtil.callMethod(row,
-                        StringUtil.beanify("get " + key));
+                Object keyData = RowMapper.get(row, StringUtil.beanify("get " + key));
                 pointers.put(keyData, pos);
             }
             pos++;
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.common.db.datasource;
+
+import com.redhat.rhn.common.MethodInvocationException;
+import com.redhat.rhn.common.translation.TranslationException;
+import com.redhat.rhn.common.translation.Translator;
+import com.redhat.rhn.common.util.MethodUtil;
+import com.redhat.rhn.common.util.StringUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sets the columns of the rows of a result set on objects of a class, calling the setter named after each column.
+ * <p>
+ * A mapper resolves the setters of a class and a list of columns once, and is shared by all the queries returning
+ * these columns. Each value is then passed to the first setter accepting it, directly or after a conversion by the
+ * {@link Translator}, in the same order as {@link MethodUtil#callMethod(Object, String, Object...)} would. A setter
+ * taking a collection adds the value to the collection returned by the matching getter.
+ */
+public class RowMapper {
+
+    private static final ClassValue<Map<List<String>, RowMapper>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected Map<List<String>, RowMapper> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<String, Optional<MethodHandle>>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> type;
+    private final List<ColumnSetter> setters;
+
+    /**
+     * A setter accepting a single parameter
+     */
+    private static class Setter {
+        private final Class<?> parameterType;
+        private final MethodHandle handle;
+        private final Map<Class<?>, Optional<Method>> translators = new ConcurrentHashMap<>();
+
+        Setter(Method method) {
+            parameterType = method.getParameterTypes()[0];
+            handle = unreflect(method, SETTER_TYPE);
+        }
+
+        /**
+         * Converts a value to the parameter type of this setter, as {@link Translator#convert(Object, Class)} does
+         * @return the converted value, or empty if it cannot be converted
+         */
+        Optional<Object> convert(Object value) {
+            if (value == null) {
+                // like in MethodUtil, this fails for primitives
+                return Optional.of(Translator.convert(null, parameterType));
+            }
+            Optional<Method> translator = translators.computeIfAbsent(value.getClass(),
+                    c -> Optional.ofNullable(Translator.findTranslator(c, parameterType)));
+            if (translator.isEmpty()) {
+                return Optional.empty();
+            }
+            try {
+                Object converted = translator.get().invoke(null, value);
+                if (converted != null) {
+                    return Optional.of(converted);
+                }
+            }
+            catch (IllegalAccessException | InvocationTargetException e) {
+                return Optional.empty();
+            }
+
+            // the translator refused the value: look for another one the usual way
+            try {
+                return Optional.of(Translator.convert(value, parameterType));
+            }
+            catch (TranslationException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * The setters of a column
+     */
+    private static class ColumnSetter {
+        private final String column;
+        private final int index;
+        private final String setName;
+        private final String getName;
+        private final List<Setter> candidates = new ArrayList<>();
+        private final boolean collection;
+
+        ColumnSetter(Class<?> clazz, String columnIn, int indexIn) {
+            column = columnIn;
+            index = indexIn;
+            setName = StringUtil.beanify("set " + column);
+            getName = StringUtil.beanify("get " + column);
+
+            Boolean isCollection = null;
+            for (Method method : clazz.getMethods()) {
+                if (!method.getName().equals(setName)) {
+                    continue;
+                }
+                if (isCollection == null) {
+                    // only the first setter decides if the column is a collection
+                    isCollection = method.getParameterCount() > 0 &&
+                            Collection.class.isAssignableFrom(method.getParameterTypes()[0]);
+                }
+                if (method.getParameterCount() == 1) {
+                    candidates.add(new Setter(method));
+                }
+            }
+            collection = Boolean.TRUE.equals(isCollection);
+        }
+
+        @SuppressWarnings("unchecked")
+        void set(Object obj, Object value) {
+            if (collection) {
+                Collection<Object> c = (Collection<Object>) get(obj, getName);
+                if (c == null) {
+                    c = new ArrayList<>();
+                }
+                c.add(value);
+                value = c;
+            }
+
+            for (Setter setter : candidates) {
+                if (setter.handle == null) {
+                    break;
+                }
+                if ((value == null && !setter.parameterType.isPrimitive()) || setter.parameterType.isInstance(value)) {
+                    invoke(setter, obj, value);
+                    return;
+                }
+                Optional<Object> converted = setter.convert(value);
+                if (converted.isPresent()) {
+                    invoke(setter, obj, converted.get());
+                    return;
+                }
+            }
+
+            // no accessible setter takes the value: let MethodUtil report it
+            MethodUtil.callMethod(obj, setName, value);
+        }
+
+        private void invoke(Setter setter, Object obj, Object value) {
+            try {
+                setter.handle.invokeExact(obj, value);
+            }
+            catch (Throwable e) {
+                throw new MethodInvocationException("Something bad happened when calling " + setName, e);
+            }
+        }
+    }
+
+    private RowMapper(Class<?> clazz, List<String> columns) {
+        type = clazz;
+        setters = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            // like ResultSet.getObject(String), a name always refers to its first column
+            setters.add(new ColumnSetter(clazz, columns.get(i), columns.indexOf(columns.get(i)) + 1));
+        }
+    }
+
+    /**
+     * Returns the mapper of the given columns to objects of the given class
+     * @param clazz the class of the objects
+     * @param columns the lower case column names of the result set, in order
+     * @return the mapper
+     */
+    public static RowMapper forColumns(Class<?> clazz, List<String> columns) {
+        return MAPPERS.get(clazz).computeIfAbsent(List.copyOf(columns), c -> new RowMapper(clazz, c));
+    }
+
+    /**
+     * @return the class of the objects this mapper sets
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Sets the values of the current row of a result set on an object. If the object is elaborated and is a
+     * {@link RowCallback}, the callback is called first and the columns it handles are skipped.
+     * @param rs the result set
+     * @param obj the object
+     * @param elaborator whether the result set comes from an elaborator
+     * @throws SQLException if a value cannot be read
+     */
+    public void map(ResultSet rs, Object obj, boolean elaborator) throws SQLException {
+        List<String> columnSkip = null;
+        if (elaborator && obj instanceof RowCallback cb) {
+            cb.callback(rs);
+            columnSkip = cb.getCallBackColumns();
+        }
+
+        for (ColumnSetter setter : setters) {
+            if (columnSkip != null && columnSkip.contains(setter.column)) {
+                continue;
+            }
+            setter.set(obj, getObject(rs, setter.index));
+        }
+    }
+
+    /**
+     * Calls the getter of a property, as {@link MethodUtil#callMethod(Object, String, Object...)} would
+     * @param obj the object
+     * @param getName the name of the getter
+     * @return the value of the property
+     */
+    static Object get(Object obj, String getName) {
+        Optional<MethodHandle> getter = GETTERS.get(obj.getClass()).computeIfAbsent(getName, name -> {
+            for (Method method : obj.getClass().getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 0) {
+                    return Optional.ofNullable(unreflect(method, GETTER_TYPE));
+                }
+            }
+            return Optional.empty();
+        });
+        if (getter.isEmpty()) {
+            return MethodUtil.callMethod(obj, getName);
+        }
+        try {
+            return getter.get().invokeExact(obj);
+        }
+        catch (Throwable e) {
+            throw new MethodInvocationException("Something bad happened when calling " + getName, e);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method, MethodType type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        }
+        catch (IllegalAccessException e) {
+            // the calls fall back to MethodUtil, which reports the error
+            return null;
+        }
+    }
+
+    /**
+     * Basically a wrapper to rs.getObject, except that it returns a timestamp
+     * if the column returned is a date, a Long if the column returned is a
+     * BigDecimal OR just the object otherwise.
+     * @param rs the sql result set
+     * @param index the index of the column to be returned
+     * @return the timestamp if rs.getObject is a date, the Long if rs.getObject
+     * is a BigDecimal, or just rs.getObject otherwise.
+     * @throws SQLException if rs.getObject/rs.getTimestamp raise an exception.
+     */
+    static Object getObject(ResultSet rs, int index) throws SQLException {
+        Object columnValue = rs.getObject(index);
+        if (columnValue == null) {
+            return null;
+        }
+
+        // Workaround for problem where the JDBC driver returns a
+        // java.sql.Date that often times will not deliver time
+        // precision beyond 12:00AM Midnight
+        if (columnValue instanceof Date ||
+                ("oracle.sql.TIMESTAMPLTZ"
+                     .equals(columnValue.getClass().getCanonicalName())) ||
+                ("oracle.sql.TIMESTAMP"
+                     .equals(columnValue.getClass().getCanonicalName())) ||
+                ("oracle.sql.TIMESTAMPTZ"
+                     .equals(columnValue.getClass().getCanonicalName()))) {
+            return rs.getTimestamp(index);
+        }
+        else if (columnValue instanceof BigDecimal) {
+            return rs.getLong(index);
+        }
+        return columnValue;
+    }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * A cached set of query/elaborator strings and the parameterMap hash maps.
@@ -28,6 +29,11 @@ import java.util.Map;
  */
 public class SelectMode extends BaseMode implements Serializable {
 
+    /**
+     * Default number of rows fetched at once by stream()
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private String clazz;
     private List<CachedStatement> elaborators = new ArrayList<>();
     private int maxRows;
@@ -106,6 +112,34 @@ public class SelectMode extends BaseMode implements Serializable {
         return getQuery().execute(parameters, this);
     }
 
+    /**
+     * Executes the query and returns a stream of its results, read from the
+     * database while the stream is consumed, DEFAULT_FETCH_SIZE rows at a time.
+     * @param parameters named parameters for the Query.
+     * @param <T> the type of the returned items
+     * @return Stream of the query results, to be closed after use.
+     * @see #stream(Map, int)
+     */
+    public <T> Stream<T> stream(Map<String, ?> parameters) {
+        return stream(parameters, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Executes the query and returns a stream of its results, read from the
+     * database while the stream is consumed. Unlike execute(), the results are
+     * never all in memory: the elaborators are run on chunks of rows as they
+     * are read.
+     * The stream keeps a cursor open in the current transaction: it must be
+     * closed, and consumed before the transaction is committed.
+     * @param parameters named parameters for the Query.
+     * @param fetchSize number of rows to fetch from the database at once.
+     * @param <T> the type of the returned items
+     * @return Stream of the query results, to be closed after use.
+     */
+    public <T> Stream<T> stream(Map<String, ?> parameters, int fetchSize) {
+        return getQuery().stream(parameters, this, fetchSize);
+    }
+
     /**
      * Executes the query with an IN clause.
      * @param inClause values to be included in the IN clause.
@@ -127,6 +161,9 @@ public class SelectMode extends BaseMode implements Serializable {
 
     /**
      * Executes the query with the given parameters an an IN clause.
+     * The IN clause is split in batches, each executed as a different statement:
+     * queries comparing a column to a list parameter with "= ANY(:list)" get
+     * the whole list at once in the parameters of execute(Map) instead.
      * @param parameters named parameters for the Query.
      * @param inClause values to be included in the IN clause.
      * @param <T> the type of the returned items
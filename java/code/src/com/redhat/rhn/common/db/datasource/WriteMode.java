@@ -55,7 +55,9 @@ public class WriteMode extends BaseMode {
 
     /**
      * execute an update with an inClause (%s). This handles more than 1000
-     * items in the in clause
+     * items in the in clause by running one statement per batch of items.
+     * Queries comparing a column to a list parameter with "= ANY(:list)" get
+     * the whole list at once in the parameters of executeUpdate(Map) instead.
      * @param parameters the query parameters
      * @param inClause the in clause
      * @return the number of rows updated/inserted/deleted
@@ -51,6 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class AdvDataSourceTest extends RhnBaseTestCase {
 
@@ -274,6 +275,32 @@ public class AdvDataSourceTest extends RhnBaseTestCase {
         }
     }
 
+    @Test
+    public void testStreamWithElaboration() {
+        int startId = 1000;
+        int endId = startId + 1500;
+
+        for (int i = startId; i < endId; i++) {
+            insert("foobar" + TestUtils.randomString(), i);
+        }
+        SelectMode m = ModeFactory.getMode(TEST_QUERIES, "find_all_in_table");
+        try (Stream<AdvDataSourceDto> rows = m.stream(Collections.emptyMap(), 100)) {
+            List<AdvDataSourceDto> dtos = rows.toList();
+            assertEquals(1500, dtos.size());
+            for (AdvDataSourceDto row : dtos) {
+                assertNotNull(row.getTestColumn());
+                assertNotNull(row.getPin());
+                assertNotNull(row.getFoobar());
+            }
+        }
+
+        m = ModeFactory.getMode(TEST_QUERIES, "select_any_with_params");
+        try (Stream<Map<String, Object>> rows = m.stream(Map.of("ids", List.of(1000, 1001, 5000),
+                "foobars", List.of()))) {
+            assertEquals(0, rows.count());
+        }
+    }
+
     @Test
     public void testMaxRowsWithElaboration() {
         int startId = 1000;
@@ -308,6 +335,35 @@ public class AdvDataSourceTest extends RhnBaseTestCase {
         assertNotNull(dr);
     }
 
+    @Test
+    public void testArrayParameters() {
+        List<Integer> ids = new ArrayList<>();
+        List<String> foobars = new ArrayList<>();
+        for (int i = 1000; i < 2200; i++) {
+            String foobar = "foobar" + TestUtils.randomString();
+            insert(foobar, i);
+            ids.add(i);
+            if (i % 2 == 0) {
+                foobars.add(foobar);
+            }
+        }
+
+        // the whole lists are bound at once, whatever their size
+        SelectMode m = ModeFactory.getMode(TEST_QUERIES, "select_any_with_params");
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        params.put("foobars", foobars);
+        DataResult<Map<String, Object>> dr = m.execute(params);
+        assertEquals(600, dr.size());
+
+        params.put("foobars", Collections.emptyList());
+        assertTrue(m.execute(params).isEmpty());
+
+        WriteMode w = ModeFactory.getWriteMode(TEST_QUERIES, "delete_any_from_table");
+        assertEquals(1200, w.executeUpdate(Map.of("ids", ids)));
+        assertEquals(0, w.executeUpdate(Map.of("ids", Collections.emptyList())));
+    }
+
 
     @Override
     @BeforeEach
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.common.db.datasource.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.redhat.rhn.common.db.datasource.RowCallback;
+import com.redhat.rhn.common.db.datasource.RowMapper;
+import com.redhat.rhn.common.util.MethodNotFoundException;
+import com.redhat.rhn.common.util.MethodUtil;
+import com.redhat.rhn.common.util.StringUtil;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public class RowMapperTest {
+
+    static final List<String> COLUMNS = List.of("id", "org_id", "name", "label", "description", "version",
+            "release", "epoch", "arch", "summary", "priority", "score", "created", "modified", "selectable", "tags",
+            "label");
+
+    private static final int ROWS = 500;
+
+    /**
+     * A DTO with the different kinds of setters a query result can be mapped to
+     */
+    public static class WideDto {
+        private Long id;
+        private Long orgId;
+        private String name;
+        private String label;
+        private String description;
+        private String version;
+        private String release;
+        private String epoch;
+        private String arch;
+        private String summary;
+        private int priority;
+        private Double score;
+        private Date created;
+        private Date modified;
+        private boolean selectable;
+        private List<Object> tags;
+
+        public void setId(Long idIn) {
+            id = idIn;
+        }
+
+        public void setOrgId(Long orgIdIn) {
+            orgId = orgIdIn;
+        }
+
+        public void setName(String nameIn) {
+            name = nameIn;
+        }
+
+        public void setLabel(String labelIn) {
+            label = labelIn;
+        }
+
+        public void setDescription(String descriptionIn) {
+            description = descriptionIn;
+        }
+
+        public void setVersion(String versionIn) {
+            version = versionIn;
+        }
+
+        public void setRelease(String releaseIn) {
+            release = releaseIn;
+        }
+
+        /**
+         * @param epochIn the epoch, converted to a string
+         */
+        public void setEpoch(Integer epochIn) {
+            epoch = epochIn == null ? null : "int " + epochIn;
+        }
+
+        public void setEpoch(String epochIn) {
+            epoch = epochIn;
+        }
+
+        public void setArch(String archIn) {
+            arch = archIn;
+        }
+
+        public void setSummary(String summaryIn) {
+            summary = summaryIn;
+        }
+
+        public void setPriority(int priorityIn) {
+            priority = priorityIn;
+        }
+
+        public void setScore(Double scoreIn) {
+            score = scoreIn;
+        }
+
+        public void setCreated(Date createdIn) {
+            created = createdIn;
+        }
+
+        public void setModified(Date modifiedIn) {
+            modified = modifiedIn;
+        }
+
+        public void setSelectable(boolean selectableIn) {
+            selectable = selectableIn;
+        }
+
+        public List<Object> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<Object> tagsIn) {
+            tags = tagsIn;
+        }
+
+        @Override
+        public String toString() {
+            return String.join("|", String.valueOf(id), String.valueOf(orgId), name, label, description, version,
+                    release, epoch, arch, summary, String.valueOf(priority), String.valueOf(score),
+                    String.valueOf(created), String.valueOf(modified), String.valueOf(selectable),
+                    String.valueOf(tags));
+        }
+    }
+
+    /**
+     * A DTO setting some columns itself when elaborated
+     */
+    public static class CallbackDto extends WideDto implements RowCallback {
+        private String callbackName;
+
+        @Override
+        public void callback(ResultSet rs) throws SQLException {
+            callbackName = "callback " + rs.getObject("name");
+        }
+
+        @Override
+        public List<String> getCallBackColumns() {
+            return List.of("name");
+        }
+
+        @Override
+        public String toString() {
+            return callbackName + "|" + super.toString();
+        }
+    }
+
+    private static Object value(int row, int column) {
+        String name = COLUMNS.get(column);
+        if (row % 7 == column % 7 && !name.equals("priority") && !name.equals("selectable")) {
+            return null;
+        }
+        return switch (name) {
+            case "id", "org_id", "priority" -> BigDecimal.valueOf(row * 31L + column);
+            case "score" -> row / 3.0;
+            case "created", "modified" -> new Timestamp(1_700_000_000_000L + row * 1000L + column);
+            case "selectable" -> row % 2 == 0 ? "Y" : "N";
+            case "epoch" -> row % 3 == 0 ? Integer.valueOf(row) : String.valueOf(row);
+            default -> name + "-" + row;
+        };
+    }
+
+    /**
+     * Creates a result set of the given rows, returning the values like the JDBC driver does
+     */
+    static ResultSet resultSet(int rows) {
+        int[] current = {-1};
+        return (ResultSet) Proxy.newProxyInstance(RowMapperTest.class.getClassLoader(),
+                new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++current[0] < rows;
+                        case "findColumn":
+                            return COLUMNS.indexOf(((String) args[0]).toLowerCase()) + 1;
+                        case "getObject":
+                        case "getTimestamp":
+                        case "getLong":
+                            int index = args[0] instanceof String name ? COLUMNS.indexOf(name.toLowerCase()) + 1 :
+                                    (Integer) args[0];
+                            Object value = value(current[0], index - 1);
+                            if (method.getName().equals("getLong")) {
+                                return ((BigDecimal) value).longValue();
+                            }
+                            return value;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Maps the current row the way CachedStatement did before the row mappers, looking up every setter with
+     * reflection, also used by RowMapperBenchmark
+     */
+    @SuppressWarnings("unchecked")
+    static void reflectionMap(ResultSet rs, Object obj, boolean elaborator) throws SQLException {
+        List<String> columnSkip = new ArrayList<>();
+        if (elaborator && obj instanceof RowCallback cb) {
+            cb.callback(rs);
+            columnSkip = cb.getCallBackColumns();
+        }
+        for (String columnName : COLUMNS) {
+            if (columnSkip.contains(columnName)) {
+                continue;
+            }
+            String setName = StringUtil.beanify("set " + columnName);
+            boolean isList = false;
+            for (Method methodIn : obj.getClass().getMethods()) {
+                if (methodIn.getName().equals(setName)) {
+                    isList = Collection.class.isAssignableFrom(methodIn.getParameterTypes()[0]);
+                    break;
+                }
+            }
+            Object value = rs.getObject(columnName);
+            if (value instanceof Date) {
+                value = rs.getTimestamp(columnName);
+            }
+            else if (value instanceof BigDecimal) {
+                value = rs.getLong(columnName);
+            }
+            if (isList) {
+                Collection<Object> c = (Collection<Object>) MethodUtil.callMethod(obj,
+                        StringUtil.beanify("get " + columnName));
+                if (c == null) {
+                    c = new ArrayList<>();
+                }
+                c.add(value);
+                value = c;
+            }
+            MethodUtil.callMethod(obj, setName, value);
+        }
+    }
+
+    @Test
+    public void testMapsLikeReflection() throws Exception {
+        ResultSet expectedRs = resultSet(50);
+        ResultSet actualRs = resultSet(50);
+        RowMapper mapper = RowMapper.forColumns(WideDto.class, COLUMNS);
+        assertSame(mapper, RowMapper.forColumns(WideDto.class, new ArrayList<>(COLUMNS)));
+
+        while (expectedRs.next() && actualRs.next()) {
+            WideDto expected = new WideDto();
+            WideDto actual = new WideDto();
+            reflectionMap(expectedRs, expected, false);
+            mapper.map(actualRs, actual, false);
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void testCollectionAndCallbackColumns() throws Exception {
+        ResultSet rs = resultSet(2);
+        RowMapper mapper = RowMapper.forColumns(CallbackDto.class, COLUMNS);
+        CallbackDto dto = new CallbackDto();
+        while (rs.next()) {
+            mapper.map(rs, dto, true);
+        }
+        assertEquals(Arrays.asList("tags-0", null), dto.getTags());
+        assertEquals("callback name-1", dto.toString().split("\\|")[0]);
+        assertEquals("null", dto.toString().split("\\|")[3]);
+
+        // the callback columns are set normally when not elaborating
+        rs = resultSet(1);
+        rs.next();
+        mapper.map(rs, dto, false);
+        assertEquals("name-0", dto.toString().split("\\|")[3]);
+    }
+
+    @Test
+    public void testMissingSetter() throws Exception {
+        ResultSet rs = resultSet(1);
+        rs.next();
+        RowMapper mapper = RowMapper.forColumns(TestDateDto.class, COLUMNS);
+        assertThrows(MethodNotFoundException.class, () -> mapper.map(rs, new TestDateDto(), false));
+    }
+
+    /**
+     * Compares the mapping of a wide result set with reflection and with a row mapper looked up for every row, as
+     * done when elaborating the results of a query.
+     */
+    @Test
+    public void testWideResultSetMapsLikeReflection() throws Exception {
+        List<WideDto> expected = new ArrayList<>(ROWS);
+        ResultSet rs = resultSet(ROWS);
+        while (rs.next()) {
+            WideDto dto = new WideDto();
+            reflectionMap(rs, dto, false);
+            expected.add(dto);
+        }
+
+        List<WideDto> actual = new ArrayList<>(ROWS);
+        rs = resultSet(ROWS);
+        while (rs.next()) {
+            WideDto dto = new WideDto();
+            RowMapper.forColumns(WideDto.class, COLUMNS).map(rs, dto, false);
+            actual.add(dto);
+        }
+
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.redhat.rhn.common.hibernate;
 import static org.hibernate.resource.transaction.spi.TransactionStatus.COMMITTED;
 import static org.hibernate.resource.transaction.spi.TransactionStatus.ROLLED_BACK;
 
+import com.suse.manager.metrics.HibernateCacheCollector;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.HibernateException;
@@ -136,6 +138,7 @@ abstract class AbstractConnectionManager implements ConnectionManager {
         createSessionFactory();
         if (unitLabelValue != null) {
             new HibernateStatisticsCollector(sessionFactory, unitLabelValue).register();
+            new HibernateCacheCollector(sessionFactory, unitLabelValue).register();
         }
     }
 
@@ -155,6 +155,7 @@ import com.redhat.rhn.domain.contentmgmt.ContentEnvironmentDiff;
 import com.redhat.rhn.domain.contentmgmt.ContentFilter;
 import com.redhat.rhn.domain.contentmgmt.ContentProject;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectFilter;
+import com.redhat.rhn.domain.contentmgmt.ContentProjectHistoryChannel;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectHistoryEntry;
 import com.redhat.rhn.domain.contentmgmt.EnvironmentTarget;
 import com.redhat.rhn.domain.contentmgmt.ErrataFilter;
@@ -479,6 +480,7 @@ public class AnnotationRegistry {
             ContentFilter.class,
             ContentProject.class,
             ContentProjectFilter.class,
+            ContentProjectHistoryChannel.class,
             ContentProjectHistoryEntry.class,
             ContentSource.class,
             ContentSourceFilter.class,
@@ -36,6 +36,10 @@ class DefaultConnectionManager extends AbstractConnectionManager {
         hibProperties.put("hibernate.connection.password", Config.get().getString(ConfigDefaults.DB_PASSWORD));
         hibProperties.put("hibernate.connection.url", ConfigDefaults.get().getJdbcConnectionString());
         hibProperties.put("hibernate.cache.ehcache.missing_cache_strategy", "create");
+        if (ConfigDefaults.get().isPrometheusMonitoringEnabled()) {
+            // the cache hits and misses are only counted with the statistics
+            hibProperties.putIfAbsent("hibernate.generate_statistics", "true");
+        }
         return hibProperties;
     }
 
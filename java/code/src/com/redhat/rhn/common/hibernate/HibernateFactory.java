@@ -25,10 +25,12 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Cache;
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 
@@ -57,6 +59,7 @@ import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.Root;
+import javax.transaction.Synchronization;
 
 /**
  * HibernateFactory - Helper superclass that contains methods for fetching and
@@ -73,6 +76,12 @@ public abstract class HibernateFactory {
 
     public static final String ROLLBACK_MSG = "Error during transaction. Rolling back";
 
+    /**
+     * Second level cache region of the entities which are loaded all the time and are written by the Java code only,
+     * like orgs. Its time to live is configured in ehcache.xml.
+     */
+    public static final String READ_MOSTLY_REGION = "read_mostly";
+
     protected HibernateFactory() {
     }
 
@@ -529,6 +538,10 @@ public abstract class HibernateFactory {
         Session session = getSession();
         Serializable id = (Serializable) session.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(obj);
         session.flush();
+        if (session.contains(obj)) {
+            // the second level cache would return the state the object had before any change made with SQL
+            session.getSessionFactory().getCache().evictEntityData(session.getEntityName(obj), id);
+        }
         session.evict(obj);
         /*
          * In hibernate 3, the following doesn't work:
@@ -540,6 +553,44 @@ public abstract class HibernateFactory {
         return (T) session.find(obj.getClass(), id);
     }
 
+    /**
+     * Drops an entity from the second level cache.
+     * Hibernate keeps the cache in sync with its own writes only: this has to be called after changing a cached
+     * entity with SQL or a stored procedure.
+     * @param clazz the entity class
+     * @param id the entity id
+     */
+    public static void evictFromCache(Class<?> clazz, Serializable id) {
+        Session session = getSession();
+        Cache cache = session.getSessionFactory().getCache();
+        cache.evictEntityData(clazz, id);
+
+        // until the transaction commits, other sessions still read the previous state and can cache it again
+        runAfterCompletion(() -> cache.evictEntityData(clazz, id));
+    }
+
+    /**
+     * Runs an action when the transaction of the current session completes, either committed or rolled back.
+     * Nothing is done if there is no transaction in progress.
+     * @param action the action to run
+     */
+    public static void runAfterCompletion(Runnable action) {
+        getSessionIfPresent()
+                .map(Session::getTransaction)
+                .filter(Transaction::isActive)
+                .ifPresent(transaction -> transaction.registerSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                        // nothing to do before the commit
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        action.run();
+                    }
+                }));
+    }
+
     /**
      * utility to convert blob to byte array
      * @param fromBlob blob to convert
@@ -31,6 +31,7 @@ class ActionExecutor implements Runnable {
 
     private EventMessage msg;
     private List<MessageAction> actionHandlers = new ArrayList<>();
+    private final long queuedAt;
 
     /**
      * Constructor
@@ -40,6 +41,8 @@ class ActionExecutor implements Runnable {
     ActionExecutor(List<MessageAction> handlers, EventMessage eventMsg) {
         actionHandlers.addAll(handlers);
         msg = eventMsg;
+        queuedAt = System.nanoTime();
+        MessageQueue.getStatistics().eventQueued(getMessageType());
     }
 
     /**
@@ -48,6 +51,17 @@ class ActionExecutor implements Runnable {
      */
     @Override
     public void run() {
+        long startedAt = System.nanoTime();
+        MessageQueue.getStatistics().eventStarted(getMessageType(), startedAt - queuedAt);
+        try {
+            runActions();
+        }
+        finally {
+            MessageQueue.getStatistics().eventFinished(getMessageType(), System.nanoTime() - startedAt);
+        }
+    }
+
+    private void runActions() {
         for (MessageAction action : actionHandlers) {
             LOG.debug("run() - got action: {}", action.getClass().getName());
             try {
@@ -83,6 +97,15 @@ class ActionExecutor implements Runnable {
         return actionHandlers.stream().allMatch(MessageAction::canRunConcurrently);
     }
 
+    /**
+     * Returns the type of the message being executed, used to group statistics and concurrency limits.
+     *
+     * @return the simple class name of the message
+     */
+    public String getMessageType() {
+        return msg.getClass().getSimpleName();
+    }
+
     @Override
     public String toString() {
         return "ActionExecutor[message=" + msg.getClass().getSimpleName() + "]";
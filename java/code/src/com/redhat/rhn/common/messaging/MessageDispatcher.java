@@ -39,8 +39,16 @@ public class MessageDispatcher implements Runnable {
     private boolean isStopped = false;
 
     /* Thread pool for concurrent execution of message actions */
-    private ExecutorService threadPool = new MessageQueueThreadPool(
-            Config.get().getInt(ConfigDefaults.MESSAGE_QUEUE_THREAD_POOL_SIZE));
+    private ExecutorService threadPool = createThreadPool();
+
+    private static ExecutorService createThreadPool() {
+        int size = Config.get().getInt(ConfigDefaults.MESSAGE_QUEUE_THREAD_POOL_SIZE);
+        if (ConfigDefaults.get().isMessageQueueVirtualThreads()) {
+            return new MessageQueueVirtualThreadExecutor(ConfigDefaults.get().getMessageQueueConcurrencyLimits(),
+                    size);
+        }
+        return new MessageQueueThreadPool(size);
+    }
 
     /**
      * Signals the dispatcher to stop
@@ -76,7 +84,9 @@ public class MessageDispatcher implements Runnable {
     public void run() {
 
         // register the executor service for exporting metrics
-        PrometheusExporter.INSTANCE.registerThreadPool((ThreadPoolExecutor) this.threadPool, "message_queue");
+        if (threadPool instanceof ThreadPoolExecutor threadPoolExecutor) {
+            PrometheusExporter.INSTANCE.registerThreadPool(threadPoolExecutor, "message_queue");
+        }
 
 
         while (!isStopped) {
@@ -57,6 +57,8 @@ import com.redhat.rhn.frontend.events.UpdateErrataCacheAction;
 import com.redhat.rhn.frontend.events.UpdateErrataCacheEvent;
 import com.redhat.rhn.manager.system.SystemManager;
 
+import com.suse.manager.metrics.MessageQueueCollector;
+import com.suse.manager.metrics.PrometheusExporter;
 import com.suse.manager.reactor.messaging.ChannelsChangedEventMessage;
 import com.suse.manager.reactor.messaging.ChannelsChangedEventMessageAction;
 import com.suse.manager.webui.services.iface.SaltApi;
@@ -80,8 +82,10 @@ public class MessageQueue {
     private static final Logger LOGGER = LogManager.getLogger(MessageQueue.class);
     private static final Map<Class<? extends EventMessage>, List<MessageAction>> ACTIONS = new HashMap<>();
     private static final BlockingQueue<Runnable> MESSAGE_QUEUE = new LinkedBlockingQueue<>();
+    private static final MessageQueueCollector STATISTICS = new MessageQueueCollector("message_queue_event");
     private static MessageDispatcher dispatcher = null;
     private static int messageCount;
+    private static boolean statisticsRegistered = false;
 
     /**
      * Util class so we don't have a usable constructor
@@ -156,6 +160,10 @@ public class MessageQueue {
         if (isMessaging()) {
             return;
         }
+        if (!statisticsRegistered) {
+            PrometheusExporter.INSTANCE.registerMessageQueue(STATISTICS);
+            statisticsRegistered = true;
+        }
         dispatcher = new MessageDispatcher();
         Thread dispatcherThread = new Thread(dispatcher);
         dispatcherThread.setName("RHN Message Dispatcher");
@@ -187,6 +195,14 @@ public class MessageQueue {
         return messageCount;
     }
 
+    /**
+     * Get the statistics about the execution of the messages, per event type
+     * @return the message queue statistics
+     */
+    public static MessageQueueCollector getStatistics() {
+        return STATISTICS;
+    }
+
     /**
      * Register an action
      * @param act MessageAction
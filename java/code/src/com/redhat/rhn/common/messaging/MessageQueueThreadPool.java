@@ -81,24 +81,34 @@ public class MessageQueueThreadPool extends ThreadPoolExecutor {
             }
         }
         if (thrown != null) {
-            log.error("Error in message queue: {}", thrown.getMessage(), thrown);
-
-            try {
-                // Email the admins about what is going on
-                TraceBackEvent evt = new TraceBackEvent();
-                evt.setUser(null);
-                evt.setRequest(null);
-                evt.setException(thrown);
-
-                TraceBackAction tba = new TraceBackAction();
-                tba.execute(evt);
-            }
-            catch (Throwable t) {
-                log.error("Error sending traceback email, logging for posterity.", t);
-            }
+            reportError(log, thrown);
         }
         else {
             log.info("Finished: {}", task);
         }
     }
+
+    /**
+     * Logs an error raised by a message action and emails the admins about it.
+     *
+     * @param logger the logger to use
+     * @param thrown the error
+     */
+    static void reportError(Logger logger, Throwable thrown) {
+        logger.error("Error in message queue: {}", thrown.getMessage(), thrown);
+
+        try {
+            // Email the admins about what is going on
+            TraceBackEvent evt = new TraceBackEvent();
+            evt.setUser(null);
+            evt.setRequest(null);
+            evt.setException(thrown);
+
+            TraceBackAction tba = new TraceBackAction();
+            tba.execute(evt);
+        }
+        catch (Throwable t) {
+            logger.error("Error sending traceback email, logging for posterity.", t);
+        }
+    }
 }
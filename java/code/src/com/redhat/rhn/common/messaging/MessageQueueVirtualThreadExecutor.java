@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.common.messaging;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message queue executor running every action in its own thread, virtual if supported by the JVM.
+ *
+ * Since most actions spend their time waiting for Salt or the database, threads are not a scarce resource here,
+ * but database connections and Salt API calls are: the number of concurrently running actions is capped per event
+ * type. Actions exceeding the cap are queued, in publication order, and run by the threads of the actions of the
+ * same type as they finish. No thread is started for a queued action, so the number of threads is bounded by the
+ * sum of the caps even when the JVM falls back to platform threads.
+ */
+public class MessageQueueVirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger LOG = LogManager.getLogger(MessageQueueVirtualThreadExecutor.class);
+
+    private final ExecutorService delegate;
+    private final Map<String, Integer> limits;
+    private final int defaultLimit;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Running and queued actions of an event type.
+     */
+    private static class Lane {
+
+        private final int limit;
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        Lane(int limitIn) {
+            limit = limitIn;
+        }
+
+        /**
+         * Takes a running slot if one is free, otherwise queues the action.
+         *
+         * @return true if the caller has to start the action
+         */
+        synchronized boolean startOrQueue(Runnable command) {
+            if (running < limit) {
+                running++;
+                return true;
+            }
+            waiting.add(command);
+            return false;
+        }
+
+        /**
+         * Hands the slot of a finished action to the next queued one, or frees it.
+         *
+         * @return the next action to run in the same slot, null if none is queued
+         */
+        synchronized Runnable next() {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+
+        synchronized void release() {
+            running--;
+        }
+
+        synchronized int available() {
+            return limit - running;
+        }
+
+        synchronized List<Runnable> drain() {
+            List<Runnable> drained = new ArrayList<>(waiting);
+            waiting.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param limitsIn the maximum number of concurrently running actions, per event type
+     * @param defaultLimitIn the maximum number of concurrently running actions for event types not in limitsIn
+     */
+    public MessageQueueVirtualThreadExecutor(Map<String, Integer> limitsIn, int defaultLimitIn) {
+        this.delegate = newThreadPerTaskExecutor();
+        this.limits = limitsIn;
+        this.defaultLimit = defaultLimitIn;
+        LOG.info("Started message queue executor (default concurrency limit: {}, limits: {})", defaultLimitIn,
+                limitsIn);
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task. This code is compiled for Java 17, so
+     * virtual threads are looked up at runtime. If not available, a pool of platform threads is used instead.
+     */
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            LOG.warn("Virtual threads are not supported by this JVM, falling back to platform threads");
+            return Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+                    .namingPattern("message-queue-thread-%d")
+                    .build());
+        }
+    }
+
+    /**
+     * Returns the type of a task, used to look up its concurrency limit.
+     */
+    private static String getTaskType(Runnable command) {
+        if (command instanceof ActionExecutor actionExecutor) {
+            return actionExecutor.getMessageType();
+        }
+        return command.getClass().getSimpleName();
+    }
+
+    /**
+     * Returns the number of permits currently available for the given type.
+     *
+     * @param type the task type
+     * @return the number of tasks of this type that could start right now
+     */
+    public int getAvailablePermits(String type) {
+        return getLane(type).available();
+    }
+
+    private Lane getLane(String type) {
+        return lanes.computeIfAbsent(type, t -> new Lane(limits.getOrDefault(t, defaultLimit)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (delegate.isShutdown()) {
+            throw new RejectedExecutionException("Message queue executor has been shut down");
+        }
+
+        Lane lane = getLane(getTaskType(command));
+        if (!lane.startOrQueue(command)) {
+            return;
+        }
+
+        try {
+            delegate.execute(() -> runAll(lane, command));
+        }
+        catch (RejectedExecutionException e) {
+            lane.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given action, then the actions queued in the same lane until none is left.
+     */
+    private static void runAll(Lane lane, Runnable first) {
+        for (Runnable command = first; command != null; command = lane.next()) {
+            try {
+                command.run();
+                LOG.info("Finished: {}", command);
+            }
+            catch (Throwable t) {
+                MessageQueueThreadPool.reportError(LOG, t);
+            }
+            // the next action runs in the same thread, do not leak the interrupted status to it
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> notStarted = new ArrayList<>(delegate.shutdownNow());
+        lanes.values().forEach(lane -> notStarted.addAll(lane.drain()));
+        return notStarted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.common.messaging.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.common.messaging.MessageQueueVirtualThreadExecutor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MessageQueueVirtualThreadExecutorTest {
+
+    /**
+     * Task recording the maximum number of concurrent executions.
+     */
+    private static class LimitedTask implements Runnable {
+
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+        private final CountDownLatch done;
+
+        LimitedTask(AtomicInteger runningIn, AtomicInteger maxRunningIn, CountDownLatch doneIn) {
+            running = runningIn;
+            maxRunning = maxRunningIn;
+            done = doneIn;
+        }
+
+        @Override
+        public void run() {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    /**
+     * Task failing with an exception.
+     */
+    private static class FailingTask implements Runnable {
+        @Override
+        public void run() {
+            throw new IllegalStateException("expected failure");
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        MessageQueueVirtualThreadExecutor executor =
+                new MessageQueueVirtualThreadExecutor(Map.of("LimitedTask", 3), 10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute(new LimitedTask(running, maxRunning, done));
+        }
+
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(maxRunning.get() <= 3, "limit exceeded: " + maxRunning.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(3, executor.getAvailablePermits("LimitedTask"));
+    }
+
+    @Test
+    public void testQueuedTasksDoNotStartThreads() throws Exception {
+        MessageQueueVirtualThreadExecutor executor = new MessageQueueVirtualThreadExecutor(Map.of(), 2);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        long platformThreadsBefore = countPlatformThreads();
+
+        for (int i = 0; i < 20; i++) {
+            executor.execute(() -> {
+                threads.add(Thread.currentThread());
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+
+        // with no virtual threads support, every started task holds a platform thread
+        assertTrue(countPlatformThreads() - platformThreadsBefore <= 2, "too many threads started");
+        release.countDown();
+
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(threads.size() <= 2, "threads used: " + threads.size());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    private static long countPlatformThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("message-queue-thread-"))
+                .count();
+    }
+
+    @Test
+    public void testFailureReleasesPermit() throws Exception {
+        MessageQueueVirtualThreadExecutor executor = new MessageQueueVirtualThreadExecutor(Map.of(), 1);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(new FailingTask());
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown);
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(1, executor.getAvailablePermits("FailingTask"));
+        assertEquals(0, done.getCount());
+    }
+}
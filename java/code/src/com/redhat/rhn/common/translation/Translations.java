@@ -57,6 +57,22 @@ public class Translations {
         return rc;
     }
 
+    // Finds the method convert() tries first for a non null object of class have,
+    // ignoring the translations returning null.
+    protected static Method findTranslator(Class<?> thisClass, Class<?> have, Class<?> want) {
+        Method[] methods = thisClass.getDeclaredMethods();
+        for (boolean bestMatch : new boolean[] {false, true}) {
+            for (Method methodIn : methods) {
+                Class<?>[] params = methodIn.getParameterTypes();
+                if (params.length == 1 && methodIn.getReturnType().equals(want) &&
+                        (bestMatch ? params[0].isAssignableFrom(have) : params[0].equals(have))) {
+                    return methodIn;
+                }
+            }
+        }
+        return null;
+    }
+
     private static Object findMatch(Method[] methods, Object have,
                                     Class<?> want, boolean bestMatch)
             throws TranslationException {
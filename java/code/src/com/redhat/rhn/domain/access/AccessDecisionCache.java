@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.domain.access;
+
+import com.suse.manager.metrics.RbacCacheCollector;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the RBAC access decisions of the users, and the endpoints which don't require authorization.
+ * <p>
+ * The decisions of a user are dropped when the user's roles, access groups or namespaces change, and all of them
+ * when an access group or a namespace changes. They also expire after a time to live, which bounds how long the
+ * changes made by other processes or committed concurrently with a check take to apply.
+ */
+public class AccessDecisionCache {
+
+    /**
+     * The kinds of access checks, as reported in the metrics
+     */
+    public static final String API_CHECK = "api";
+    public static final String WEB_CHECK = "web";
+    public static final String PUBLIC_ENDPOINTS_CHECK = "public_endpoints";
+
+    // the expired users are purged when a new user is cached and there are more than this
+    private static final int PURGE_THRESHOLD = 1000;
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final RbacCacheCollector statistics;
+    private final Map<Long, UserDecisions> users = new ConcurrentHashMap<>();
+    private final Map<String, Expiring<Set<String>>> publicEndpoints = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private static class Expiring<T> {
+        private final T value;
+        private final long expires;
+
+        Expiring(T valueIn, long expiresIn) {
+            value = valueIn;
+            expires = expiresIn;
+        }
+    }
+
+    private static class UserDecisions {
+        private final long expires;
+        private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+        UserDecisions(long expiresIn) {
+            expires = expiresIn;
+        }
+    }
+
+    /**
+     * Creates a cache
+     * @param ttlMillisIn the time to live of the decisions in milliseconds, 0 to disable the cache
+     * @param clockIn the clock, returning the current time in milliseconds
+     */
+    public AccessDecisionCache(long ttlMillisIn, LongSupplier clockIn) {
+        ttlMillis = ttlMillisIn;
+        clock = clockIn;
+        statistics = new RbacCacheCollector("rbac_cache", users::size);
+    }
+
+    /**
+     * @return the statistics of the cache
+     */
+    public RbacCacheCollector getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the access decision of a user, looking it up if it is not cached
+     * @param check the kind of access check
+     * @param userId the user ID
+     * @param key identifies the accessed resource in the check
+     * @param lookup looks up the decision
+     * @return true if the user can access the resource
+     */
+    public boolean isAllowed(String check, Long userId, String key, BooleanSupplier lookup) {
+        long now = clock.getAsLong();
+        String decisionKey = check + "|" + key;
+        UserDecisions cached = users.get(userId);
+        if (cached != null && cached.expires > now) {
+            Boolean allowed = cached.decisions.get(decisionKey);
+            if (allowed != null) {
+                statistics.hit(check);
+                return allowed;
+            }
+        }
+
+        statistics.miss(check);
+        long lookupGeneration = generation.get();
+        boolean allowed = lookup.getAsBoolean();
+        if (ttlMillis > 0 && generation.get() == lookupGeneration) {
+            // the decision is only kept if nothing was invalidated while it was looked up
+            users.compute(userId, (id, old) -> old != null && old.expires > now ? old :
+                    new UserDecisions(now + ttlMillis)).decisions.put(decisionKey, allowed);
+            if (cached == null && users.size() > PURGE_THRESHOLD) {
+                users.values().removeIf(d -> d.expires <= now);
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Returns the endpoints which don't require authorization, looking them up if they are not cached
+     * @param key identifies the set of endpoints
+     * @param lookup looks up the endpoints
+     * @return the endpoints
+     */
+    public Set<String> getPublicEndpoints(String key, Supplier<Set<String>> lookup) {
+        long now = clock.getAsLong();
+        Expiring<Set<String>> cached = publicEndpoints.get(key);
+        if (cached != null && cached.expires > now) {
+            statistics.hit(PUBLIC_ENDPOINTS_CHECK);
+            return cached.value;
+        }
+
+        statistics.miss(PUBLIC_ENDPOINTS_CHECK);
+        long lookupGeneration = generation.get();
+        Set<String> endpoints = lookup.get();
+        if (ttlMillis > 0 && generation.get() == lookupGeneration) {
+            publicEndpoints.put(key, new Expiring<>(endpoints, now + ttlMillis));
+        }
+        return endpoints;
+    }
+
+    /**
+     * Drops the decisions of a user
+     * @param userId the user ID
+     */
+    public void invalidate(Long userId) {
+        generation.incrementAndGet();
+        if (users.remove(userId) != null) {
+            statistics.invalidated();
+        }
+    }
+
+    /**
+     * Drops all the cached decisions and endpoints
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        users.clear();
+        publicEndpoints.clear();
+        statistics.invalidated();
+    }
+}
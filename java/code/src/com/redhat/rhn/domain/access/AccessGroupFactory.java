@@ -54,6 +54,7 @@ public class AccessGroupFactory extends HibernateFactory {
      */
     public static AccessGroup save(AccessGroup accessGroupIn) {
         INSTANCE.saveObject(accessGroupIn);
+        WebEndpointFactory.invalidateAccess();
         return accessGroupIn;
     }
 
@@ -63,6 +64,7 @@ public class AccessGroupFactory extends HibernateFactory {
      */
     public static void remove(AccessGroup accessGroupIn) {
         INSTANCE.removeObject(accessGroupIn);
+        WebEndpointFactory.invalidateAccess();
     }
 
     /**
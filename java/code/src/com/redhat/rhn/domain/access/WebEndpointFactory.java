@@ -15,8 +15,11 @@
 
 package com.redhat.rhn.domain.access;
 
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 
+import com.suse.manager.metrics.RbacCacheCollector;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.type.StandardBasicTypes;
@@ -32,6 +35,9 @@ public class WebEndpointFactory extends HibernateFactory {
 
     private static final Logger LOG = LogManager.getLogger(WebEndpointFactory.class);
 
+    private static final AccessDecisionCache CACHE = new AccessDecisionCache(
+            ConfigDefaults.get().getRbacCacheTtl() * 1000L, System::currentTimeMillis);
+
     private WebEndpointFactory() {
     }
 
@@ -111,19 +117,75 @@ public class WebEndpointFactory extends HibernateFactory {
                 .uniqueResultOptional();
     }
 
+    /**
+     * Check if a user can access a handler method, using the cached decision if there is one
+     * @param userId the user ID
+     * @param classMethod the class and method name of the handler method
+     * @param scope the scope of the endpoint (Web UI or API)
+     * @return true if the method is in the user access table
+     */
+    public static boolean isAccessibleByClassMethodScope(Long userId, String classMethod, WebEndpoint.Scope scope) {
+        return CACHE.isAllowed(AccessDecisionCache.API_CHECK, userId, scope.name() + "|" + classMethod,
+                () -> lookupByUserIdClassMethodScope(userId, classMethod, scope).isPresent());
+    }
+
+    /**
+     * Check if a user can access a web endpoint, using the cached decision if there is one
+     * @param userId the user ID
+     * @param endpoint the path of the web endpoint
+     * @param httpMethod the HTTP method of the endpoint
+     * @param scope the scope of the endpoint (Web UI or API), or null for any scope
+     * @return true if the endpoint is in the user access table
+     */
+    public static boolean isAccessibleByEndpointScope(Long userId, String endpoint, String httpMethod,
+                                                      WebEndpoint.Scope scope) {
+        return CACHE.isAllowed(AccessDecisionCache.WEB_CHECK, userId,
+                (scope == null ? "*" : scope.name()) + "|" + httpMethod + "|" + endpoint,
+                () -> (scope == null ? lookupByUserIdEndpoint(userId, endpoint, httpMethod) :
+                        lookupByUserIdEndpointScope(userId, endpoint, httpMethod, scope)).isPresent());
+    }
+
+    /**
+     * Drops the cached access decisions of a user, when the user's roles, access groups or namespaces change.
+     * They are dropped again when the current transaction completes: until then the other sessions still read the
+     * previous grants and can cache them again.
+     * @param userId the user ID
+     */
+    public static void invalidateAccess(Long userId) {
+        if (userId != null) {
+            CACHE.invalidate(userId);
+            runAfterCompletion(() -> CACHE.invalidate(userId));
+        }
+    }
+
+    /**
+     * Drops all the cached access decisions, when access groups, namespaces or endpoints change, and again when
+     * the current transaction completes
+     */
+    public static void invalidateAccess() {
+        CACHE.invalidateAll();
+        runAfterCompletion(CACHE::invalidateAll);
+    }
+
+    /**
+     * @return the statistics of the access decision cache
+     */
+    public static RbacCacheCollector getAccessCacheStatistics() {
+        return CACHE.getStatistics();
+    }
+
     /**
      * Get all endpoints that don't require authorization
      * @return the set of endpoints that don't require authorization
      */
     public static Set<String> getUnauthorizedWebEndpoints() {
         // Get all endpoints that don't require authorization
-        // TODO: Cache
-        return getSession()
+        return CACHE.getPublicEndpoints("endpoints", () -> getSession()
                 .createNativeQuery("SELECT endpoint FROM access.endpoint WHERE auth_required = false", Tuple.class)
                 .addScalar("endpoint", StandardBasicTypes.STRING)
                 .getResultStream()
                 .map(r -> r.get(0, String.class))
-                .collect(Collectors.toUnmodifiableSet());
+                .collect(Collectors.toUnmodifiableSet()));
     }
 
     /**
@@ -132,14 +194,13 @@ public class WebEndpointFactory extends HibernateFactory {
      */
     public static Set<String> getUnauthorizedApiMethods() {
         // Get API handler class and methods that don't require authorization
-        // TODO: Cache
-        return getSession().createNativeQuery(
+        return CACHE.getPublicEndpoints("api_methods", () -> getSession().createNativeQuery(
                         "SELECT class_method FROM access.endpoint WHERE scope = 'A' AND auth_required = false",
                         Tuple.class)
                 .addScalar("class_method", StandardBasicTypes.STRING)
                 .getResultStream()
                 .map(r -> r.get(0, String.class))
-                .collect(Collectors.toUnmodifiableSet());
+                .collect(Collectors.toUnmodifiableSet()));
     }
 
     /**
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.domain.access.test;
+
+import static com.redhat.rhn.domain.access.AccessDecisionCache.API_CHECK;
+import static com.redhat.rhn.domain.access.AccessDecisionCache.PUBLIC_ENDPOINTS_CHECK;
+import static com.redhat.rhn.domain.access.AccessDecisionCache.WEB_CHECK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.domain.access.AccessDecisionCache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AccessDecisionCacheTest {
+
+    private static final long TTL = 60_000;
+
+    private AtomicLong now;
+    private AtomicInteger lookups;
+    private Set<String> granted;
+    private AccessDecisionCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        now = new AtomicLong(1_000_000);
+        lookups = new AtomicInteger();
+        granted = new HashSet<>(Set.of("1|system.listSystems"));
+        cache = new AccessDecisionCache(TTL, now::get);
+    }
+
+    private boolean check(long userId, String method) {
+        String key = userId + "|" + method;
+        return cache.isAllowed(API_CHECK, userId, method, () -> {
+            lookups.incrementAndGet();
+            return granted.contains(key);
+        });
+    }
+
+    @Test
+    public void testDecisionsAreCached() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(check(1, "system.listSystems"));
+            assertFalse(check(1, "system.deleteSystem"));
+            assertFalse(check(2, "system.listSystems"));
+        }
+        assertEquals(3, lookups.get());
+        assertEquals(297, cache.getStatistics().getHits(API_CHECK));
+        assertEquals(3, cache.getStatistics().getMisses(API_CHECK));
+        assertEquals(0, cache.getStatistics().getMisses(WEB_CHECK));
+
+        // the checks of different kinds don't share their decisions
+        assertFalse(cache.isAllowed(WEB_CHECK, 1L, "system.listSystems", () -> false));
+        assertEquals(1, cache.getStatistics().getMisses(WEB_CHECK));
+    }
+
+    @Test
+    public void testInvalidation() {
+        assertFalse(check(1, "system.deleteSystem"));
+        assertFalse(check(2, "system.deleteSystem"));
+        granted.add("1|system.deleteSystem");
+        granted.add("2|system.deleteSystem");
+
+        // only the decisions of the changed user are dropped
+        cache.invalidate(1L);
+        assertTrue(check(1, "system.deleteSystem"));
+        assertFalse(check(2, "system.deleteSystem"));
+
+        cache.invalidateAll();
+        assertTrue(check(2, "system.deleteSystem"));
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void testInvalidationDuringLookup() {
+        // the decision looked up before the change must not be cached
+        assertFalse(cache.isAllowed(API_CHECK, 1L, "system.deleteSystem", () -> {
+            granted.add("1|system.deleteSystem");
+            cache.invalidate(1L);
+            return false;
+        }));
+        assertTrue(check(1, "system.deleteSystem"));
+    }
+
+    @Test
+    public void testExpiration() {
+        assertTrue(check(1, "system.listSystems"));
+        granted.clear();
+        now.addAndGet(TTL - 1);
+        assertTrue(check(1, "system.listSystems"));
+        now.addAndGet(1);
+        assertFalse(check(1, "system.listSystems"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        cache = new AccessDecisionCache(0, now::get);
+        assertTrue(check(1, "system.listSystems"));
+        assertTrue(check(1, "system.listSystems"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testPublicEndpoints() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Set.of("/rhn/Login.do"), cache.getPublicEndpoints("endpoints", () -> {
+                lookups.incrementAndGet();
+                return Set.of("/rhn/Login.do");
+            }));
+        }
+        assertEquals(1, lookups.get());
+        assertEquals(9, cache.getStatistics().getHits(PUBLIC_ENDPOINTS_CHECK));
+
+        cache.invalidateAll();
+        cache.getPublicEndpoints("endpoints", () -> {
+            lookups.incrementAndGet();
+            return Set.of();
+        });
+        assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.domain.access.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.common.hibernate.HibernateFactory;
+import com.redhat.rhn.domain.access.AccessGroup;
+import com.redhat.rhn.domain.access.AccessGroupFactory;
+import com.redhat.rhn.domain.access.WebEndpoint;
+import com.redhat.rhn.domain.access.WebEndpointFactory;
+import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.domain.user.UserFactory;
+import com.redhat.rhn.testing.BaseTestCaseWithUser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class WebEndpointFactoryTest extends BaseTestCaseWithUser {
+
+    private boolean isAccessible(Long userId, WebEndpoint endpoint) {
+        return WebEndpointFactory.isAccessibleByEndpointScope(userId, endpoint.getEndpoint(),
+                endpoint.getHttpMethod(), endpoint.getScope());
+    }
+
+    /**
+     * Checks the access from another thread, with its own session
+     */
+    private boolean isAccessibleFromOtherSession(Long userId, WebEndpoint endpoint) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return isAccessible(userId, endpoint);
+            }
+            finally {
+                HibernateFactory.closeSession();
+            }
+        }).get();
+    }
+
+    @Test
+    public void testRevokedAccessIsNotCachedBeforeCommit() throws Exception {
+        AccessGroup group = AccessGroupFactory.lookupDefault("channel_admin");
+        WebEndpoint endpoint = group.getNamespaces().stream()
+                .flatMap(namespace -> namespace.getEndpoints().stream())
+                .filter(e -> e.getScope() == WebEndpoint.Scope.W && e.isAuthRequired())
+                .findFirst()
+                .orElseThrow();
+        Long userId = user.getId();
+        assertFalse(isAccessible(userId, endpoint));
+
+        user.addToGroup(group);
+        UserFactory.save(user);
+        commitAndCloseSession();
+        commitHappened();
+        assertTrue(isAccessible(userId, endpoint));
+
+        User reloaded = UserFactory.lookupById(userId);
+        reloaded.removeFromGroup(AccessGroupFactory.lookupDefault("channel_admin"));
+        UserFactory.save(reloaded);
+        HibernateFactory.getSession().flush();
+
+        // until the revoke is committed, the other sessions still see the access and cache it
+        assertTrue(isAccessibleFromOtherSession(userId, endpoint));
+        commitAndCloseSession();
+
+        assertFalse(isAccessible(userId, endpoint));
+        assertFalse(isAccessibleFromOtherSession(userId, endpoint));
+    }
+}
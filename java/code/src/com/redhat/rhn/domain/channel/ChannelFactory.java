@@ -741,6 +741,7 @@ public class ChannelFactory extends HibernateFactory {
      * Returns the Channel whose label matches the given label.
      * This was added to allow taskomatic to lookup channels by label,
      * and should NOT be used from the webui.
+     * The channel is always read from the database, as other processes change it as well.
      *
      * @param label Channel label sought.
      * @return the Channel whose label matches the given label.
@@ -1142,6 +1143,28 @@ public class ChannelFactory extends HibernateFactory {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Aligns the packages of a channel to the ones of a source channel, except the excluded packages, with
+     * set-based statements instead of loading the package collections of the channels.
+     * The pending changes of the session must be flushed before.
+     *
+     * @param src the source channel
+     * @param tgt the target channel, refreshed from the database
+     * @param excludedIds the ids of the packages of the source channel to leave out
+     */
+    public static void alignPackages(Channel src, Channel tgt, Collection<Long> excludedIds) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("src_cid", src.getId());
+        params.put("tgt_cid", tgt.getId());
+        params.put("excluded_ids", new ArrayList<>(excludedIds));
+        int removed = ModeFactory.getWriteMode("Channel_queries", "remove_unaligned_packages")
+                .executeUpdate(params);
+        int added = ModeFactory.getWriteMode("Channel_queries", "add_aligned_packages").executeUpdate(params);
+        log.debug("Aligned channel {}: {} packages removed, {} added", tgt.getLabel(), removed, added);
+        // the packages collection of the target is stale now
+        getSession().refresh(tgt);
+    }
+
     /**
      * Get cloned errata ids for a channel
      *
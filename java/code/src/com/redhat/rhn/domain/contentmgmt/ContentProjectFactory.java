@@ -18,6 +18,7 @@ package com.redhat.rhn.domain.contentmgmt;
 import static com.suse.utils.Opt.consume;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Optional.empty;
+import static java.util.stream.Collectors.toList;
 
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.common.localization.LocalizationService;
@@ -26,18 +27,30 @@ import com.redhat.rhn.domain.channel.ChannelFactory;
 import com.redhat.rhn.domain.channel.ClonedChannel;
 import com.redhat.rhn.domain.contentmgmt.ProjectSource.Type;
 import com.redhat.rhn.domain.org.Org;
+import com.redhat.rhn.domain.rhnpackage.PackageEvr;
 import com.redhat.rhn.domain.user.User;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
 
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -51,6 +64,16 @@ public class ContentProjectFactory extends HibernateFactory {
     private static final ContentProjectFactory INSTANCE = new ContentProjectFactory();
     private static Logger log = LogManager.getLogger(ContentProjectFactory.class);
 
+    // the packages of the :cid channel, with their name, evr and arch
+    private static final String CHANNEL_PACKAGES_FROM = """
+            FROM   rhnChannelPackage cp
+            JOIN   rhnPackage p ON p.id = cp.package_id
+            JOIN   rhnPackageName pn ON pn.id = p.name_id
+            JOIN   rhnPackageEVR pe ON pe.id = p.evr_id
+            JOIN   rhnPackageArch pa ON pa.id = p.package_arch_id
+            WHERE  cp.channel_id = :cid
+            """;
+
     // forbid  instantiation
     private ContentProjectFactory() {
         super();
@@ -488,6 +511,44 @@ public class ContentProjectFactory extends HibernateFactory {
         save(project);
     }
 
+    /**
+     * Look up the history entry of a Content Project version
+     *
+     * @param project the Content Project
+     * @param version the version
+     * @return the optional history entry
+     */
+    public static Optional<ContentProjectHistoryEntry> lookupHistoryEntry(ContentProject project, Long version) {
+        return HibernateFactory.getSession()
+                .createQuery("FROM ContentProjectHistoryEntry e WHERE e.contentProject = :project " +
+                        "AND e.version = :version", ContentProjectHistoryEntry.class)
+                .setParameter("project", project)
+                .setParameter("version", version)
+                .uniqueResultOptional();
+    }
+
+    /**
+     * Record the alignment time of a software target in the history entry of the version of its environment
+     *
+     * The channel is not added to the collection of the history entry: targets are aligned in their own sessions
+     * when aligned in parallel, the entry of the building session is left untouched.
+     *
+     * @param target the aligned software target
+     * @param started the start of the alignment
+     * @param duration the duration of the alignment
+     * @return the recorded channel, empty if the environment version has no history entry
+     */
+    public static Optional<ContentProjectHistoryChannel> addHistoryChannel(SoftwareEnvironmentTarget target,
+            Date started, long duration) {
+        ContentEnvironment env = target.getContentEnvironment();
+        return lookupHistoryEntry(env.getContentProject(), env.getVersion()).map(entry -> {
+            ContentProjectHistoryChannel channel = new ContentProjectHistoryChannel(entry, env.getLabel(),
+                    target.getChannel().getLabel(), started, duration);
+            INSTANCE.saveObject(channel);
+            return channel;
+        });
+    }
+
     private static Optional<Long> latestHistoryEntryVersion(ContentProject project) {
         return HibernateFactory.getSession()
                 .createQuery(
@@ -728,6 +789,121 @@ public class ContentProjectFactory extends HibernateFactory {
                 .executeUpdate();
     }
 
+    /**
+     * Lists the ids of the packages of a channel matching any of the given package filters, without loading the
+     * package entities.
+     *
+     * The criteria on the package name, build date and provided capabilities are evaluated by the database. The
+     * other criteria are tested on the {@link PackageTuple}s of the packages, only the ones of the compared name
+     * for the nevr and nevra comparisons.
+     *
+     * @param channel the channel
+     * @param filters the package filters
+     * @return the ids of the matching packages
+     */
+    public static Set<Long> listChannelPackageIds(Channel channel, Collection<PackageFilter> filters) {
+        Set<Long> ids = new HashSet<>();
+        List<PackageFilter> testedFilters = new ArrayList<>();
+        for (PackageFilter filter : filters) {
+            FilterCriteria criteria = filter.getCriteria();
+            String field = criteria.getField();
+            String value = criteria.getValue();
+            Optional<String> comparedName = filter.getComparedPackageName();
+
+            if (criteria.getMatcher() == FilterCriteria.Matcher.CONTAINS && field.equals("name")) {
+                ids.addAll(listChannelPackageIds(channel, "strpos(pn.name, :value) > 0", Map.of("value", value)));
+            }
+            else if (criteria.getMatcher() == FilterCriteria.Matcher.PROVIDES_NAME) {
+                ids.addAll(listChannelPackageIds(channel, """
+                        EXISTS (SELECT 1
+                                FROM   rhnPackageProvides pp
+                                JOIN   rhnPackageCapability pc ON pc.id = pp.capability_id
+                                WHERE  pp.package_id = p.id
+                                AND    pc.name = :value)
+                        """, Map.of("value", value)));
+            }
+            else if (field.equals(PackageFilter.BUILD_DATE) && getOperator(criteria.getMatcher()).isPresent()) {
+                Timestamp date = Timestamp.from(
+                        ZonedDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant());
+                ids.addAll(listChannelPackageIds(channel,
+                        "p.build_time " + getOperator(criteria.getMatcher()).get() + " :value",
+                        Map.of("value", date)));
+            }
+            else if (comparedName.isPresent()) {
+                listChannelPackages(channel, "pn.name = :name", Map.of("name", comparedName.get())).stream()
+                        .filter(filter::test)
+                        .forEach(p -> ids.add(p.id()));
+            }
+            else {
+                testedFilters.add(filter);
+            }
+        }
+
+        if (!testedFilters.isEmpty()) {
+            listChannelPackages(channel).stream()
+                    .filter(p -> testedFilters.stream().anyMatch(f -> f.test(p)))
+                    .forEach(p -> ids.add(p.id()));
+        }
+        return ids;
+    }
+
+    /**
+     * Lists the id, NEVRA and build time of the packages of a channel, without loading the package entities
+     *
+     * @param channel the channel
+     * @return the package tuples
+     */
+    public static List<PackageTuple> listChannelPackages(Channel channel) {
+        return listChannelPackages(channel, "TRUE", Map.of());
+    }
+
+    private static List<PackageTuple> listChannelPackages(Channel channel, String condition,
+            Map<String, Object> params) {
+        NativeQuery<Tuple> query = HibernateFactory.getSession().createNativeQuery(
+                "SELECT p.id, pn.name, pe.epoch, pe.version, pe.release, pe.type, pa.label AS arch, p.build_time " +
+                CHANNEL_PACKAGES_FROM + "AND " + condition, Tuple.class)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("name", StandardBasicTypes.STRING)
+                .addScalar("epoch", StandardBasicTypes.STRING)
+                .addScalar("version", StandardBasicTypes.STRING)
+                .addScalar("release", StandardBasicTypes.STRING)
+                .addScalar("type", StandardBasicTypes.STRING)
+                .addScalar("arch", StandardBasicTypes.STRING)
+                .addScalar("build_time", StandardBasicTypes.TIMESTAMP)
+                .setParameter("cid", channel.getId());
+        params.forEach(query::setParameter);
+        return query.stream()
+                .map(t -> new PackageTuple(t.get(0, Long.class), t.get(1, String.class),
+                        new PackageEvr(t.get(2, String.class), t.get(3, String.class), t.get(4, String.class),
+                                t.get(5, String.class)),
+                        t.get(6, String.class), t.get(7, Date.class)))
+                .collect(toList());
+    }
+
+    private static List<Long> listChannelPackageIds(Channel channel, String condition, Map<String, Object> params) {
+        NativeQuery<Tuple> query = HibernateFactory.getSession()
+                .createNativeQuery("SELECT p.id " + CHANNEL_PACKAGES_FROM + "AND " + condition, Tuple.class)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .setParameter("cid", channel.getId());
+        params.forEach(query::setParameter);
+        return query.stream().map(t -> t.get(0, Long.class)).collect(toList());
+    }
+
+    private static Optional<String> getOperator(FilterCriteria.Matcher matcher) {
+        switch (matcher) {
+            case LOWER:
+                return Optional.of("<");
+            case LOWEREQ:
+                return Optional.of("<=");
+            case GREATER:
+                return Optional.of(">");
+            case GREATEREQ:
+                return Optional.of(">=");
+            default:
+                return empty();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
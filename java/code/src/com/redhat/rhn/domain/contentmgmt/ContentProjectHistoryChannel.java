@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.domain.contentmgmt;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * The alignment of one channel in a Content Project build or promotion, with its duration
+ */
+@Entity
+@Table(name = "suseContentProjectHistoryChannel")
+public class ContentProjectHistoryChannel implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 3284513309413750227L;
+
+    private Long id;
+    private ContentProjectHistoryEntry historyEntry;
+    private String environmentLabel;
+    private String channelLabel;
+    private Date started;
+    private Long durationMs;
+
+    /**
+     * Standard constructor
+     */
+    public ContentProjectHistoryChannel() {
+    }
+
+    /**
+     * Standard constructor
+     *
+     * @param historyEntryIn the history entry of the build or promotion
+     * @param environmentLabelIn the label of the environment
+     * @param channelLabelIn the label of the aligned channel
+     * @param startedIn the start of the alignment
+     * @param durationMsIn the duration of the alignment in milliseconds
+     */
+    public ContentProjectHistoryChannel(ContentProjectHistoryEntry historyEntryIn, String environmentLabelIn,
+            String channelLabelIn, Date startedIn, Long durationMsIn) {
+        historyEntry = historyEntryIn;
+        environmentLabel = environmentLabelIn;
+        channelLabel = channelLabelIn;
+        started = startedIn;
+        durationMs = durationMsIn;
+    }
+
+    /**
+     * Gets the id.
+     *
+     * @return id
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_project_history_ch_seq")
+    @SequenceGenerator(name = "content_project_history_ch_seq", sequenceName = "suse_ct_prj_hist_ch_seq",
+            allocationSize = 1)
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id.
+     *
+     * @param idIn - the id
+     */
+    public void setId(Long idIn) {
+        id = idIn;
+    }
+
+    /**
+     * Gets the historyEntry.
+     *
+     * @return historyEntry
+     */
+    @ManyToOne
+    @JoinColumn(name = "entry_id")
+    public ContentProjectHistoryEntry getHistoryEntry() {
+        return historyEntry;
+    }
+
+    /**
+     * Sets the historyEntry.
+     *
+     * @param historyEntryIn - the historyEntry
+     */
+    public void setHistoryEntry(ContentProjectHistoryEntry historyEntryIn) {
+        historyEntry = historyEntryIn;
+    }
+
+    /**
+     * Gets the environmentLabel.
+     *
+     * @return environmentLabel
+     */
+    @Column(name = "environment_label")
+    public String getEnvironmentLabel() {
+        return environmentLabel;
+    }
+
+    /**
+     * Sets the environmentLabel.
+     *
+     * @param environmentLabelIn - the environmentLabel
+     */
+    public void setEnvironmentLabel(String environmentLabelIn) {
+        environmentLabel = environmentLabelIn;
+    }
+
+    /**
+     * Gets the channelLabel.
+     *
+     * @return channelLabel
+     */
+    @Column(name = "channel_label")
+    public String getChannelLabel() {
+        return channelLabel;
+    }
+
+    /**
+     * Sets the channelLabel.
+     *
+     * @param channelLabelIn - the channelLabel
+     */
+    public void setChannelLabel(String channelLabelIn) {
+        channelLabel = channelLabelIn;
+    }
+
+    /**
+     * Gets the started.
+     *
+     * @return started
+     */
+    @Column
+    public Date getStarted() {
+        return started;
+    }
+
+    /**
+     * Sets the started.
+     *
+     * @param startedIn - the started
+     */
+    public void setStarted(Date startedIn) {
+        started = startedIn;
+    }
+
+    /**
+     * Gets the durationMs.
+     *
+     * @return durationMs
+     */
+    @Column(name = "duration_ms")
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Sets the durationMs.
+     *
+     * @param durationMsIn - the durationMs
+     */
+    public void setDurationMs(Long durationMsIn) {
+        durationMs = durationMsIn;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("id", id)
+                .append("environmentLabel", environmentLabel)
+                .append("channelLabel", channelLabel)
+                .append("started", started)
+                .append("durationMs", durationMs)
+                .toString();
+    }
+}
@@ -19,7 +19,9 @@ import org.hibernate.annotations.CreationTimestamp;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -28,6 +30,8 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
@@ -47,6 +51,7 @@ public class ContentProjectHistoryEntry implements Serializable {
     private Long version;
     private Date created = new Date();
     private User user;
+    private List<ContentProjectHistoryChannel> channels = new ArrayList<>();
 
     /**
      * Gets the id.
@@ -166,6 +171,26 @@ public class ContentProjectHistoryEntry implements Serializable {
         user = userIn;
     }
 
+    /**
+     * Gets the channels aligned by the build or promotion, with their alignment time.
+     *
+     * @return channels
+     */
+    @OneToMany(mappedBy = "historyEntry")
+    @OrderBy("started")
+    public List<ContentProjectHistoryChannel> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Sets the channels.
+     *
+     * @param channelsIn - the channels
+     */
+    public void setChannels(List<ContentProjectHistoryChannel> channelsIn) {
+        channels = channelsIn;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this)
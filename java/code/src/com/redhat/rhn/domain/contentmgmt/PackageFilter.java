@@ -21,6 +21,7 @@ import com.redhat.rhn.domain.rhnpackage.PackageEvr;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 import javax.persistence.DiscriminatorValue;
@@ -40,6 +41,23 @@ public class PackageFilter extends ContentFilter<Package> {
 
     @Override
     public boolean test(Package pack) {
+        if (getCriteria().getMatcher() == FilterCriteria.Matcher.PROVIDES_NAME) {
+            String value = getCriteria().getValue();
+            return pack.getProvides().stream()
+                    .map(p -> p.getCapability().getName())
+                    .anyMatch(n -> n.equals(value));
+        }
+        return test(PackageTuple.of(pack));
+    }
+
+    /**
+     * Tests the criteria on the id, NEVRA and build time of a package. The criteria on the provided capabilities
+     * need the package entity.
+     *
+     * @param pack the package tuple
+     * @return true if the package matches the criteria
+     */
+    public boolean test(PackageTuple pack) {
         FilterCriteria.Matcher matcher = getCriteria().getMatcher();
         String field = getCriteria().getField();
         String value = getCriteria().getValue();
@@ -62,37 +80,51 @@ public class PackageFilter extends ContentFilter<Package> {
                     pattern = Pattern.compile(value);
                 }
                 return pattern.matcher(getField(pack, field, String.class)).matches();
-            case PROVIDES_NAME:
-                return pack.getProvides().stream()
-                        .map(p -> p.getCapability().getName())
-                        .anyMatch(n -> n.equals(value));
             default:
                 throw new UnsupportedOperationException("Matcher " + matcher + " not supported");
         }
     }
 
-    private int compareField(Package pack, String field, String value) {
+    /**
+     * Returns the only package name a nevr or nevra comparison can match: the versions of the packages of the
+     * other names are never compared.
+     *
+     * @return the package name, empty if the filter is not a nevr or nevra comparison
+     */
+    public Optional<String> getComparedPackageName() {
+        FilterCriteria.Matcher matcher = getCriteria().getMatcher();
+        String field = getCriteria().getField();
+        String value = getCriteria().getValue();
+        if (matcher == FilterCriteria.Matcher.EQUALS || !(field.equals("nevr") || field.equals("nevra"))) {
+            return Optional.empty();
+        }
+        int relIdx = value.lastIndexOf('-');
+        int verIdx = value.lastIndexOf('-', relIdx - 1);
+        return verIdx > 0 ? Optional.of(value.substring(0, verIdx)) : Optional.empty();
+    }
+
+    private int compareField(PackageTuple pack, String field, String value) {
         return BUILD_DATE.equals(field) ? compareBuildDate(pack, value) : comparePackageEvr(pack, field, value);
     }
 
-    private boolean preCondition(Package pack, String field, String value) {
-        return BUILD_DATE.equals(field) ? pack.getBuildTime() != null : checkNameAndArch(field, value, pack);
+    private boolean preCondition(PackageTuple pack, String field, String value) {
+        return BUILD_DATE.equals(field) ? pack.buildTime() != null : checkNameAndArch(field, value, pack);
     }
 
-    private int comparePackageEvr(Package pack, String field, String value) {
-        return pack.getPackageEvr().compareTo(PackageEvr.parsePackageEvr(pack.getPackageType(), getEvr(field, value)));
+    private int comparePackageEvr(PackageTuple pack, String field, String value) {
+        return pack.evr().compareTo(PackageEvr.parsePackageEvr(pack.evr().getPackageType(), getEvr(field, value)));
     }
 
-    private int compareBuildDate(Package pack, String value) {
+    private int compareBuildDate(PackageTuple pack, String value) {
         Instant valDate = ZonedDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant();
-        Instant issueDate = pack.getBuildTime().toInstant();
+        Instant issueDate = pack.buildTime().toInstant();
         return issueDate.compareTo(valDate);
     }
 
-    private static <T> T getField(Package pack, String field, Class<T> type) {
+    private static <T> T getField(PackageTuple pack, String field, Class<T> type) {
         switch (field) {
             case "name":
-                return type.cast(pack.getPackageName().getName());
+                return type.cast(pack.name());
             case "nevr":
                 return type.cast(pack.getNameEvr());
             case "nevra":
@@ -104,19 +136,19 @@ public class PackageFilter extends ContentFilter<Package> {
         }
     }
 
-    private static boolean checkNameAndArch(String field, String value, Package pack) {
+    private static boolean checkNameAndArch(String field, String value, PackageTuple pack) {
         if (field.equals("nevr")) {
             int relIdx = value.lastIndexOf('-');
             int verIdx = value.lastIndexOf('-', relIdx - 1);
-            return (verIdx > 0) && value.substring(0, verIdx).equals(pack.getPackageName().getName());
+            return (verIdx > 0) && value.substring(0, verIdx).equals(pack.name());
         }
         else if (field.equals("nevra")) {
             int relIdx = value.lastIndexOf('-');
             int verIdx = value.lastIndexOf('-', relIdx - 1);
             int archIdx = value.lastIndexOf('.');
             return (verIdx > 0) && (archIdx > 0) &&
-                   value.substring(0, verIdx).equals(pack.getPackageName().getName()) &&
-                   value.substring(archIdx + 1).equals(pack.getPackageArch().getLabel());
+                   value.substring(0, verIdx).equals(pack.name()) &&
+                   value.substring(archIdx + 1).equals(pack.arch());
         }
         else {
             throw new UnsupportedOperationException("Field " + field + " not supported for filter Package (NEVRA)");
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.domain.contentmgmt;
+
+import com.redhat.rhn.domain.rhnpackage.Package;
+import com.redhat.rhn.domain.rhnpackage.PackageEvr;
+
+import java.util.Date;
+
+/**
+ * The id, NEVRA and build time of a package: what a {@link PackageFilter} tests, without the package entity
+ *
+ * @param id the package id
+ * @param name the package name
+ * @param evr the package epoch, version and release, not persisted
+ * @param arch the label of the package arch
+ * @param buildTime the build time of the package, if known
+ */
+public record PackageTuple(long id, String name, PackageEvr evr, String arch, Date buildTime) {
+
+    /**
+     * Creates the tuple of a package
+     * @param pack the package
+     * @return the tuple
+     */
+    public static PackageTuple of(Package pack) {
+        return new PackageTuple(pack.getId(), pack.getPackageName().getName(), pack.getPackageEvr(),
+                pack.getPackageArch().getLabel(), pack.getBuildTime());
+    }
+
+    /**
+     * Util to output package name + evr: krb5-devel-1.3.4-47
+     * @return the name and evr
+     */
+    public String getNameEvr() {
+        return name + "-" + evr;
+    }
+
+    /**
+     * Util to output package name + evr + arch: krb5-devel-1.3.4-47.i386
+     * @return the name, evr and arch
+     */
+    public String getNameEvra() {
+        return getNameEvr() + "." + arch;
+    }
+
+    /**
+     * Util to output package name + evr + arch, with a 0 epoch when the package has none
+     * @return the name, evr and arch
+     */
+    public String getNevraWithEpoch() {
+        PackageEvr withEpoch = new PackageEvr(evr);
+        if (withEpoch.getEpoch() == null || withEpoch.getEpoch().isEmpty()) {
+            withEpoch.setEpoch("0");
+        }
+        return name + "-" + withEpoch + "." + arch;
+    }
+}
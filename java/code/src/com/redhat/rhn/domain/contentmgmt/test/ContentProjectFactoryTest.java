@@ -22,6 +22,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -42,6 +43,7 @@ import com.redhat.rhn.domain.contentmgmt.ContentProjectFactory;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectHistoryEntry;
 import com.redhat.rhn.domain.contentmgmt.EnvironmentTarget;
 import com.redhat.rhn.domain.contentmgmt.FilterCriteria;
+import com.redhat.rhn.domain.contentmgmt.PackageFilter;
 import com.redhat.rhn.domain.contentmgmt.ProjectSource;
 import com.redhat.rhn.domain.contentmgmt.ProjectSource.State;
 import com.redhat.rhn.domain.contentmgmt.SoftwareEnvironmentTarget;
@@ -49,6 +51,8 @@ import com.redhat.rhn.domain.contentmgmt.SoftwareProjectSource;
 import com.redhat.rhn.domain.kickstart.test.KickstartableTreeTest;
 import com.redhat.rhn.domain.org.Org;
 import com.redhat.rhn.domain.org.OrgFactory;
+import com.redhat.rhn.domain.rhnpackage.Package;
+import com.redhat.rhn.domain.rhnpackage.test.PackageTest;
 import com.redhat.rhn.domain.user.UserFactory;
 import com.redhat.rhn.manager.contentmgmt.ContentManager;
 import com.redhat.rhn.testing.BaseTestCaseWithUser;
@@ -58,10 +62,14 @@ import com.redhat.rhn.testing.UserTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -715,4 +723,54 @@ public class ContentProjectFactoryTest extends BaseTestCaseWithUser {
         assertTrue(ContentProjectFactory.lookupClonesInProject(
                 testTgt.getChannel(), testTgt.getContentEnvironment().getContentProject()).isEmpty());
     }
+
+    /**
+     * Test that the package filters evaluated by the database or on the package tuples match the same packages
+     * as when tested on the package entities
+     */
+    @Test
+    public void testListChannelPackageIds() {
+        Channel channel = ChannelFactoryTest.createTestChannel(user);
+        List<Package> packages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Package pack = PackageTest.createTestPackage(user.getOrg());
+            channel.addPackage(pack);
+            packages.add(pack);
+        }
+        Package pack = packages.get(0);
+        pack.setBuildTime(Date.from(Instant.parse("2022-05-12T01:34:49Z")));
+        // a package out of the channel never matches
+        PackageTest.createTestPackage(user.getOrg(), pack.getPackageName().getName());
+        HibernateFactory.getSession().flush();
+
+        String name = pack.getPackageName().getName();
+        List<FilterCriteria> criteria = List.of(
+                new FilterCriteria(FilterCriteria.Matcher.CONTAINS, "name", name),
+                new FilterCriteria(FilterCriteria.Matcher.MATCHES, "name", ".*" + name.substring(1)),
+                new FilterCriteria(FilterCriteria.Matcher.EQUALS, "nevra", pack.getNevraWithEpoch()),
+                new FilterCriteria(FilterCriteria.Matcher.GREATEREQ, "nevr", pack.getNameEvr()),
+                new FilterCriteria(FilterCriteria.Matcher.LOWER, "nevr", pack.getNameEvr()),
+                new FilterCriteria(FilterCriteria.Matcher.LOWER, PackageFilter.BUILD_DATE,
+                        "2023-01-01T00:00:00+00:00"),
+                new FilterCriteria(FilterCriteria.Matcher.GREATEREQ, PackageFilter.BUILD_DATE,
+                        "2023-01-01T00:00:00+00:00"));
+
+        List<PackageFilter> filters = new ArrayList<>();
+        for (FilterCriteria c : criteria) {
+            PackageFilter filter = new PackageFilter();
+            filter.setRule(ContentFilter.Rule.DENY);
+            filter.setCriteria(c);
+            filters.add(filter);
+
+            Set<Long> expected = packages.stream().filter(filter::test).map(Package::getId).collect(toSet());
+            assertEquals(expected, ContentProjectFactory.listChannelPackageIds(channel, List.of(filter)),
+                    c.toString());
+        }
+        assertEquals(Set.of(pack.getId()), ContentProjectFactory.listChannelPackageIds(channel, filters.subList(0, 5)));
+        assertEquals(packages.stream().map(Package::getId).collect(toSet()),
+                ContentProjectFactory.listChannelPackageIds(channel, filters));
+
+        assertEquals(packages.stream().map(Package::getId).collect(toSet()),
+                ContentProjectFactory.listChannelPackages(channel).stream().map(p -> p.id()).collect(toSet()));
+    }
 }
@@ -571,6 +571,20 @@ public class ErrataFactory extends HibernateFactory {
         return retval;
     }
 
+    /**
+     * Lock the cloning of an errata into an organization until the end of the transaction, so that channels
+     * aligned in parallel do not clone the same errata twice. The errata row itself is not locked, so that
+     * the errata can still be referenced and updated meanwhile.
+     * To avoid deadlocks, the errata of a transaction have to be locked in the order of their ids.
+     * @param org Org the errata is cloned into
+     * @param original Original errata to clone
+     */
+    public static void lockCloning(Org org, Errata original) {
+        getSession().createNativeQuery("SELECT 1 AS locked FROM pg_advisory_xact_lock(:key)")
+                .setParameter("key", (org.getId() << 32) + original.getId())
+                .getSingleResult();
+    }
+
     /**
      * Lookup all the clones of a particular errata
      * @param org Org that the clones belongs to
@@ -16,6 +16,8 @@
 
 package com.redhat.rhn.domain.org;
 
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+
 import com.redhat.rhn.common.conf.Config;
 import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.db.datasource.DataResult;
@@ -55,6 +57,7 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
+import org.hibernate.annotations.Cache;
 import org.hibernate.type.StandardBasicTypes;
 
 import java.util.ArrayList;
@@ -89,6 +92,7 @@ import javax.persistence.Tuple;
  */
 @Entity
 @Table(name = "WEB_CUSTOMER")
+@Cache(usage = READ_WRITE, region = HibernateFactory.READ_MOSTLY_REGION)
 public class Org extends BaseDomainHelper implements SaltConfigurable {
 
     private static final String USER_ID_KEY = "user_id";
@@ -121,6 +121,7 @@ public class OrgFactory extends HibernateFactory {
         CallableMode m = ModeFactory.getCallableMode(
                 "Org_queries", "delete_organization");
         m.execute(in, new HashMap<>());
+        HibernateFactory.evictFromCache(Org.class, oid);
     }
 
     /**
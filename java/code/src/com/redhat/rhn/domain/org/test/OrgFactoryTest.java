@@ -41,6 +41,7 @@ import com.redhat.rhn.testing.ServerTestUtils;
 import com.redhat.rhn.testing.TestUtils;
 import com.redhat.rhn.testing.UserTestUtils;
 
+import org.hibernate.Cache;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
@@ -104,6 +105,22 @@ public class OrgFactoryTest extends RhnBaseTestCase {
         assertEquals(changedName, org2.getName());
     }
 
+    @Test
+    public void testDeleteOrgEvictsCachedOrg() {
+        User user = UserTestUtils.createUser(this);
+        Long id = user.getOrg().getId();
+        flushAndEvict(user.getOrg());
+        OrgFactory.lookupById(id);
+        Cache cache = HibernateFactory.getSession().getSessionFactory().getCache();
+        assertTrue(cache.containsEntity(Org.class, id));
+
+        // the org is deleted by a stored procedure, Hibernate does not know it is gone
+        OrgFactory.deleteOrg(id, user);
+        assertFalse(cache.containsEntity(Org.class, id));
+        HibernateFactory.getSession().clear();
+        assertNull(OrgFactory.lookupById(id));
+    }
+
     @Test
     public void testStagingContent() throws Exception {
         Org org1 = createTestOrg();
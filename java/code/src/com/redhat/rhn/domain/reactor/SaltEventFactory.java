@@ -17,12 +17,15 @@ package com.redhat.rhn.domain.reactor;
 
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.type.StandardBasicTypes;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -37,6 +40,9 @@ public class SaltEventFactory extends HibernateFactory {
 
     private static final Logger LOG = LogManager.getLogger(SaltEventFactory.class);
 
+    // Number of events looked at for each minion requested by findMinionsWithSaltEvents
+    private static final int MINION_SCAN_FACTOR = 10;
+
     @Override
     protected Logger getLogger() {
         return LOG;
@@ -97,6 +103,71 @@ public class SaltEventFactory extends HibernateFactory {
                         o.get(2, String.class), o.get(3, Integer.class)));
     }
 
+    /**
+     * Returns Salt events of a single minion, if any, up to limit.
+     * @param limit the maximum count of events to return
+     * @param minionId the minion to pop events for, null for events not associated with any minion
+     * @return events
+     */
+    public static Stream<SaltEvent> popSaltEvents(int limit, String minionId) {
+        Session session = HibernateFactory.getSession();
+        String condition = minionId == null ? "minion_id IS NULL" : "minion_id = :minionId";
+        NativeQuery<Tuple> query = session.createNativeQuery("""
+                        DELETE FROM suseSaltEvent
+                        WHERE id IN (
+                                     SELECT id FROM suseSaltEvent
+                                     WHERE %s
+                                     ORDER BY id
+                                     FOR UPDATE SKIP LOCKED
+                                     LIMIT :limit)
+                        RETURNING id, minion_id, data, queue
+                        """.formatted(condition), Tuple.class)
+                .setParameter("limit", limit)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("minion_id", StandardBasicTypes.STRING)
+                .addScalar("data", StandardBasicTypes.STRING)
+                .addScalar("queue", StandardBasicTypes.INTEGER);
+        if (minionId != null) {
+            query.setParameter("minionId", minionId);
+        }
+
+        return query.list().stream()
+                .map(o -> new SaltEvent(o.get(0, Long.class), o.get(1, String.class),
+                        o.get(2, String.class), o.get(3, Integer.class)))
+                .sorted(Comparator.comparing(SaltEvent::getId));
+    }
+
+    /**
+     * Returns the minions having queued Salt events, the ones with the oldest events first.
+     * Only the oldest events are looked at, so that the cost does not grow with the size of the backlog: the
+     * minions having only newer events are returned once the older ones have been processed.
+     * @param limit the maximum count of minions to return
+     * @return pairs of queue number and minion id, null for events not associated with any minion
+     */
+    public static List<Pair<Integer, String>> findMinionsWithSaltEvents(int limit) {
+        Session session = HibernateFactory.getSession();
+        List<Tuple> rows = session.createNativeQuery("""
+                        SELECT minion_id, MIN(queue) AS queue, MIN(id) AS first_id
+                        FROM (
+                              SELECT id, minion_id, queue FROM suseSaltEvent
+                              ORDER BY id
+                              LIMIT :scan) oldest
+                        GROUP BY minion_id
+                        ORDER BY first_id
+                        LIMIT :limit
+                        """, Tuple.class)
+                .setParameter("scan", limit * MINION_SCAN_FACTOR)
+                .setParameter("limit", limit)
+                .addScalar("minion_id", StandardBasicTypes.STRING)
+                .addScalar("queue", StandardBasicTypes.INTEGER)
+                .addScalar("first_id", StandardBasicTypes.LONG)
+                .list();
+
+        return rows.stream()
+                .map(t -> Pair.of(t.get(1, Integer.class), t.get(0, String.class)))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Deletes SaltEvents
      * @param ids event ids
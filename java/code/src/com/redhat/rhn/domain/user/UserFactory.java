@@ -22,6 +22,7 @@ import com.redhat.rhn.common.db.datasource.SelectMode;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.common.hibernate.LookupException;
 import com.redhat.rhn.common.localization.LocalizationService;
+import com.redhat.rhn.domain.access.WebEndpointFactory;
 import com.redhat.rhn.domain.org.Org;
 import com.redhat.rhn.domain.org.OrgFactory;
 import com.redhat.rhn.domain.role.Role;
@@ -413,6 +414,8 @@ public  class UserFactory extends HibernateFactory {
         }
         saveObject(user);
         syncUserPerms(user);
+        // the access groups and namespaces may have been changed directly in their collections
+        WebEndpointFactory.invalidateAccess(user.getId());
     }
 
     /**
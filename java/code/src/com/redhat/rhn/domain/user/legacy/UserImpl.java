@@ -25,6 +25,7 @@ import com.redhat.rhn.domain.BaseDomainHelper;
 import com.redhat.rhn.domain.access.AccessGroup;
 import com.redhat.rhn.domain.access.AccessGroupFactory;
 import com.redhat.rhn.domain.access.Namespace;
+import com.redhat.rhn.domain.access.WebEndpointFactory;
 import com.redhat.rhn.domain.org.Org;
 import com.redhat.rhn.domain.org.usergroup.UserGroup;
 import com.redhat.rhn.domain.org.usergroup.UserGroupFactory;
@@ -387,6 +388,7 @@ public class UserImpl extends BaseDomainHelper implements User {
     /** {@inheritDoc} */
     private void addRole(Role label, boolean temporary) {
         checkPermanentOrgAdmin();
+        WebEndpointFactory.invalidateAccess(getId());
         Set<Role> roles;
         if (temporary) {
             roles = this.getTemporaryRoles();
@@ -422,6 +424,7 @@ public class UserImpl extends BaseDomainHelper implements User {
     /** {@inheritDoc} */
     private void removeRole(Role label, boolean temporary) {
         checkPermanentOrgAdmin();
+        WebEndpointFactory.invalidateAccess(getId());
         UserGroup ug = org.getUserGroup(label);
         if (ug != null) {
             for (Iterator<UserGroupMembers> ugmIter = groupMembers.iterator();
@@ -1495,6 +1498,7 @@ public class UserImpl extends BaseDomainHelper implements User {
     @Override
     public void setNamespaces(Set<Namespace> namespaceIn) {
         this.namespaces = namespaceIn;
+        WebEndpointFactory.invalidateAccess(getId());
     }
 
     @Override
@@ -1505,6 +1509,7 @@ public class UserImpl extends BaseDomainHelper implements User {
     @Override
     public void setAccessGroups(Set<AccessGroup> accessGroupsIn) {
         accessGroups = accessGroupsIn;
+        WebEndpointFactory.invalidateAccess(getId());
     }
 
     /** {@inheritDoc} */
@@ -1538,6 +1543,7 @@ public class UserImpl extends BaseDomainHelper implements User {
         if (accessGroups != null) {
             accessGroups.remove(accessGroupIn);
         }
+        WebEndpointFactory.invalidateAccess(getId());
     }
 
     /** {@inheritDoc} */
@@ -1547,5 +1553,6 @@ public class UserImpl extends BaseDomainHelper implements User {
             accessGroups = new HashSet<>();
         }
             accessGroups.add(accessGroupIn);
+        WebEndpointFactory.invalidateAccess(getId());
     }
 }
@@ -15,6 +15,7 @@
 
 package com.redhat.rhn.frontend.events;
 
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.messaging.EventMessage;
 import com.redhat.rhn.common.messaging.MessageAction;
 import com.redhat.rhn.common.security.PermissionException;
@@ -33,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -66,16 +68,24 @@ public class AlignSoftwareTargetAction implements MessageAction {
             Instant start = Instant.now();
             contentManager.alignEnvironmentTargetSync(filters, sourceChannel, targetChannel, msg.getUser());
             target.setStatus(Status.GENERATING_REPODATA);
-            LOG.info("Finished aligning {} in {}", msg, Duration.between(start, Instant.now()));
+            Duration duration = Duration.between(start, Instant.now());
+            ContentProjectFactory.addHistoryChannel(target, Date.from(start), duration.toMillis());
+            LOG.info("Finished aligning {} in {}", msg, duration);
         }
         catch (Throwable t) {
             throw new AlignSoftwareTargetException(target, t);
         }
     }
 
+    /**
+     * The targets of an environment are independent once their channels are cloned: when enabled, each of them is
+     * aligned in its own session and transaction by the bounded message queue pool.
+     *
+     * @return true if the alignments run in parallel
+     */
     @Override
     public boolean canRunConcurrently() {
-        return false;
+        return ConfigDefaults.get().isClmParallelAlign();
     }
 
     @Override
@@ -21,8 +21,6 @@ import com.redhat.rhn.common.client.ClientCertificateDigester;
 import com.redhat.rhn.common.client.InvalidCertificateException;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.common.hibernate.LookupException;
-import com.redhat.rhn.common.translation.TranslationException;
-import com.redhat.rhn.common.translation.Translator;
 import com.redhat.rhn.common.util.MethodUtil;
 import com.redhat.rhn.common.util.StringUtil;
 import com.redhat.rhn.domain.access.WebEndpoint;
@@ -39,11 +37,6 @@ import com.redhat.rhn.domain.user.User;
 import com.redhat.rhn.manager.session.SessionManager;
 import com.redhat.rhn.manager.system.SystemManager;
 
-import com.suse.manager.api.ApiIgnore;
-import com.suse.manager.api.ApiType;
-import com.suse.manager.api.ReadOnly;
-import com.suse.salt.netapi.utils.Xor;
-
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
@@ -55,17 +48,9 @@ import org.xml.sax.SAXException;
 import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import redstone.xmlrpc.XmlRpcFault;
 import redstone.xmlrpc.XmlRpcInvocationHandler;
@@ -100,14 +85,8 @@ public class BaseHandler implements XmlRpcInvocationHandler {
     @Override
     public Object invoke(String methodCalled, List params) throws XmlRpcFault {
         Class<? extends BaseHandler> myClass = this.getClass();
-        Method[] methods = Arrays.stream(myClass.getDeclaredMethods())
-                .filter(m -> Modifier.isPublic(m.getModifiers()))
-                .filter(BaseHandler::isMethodAvailable)
-                .toArray(Method[]::new);
-
-        String[] byNamespace = methodCalled.split("\\.");
-        String namespace = byNamespace[byNamespace.length - 1];
-        String beanifiedMethod = StringUtil.beanify(namespace);
+        HandlerDispatchTable dispatchTable = HandlerDispatchTable.forClass(myClass);
+        String beanifiedMethod = dispatchTable.getMethodName(methodCalled);
         WebSession session = null;
         User user = null;
 
@@ -127,22 +106,12 @@ public class BaseHandler implements XmlRpcInvocationHandler {
         }
 
 
-        //we've found all the methods that have the same number of parameters
-        List<Method> matchedMethods = findMethods(methods, params, beanifiedMethod);
-
-        //Attempt to find a perfect match
-        Method foundMethod = findPerfectMethod(params, matchedMethods);
-        Object[] converted = params.toArray();
-
-        if (foundMethod == null) {
-            Tuple2<Method, Object[]> fallbackMethod = findFallbackMethod(params, matchedMethods);
-            foundMethod = fallbackMethod.getA();
-            converted = fallbackMethod.getB();
-        }
-        XmlRpcLoggingInvocationProcessor.setCalledMethod(foundMethod);
+        Tuple2<HandlerDispatchTable.HandlerMethod, Object[]> found = dispatchTable.find(beanifiedMethod, params);
+        HandlerDispatchTable.HandlerMethod foundMethod = found.getA();
+        XmlRpcLoggingInvocationProcessor.setCalledMethod(foundMethod.getMethod());
 
         if (user != null && user.isReadOnly()) {
-            if (!foundMethod.isAnnotationPresent(ReadOnly.class)) {
+            if (!foundMethod.isReadOnly()) {
                 throw new SecurityException("The " + beanifiedMethod + " API is not available to read-only API users");
             }
         }
@@ -150,7 +119,7 @@ public class BaseHandler implements XmlRpcInvocationHandler {
         ensureRoleBasedAccess(user, myClass.getCanonicalName(), beanifiedMethod);
 
         try {
-            return foundMethod.invoke(this, converted);
+            return foundMethod.invoke(this, found.getB());
         }
         catch (IllegalAccessException e) {
             throw new XmlRpcFault(-1, "unhandled internal exception");
@@ -204,9 +173,8 @@ public class BaseHandler implements XmlRpcInvocationHandler {
         }
         else {
             if (!user.hasRole(RoleFactory.SAT_ADMIN)) {
-                Optional<WebEndpoint> endpointOpts = WebEndpointFactory.lookupByUserIdClassMethodScope(user.getId(),
-                        apiEndpoint, WebEndpoint.Scope.A);
-                if (endpointOpts.isEmpty()) {
+                if (!WebEndpointFactory.isAccessibleByClassMethodScope(user.getId(), apiEndpoint,
+                        WebEndpoint.Scope.A)) {
                     throw new SecurityException("The " + methodName + " API is not available to user " +
                             user.getLogin());
                 }
@@ -214,129 +182,6 @@ public class BaseHandler implements XmlRpcInvocationHandler {
         }
     }
 
-    private Tuple2<Method, Object[]> findFallbackMethod(
-            List<Object> params, List<Method> matchedMethods) {
-
-        Map<Boolean, List<Xor<TranslationException, Tuple2<Method, Object[]>>>> collect = matchedMethods
-                .stream()
-                .map(method -> {
-                    Class<?>[] types = method.getParameterTypes();
-                    Object[] converted = params.toArray();
-
-                    Iterator<Object> iter = params.iterator();
-                    for (int i = 0; i < types.length; i++) {
-                        Object curr = iter.next();
-                        if (!types[i].equals(curr.getClass())) {
-                            try {
-                                converted[i] = Translator.convert(curr, types[i]);
-                            }
-                            catch (TranslationException e) {
-                                return Xor.<TranslationException, Tuple2<Method, Object[]>>left(e);
-                            }
-                        }
-                    }
-                    return Xor.<TranslationException, Tuple2<Method, Object[]>>right(new Tuple2<>(method, converted));
-
-                }).collect(Collectors.partitioningBy(x -> x.isRight()));
-
-        List<Tuple2<Method, Object[]>> candidates = collect.get(true).stream()
-                .flatMap(x -> x.right().stream()).toList();
-
-        List<TranslationException> exceptions = collect.get(false).stream()
-                .flatMap(x -> x.left().stream()).toList();
-
-        if (candidates.isEmpty()) {
-           throw exceptions.get(0);
-        }
-        else if (candidates.size() == 1) {
-            return candidates.get(0);
-        }
-        else  {
-            throw new TranslationException("more than one method candidate found during conversion fallback");
-        }
-    }
-
-    /**
-     * Finds the perfect match for a method based upon type
-     * @param params The parameters to find the match for.
-     * @param matchedMethods the list of methods to check for a perfect match
-     * @return null if no perfect match was found, otherwise the matched method.
-     */
-    private Method findPerfectMethod(List params, List<Method> matchedMethods) {
-        //now lets try to find one that matches parameters exactly
-        for (Method currMethod : matchedMethods) {
-            if (log.isDebugEnabled()) {
-                log.debug("findPerfectMethod test:{}", currMethod.toGenericString());
-            }
-            Class[] types = currMethod.getParameterTypes();
-            for (int i = 0; i < types.length; i++) {
-                if (log.isDebugEnabled()) {
-                    log.debug("  findPerfectMethod: compare: {} isAssignableFrom {}", types[i].getCanonicalName(),
-                            params.get(i).getClass().getCanonicalName());
-                }
-                //if we find a param that doesn't match, go to the next method
-                if (!types[i].isAssignableFrom(params.get(i).getClass())) {
-                    break;
-                }
-                //if we have gone through all of the params, and are here it is a
-                //      perfect match.
-                if (i == types.length - 1) {
-                    log.debug("  all parameter match");
-                    return currMethod;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Private method to find the method in the java class that is being called
-     * via xml-rpc
-     * @param methods The methods contained in the class
-     * @param params The parameters sent to us via xml-rpc
-     * @param beanifiedMethod The method name we are looking for
-     * @return The matching method we're looking for
-     * @throws XmlRpcFault Thrown if we can't find the method asked for
-     */
-    /*
-     * TODO: Make this method even smarterer.
-     *      Currently this finds methods that match the number of parameters and returns
-     *          those.
-     */
-    private List<Method> findMethods(Method[] methods, Collection params,
-            String beanifiedMethod) throws XmlRpcFault {
-
-        List<Method> toReturn = new ArrayList<>();
-
-        //Loop through the methods array and find the one we are trying to call.
-        for (Method methodIn : methods) {
-            if (methodIn.getName().equals(beanifiedMethod)) {
-                // We found a method with the right name, but does the parameter count
-                // match?
-                int numberOfParams = methodIn.getParameterTypes().length;
-                if (numberOfParams == params.size()) {
-                    //Method name and number of parameters match.
-                    toReturn.add(methodIn);
-                }
-            }
-        }
-        if (toReturn.isEmpty()) {
-            //The caller didn't get the method name or number of parameters right
-            String message = "Could not find method: " + beanifiedMethod +
-            " in class: " + this.getClass().getName() + " with params: [";
-            for (Iterator iter = params.iterator(); iter.hasNext();) {
-                Object param = iter.next();
-                message += (param.getClass().getName());
-                    if (iter.hasNext()) {
-                        message = message + ", ";
-                    }
-            }
-            message = message + "]";
-            throw new XmlRpcFault(-1, message);
-        }
-        return toReturn;
-    }
-
     /**
      * Gets the currently logged in user. This is all done through the sessionkey we send
      * the user in AuthHandler.login.
@@ -535,14 +380,4 @@ public class BaseHandler implements XmlRpcInvocationHandler {
     private boolean isSessionKey(String string) {
         return string.matches(KEY_REGEX);
     }
-
-    /**
-     * Returns true if the method is available to be exposed in the XMLRPC interface
-     * @param method the method
-     * @return true if the method is available
-     */
-    private static boolean isMethodAvailable(Method method) {
-        return !(method.isAnnotationPresent(ApiIgnore.class) &&
-                Arrays.asList(method.getAnnotation(ApiIgnore.class).value()).contains(ApiType.XMLRPC));
-    }
 }
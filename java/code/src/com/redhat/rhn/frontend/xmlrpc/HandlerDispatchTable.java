@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.frontend.xmlrpc;
+
+import com.redhat.rhn.common.translation.TranslationException;
+import com.redhat.rhn.common.translation.Translator;
+import com.redhat.rhn.common.util.StringUtil;
+import com.redhat.rhn.domain.product.Tuple2;
+
+import com.suse.manager.api.ApiIgnore;
+import com.suse.manager.api.ApiType;
+import com.suse.manager.api.ReadOnly;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import redstone.xmlrpc.XmlRpcFault;
+
+/**
+ * The methods of a handler class callable through XMLRPC, by name and number of parameters.
+ * <p>
+ * The table of a class is built once, the first time the class is registered or called, and resolves the calls
+ * without looking up the methods of the class again: the called name is beanified once, the translators of the
+ * parameters are cached by type and the methods are invoked through method handles.
+ */
+public class HandlerDispatchTable {
+
+    private static final Logger LOG = LogManager.getLogger(HandlerDispatchTable.class);
+
+    private static final ClassValue<HandlerDispatchTable> TABLES = new ClassValue<>() {
+        @Override
+        protected HandlerDispatchTable computeValue(Class<?> type) {
+            return new HandlerDispatchTable(type);
+        }
+    };
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class,
+            Object[].class);
+
+    private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+    static {
+        try {
+            WRAP_TARGET_EXCEPTION = MethodHandles.lookup().findStatic(HandlerDispatchTable.class,
+                    "wrapTargetException", MethodType.methodType(Object.class, Throwable.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<?> handlerClass;
+    private final Map<String, Map<Integer, List<HandlerMethod>>> methods = new HashMap<>();
+    private final Map<String, String> beanifiedNames = new ConcurrentHashMap<>();
+
+    /**
+     * A method callable through XMLRPC
+     */
+    public static class HandlerMethod {
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+        private volatile MethodHandle invoker;
+        private final boolean readOnly;
+        private final List<Map<Class<?>, Optional<Method>>> translators;
+
+        HandlerMethod(Method methodIn) {
+            method = methodIn;
+            parameterTypes = methodIn.getParameterTypes();
+            readOnly = methodIn.isAnnotationPresent(ReadOnly.class);
+            translators = new ArrayList<>(parameterTypes.length);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                translators.add(new ConcurrentHashMap<>());
+            }
+        }
+
+        /**
+         * @return the method
+         */
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * @return true if the method is available to read-only API users
+         */
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        /**
+         * Calls the method. Like {@link Method#invoke(Object, Object...)}, only what the method throws is wrapped:
+         * the errors calling it, like a handler or parameters of the wrong type, are thrown as they are.
+         * @param handler the handler to call the method on
+         * @param args the parameters of the method
+         * @return the return value of the method
+         * @throws IllegalAccessException if the method is not accessible
+         * @throws InvocationTargetException wrapping the exception thrown by the method
+         */
+        public Object invoke(Object handler, Object[] args) throws IllegalAccessException,
+                InvocationTargetException {
+            MethodHandle handle = invoker;
+            if (handle == null) {
+                // the handles are only created for the methods which are called: spinning them is not free
+                try {
+                    MethodHandle target = MethodHandles.publicLookup().unreflect(method);
+                    handle = MethodHandles.catchException(target, Throwable.class, WRAP_TARGET_EXCEPTION.asType(
+                                    MethodType.methodType(target.type().returnType(), Throwable.class)))
+                            .asSpreader(Object[].class, parameterTypes.length)
+                            .asType(INVOKER_TYPE);
+                }
+                catch (IllegalAccessException e) {
+                    // handlers which are not public classes are called through reflection
+                    return method.invoke(handler, args);
+                }
+                invoker = handle;
+            }
+            try {
+                return handle.invokeExact(handler, args);
+            }
+            catch (InvocationTargetException | RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                // the checked exceptions of the method are wrapped by the handle
+                throw new IllegalStateException("Unexpected exception calling " + method, e);
+            }
+        }
+
+        /**
+         * @return true if all the parameters are instances of the parameter types
+         */
+        private boolean isPerfectMatch(List<?> params) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (!parameterTypes[i].isAssignableFrom(params.get(i).getClass())) {
+                    return false;
+                }
+            }
+            // like the lookup by type always did, a method without parameters is only found by the fallback
+            return parameterTypes.length > 0;
+        }
+
+        /**
+         * Converts the parameters to the parameter types, as {@link Translator#convert(Object, Class)} does
+         * @return the converted parameters, or null if there is no translator for one of them
+         */
+        private Object[] convert(List<?> params) {
+            Object[] converted = params.toArray();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Object value = converted[i];
+                if (!parameterTypes[i].equals(value.getClass())) {
+                    converted[i] = convert(i, value);
+                    if (converted[i] == null) {
+                        return null;
+                    }
+                }
+            }
+            return converted;
+        }
+
+        /**
+         * Throws the error converting the parameters for this method
+         */
+        private void reportConversionError(List<?> params) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Translator.convert(params.get(i), parameterTypes[i]);
+            }
+        }
+
+        private Object convert(int index, Object value) {
+            Class<?> want = parameterTypes[index];
+            if (want.isAssignableFrom(value.getClass())) {
+                return value;
+            }
+            // the overloads not taking the parameters are common: they are skipped without building exceptions
+            Optional<Method> translator = translators.get(index).computeIfAbsent(value.getClass(),
+                    c -> Optional.ofNullable(Translator.findTranslator(c, want)));
+            if (translator.isEmpty()) {
+                return null;
+            }
+            try {
+                Object converted = translator.get().invoke(null, value);
+                if (converted != null) {
+                    return converted;
+                }
+            }
+            catch (IllegalAccessException e) {
+                throw new TranslationException("Could not execute translator for " + value.getClass() + " to " +
+                        want, e);
+            }
+            catch (InvocationTargetException e) {
+                throw new TranslationException("Error when executing translator for " + value.getClass() + " to " +
+                        want, e.getCause());
+            }
+            // the translator refused the value: look for another one the usual way
+            return Translator.convert(value, want);
+        }
+    }
+
+    /**
+     * Wraps the exception thrown by a handler method, called by the method handles when the method throws
+     */
+    private static Object wrapTargetException(Throwable e) throws InvocationTargetException {
+        throw new InvocationTargetException(e);
+    }
+
+    private HandlerDispatchTable(Class<?> handlerClassIn) {
+        handlerClass = handlerClassIn;
+        for (Method method : handlerClassIn.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers()) && isMethodAvailable(method)) {
+                methods.computeIfAbsent(method.getName(), n -> new HashMap<>())
+                        .computeIfAbsent(method.getParameterCount(), n -> new ArrayList<>())
+                        .add(new HandlerMethod(method));
+            }
+        }
+    }
+
+    /**
+     * Returns the dispatch table of a handler class
+     * @param handlerClass the handler class
+     * @return the dispatch table
+     */
+    public static HandlerDispatchTable forClass(Class<? extends BaseHandler> handlerClass) {
+        return TABLES.get(handlerClass);
+    }
+
+    /**
+     * Returns the name of the method implementing an XMLRPC call
+     * @param methodCalled the xmlrpc function called, like 'registration.privacy_statement'
+     * @return the name of the method, like 'privacyStatement'
+     */
+    public String getMethodName(String methodCalled) {
+        return beanifiedNames.computeIfAbsent(methodCalled, m -> {
+            String[] byNamespace = m.split("\\.");
+            return StringUtil.beanify(byNamespace[byNamespace.length - 1]);
+        });
+    }
+
+    /**
+     * Finds the method to call with the given parameters: a method whose parameter types match the parameters
+     * exactly if there is one, otherwise the only method which the parameters can be converted for.
+     * @param beanifiedMethod the name of the method
+     * @param params the parameters
+     * @return the method and the parameters converted to its parameter types
+     * @throws XmlRpcFault if there is no method with this name and number of parameters
+     * @throws TranslationException if the parameters cannot be converted for exactly one method
+     */
+    public Tuple2<HandlerMethod, Object[]> find(String beanifiedMethod, List<?> params) throws XmlRpcFault {
+        List<HandlerMethod> candidates = methods.getOrDefault(beanifiedMethod, Collections.emptyMap())
+                .get(params.size());
+        if (candidates == null) {
+            throw new XmlRpcFault(-1, notFoundMessage(beanifiedMethod, params));
+        }
+
+        for (HandlerMethod candidate : candidates) {
+            if (candidate.isPerfectMatch(params)) {
+                LOG.debug("  all parameter match {}", candidate.method);
+                return new Tuple2<>(candidate, params.toArray());
+            }
+        }
+
+        List<Tuple2<HandlerMethod, Object[]>> converted = new ArrayList<>();
+        HandlerMethod firstFailure = null;
+        TranslationException firstError = null;
+        for (HandlerMethod candidate : candidates) {
+            try {
+                Object[] args = candidate.convert(params);
+                if (args != null) {
+                    converted.add(new Tuple2<>(candidate, args));
+                }
+                else if (firstFailure == null && firstError == null) {
+                    firstFailure = candidate;
+                }
+            }
+            catch (TranslationException e) {
+                if (firstFailure == null && firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+
+        if (converted.isEmpty()) {
+            if (firstFailure != null) {
+                firstFailure.reportConversionError(params);
+                firstError = new TranslationException("Could not convert the parameters of " + firstFailure.method);
+            }
+            throw firstError;
+        }
+        else if (converted.size() == 1) {
+            return converted.get(0);
+        }
+        else {
+            throw new TranslationException("more than one method candidate found during conversion fallback");
+        }
+    }
+
+    private String notFoundMessage(String beanifiedMethod, List<?> params) {
+        //The caller didn't get the method name or number of parameters right
+        StringBuilder message = new StringBuilder("Could not find method: " + beanifiedMethod +
+                " in class: " + handlerClass.getName() + " with params: [");
+        for (Iterator<?> iter = params.iterator(); iter.hasNext();) {
+            message.append(iter.next().getClass().getName());
+            if (iter.hasNext()) {
+                message.append(", ");
+            }
+        }
+        return message.append("]").toString();
+    }
+
+    /**
+     * Returns true if the method is available to be exposed in the XMLRPC interface
+     * @param method the method
+     * @return true if the method is available
+     */
+    private static boolean isMethodAvailable(Method method) {
+        return !(method.isAnnotationPresent(ApiIgnore.class) &&
+                Arrays.asList(method.getAnnotation(ApiIgnore.class).value()).contains(ApiType.XMLRPC));
+    }
+}
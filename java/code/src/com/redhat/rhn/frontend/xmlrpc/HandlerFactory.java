@@ -127,6 +127,8 @@ public class HandlerFactory {
      * @param handler xml rpc handler.
      */
     public void addHandler(String namespace, BaseHandler handler) {
+       // build the dispatch table now rather than on the first call
+       HandlerDispatchTable.forClass(handler.getClass());
        handlers.put(namespace, handler);
     }
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.frontend.xmlrpc.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.common.translation.TranslationException;
+import com.redhat.rhn.common.translation.Translator;
+import com.redhat.rhn.common.util.StringUtil;
+import com.redhat.rhn.domain.product.Tuple2;
+import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.domain.user.UserFactory;
+import com.redhat.rhn.frontend.xmlrpc.HandlerDispatchTable;
+import com.redhat.rhn.frontend.xmlrpc.system.SystemHandler;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import redstone.xmlrpc.XmlRpcFault;
+
+public class HandlerDispatchTableTest {
+
+    @Test
+    public void testFindMethods() throws Exception {
+        HandlerDispatchTable table = HandlerDispatchTable.forClass(UnitTestHandler.class);
+        assertSame(table, HandlerDispatchTable.forClass(UnitTestHandler.class));
+        assertEquals("getUserLogin", table.getMethodName("unittest.get_user_login"));
+
+        // perfect match
+        Tuple2<HandlerDispatchTable.HandlerMethod, Object[]> found = table.find("add", List.of(1, 2));
+        assertEquals(UnitTestHandler.class.getMethod("add", Integer.class, Integer.class),
+                found.getA().getMethod());
+        assertEquals(3, found.getA().invoke(new UnitTestHandler(), found.getB()));
+
+        // converted parameters
+        found = table.find("add", List.of(1L, 2));
+        assertArrayEquals(new Object[] {1, 2}, found.getB());
+
+        // methods without parameters
+        found = table.find("login", List.of());
+        assertEquals("login", found.getA().getMethod().getName());
+        assertFalse(found.getA().isReadOnly());
+
+        assertTrue(table.find("getUserLogin", List.of(UserFactory.createUser())).getA().isReadOnly());
+
+        XmlRpcFault fault = assertThrows(XmlRpcFault.class, () -> table.find("add", List.of(1)));
+        assertEquals("Could not find method: add in class: " + UnitTestHandler.class.getName() +
+                " with params: [java.lang.Integer]", fault.getMessage());
+        assertThrows(XmlRpcFault.class, () -> table.find("ensureRoleBasedAccess", List.of(1, 2, 3)));
+    }
+
+    @Test
+    public void testInvokeWrapsOnlyTargetExceptions() throws Exception {
+        HandlerDispatchTable table = HandlerDispatchTable.forClass(UnitTestHandler.class);
+
+        HandlerDispatchTable.HandlerMethod throwFault = table.find("throwFault", List.of()).getA();
+        InvocationTargetException e = assertThrows(InvocationTargetException.class,
+                () -> throwFault.invoke(new UnitTestHandler(), new Object[0]));
+        assertInstanceOf(InvalidUserNameException.class, e.getCause());
+
+        // calling the method on something else than a handler fails before reaching it
+        HandlerDispatchTable.HandlerMethod add = table.find("add", List.of(1, 2)).getA();
+        assertThrows(ClassCastException.class, () -> add.invoke(new Object(), new Object[] {1, 2}));
+        assertThrows(ClassCastException.class, () -> add.invoke(new UnitTestHandler(), new Object[] {1, "2"}));
+    }
+
+    /**
+     * Looks up a method of a handler the way BaseHandler did before the dispatch tables, also used by
+     * HandlerDispatchTableBenchmark
+     */
+    static Method reflectionFind(Class<?> handlerClass, String methodCalled, List<Object> params) {
+        String[] byNamespace = methodCalled.split("\\.");
+        String beanifiedMethod = StringUtil.beanify(byNamespace[byNamespace.length - 1]);
+        List<Method> matched = new ArrayList<>();
+        Arrays.stream(handlerClass.getDeclaredMethods())
+                .filter(m -> Modifier.isPublic(m.getModifiers()))
+                .filter(m -> m.getName().equals(beanifiedMethod) && m.getParameterCount() == params.size())
+                .forEach(matched::add);
+        for (Method method : matched) {
+            Class<?>[] types = method.getParameterTypes();
+            boolean perfect = types.length > 0;
+            for (int i = 0; i < types.length; i++) {
+                perfect &= types[i].isAssignableFrom(params.get(i).getClass());
+            }
+            if (perfect) {
+                return method;
+            }
+        }
+        for (Method method : matched) {
+            try {
+                Class<?>[] types = method.getParameterTypes();
+                for (int i = 0; i < types.length; i++) {
+                    if (!types[i].equals(params.get(i).getClass())) {
+                        Translator.convert(params.get(i), types[i]);
+                    }
+                }
+                return method;
+            }
+            catch (TranslationException e) {
+                // try the next one
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the lookup of methods of the system handler, with its hundreds of overloads, by reflection and
+     * with a dispatch table.
+     */
+    @Test
+    public void testSystemHandlerMatchesReflection() throws Exception {
+        User user = UserFactory.createUser();
+        List<Tuple2<String, List<Object>>> calls = List.of(
+                new Tuple2<>("system.list_systems", List.of(user)),
+                new Tuple2<>("system.get_details", List.of(user, 1000010000)),
+                new Tuple2<>("system.get_details", List.of(user, 1000010000L)),
+                new Tuple2<>("system.schedule_apply_errata", List.of(user, 1000010000, List.of(1, 2), true)));
+
+        for (Tuple2<String, List<Object>> call : calls) {
+            HandlerDispatchTable table = HandlerDispatchTable.forClass(SystemHandler.class);
+            assertEquals(reflectionFind(SystemHandler.class, call.getA(), call.getB()),
+                    table.find(table.getMethodName(call.getA()), call.getB()).getA().getMethod(), call.getA());
+        }
+    }
+}
@@ -821,34 +821,49 @@ public class CVEAuditManager {
         DataResult<Map<String, Object>> results = m.execute(params);
 
         return StreamSupport.stream(results.spliterator(), false)
-                .map(row -> {
-                    /*
-                        We check "package_version" to determine if we have an EVR
-                        If the package is for an affected system, we should have at least the version and the release.
-                        Otherwise, all values will be null (no EVR present)
-                        (See: cve_audit_queries#list_systems_by_patch_status)
-                    */
-                    Optional<PackageEvr> packageEvr = Optional.ofNullable((String) row.get("package_version"))
-                            .map(pv -> new PackageEvr((String) row.get("package_epoch"), pv,
-                                    (String) row.get("package_release"), (String) row.get("package_type")));
+                .map(CVEAuditManager::toSystemPatchStatus);
+    }
 
-                    return new CVEPatchStatus(
-                            (long) row.get("system_id"),
-                            (String) row.get("system_name"),
-                            Optional.ofNullable((Long)row.get("errata_id")),
-                            (String) row.get("errata_advisory"),
-                            Optional.ofNullable((Long)row.get("package_id")),
-                            Optional.ofNullable((String)row.get("package_name")),
-                            packageEvr,
-                            getBooleanValue(row, "package_installed"),
-                            Optional.ofNullable((Long)row.get("channel_id")),
-                            (String) row.get("channel_name"),
-                            (String) row.get("channel_label"),
-                            getBooleanValue(row, "channel_assigned"),
-                            Optional.ofNullable((Long)row.get("channel_rank"))
-                    );
-                });
+    /**
+     * List the patch status rows of a single system for all the CVEs of the errata in its relevant channels.
+     *
+     * @param systemId the system id
+     * @return the rows of the system, grouped by CVE id
+     */
+    public static Map<Long, List<CVEPatchStatus>> listSystemPatchStatusByCve(Long systemId) {
+        SelectMode m = ModeFactory.getMode("cve_audit_queries", "list_system_patch_status_by_cve");
+        DataResult<Map<String, Object>> results = m.execute(Map.of("sid", systemId));
 
+        return results.stream().collect(Collectors.groupingBy(row -> (Long) row.get("cve_id"),
+                Collectors.mapping(CVEAuditManager::toSystemPatchStatus, Collectors.toList())));
+    }
+
+    private static CVEPatchStatus toSystemPatchStatus(Map<String, Object> row) {
+        /*
+            We check "package_version" to determine if we have an EVR
+            If the package is for an affected system, we should have at least the version and the release.
+            Otherwise, all values will be null (no EVR present)
+            (See: cve_audit_queries#list_systems_by_patch_status)
+        */
+        Optional<PackageEvr> packageEvr = Optional.ofNullable((String) row.get("package_version"))
+                .map(pv -> new PackageEvr((String) row.get("package_epoch"), pv,
+                        (String) row.get("package_release"), (String) row.get("package_type")));
+
+        return new CVEPatchStatus(
+                (long) row.get("system_id"),
+                (String) row.get("system_name"),
+                Optional.ofNullable((Long)row.get("errata_id")),
+                (String) row.get("errata_advisory"),
+                Optional.ofNullable((Long)row.get("package_id")),
+                Optional.ofNullable((String)row.get("package_name")),
+                packageEvr,
+                getBooleanValue(row, "package_installed"),
+                Optional.ofNullable((Long)row.get("channel_id")),
+                (String) row.get("channel_name"),
+                (String) row.get("channel_label"),
+                getBooleanValue(row, "channel_assigned"),
+                Optional.ofNullable((Long)row.get("channel_rank"))
+        );
     }
 
     /**
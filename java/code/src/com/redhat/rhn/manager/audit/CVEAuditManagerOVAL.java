@@ -19,23 +19,23 @@ package com.redhat.rhn.manager.audit;
 import static com.redhat.rhn.manager.audit.CVEAuditManager.SUCCESSOR_PRODUCT_RANK_BOUNDARY;
 
 import com.redhat.rhn.common.conf.ConfigDefaults;
-import com.redhat.rhn.domain.rhnpackage.PackageEvr;
+import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.domain.server.Server;
 import com.redhat.rhn.domain.server.ServerFactory;
 import com.redhat.rhn.domain.user.User;
 import com.redhat.rhn.manager.rhnpackage.PackageManager;
 
 import com.suse.oval.OVALCachingFactory;
-import com.suse.oval.OVALCleaner;
+import com.suse.oval.OVALStagingFile;
 import com.suse.oval.OsFamily;
-import com.suse.oval.OvalParser;
 import com.suse.oval.ShallowSystemPackage;
+import com.suse.oval.SystemPackageIndex;
 import com.suse.oval.config.OVALConfigLoader;
 import com.suse.oval.ovaldownloader.OVALDownloadResult;
 import com.suse.oval.ovaldownloader.OVALDownloader;
-import com.suse.oval.ovaltypes.OvalRootType;
 import com.suse.oval.vulnerablepkgextractor.VulnerablePackage;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -43,11 +43,20 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -82,6 +91,22 @@ public class CVEAuditManagerOVAL {
             throw new UnknownCVEIdentifierException();
         }
 
+        if (ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+            return CVEExposureManager.listSystemsByPatchStatus(user, cveIdentifier, patchStatuses);
+        }
+        return auditSystemsByPatchStatus(user, cveIdentifier, patchStatuses);
+    }
+
+    /**
+     * Audit the visible systems regarding a given CVE identifier, evaluating the patch status of every system.
+     *
+     * @param user the calling user
+     * @param cveIdentifier the CVE identifier to lookup
+     * @param patchStatuses the patch statuses
+     * @return list of system records with patch status
+     */
+    static List<CVEAuditServer> auditSystemsByPatchStatus(User user, String cveIdentifier,
+                                                          Set<PatchStatus> patchStatuses) {
         List<CVEAuditServer> result = new ArrayList<>();
 
         List<CVEAuditManager.CVEPatchStatus> results = CVEAuditManager.listSystemsByPatchStatus(user, cveIdentifier)
@@ -91,59 +116,90 @@ public class CVEAuditManagerOVAL {
         Map<Long, List<CVEAuditManager.CVEPatchStatus>> resultsBySystem =
                 results.stream().collect(Collectors.groupingBy(CVEAuditManager.CVEPatchStatus::getSystemId));
 
-        Set<Server> clients = user.getServers();
-        for (Server clientServer : clients) {
+        boolean ovalEnabled = ConfigDefaults.get().isOvalEnabledForCveAudit();
+
+        // Audit all the visible systems at once: the data sources availability and the installed vulnerable
+        // packages of every system are fetched with one query each, instead of several queries per system
+        Map<Long, List<OVALCachingFactory.InstalledVulnerablePackage>> installedVulnerablePackagesBySystem =
+                ovalEnabled ?
+                        OVALCachingFactory.getInstalledVulnerablePackagesByUserAndCve(user.getId(), cveIdentifier) :
+                        Collections.emptyMap();
+
+        for (OVALCachingFactory.AuditedSystem system : OVALCachingFactory.listAuditedSystems(user.getId())) {
             CVEAuditSystemBuilder auditWithChannelsResult = null;
             CVEAuditSystemBuilder auditWithOVALResult = null;
 
-            if (ConfigDefaults.get().isOvalEnabledForCveAudit() && checkOVALAvailability(clientServer)) {
-                auditWithOVALResult =
-                        doAuditSystem(cveIdentifier, resultsBySystem.get(clientServer.getId()), clientServer);
+            if (ovalEnabled && system.ovalAvailable()) {
+                auditWithOVALResult = doAuditSystem(resultsBySystem.get(system.id()), system.id(), system.name(),
+                        installedVulnerablePackagesBySystem.getOrDefault(system.id(), Collections.emptyList()));
             }
 
-            if (checkChannelsErrataAvailability(clientServer)) {
+            if (system.errataAvailable()) {
                 auditWithChannelsResult =
-                        CVEAuditManager.doAuditSystem(clientServer.getId(), resultsBySystem.get(clientServer.getId()));
+                        CVEAuditManager.doAuditSystem(system.id(), resultsBySystem.get(system.id()));
             }
 
-            CVEAuditSystemBuilder auditResult;
-            if (auditWithOVALResult != null && auditWithChannelsResult != null) {
-                auditWithOVALResult.setChannels(auditWithChannelsResult.getChannels());
-                auditWithOVALResult.setErratas(auditWithChannelsResult.getErratas());
-                auditWithOVALResult.setScanDataSources(ScanDataSource.OVAL, ScanDataSource.CHANNELS);
-                auditResult = auditWithOVALResult;
-            }
-            else if (auditWithOVALResult != null) {
-                auditWithOVALResult.setChannels(Collections.emptySet());
-                auditWithOVALResult.setErratas(Collections.emptySet());
-                auditWithOVALResult.setScanDataSources(ScanDataSource.OVAL);
-                auditResult = auditWithOVALResult;
-            }
-            else if (auditWithChannelsResult != null) {
-                auditWithChannelsResult.setScanDataSources(ScanDataSource.CHANNELS);
-                auditResult = auditWithChannelsResult;
-            }
-            else {
-                auditResult = new CVEAuditSystemBuilder(clientServer.getId());
-                auditResult.setPatchStatus(PatchStatus.UNKNOWN);
-                auditResult.setSystemID(clientServer.getId());
-                auditResult.setSystemName(clientServer.getName());
-            }
+            CVEAuditSystemBuilder auditResult =
+                    combineAuditResults(system.id(), system.name(), auditWithOVALResult, auditWithChannelsResult);
 
             if (patchStatuses.contains(auditResult.getPatchStatus())) {
-                result.add(new CVEAuditServer(
-                        auditResult.getId(),
-                        auditResult.getSystemName(),
-                        auditResult.getPatchStatus(),
-                        auditResult.getChannels(),
-                        auditResult.getErratas(),
-                        auditResult.getScanDataSources()));
+                result.add(toCVEAuditServer(auditResult));
             }
         }
 
         return result;
     }
 
+    /**
+     * Combine the results of the audit of a system based on OVAL and on Channels data. The OVAL result, when
+     * available, determines the patch status while the channels data provides the relevant channels and erratas.
+     *
+     * @param systemId the system id
+     * @param systemName the system name
+     * @param auditWithOVALResult the result based on OVAL data, or null if OVAL is not available for the system
+     * @param auditWithChannelsResult the result based on Channels data, or null if the channels of the system
+     *                                have no erratas
+     * @return the combined result
+     */
+    static CVEAuditSystemBuilder combineAuditResults(Long systemId, String systemName,
+                                                     CVEAuditSystemBuilder auditWithOVALResult,
+                                                     CVEAuditSystemBuilder auditWithChannelsResult) {
+        CVEAuditSystemBuilder auditResult;
+        if (auditWithOVALResult != null && auditWithChannelsResult != null) {
+            auditWithOVALResult.setChannels(auditWithChannelsResult.getChannels());
+            auditWithOVALResult.setErratas(auditWithChannelsResult.getErratas());
+            auditWithOVALResult.setScanDataSources(ScanDataSource.OVAL, ScanDataSource.CHANNELS);
+            auditResult = auditWithOVALResult;
+        }
+        else if (auditWithOVALResult != null) {
+            auditWithOVALResult.setChannels(Collections.emptySet());
+            auditWithOVALResult.setErratas(Collections.emptySet());
+            auditWithOVALResult.setScanDataSources(ScanDataSource.OVAL);
+            auditResult = auditWithOVALResult;
+        }
+        else if (auditWithChannelsResult != null) {
+            auditWithChannelsResult.setScanDataSources(ScanDataSource.CHANNELS);
+            auditResult = auditWithChannelsResult;
+        }
+        else {
+            auditResult = new CVEAuditSystemBuilder(systemId);
+            auditResult.setPatchStatus(PatchStatus.UNKNOWN);
+            auditResult.setSystemID(systemId);
+            auditResult.setSystemName(systemName);
+        }
+        return auditResult;
+    }
+
+    static CVEAuditServer toCVEAuditServer(CVEAuditSystemBuilder auditResult) {
+        return new CVEAuditServer(
+                auditResult.getId(),
+                auditResult.getSystemName(),
+                auditResult.getPatchStatus(),
+                auditResult.getChannels(),
+                auditResult.getErratas(),
+                auditResult.getScanDataSources());
+    }
+
     /**
      * Check if we have any OVAL vulnerability records for the given client OS in the database.
      *
@@ -181,6 +237,48 @@ public class CVEAuditManagerOVAL {
     public static CVEAuditSystemBuilder doAuditSystem(String cveIdentifier,
                                                       List<CVEAuditManager.CVEPatchStatus> results,
                                                       Server clientServer) {
+        SystemPackageIndex installedPackages =
+                new SystemPackageIndex(PackageManager.shallowSystemPackageList(clientServer.getId()));
+        List<VulnerablePackage> vulnerablePackages =
+                OVALCachingFactory.getVulnerablePackagesByProductAndCve(clientServer.getCpe(), cveIdentifier);
+
+        LOG.debug("Vulnerable packages before filtering: {}", vulnerablePackages);
+
+        Set<VulnerablePackage> clientProductVulnerablePackages = vulnerablePackages.stream()
+                .filter(pkg -> installedPackages.isInstalled(pkg.getName()))
+                .collect(Collectors.toSet());
+
+        return doAuditSystem(clientServer.getId(), clientServer.getName(), results, clientProductVulnerablePackages,
+                installedPackages);
+    }
+
+    /**
+     * Audit a system from the installed vulnerable packages returned by
+     * {@link OVALCachingFactory#getInstalledVulnerablePackagesByUserAndCve(Long, String)} or
+     * {@link OVALCachingFactory#getInstalledVulnerablePackagesByServer(Long)}.
+     */
+    static CVEAuditSystemBuilder doAuditSystem(
+            List<CVEAuditManager.CVEPatchStatus> results, Long serverId, String serverName,
+            List<OVALCachingFactory.InstalledVulnerablePackage> installedVulnerablePackages) {
+        // One row per installed version: keep a single vulnerable package per name and fix version
+        Map<String, VulnerablePackage> clientProductVulnerablePackages = new LinkedHashMap<>();
+        List<ShallowSystemPackage> installed = new ArrayList<>(installedVulnerablePackages.size());
+        for (OVALCachingFactory.InstalledVulnerablePackage row : installedVulnerablePackages) {
+            VulnerablePackage vulnerablePackage = row.vulnerablePackage();
+            clientProductVulnerablePackages.putIfAbsent(
+                    vulnerablePackage.getName() + "|" + vulnerablePackage.getFixVersion().orElse(""),
+                    vulnerablePackage);
+            installed.add(row.installed());
+        }
+
+        return doAuditSystem(serverId, serverName, results, new HashSet<>(clientProductVulnerablePackages.values()),
+                new SystemPackageIndex(installed));
+    }
+
+    private static CVEAuditSystemBuilder doAuditSystem(Long serverId, String serverName,
+                                                       List<CVEAuditManager.CVEPatchStatus> results,
+                                                       Set<VulnerablePackage> clientProductVulnerablePackages,
+                                                       SystemPackageIndex installedPackages) {
         // It's possible to find more than one patch for a particular package in the available channels. It's NOT
         // necessary to apply all of them because they will have the same outcome i.e. patch the package
         // instead we need to choose only one. To choose the one, we rank patches based on the channel they come
@@ -188,19 +286,8 @@ public class CVEAuditManagerOVAL {
         // ranking patch.
         results = keepOnlyPatchCandidates(results);
 
-        CVEAuditSystemBuilder cveAuditServerBuilder = new CVEAuditSystemBuilder(clientServer.getId());
-        cveAuditServerBuilder.setSystemName(clientServer.getName());
-
-        List<ShallowSystemPackage> allInstalledPackages =
-                PackageManager.shallowSystemPackageList(clientServer.getId());
-
-        LOG.debug("Vulnerable packages before filtering: {}",
-                OVALCachingFactory.getVulnerablePackagesByProductAndCve(clientServer.getCpe(), cveIdentifier));
-
-        Set<VulnerablePackage> clientProductVulnerablePackages =
-                OVALCachingFactory.getVulnerablePackagesByProductAndCve(clientServer.getCpe(), cveIdentifier).stream()
-                        .filter(pkg -> isPackageInstalled(pkg, allInstalledPackages))
-                        .collect(Collectors.toSet());
+        CVEAuditSystemBuilder cveAuditServerBuilder = new CVEAuditSystemBuilder(serverId);
+        cveAuditServerBuilder.setSystemName(serverName);
 
         LOG.debug("Vulnerable packages after filtering: {}", clientProductVulnerablePackages);
 
@@ -225,18 +312,7 @@ public class CVEAuditManagerOVAL {
         }
         else {
             boolean allPackagesPatched = patchedVulnerablePackages.stream().allMatch(patchedPackage ->
-                    getInstalledPackageVersions(patchedPackage, allInstalledPackages)
-                            .stream().allMatch(installedPackage -> {
-                                String fixVersion = patchedPackage.getFixVersion().get();
-                                if ("deb".equals(installedPackage.getType())) {
-                                    return installedPackage.getPackageEVR()
-                                            .compareTo(PackageEvr.parseDebian(fixVersion)) >= 0;
-                                }
-                                else {
-                                    return installedPackage.getPackageEVR()
-                                            .compareTo(PackageEvr.parseRpm(fixVersion)) >= 0;
-                                }
-                            }));
+                    installedPackages.isPatched(patchedPackage.getName(), patchedPackage.getFixVersion().get()));
 
             if (allPackagesPatched) {
                 cveAuditServerBuilder.setPatchStatus(PatchStatus.PATCHED);
@@ -328,22 +404,6 @@ public class CVEAuditManagerOVAL {
         return patchCandidates;
     }
 
-    private static boolean isPackageInstalled(VulnerablePackage pkg, List<ShallowSystemPackage> allInstalledPackages) {
-        return allInstalledPackages.stream()
-                .anyMatch(installed -> Objects.equals(installed.getName(), pkg.getName()));
-    }
-
-    /**
-     * Returns the list of installed versions of {@code pkg}
-     * */
-    private static List<ShallowSystemPackage> getInstalledPackageVersions(
-            VulnerablePackage pkg,
-            List<ShallowSystemPackage> allInstalledPackages) {
-
-        return allInstalledPackages.stream().filter(installed -> Objects.equals(installed.getName(), pkg.getName()))
-                .collect(Collectors.toList());
-    }
-
     /**
      * List visible images with their patch status regarding a given CVE identifier.
      *
@@ -368,6 +428,10 @@ public class CVEAuditManagerOVAL {
 
     /**
      * Launches the OVAL synchronization process
+     * <p>
+     * The OVAL data of the products is downloaded and extracted in parallel into staging files. Each staged product
+     * is bulk loaded into the database as soon as it is ready, while the remaining products are still being
+     * processed. Loading is done one product at a time, each in its own transaction.
      * */
     public static void syncOVAL() {
         Set<OVALProduct> productsToSync = getProductsToSync();
@@ -375,52 +439,103 @@ public class CVEAuditManagerOVAL {
         LOG.debug("Detected {} products eligible for OVAL synchronization: {}", productsToSync.size(), productsToSync);
 
         OVALDownloader ovalDownloader = new OVALDownloader(OVALConfigLoader.loadDefaultConfig());
-        for (OVALProduct product : productsToSync) {
-            try {
-                syncOVALForProduct(product, ovalDownloader);
+        ExecutorService executor = Executors.newFixedThreadPool(ConfigDefaults.get().getOvalSyncThreads(),
+                new BasicThreadFactory.Builder().namingPattern("oval-sync-%d").build());
+        CompletionService<OVALStagingFile> completionService = new ExecutorCompletionService<>(executor);
+
+        Map<Future<OVALStagingFile>, OVALProduct> pending = new HashMap<>();
+        try {
+            for (OVALProduct product : productsToSync) {
+                pending.put(completionService.submit(() -> stageOVALForProduct(product, ovalDownloader)), product);
             }
-            catch (Exception e) {
-                LOG.error("Failed to sync OVAL for product '{} {}'",
-                        product.getOsFamily().fullname(), product.getOsVersion(), e);
+
+            while (!pending.isEmpty()) {
+                Future<OVALStagingFile> staged = completionService.take();
+                OVALProduct product = pending.remove(staged);
+                try (OVALStagingFile stagingFile = staged.get()) {
+                    saveOVALForProduct(product, stagingFile);
+                }
+                catch (ExecutionException e) {
+                    LOG.error("Failed to sync OVAL for product '{} {}'",
+                            product.getOsFamily().fullname(), product.getOsVersion(), e.getCause());
+                }
+                catch (Exception e) {
+                    LOG.error("Failed to sync OVAL for product '{} {}'",
+                            product.getOsFamily().fullname(), product.getOsVersion(), e);
+                }
             }
         }
+        catch (InterruptedException e) {
+            LOG.warn("OVAL synchronization interrupted, {} products were not synchronized", pending.size());
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            executor.shutdownNow();
+        }
     }
 
-    private static void syncOVALForProduct(OVALProduct product, OVALDownloader ovalDownloader) {
+    /**
+     * Downloads the OVAL data of the given product and extracts its vulnerable packages into a staging file.
+     * This does not access the database, so that it can run in parallel for several products.
+     * */
+    private static OVALStagingFile stageOVALForProduct(OVALProduct product, OVALDownloader ovalDownloader)
+            throws IOException {
         LOG.debug("Downloading OVAL for {} {}", product.getOsFamily(), product.getOsVersion());
-        OVALDownloadResult downloadResult;
-        try {
-            downloadResult = ovalDownloader.download(product.getOsFamily(), product.getOsVersion());
-        }
-        catch (IOException e) {
-            throw new RuntimeException("Failed to download OVAL data", e);
-        }
+        OVALDownloadResult downloadResult = ovalDownloader.download(product.getOsFamily(), product.getOsVersion());
         LOG.debug("Downloading finished");
 
         LOG.debug("OVAL vulnerability file: {}",
                 downloadResult.getVulnerabilityFile().map(File::getAbsoluteFile).orElse(null));
         LOG.debug("OVAL patch file: {}", downloadResult.getPatchFile().map(File::getAbsoluteFile).orElse(null));
 
-        downloadResult.getVulnerabilityFile().ifPresent(ovalVulnerabilityFile -> {
-            extractAndSaveOVALData(product, ovalVulnerabilityFile);
-            LOG.debug("Saving Vulnerability OVAL for {} {}", product.getOsFamily(), product.getOsVersion());
-        });
-
-        downloadResult.getPatchFile().ifPresent(patchFile -> {
-            extractAndSaveOVALData(product, patchFile);
-            LOG.debug("Saving Patch OVAL for {} {}", product.getOsFamily(), product.getOsVersion());
-        });
+        OVALStagingFile stagingFile = new OVALStagingFile();
+        try {
+            downloadResult.getVulnerabilityFile().ifPresent(ovalVulnerabilityFile -> {
+                extractOVALData(product, ovalVulnerabilityFile, stagingFile);
+                LOG.debug("Extracted Vulnerability OVAL for {} {}", product.getOsFamily(), product.getOsVersion());
+            });
+
+            downloadResult.getPatchFile().ifPresent(patchFile -> {
+                extractOVALData(product, patchFile, stagingFile);
+                LOG.debug("Extracted Patch OVAL for {} {}", product.getOsFamily(), product.getOsVersion());
+            });
+        }
+        catch (RuntimeException e) {
+            stagingFile.close();
+            throw e;
+        }
+        return stagingFile;
+    }
 
-        LOG.debug("Saving OVAL finished");
+    /**
+     * Extracts OVAL metadata from the given {@code ovalFile}, clean it and append it to the staging file.
+     * */
+    private static void extractOVALData(OVALProduct product, File ovalFile, OVALStagingFile stagingFile) {
+        OVALCachingFactory.extractPlatformsVulnerablePackages(ovalFile, product.getOsFamily(), product.getOsVersion(),
+                stagingFile::add);
     }
 
     /**
-     * Extracts OVAL metadata from the given {@code ovalFile}, clean it and save it to the database.
+     * Replaces the OVAL metadata of the given product with the staged one, in a single transaction.
      * */
-    private static void extractAndSaveOVALData(OVALProduct product, File ovalFile) {
-        OvalRootType ovalRoot = new OvalParser().parse(ovalFile);
-        OVALCleaner.cleanup(ovalRoot, product.getOsFamily(), product.getOsVersion());
-        OVALCachingFactory.savePlatformsVulnerablePackages(ovalRoot);
+    private static void saveOVALForProduct(OVALProduct product, OVALStagingFile stagingFile) {
+        LOG.debug("Saving {} OVAL rows for {} {}", stagingFile.getRows(), product.getOsFamily(),
+                product.getOsVersion());
+        boolean committed = false;
+        try {
+            OVALCachingFactory.savePlatformsVulnerablePackages(stagingFile);
+            HibernateFactory.commitTransaction();
+            committed = true;
+        }
+        finally {
+            if (!committed) {
+                HibernateFactory.rollbackTransaction();
+            }
+            if (!HibernateFactory.inTransaction()) {
+                HibernateFactory.getSession().beginTransaction();
+            }
+        }
+        LOG.debug("Saving OVAL finished for {} {}", product.getOsFamily(), product.getOsVersion());
     }
 
     /**
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.redhat.rhn.manager.audit;
+
+import com.redhat.rhn.common.conf.ConfigDefaults;
+import com.redhat.rhn.common.db.datasource.DataResult;
+import com.redhat.rhn.common.db.datasource.ModeFactory;
+import com.redhat.rhn.common.db.datasource.SelectMode;
+import com.redhat.rhn.common.db.datasource.WriteMode;
+import com.redhat.rhn.common.hibernate.HibernateFactory;
+import com.redhat.rhn.domain.errata.Cve;
+import com.redhat.rhn.domain.errata.CveFactory;
+import com.redhat.rhn.domain.server.Server;
+import com.redhat.rhn.domain.server.ServerFactory;
+import com.redhat.rhn.domain.user.User;
+
+import com.suse.oval.OVALCachingFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the precomputed CVE exposure of the systems, i.e. the patch status of every system regarding every CVE
+ * that affects (or affected) it, so that CVE audit queries do not need to evaluate the whole fleet every time.
+ * <p>
+ * Only the exposures other than {@link PatchStatus#NOT_AFFECTED} are stored: a system without a row for a CVE is
+ * not affected, or its status is unknown if no data source is available for it.
+ * <p>
+ * Systems whose exposure must be evaluated again are put in a queue when their packages change, when erratas are
+ * added to their relevant channels or when the OVAL data of their product is synchronized. The queue is processed by
+ * the {@code cve-exposure-update} taskomatic job, while the {@code cve-server-channels} job rebuilds the exposure of
+ * all the systems. The systems are queued only while the feature is enabled: the systems whose exposure was never
+ * evaluated since then are queued by the update job. Queued and never evaluated systems are audited on the fly.
+ */
+public class CVEExposureManager {
+
+    private static final Logger LOG = LogManager.getLogger(CVEExposureManager.class);
+
+    private static final int QUEUE_BATCH_SIZE = 1000;
+
+    /** Above this number of out of date systems, auditing all the systems at once is cheaper */
+    private static final int MAX_ON_THE_FLY_SYSTEMS = 20;
+
+    private CVEExposureManager() {
+    }
+
+    /**
+     * Queue a system for the evaluation of its CVE exposure.
+     *
+     * @param serverId the server id
+     */
+    public static void enqueue(Long serverId) {
+        ModeFactory.getWriteMode("cve_audit_queries", "enqueue_exposure_server")
+                .executeUpdate(Map.of("sid", serverId));
+    }
+
+    /**
+     * Queue the systems for which the given channel is relevant for the evaluation of their CVE exposure.
+     *
+     * @param channelId the channel id
+     */
+    public static void enqueueByChannel(Long channelId) {
+        ModeFactory.getWriteMode("cve_audit_queries", "enqueue_exposure_servers_by_channel")
+                .executeUpdate(Map.of("cid", channelId));
+    }
+
+    /**
+     * Queue all the systems for the evaluation of their CVE exposure.
+     */
+    public static void enqueueAll() {
+        ModeFactory.getWriteMode("cve_audit_queries", "enqueue_exposure_all_servers").executeUpdate(Map.of());
+    }
+
+    /**
+     * Queue all the systems whose CVE exposure was never evaluated, e.g. because the feature was just enabled or
+     * the system was just registered.
+     */
+    public static void enqueueUnevaluated() {
+        ModeFactory.getWriteMode("cve_audit_queries", "enqueue_exposure_unevaluated_servers").executeUpdate(Map.of());
+    }
+
+    /**
+     * Forget the evaluations of the CVE exposure of all the systems. To be called while the feature is disabled,
+     * since the exposure is not maintained anymore and must be evaluated again once the feature is enabled.
+     */
+    public static void invalidateAll() {
+        ModeFactory.getWriteMode("cve_audit_queries", "delete_all_system_exposure_states").executeUpdate(Map.of());
+    }
+
+    /**
+     * Rebuild the CVE exposure of all the systems. To be called after the relevant channels of the systems have been
+     * populated again.
+     *
+     * @return the number of systems whose exposure was evaluated
+     */
+    public static int rebuild() {
+        enqueueAll();
+        HibernateFactory.commitTransaction();
+        return processQueue();
+    }
+
+    /**
+     * Evaluate the CVE exposure of all the queued systems. Each system is evaluated and committed in its own
+     * transaction, so that concurrent updates of the queue are not lost.
+     *
+     * @return the number of systems whose exposure was evaluated
+     */
+    public static int processQueue() {
+        SelectMode mode = ModeFactory.getMode("cve_audit_queries", "list_exposure_queue");
+        int processed = 0;
+        while (true) {
+            DataResult<Map<String, Object>> queued = mode.execute(Map.of("limit", QUEUE_BATCH_SIZE));
+            if (queued.isEmpty()) {
+                return processed;
+            }
+            for (Map<String, Object> row : queued) {
+                Long serverId = (Long) row.get("server_id");
+                try {
+                    // A zero count means that another process took the system in the meantime
+                    int dequeued = ModeFactory.getWriteMode("cve_audit_queries", "dequeue_exposure_server")
+                            .executeUpdate(Map.of("sid", serverId));
+                    Server server = ServerFactory.lookupById(serverId);
+                    if (dequeued > 0 && server != null) {
+                        updateExposure(server);
+                        processed++;
+                    }
+                    HibernateFactory.commitTransaction();
+                }
+                catch (RuntimeException e) {
+                    LOG.error("Unable to evaluate the CVE exposure of server {}", serverId, e);
+                    HibernateFactory.rollbackTransaction();
+                    // skip the system until it changes again, so that a failure does not block the queue
+                    ModeFactory.getWriteMode("cve_audit_queries", "dequeue_exposure_server")
+                            .executeUpdate(Map.of("sid", serverId));
+                    markEvaluated(serverId);
+                    HibernateFactory.commitTransaction();
+                }
+                finally {
+                    HibernateFactory.getSession().clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluate and store the CVE exposure of a system, replacing the previous one.
+     *
+     * @param server the server
+     */
+    public static void updateExposure(Server server) {
+        Map<Long, CVEAuditSystemBuilder> exposure = computeExposure(server);
+
+        ModeFactory.getWriteMode("cve_audit_queries", "delete_system_exposure")
+                .executeUpdate(Map.of("sid", server.getId()));
+
+        List<Map<String, Object>> exposureParams = new ArrayList<>();
+        List<Map<String, Object>> channelParams = new ArrayList<>();
+        List<Map<String, Object>> errataParams = new ArrayList<>();
+        exposure.forEach((cveId, result) -> {
+            exposureParams.add(Map.of(
+                    "sid", server.getId(),
+                    "cve_id", cveId,
+                    "patch_status", result.getPatchStatus().name(),
+                    "scan_data_sources", toString(result.getScanDataSources())));
+            result.getChannels().forEach(channel -> channelParams.add(Map.of(
+                    "sid", server.getId(),
+                    "cve_id", cveId,
+                    "cid", channel.getId(),
+                    "rank", channel.getRank())));
+            result.getErratas().forEach(errata -> errataParams.add(Map.of(
+                    "sid", server.getId(),
+                    "cve_id", cveId,
+                    "eid", errata.getId())));
+        });
+
+        executeUpdates("insert_system_exposure", exposureParams);
+        executeUpdates("insert_system_exposure_channel", channelParams);
+        executeUpdates("insert_system_exposure_errata", errataParams);
+        markEvaluated(server.getId());
+
+        LOG.debug("Stored the exposure of server {} to {} CVEs", server.getId(), exposureParams.size());
+    }
+
+    private static void markEvaluated(Long serverId) {
+        ModeFactory.getWriteMode("cve_audit_queries", "mark_system_exposure_evaluated")
+                .executeUpdate(Map.of("sid", serverId));
+    }
+
+    private static void executeUpdates(String modeName, List<Map<String, Object>> params) {
+        if (!params.isEmpty()) {
+            WriteMode m = ModeFactory.getWriteMode("cve_audit_queries", modeName);
+            m.executeUpdates(params);
+        }
+    }
+
+    /**
+     * Evaluate the patch status of a system regarding all the CVEs known by its data sources, with the same logic
+     * as {@link CVEAuditManagerOVAL#listSystemsByPatchStatus(User, String, Set)}.
+     *
+     * @param server the server
+     * @return the audit results other than {@link PatchStatus#NOT_AFFECTED}, by CVE id
+     */
+    public static Map<Long, CVEAuditSystemBuilder> computeExposure(Server server) {
+        boolean ovalEnabled = ConfigDefaults.get().isOvalEnabledForCveAudit() &&
+                CVEAuditManagerOVAL.checkOVALAvailability(server);
+        boolean errataAvailable = CVEAuditManagerOVAL.checkChannelsErrataAvailability(server);
+
+        Map<Long, List<CVEAuditManager.CVEPatchStatus>> channelResults = errataAvailable ?
+                CVEAuditManager.listSystemPatchStatusByCve(server.getId()) :
+                Collections.emptyMap();
+        Map<Long, List<OVALCachingFactory.InstalledVulnerablePackage>> ovalResults = ovalEnabled ?
+                OVALCachingFactory.getInstalledVulnerablePackagesByServer(server.getId()) :
+                Collections.emptyMap();
+
+        Set<Long> cveIds = new TreeSet<>(channelResults.keySet());
+        cveIds.addAll(ovalResults.keySet());
+
+        Map<Long, CVEAuditSystemBuilder> exposure = new LinkedHashMap<>();
+        for (Long cveId : cveIds) {
+            List<CVEAuditManager.CVEPatchStatus> results = channelResults.getOrDefault(cveId, List.of());
+
+            CVEAuditSystemBuilder auditWithOVALResult = null;
+            if (ovalEnabled) {
+                auditWithOVALResult = CVEAuditManagerOVAL.doAuditSystem(results, server.getId(), server.getName(),
+                        ovalResults.getOrDefault(cveId, List.of()));
+            }
+
+            CVEAuditSystemBuilder auditWithChannelsResult = null;
+            if (errataAvailable) {
+                auditWithChannelsResult = results.isEmpty() ?
+                        notAffected(server) :
+                        CVEAuditManager.doAuditSystem(server.getId(), results);
+            }
+
+            CVEAuditSystemBuilder auditResult = CVEAuditManagerOVAL.combineAuditResults(server.getId(),
+                    server.getName(), auditWithOVALResult, auditWithChannelsResult);
+            if (auditResult.getPatchStatus() != PatchStatus.NOT_AFFECTED &&
+                    auditResult.getPatchStatus() != PatchStatus.UNKNOWN) {
+                exposure.put(cveId, auditResult);
+            }
+        }
+        return exposure;
+    }
+
+    private static CVEAuditSystemBuilder notAffected(Server server) {
+        CVEAuditSystemBuilder result = new CVEAuditSystemBuilder(server.getId());
+        result.setSystemName(server.getName());
+        result.setPatchStatus(PatchStatus.NOT_AFFECTED);
+        return result;
+    }
+
+    /**
+     * List visible systems with their patch status regarding a given CVE identifier, reading the precomputed
+     * exposure. The systems whose exposure is not up-to-date are audited on the fly, or all the systems if there are
+     * too many of them.
+     *
+     * @param user the calling user
+     * @param cveIdentifier the CVE identifier to lookup
+     * @param patchStatuses the patch statuses
+     * @return list of system records with patch status
+     */
+    public static List<CVEAuditServer> listSystemsByPatchStatus(User user, String cveIdentifier,
+                                                                Set<PatchStatus> patchStatuses) {
+        SelectMode m = ModeFactory.getMode("cve_audit_queries", "list_systems_cve_exposure");
+        Map<String, Object> params = new HashMap<>();
+        params.put("cve_identifier", cveIdentifier);
+        params.put("user_id", user.getId());
+        DataResult<Map<String, Object>> rows = m.execute(params);
+
+        Set<Long> staleIds = rows.stream()
+                .filter(row -> Boolean.TRUE.equals(row.get("stale")))
+                .map(row -> (Long) row.get("system_id"))
+                .collect(Collectors.toSet());
+        if (staleIds.size() > MAX_ON_THE_FLY_SYSTEMS) {
+            LOG.debug("The CVE exposure of {} systems is not up-to-date, auditing {} on the fly", staleIds.size(),
+                    cveIdentifier);
+            return CVEAuditManagerOVAL.auditSystemsByPatchStatus(user, cveIdentifier, patchStatuses);
+        }
+        Cve cve = staleIds.isEmpty() ? null : CveFactory.lookupByName(cveIdentifier);
+
+        boolean ovalEnabled = ConfigDefaults.get().isOvalEnabledForCveAudit();
+        Map<Long, CVEAuditSystemBuilder> systems = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            Long systemId = (Long) row.get("system_id");
+            if (staleIds.contains(systemId)) {
+                // the stored exposure of the system is outdated, evaluate it again
+                systems.computeIfAbsent(systemId, id -> auditSystem(id, cve, row, ovalEnabled));
+                continue;
+            }
+
+            CVEAuditSystemBuilder system = systems.computeIfAbsent(systemId, id -> {
+                String patchStatus = (String) row.get("patch_status");
+                if (patchStatus == null) {
+                    return notExposed(id, row, ovalEnabled);
+                }
+                CVEAuditSystemBuilder builder = new CVEAuditSystemBuilder(id);
+                builder.setSystemName((String) row.get("system_name"));
+                builder.setPatchStatus(PatchStatus.valueOf(patchStatus));
+                builder.setScanDataSources(fromString((String) row.get("scan_data_sources")));
+                return builder;
+            });
+            if (row.get("channel_id") != null) {
+                system.addChannel(new AuditChannelInfo((Long) row.get("channel_id"),
+                        (String) row.get("channel_name"), (String) row.get("channel_label"),
+                        (Long) row.get("channel_rank")));
+            }
+            if (row.get("errata_id") != null) {
+                system.addErrata(new ErrataIdAdvisoryPair((Long) row.get("errata_id"),
+                        (String) row.get("errata_advisory")));
+            }
+        }
+
+        return systems.values().stream()
+                .filter(system -> patchStatuses.contains(system.getPatchStatus()))
+                .map(CVEAuditManagerOVAL::toCVEAuditServer)
+                .collect(Collectors.toList());
+    }
+
+    private static CVEAuditSystemBuilder auditSystem(Long systemId, Cve cve, Map<String, Object> row,
+                                                     boolean ovalEnabled) {
+        Server server = ServerFactory.lookupById(systemId);
+        CVEAuditSystemBuilder result = server == null || cve == null ? null :
+                computeExposure(server).get(cve.getId());
+        return result != null ? result : notExposed(systemId, row, ovalEnabled);
+    }
+
+    /**
+     * The result of a system which is not affected by the CVE, or whose status is unknown if no data source is
+     * available for it
+     */
+    private static CVEAuditSystemBuilder notExposed(Long systemId, Map<String, Object> row, boolean ovalEnabled) {
+        CVEAuditSystemBuilder builder = new CVEAuditSystemBuilder(systemId);
+        builder.setSystemName((String) row.get("system_name"));
+        List<ScanDataSource> sources = new ArrayList<>();
+        if (ovalEnabled && Boolean.TRUE.equals(row.get("oval_available"))) {
+            sources.add(ScanDataSource.OVAL);
+        }
+        if (Boolean.TRUE.equals(row.get("errata_available"))) {
+            sources.add(ScanDataSource.CHANNELS);
+        }
+        builder.setPatchStatus(sources.isEmpty() ? PatchStatus.UNKNOWN : PatchStatus.NOT_AFFECTED);
+        builder.setScanDataSources(sources.toArray(ScanDataSource[]::new));
+        return builder;
+    }
+
+    private static String toString(Set<ScanDataSource> sources) {
+        return sources.stream().map(Enum::name).sorted().collect(Collectors.joining(","));
+    }
+
+    private static ScanDataSource[] fromString(String sources) {
+        return Arrays.stream(sources.split(","))
+                .filter(source -> !source.isEmpty())
+                .map(ScanDataSource::valueOf)
+                .toArray(ScanDataSource[]::new);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.redhat.rhn.manager.audit.test;
+
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestChannel;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestCve;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestErrata;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestInstalledPackage;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestPackage;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestServer;
+import static com.redhat.rhn.testing.ErrataTestUtils.createTestUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.common.conf.Config;
+import com.redhat.rhn.common.conf.ConfigDefaults;
+import com.redhat.rhn.common.hibernate.HibernateFactory;
+import com.redhat.rhn.domain.channel.Channel;
+import com.redhat.rhn.domain.errata.Cve;
+import com.redhat.rhn.domain.errata.Errata;
+import com.redhat.rhn.domain.rhnpackage.Package;
+import com.redhat.rhn.domain.server.Server;
+import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.manager.audit.CVEAuditManager;
+import com.redhat.rhn.manager.audit.CVEAuditManagerOVAL;
+import com.redhat.rhn.manager.audit.CVEAuditServer;
+import com.redhat.rhn.manager.audit.CVEAuditSystemBuilder;
+import com.redhat.rhn.manager.audit.CVEExposureManager;
+import com.redhat.rhn.manager.audit.PatchStatus;
+import com.redhat.rhn.testing.RhnBaseTestCase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CVEExposureManagerTest extends RhnBaseTestCase {
+
+    @AfterEach
+    public void tearDown() {
+        Config.get().setBoolean(ConfigDefaults.CVE_AUDIT_PRECOMPUTED_EXPOSURE, "false");
+    }
+
+    @Test
+    public void testComputeExposure() throws Exception {
+        User user = createTestUser();
+        Cve cve = createTestCve("CVE-2025-0001");
+        Errata errata = createTestErrata(user, Set.of(cve));
+        Channel channel = createTestChannel(user, errata);
+
+        Server server = createTestServer(user, Set.of(channel));
+        Package unpatched = createTestPackage(user, channel, "noarch");
+        createTestPackage(user, errata, channel, "noarch", unpatched.getPackageName().getName(), "0", "2.0", "1");
+        createTestInstalledPackage(unpatched, server);
+
+        CVEAuditManager.populateCVEChannels();
+
+        Map<Long, CVEAuditSystemBuilder> exposure = CVEExposureManager.computeExposure(server);
+        assertEquals(Set.of(cve.getId()), exposure.keySet());
+        assertEquals(PatchStatus.AFFECTED_FULL_PATCH_APPLICABLE, exposure.get(cve.getId()).getPatchStatus());
+    }
+
+    @Test
+    public void testListSystemsByPatchStatus() throws Exception {
+        User user = createTestUser();
+        Cve cve = createTestCve("CVE-2025-0002");
+        Errata errata = createTestErrata(user, Set.of(cve));
+        Channel channel = createTestChannel(user, errata);
+
+        Server affected = createTestServer(user, Set.of(channel));
+        Package unpatched = createTestPackage(user, channel, "noarch");
+        createTestPackage(user, errata, channel, "noarch", unpatched.getPackageName().getName(), "0", "2.0", "1");
+        createTestInstalledPackage(unpatched, affected);
+
+        Server notAffected = createTestServer(user, Set.of(channel));
+
+        CVEAuditManager.populateCVEChannels();
+        HibernateFactory.getSession().flush();
+
+        Set<PatchStatus> statuses = EnumSet.allOf(PatchStatus.class);
+        Config.get().setBoolean(ConfigDefaults.CVE_AUDIT_PRECOMPUTED_EXPOSURE, "true");
+
+        // Both systems are queued: the results are computed on the fly
+        CVEExposureManager.enqueue(affected.getId());
+        CVEExposureManager.enqueue(notAffected.getId());
+        List<CVEAuditServer> expected = CVEAuditManagerOVAL.listSystemsByPatchStatus(user, cve.getName(), statuses);
+
+        CVEExposureManager.updateExposure(affected);
+        CVEExposureManager.updateExposure(notAffected);
+        HibernateFactory.getSession().createNativeQuery("DELETE FROM suseCVEExposureQueue").executeUpdate();
+
+        List<CVEAuditServer> precomputed = CVEExposureManager.listSystemsByPatchStatus(user, cve.getName(), statuses);
+        assertEquals(2, precomputed.size());
+        assertStatus(PatchStatus.AFFECTED_FULL_PATCH_APPLICABLE, affected, precomputed);
+        assertStatus(PatchStatus.NOT_AFFECTED, notAffected, precomputed);
+        for (CVEAuditServer system : expected) {
+            assertStatus(system.getPatchStatus(), system.getId(), precomputed);
+        }
+
+        CVEAuditServer affectedResult = precomputed.stream()
+                .filter(s -> s.getId() == affected.getId())
+                .findFirst()
+                .orElseThrow();
+        assertTrue(affectedResult.getErratas().stream().anyMatch(e -> e.getId() == errata.getId()));
+
+        // Only the queued system is audited on the fly: its outdated exposure is not used
+        HibernateFactory.getSession()
+                .createNativeQuery("DELETE FROM suseCVESystemExposure WHERE server_id = :sid")
+                .setParameter("sid", affected.getId())
+                .executeUpdate();
+        CVEExposureManager.enqueue(affected.getId());
+        List<CVEAuditServer> partial = CVEExposureManager.listSystemsByPatchStatus(user, cve.getName(), statuses);
+        assertEquals(2, partial.size());
+        assertStatus(PatchStatus.AFFECTED_FULL_PATCH_APPLICABLE, affected, partial);
+        assertStatus(PatchStatus.NOT_AFFECTED, notAffected, partial);
+    }
+
+    @Test
+    public void testEnqueueUnevaluated() throws Exception {
+        User user = createTestUser();
+        Server evaluated = createTestServer(user);
+        Server unevaluated = createTestServer(user);
+        CVEExposureManager.updateExposure(evaluated);
+
+        CVEExposureManager.enqueueUnevaluated();
+        assertFalse(isQueued(evaluated));
+        assertTrue(isQueued(unevaluated));
+
+        // once disabled, every system has to be evaluated again
+        CVEExposureManager.invalidateAll();
+        CVEExposureManager.enqueueUnevaluated();
+        assertTrue(isQueued(evaluated));
+    }
+
+    private static boolean isQueued(Server server) {
+        return !HibernateFactory.getSession()
+                .createNativeQuery("SELECT server_id FROM suseCVEExposureQueue WHERE server_id = :sid")
+                .setParameter("sid", server.getId())
+                .getResultList()
+                .isEmpty();
+    }
+
+    private static void assertStatus(PatchStatus expected, Server server, List<CVEAuditServer> results) {
+        assertStatus(expected, server.getId(), results);
+    }
+
+    private static void assertStatus(PatchStatus expected, long serverId, List<CVEAuditServer> results) {
+        assertEquals(expected, results.stream()
+                .filter(s -> s.getId() == serverId)
+                .map(CVEAuditServer::getPatchStatus)
+                .findFirst()
+                .orElse(null));
+    }
+}
@@ -54,6 +54,7 @@ import com.redhat.rhn.domain.contentmgmt.ErrataFilter;
 import com.redhat.rhn.domain.contentmgmt.FilterCriteria;
 import com.redhat.rhn.domain.contentmgmt.ModuleFilter;
 import com.redhat.rhn.domain.contentmgmt.PackageFilter;
+import com.redhat.rhn.domain.contentmgmt.PackageTuple;
 import com.redhat.rhn.domain.contentmgmt.ProjectSource;
 import com.redhat.rhn.domain.contentmgmt.ProjectSource.Type;
 import com.redhat.rhn.domain.contentmgmt.SoftwareEnvironmentTarget;
@@ -66,6 +67,7 @@ import com.redhat.rhn.domain.errata.ErrataFactory;
 import com.redhat.rhn.domain.rhnpackage.Package;
 import com.redhat.rhn.domain.server.ServerFactory;
 import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.frontend.dto.ErrataOverview;
 import com.redhat.rhn.frontend.events.AlignSoftwareTargetAction;
 import com.redhat.rhn.frontend.events.AlignSoftwareTargetMsg;
 import com.redhat.rhn.manager.EntityExistsException;
@@ -762,17 +764,22 @@ public class ContentManager {
         List<PackageFilter> packageFilters = extractFiltersOfType(filters, PackageFilter.class);
         List<ErrataFilter> errataFilters = extractFiltersOfType(filters, ErrataFilter.class);
 
-        Set<Package> oldTgtPackages = new HashSet<>(channel.getPackages());
-        Pair<Set<Package>, Set<Package>> partPackages = filterEntities(src.getPackages(), packageFilters);
-        Set<Package> includedPackages = partPackages.getLeft();
-        Set<Package> excludedPackages = partPackages.getRight();
+        List<PackageTuple> srcPackages = ContentProjectFactory.listChannelPackages(src);
+        List<PackageTuple> oldTgtPackages = ContentProjectFactory.listChannelPackages(channel);
+        Set<Long> excludedPackageIds = listExcludedPackageIds(src, packageFilters);
+        Set<Long> srcPackageIds = srcPackages.stream().map(PackageTuple::id).collect(toSet());
+        Set<Long> oldTgtPackageIds = oldTgtPackages.stream().map(PackageTuple::id).collect(toSet());
 
-        Set<Package> newPackagesInTgt = includedPackages.stream()
-                .filter(p -> !oldTgtPackages.contains(p)).collect(toSet());
-        Set<Package> removedPackagesInTgt = oldTgtPackages.stream()
-                .filter(p -> !includedPackages.contains(p))
-                .filter(p -> !excludedPackages.contains(p))
-                .collect(toSet());
+        List<PackageTuple> newPackagesInTgt = srcPackages.stream()
+                .filter(p -> !excludedPackageIds.contains(p.id()))
+                .filter(p -> !oldTgtPackageIds.contains(p.id()))
+                .collect(toList());
+        List<PackageTuple> excludedPackages = srcPackages.stream()
+                .filter(p -> excludedPackageIds.contains(p.id()))
+                .collect(toList());
+        List<PackageTuple> removedPackagesInTgt = oldTgtPackages.stream()
+                .filter(p -> !srcPackageIds.contains(p.id()))
+                .collect(toList());
 
         Map<Pair<Long, EntryType>, ContentEnvironmentDiff> diffMap =
                 ContentProjectFactory.lookupEnvDiffByProjectEnvChannel(project, env, channel)
@@ -783,17 +790,16 @@ public class ContentManager {
         // newPackagesInTgt : packages which will be added on next build/promote
         // excludedPackages : packages excluded by filter
         // removedPackagesInTgt: removed packages from Target because they were removed in SRC
-        for (Map.Entry<DiffAction, Set<Package>> diffEntry: Map.of(
+        for (Map.Entry<DiffAction, List<PackageTuple>> diffEntry: Map.of(
                 DiffAction.ADD, newPackagesInTgt,
                 DiffAction.FILTER, excludedPackages,
                 DiffAction.DELETE, removedPackagesInTgt).entrySet()) {
 
             DiffAction action = diffEntry.getKey();
             diffEntry.getValue().forEach(p -> {
-                        Pair<Long, EntryType> ident = Pair.of(p.getId(), EntryType.PACKAGE);
+                        Pair<Long, EntryType> ident = Pair.of(p.id(), EntryType.PACKAGE);
                         ContentEnvironmentDiff entry = new ContentEnvironmentDiff(project, env, channel,
-                                action, p.getId(), EntryType.PACKAGE, p.getPackageName().getName(),
-                                p.getNameEvra());
+                                action, p.id(), EntryType.PACKAGE, p.name(), p.getNameEvra());
                         diffMap.computeIfAbsent(ident, k -> entry).update(entry);
                         keep.add(ident);
                     }
@@ -1172,7 +1178,9 @@ public class ContentManager {
         List<PackageFilter> packageFilters = extractFiltersOfType(filters, PackageFilter.class);
         List<ErrataFilter> errataFilters = extractFiltersOfType(filters, ErrataFilter.class);
 
-        Set<Package> oldTgtPackages = new HashSet<>(tgt.getPackages());
+        // the packages are aligned with SQL statements, which must see the pending changes of the session
+        HibernateFactory.getSession().flush();
+        Set<Long> oldTgtPackageIds = new HashSet<>(ChannelFactory.getPackageIds(tgt.getId()));
 
         // align packages
         alignPackages(src, tgt, packageFilters);
@@ -1183,17 +1191,21 @@ public class ContentManager {
         // align the package cache
         // this must be done after aligning errata since some packages may belong to a retracted erratum and we don't
         // want them in the cache. For this we need the errata to be up-to-date in target
-        alignPackageCache(tgt, oldTgtPackages);
+        alignPackageCache(tgt, oldTgtPackageIds);
 
         // a lot was inserted into tables at this point. Make sure stats are up-to-date before continuing
         analyzeAlignTables();
 
         // Also check if content of cloned errata needs alignment (advisory status etc.)
         if (user.getOrg().getOrgConfig().isClmSyncPatches()) {
-            ChannelManager.listErrataNeedingResync(tgt, user).forEach(e -> {
-                ClonedErrata cloned = (ClonedErrata) ErrataManager.lookupErrata(e.getId(), user);
-                ErrataFactory.syncErrataDetails(cloned);
-            });
+            // in id order, the same errata may be synced by channels aligned in parallel
+            ChannelManager.listErrataNeedingResync(tgt, user).stream()
+                    .map(ErrataOverview::getId)
+                    .sorted()
+                    .forEach(id -> {
+                        ClonedErrata cloned = (ClonedErrata) ErrataManager.lookupErrata(id, user);
+                        ErrataFactory.syncErrataDetails(cloned);
+                    });
         }
 
         // update the channel newest packages cache
@@ -1217,16 +1229,20 @@ public class ContentManager {
         ChannelFactory.analyzeServerNeededCache();
     }
 
-    private void alignPackageCache(Channel channel, Set<Package> oldChannelPackages) {
+    private void alignPackageCache(Channel channel, Set<Long> oldChannelPackageIds) {
+        Set<Long> channelPackageIds = new HashSet<>(ChannelFactory.getPackageIds(channel.getId()));
+
         // remove entries for deleted packages
-        Set<Package> removedPackages = new HashSet<>(oldChannelPackages);
-        removedPackages.removeAll(channel.getPackages());
-        ErrataCacheManager.deleteCacheEntriesForChannelPackages(channel.getId(), extractPackageIds(removedPackages));
+        List<Long> removedPackageIds = oldChannelPackageIds.stream()
+                .filter(id -> !channelPackageIds.contains(id))
+                .collect(toList());
+        ErrataCacheManager.deleteCacheEntriesForChannelPackages(channel.getId(), removedPackageIds);
 
         // add cache entries for new ones
-        Set<Package> newTgtPackages = new HashSet<>(channel.getPackages());
-        newTgtPackages.removeAll(oldChannelPackages);
-        ErrataCacheManager.insertCacheForChannelPackages(channel.getId(), null, extractPackageIds(newTgtPackages));
+        List<Long> newPackageIds = channelPackageIds.stream()
+                .filter(id -> !oldChannelPackageIds.contains(id))
+                .collect(toList());
+        ErrataCacheManager.insertCacheForChannelPackages(channel.getId(), null, newPackageIds);
     }
 
     // helper for extracting certain filter types
@@ -1239,11 +1255,33 @@ public class ContentManager {
     }
 
     private void alignPackages(Channel srcChannel, Channel tgtChannel, Collection<PackageFilter> filters) {
-        tgtChannel.getPackages().clear();
-        LOG.debug("Filtering {} entities through {} filter(s)", srcChannel.getPackages().size(), filters.size());
-        Set<Package> newPackages = filterEntities(srcChannel.getPackages(), filters).getLeft();
-        tgtChannel.getPackages().addAll(newPackages);
-        ChannelFactory.save(tgtChannel);
+        LOG.debug("Filtering the packages of {} through {} filter(s)", srcChannel.getLabel(), filters.size());
+        Set<Long> excludedPackageIds = listExcludedPackageIds(srcChannel, filters);
+        ChannelFactory.alignPackages(srcChannel, tgtChannel, excludedPackageIds);
+    }
+
+    /**
+     * Lists the ids of the packages of a channel filtered out by the given filters, with the same rules as
+     * {@link #filterEntities(Set, Collection)}, without loading the package entities.
+     *
+     * @param channel the channel
+     * @param filters the package filters
+     * @return the ids of the packages filtered out
+     */
+    private static Set<Long> listExcludedPackageIds(Channel channel, Collection<PackageFilter> filters) {
+        Map<ContentFilter.Rule, List<PackageFilter>> filtersByRule = filters.stream()
+                .collect(groupingBy(ContentFilter::getRule));
+        List<PackageFilter> denyFilters = filtersByRule.getOrDefault(ContentFilter.Rule.DENY, emptyList());
+        List<PackageFilter> allowFilters = filtersByRule.getOrDefault(ContentFilter.Rule.ALLOW, emptyList());
+        if (denyFilters.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Set<Long> denied = ContentProjectFactory.listChannelPackageIds(channel, denyFilters);
+        if (!denied.isEmpty() && !allowFilters.isEmpty()) {
+            denied.removeAll(ContentProjectFactory.listChannelPackageIds(channel, allowFilters));
+        }
+        return denied;
     }
 
     /**
@@ -1311,10 +1349,6 @@ public class ContentManager {
         return Pair.of(allowed, denied);
     }
 
-    private static List<Long> extractPackageIds(Collection<Package> packages) {
-        return packages.stream().map(Package::getId).collect(toList());
-    }
-
     /**
      * Ensures that given user has the Org admin role
      *
@@ -22,6 +22,7 @@ import static com.redhat.rhn.domain.contentmgmt.ProjectSource.Type.SW_CHANNEL;
 import static com.redhat.rhn.domain.role.RoleFactory.ORG_ADMIN;
 import static com.redhat.rhn.testing.RhnBaseTestCase.assertContains;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
@@ -34,6 +35,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.redhat.rhn.common.conf.Config;
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.common.security.PermissionException;
 import com.redhat.rhn.domain.channel.Channel;
@@ -50,6 +53,7 @@ import com.redhat.rhn.domain.contentmgmt.ContentManagementException;
 import com.redhat.rhn.domain.contentmgmt.ContentProject;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectFactory;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectFilter;
+import com.redhat.rhn.domain.contentmgmt.ContentProjectHistoryChannel;
 import com.redhat.rhn.domain.contentmgmt.ContentProjectHistoryEntry;
 import com.redhat.rhn.domain.contentmgmt.DiffAction;
 import com.redhat.rhn.domain.contentmgmt.EntryType;
@@ -66,6 +70,8 @@ import com.redhat.rhn.domain.org.Org;
 import com.redhat.rhn.domain.rhnpackage.Package;
 import com.redhat.rhn.domain.rhnpackage.test.PackageTest;
 import com.redhat.rhn.domain.user.User;
+import com.redhat.rhn.frontend.events.AlignSoftwareTargetAction;
+import com.redhat.rhn.frontend.events.AlignSoftwareTargetMsg;
 import com.redhat.rhn.frontend.xmlrpc.InvalidChannelLabelException;
 import com.redhat.rhn.manager.EntityExistsException;
 import com.redhat.rhn.manager.EntityNotExistsException;
@@ -972,6 +978,53 @@ public class ContentManagerTest extends JMockBaseTestCaseWithUser {
         assertEquals(adminSameOrg, history.get(1).getUser());
     }
 
+    /**
+     * Test the alignment time of the channels is recorded in the history entry of the build
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testAlignRecordsChannelTiming() throws Exception {
+        ContentProject cp = new ContentProject("cplabel", "cpname", "cpdesc", user.getOrg());
+        ContentProjectFactory.save(cp);
+        ContentEnvironment env = contentManager.createEnvironment(
+                cp.getLabel(), empty(), "fst", "first env", "desc", false, user);
+        Channel channel = createPopulatedChannel();
+        contentManager.attachSource("cplabel", SW_CHANNEL, channel.getLabel(), empty(), user);
+        contentManager.buildProject("cplabel", empty(), false, user);
+        SoftwareEnvironmentTarget target = env.getTargets().get(0).asSoftwareTarget().get();
+
+        // the asynchronous alignment runs once the build is committed
+        new AlignSoftwareTargetAction().execute(new AlignSoftwareTargetMsg(channel, target, emptyList(), user));
+        HibernateFactory.getSession().flush();
+
+        ContentProjectHistoryEntry entry = ContentProjectFactory.lookupHistoryEntry(cp, env.getVersion()).get();
+        HibernateFactory.getSession().refresh(entry);
+        assertEquals(1, entry.getChannels().size());
+        ContentProjectHistoryChannel aligned = entry.getChannels().get(0);
+        assertEquals("fst", aligned.getEnvironmentLabel());
+        assertEquals(target.getChannel().getLabel(), aligned.getChannelLabel());
+        assertNotNull(aligned.getStarted());
+        assertTrue(aligned.getDurationMs() >= 0);
+        assertEquals(Status.GENERATING_REPODATA, target.getStatus());
+    }
+
+    /**
+     * Test the targets are aligned in parallel only when configured
+     */
+    @Test
+    public void testParallelAlignConfig() {
+        AlignSoftwareTargetAction action = new AlignSoftwareTargetAction();
+        assertFalse(action.canRunConcurrently());
+        Config.get().setBoolean(ConfigDefaults.CLM_PARALLEL_ALIGN, "true");
+        try {
+            assertTrue(action.canRunConcurrently());
+        }
+        finally {
+            Config.get().setBoolean(ConfigDefaults.CLM_PARALLEL_ALIGN, "false");
+        }
+    }
+
     /**
      * Test building project having modular sources
      */
@@ -2168,13 +2168,16 @@ public class ErrataManager extends BaseManager {
         ChannelFactory.lock(channel);
 
         HibernateFactory.doWithoutAutoFlushing(() -> {
-            for (Long eid : list) {
+            // in id order, as the cloning locks are taken in this order
+            for (Long eid : list.stream().sorted().toList()) {
                 Errata errata = ErrataFactory.lookupById(eid);
                 // we merge custom errata directly (non Redhat and cloned)
                 if (errata.getOrg() != null) {
                     ErrataCacheManager.addErrataRefreshing(cids, eid);
                 }
                 else {
+                    // another channel may be cloning the same errata concurrently
+                    ErrataFactory.lockCloning(user.getOrg(), errata);
                     List<Errata> clones = ErrataFactory.lookupErrataByOriginal(user.getOrg(), errata);
                     if (clones.isEmpty()) {
                         log.debug("Cloning errata");
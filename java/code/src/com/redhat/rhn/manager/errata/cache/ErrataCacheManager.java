@@ -314,6 +314,7 @@ public class ErrataCacheManager extends HibernateFactory {
         int count = 0;
         Map<String, Object> params = new HashMap<>();
         params.put("channel_id", cid);
+        params.put("package_ids", pids);
         if (eid != null) {
             Errata errata = ErrataFactory.lookupById(eid);
             if (errata.getAdvisoryStatus().equals(AdvisoryStatus.RETRACTED)) {
@@ -323,12 +324,12 @@ public class ErrataCacheManager extends HibernateFactory {
             params.put("errata_id", eid);
             WriteMode m = ModeFactory.getWriteMode("ErrataCache_queries",
                     "insert_new_cache_entries_by_errata");
-            count = m.executeUpdate(params, pids);
+            count = m.executeUpdate(params);
         }
         else {
             WriteMode m = ModeFactory.getWriteMode("ErrataCache_queries",
             "insert_new_cache_entries_by_packages");
-            count = m.executeUpdate(params, pids);
+            count = m.executeUpdate(params);
         }
         if (log.isDebugEnabled()) {
             log.debug("updateCacheForChannelErrata : cache entries inserted: {}", count);
@@ -353,7 +354,8 @@ public class ErrataCacheManager extends HibernateFactory {
                 "delete_needed_cache_for_channel_errata");
         Map<String, Object> params = new HashMap<>();
         params.put("channel_id", cid);
-        count = m.executeUpdate(params, eids);
+        params.put("errata_ids", eids);
+        count = m.executeUpdate(params);
         if (log.isDebugEnabled()) {
             log.debug("updateCacheForChannelErrata : cache entries deleted: {}", count);
         }
@@ -374,7 +376,8 @@ public class ErrataCacheManager extends HibernateFactory {
                 "delete_needed_cache_for_errata_packages");
         Map<String, Object> params = new HashMap<>();
         params.put("errata_id", eid);
-        count = m.executeUpdate(params, pids);
+        params.put("package_ids", pids);
+        count = m.executeUpdate(params);
         if (log.isDebugEnabled()) {
             log.debug("updateCacheForChannelErrata : cache entries deleted: {}", count);
         }
@@ -410,7 +413,8 @@ public class ErrataCacheManager extends HibernateFactory {
                 "delete_needed_cache_for_channel_packages");
         Map<String, Object> params = new HashMap<>();
         params.put("channel_id", cid);
-        int count = m.executeUpdate(params, pids);
+        params.put("package_ids", pids);
+        int count = m.executeUpdate(params);
         if (log.isDebugEnabled()) {
             log.debug("delete_needed_cache_for_channel_packages : package_cache deleted: {}", count);
         }
@@ -266,10 +266,11 @@ public class SsmOperationManager extends BaseManager {
         WriteMode writeMode =
             ModeFactory.getWriteMode("ssm_operation_queries",
                                         "map_sids_to_operation");
-        Map<String, Object> params = new HashMap<>(2);
+        Map<String, Object> params = new HashMap<>(3);
         params.put("op_id", operationId);
         params.put("user_id", userId);
-        writeMode.executeUpdate(params, sidsIn);
+        params.put("server_ids", sidsIn);
+        writeMode.executeUpdate(params);
     }
 
     /**
@@ -29,6 +29,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -71,6 +73,40 @@ public class TaskManager {
         return m.execute(params);
     }
 
+    /**
+     * Get the ids of the packages of a channel, with a marker which changes whenever the package metadata of the
+     * channel has to be generated again: when the package or its repodata snippets are replaced, or when its
+     * keywords in the channel or its EULAs change.
+     * @param channel channel info
+     * @return the change markers by package id, in ascending id order
+     */
+    public static SortedMap<Long, String> getChannelPackageMarkers(Channel channel) {
+        SelectMode m = ModeFactory.getMode(TaskConstants.MODE_NAME,
+                TaskConstants.TASK_QUERY_REPOMD_GENERATOR_CHANNEL_PACKAGE_MARKERS);
+        DataResult<Map<String, Object>> result = m.execute(Map.of("channel_id", channel.getId()));
+        SortedMap<Long, String> markers = new TreeMap<>();
+        result.forEach(row -> markers.put((Long) row.get("id"), (String) row.get("marker")));
+        return markers;
+    }
+
+    /**
+     * Get the next page of the channel package list for a channel. Unlike offset paging, fetching a page does not
+     * require scanning all the previous ones.
+     * @param channel channel info
+     * @param lastId the id of the last package of the previous page, 0 for the first page
+     * @param pageSize how many elements to fetch
+     * @return the packages with an id greater than lastId, ordered by id
+     */
+    public static DataResult<PackageDto> getChannelPackageDtosAfter(Channel channel, long lastId, int pageSize) {
+        SelectMode m = ModeFactory.getMode(TaskConstants.MODE_NAME,
+                TaskConstants.TASK_QUERY_REPOMD_GENERATOR_CHANNEL_PACKAGES_KEYSET);
+        Map<String, Object> params = new HashMap<>();
+        params.put("channel_id", channel.getId());
+        params.put("last_id", lastId);
+        params.put("limit", pageSize);
+        return m.execute(params);
+    }
+
     /**
      * Get capabilities of a certain type for a package
      * @param packageId the package's id
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task;
+
+import com.redhat.rhn.common.conf.ConfigDefaults;
+import com.redhat.rhn.common.hibernate.HibernateFactory;
+import com.redhat.rhn.manager.audit.CVEExposureManager;
+
+import org.quartz.JobExecutionContext;
+
+/**
+ * Evaluate the CVE exposure of the systems queued because their packages, their relevant channels or the OVAL data
+ * of their product changed.
+ */
+public class CVEExposureUpdate extends RhnJavaJob {
+
+    @Override
+    public String getConfigNamespace() {
+        return "cve_exposure_update";
+    }
+
+    /**
+     * @param context the job execution context
+     * @see org.quartz.Job#execute(org.quartz.JobExecutionContext)
+     */
+    @Override
+    public void execute(JobExecutionContext context) {
+        if (!ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+            // the exposure is not maintained: it must be evaluated from scratch once the feature is enabled again
+            CVEExposureManager.invalidateAll();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        CVEExposureManager.enqueueUnevaluated();
+        HibernateFactory.commitTransaction();
+        int systems = CVEExposureManager.processQueue();
+
+        if (systems > 0) {
+            log.info("Evaluated the CVE exposure of {} systems in {} ms", systems,
+                    System.currentTimeMillis() - start);
+        }
+    }
+}
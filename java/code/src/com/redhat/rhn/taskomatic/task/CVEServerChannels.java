@@ -14,7 +14,9 @@
  */
 package com.redhat.rhn.taskomatic.task;
 
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.manager.audit.CVEAuditManagerOVAL;
+import com.redhat.rhn.manager.audit.CVEExposureManager;
 
 import org.quartz.JobExecutionContext;
 
@@ -22,7 +24,8 @@ import java.util.Date;
 
 /**
  * Trigger the population of the suseCVEServerChannels table, which is
- * necessary for running CVE audit queries.
+ * necessary for running CVE audit queries, and the rebuild of the precomputed
+ * CVE exposure of the systems.
  *
  */
 public class CVEServerChannels extends RhnJavaJob {
@@ -46,6 +49,11 @@ public class CVEServerChannels extends RhnJavaJob {
         Date start = new Date();
         CVEAuditManagerOVAL.populateCVEChannels();
 
+        if (ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+            int systems = CVEExposureManager.rebuild();
+            log.debug("Rebuilt the CVE exposure of {} systems", systems);
+        }
+
         if (log.isDebugEnabled()) {
             long duration = new Date().getTime() - start.getTime();
             log.debug("Total duration was: {} ms", duration);
@@ -11,6 +11,7 @@
 package com.redhat.rhn.taskomatic.task;
 
 import static com.redhat.rhn.common.conf.ConfigDefaults.REPORT_DB_BATCH_SIZE;
+import static com.redhat.rhn.common.conf.ConfigDefaults.REPORT_DB_HUB_DELTA_SYNC;
 
 import com.redhat.rhn.common.conf.Config;
 import com.redhat.rhn.common.conf.ConfigDefaults;
@@ -37,6 +38,7 @@ import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -47,6 +49,7 @@ import java.util.stream.Stream;
 public class HubReportDbUpdateWorker implements QueueWorker {
 
     private final int batchSize;
+    private final boolean deltaSync;
     private final ReportDBHelper dbHelper;
     private TaskQueue parentQueue;
     private final MgrServerInfo mgrServerInfo;
@@ -67,7 +70,8 @@ public class HubReportDbUpdateWorker implements QueueWorker {
      * @param mgrServerInfoIn mgr server to query data from
      */
     public HubReportDbUpdateWorker(Logger loggerIn, MgrServerInfo mgrServerInfoIn) {
-        this(loggerIn, mgrServerInfoIn, ReportDBHelper.INSTANCE, Config.get().getInt(REPORT_DB_BATCH_SIZE, 2000));
+        this(loggerIn, mgrServerInfoIn, ReportDBHelper.INSTANCE, Config.get().getInt(REPORT_DB_BATCH_SIZE, 2000),
+                Config.get().getBoolean(REPORT_DB_HUB_DELTA_SYNC, true));
     }
 
     /**
@@ -76,13 +80,15 @@ public class HubReportDbUpdateWorker implements QueueWorker {
      * @param mgrServerInfoIn mgr server to query data from
      * @param dbHelperIn the {@link ReportDBHelper}
      * @param batchSizeIn the batch size
+     * @param deltaSyncIn whether only the changed rows are copied, instead of all of them
      */
     public HubReportDbUpdateWorker(Logger loggerIn, MgrServerInfo mgrServerInfoIn, ReportDBHelper dbHelperIn,
-                                      int batchSizeIn) {
+                                      int batchSizeIn, boolean deltaSyncIn) {
         this.mgrServerInfo = mgrServerInfoIn;
         this.log = loggerIn;
         this.dbHelper = dbHelperIn;
         this.batchSize = batchSizeIn;
+        this.deltaSync = deltaSyncIn;
     }
 
     @Override
@@ -109,35 +115,36 @@ public class HubReportDbUpdateWorker implements QueueWorker {
 
     private void updateRemoteData(Session remoteSession, Session localSession, String tableName, long mgmId) {
         TimeUtils.logTime(log, "Refreshing table " + tableName, () -> {
-            SelectMode query = dbHelper.generateQuery(remoteSession, tableName, log);
+            if (deltaSync && dbHelper.syncChanges(remoteSession, localSession, tableName, mgmId, batchSize, log)) {
+                return;
+            }
 
             // Remove all the existing data
             log.debug("Deleting existing data in table {}", tableName);
             WriteMode delete = dbHelper.generateDelete(localSession, tableName);
             delete.executeUpdate(Map.of("mgm_id", mgmId));
 
-            // Extract the first batch
-            DataResult<Map<String, Object>> firstBatch = query.execute(Map.of("offset", 0, "limit", batchSize));
-            firstBatch.forEach(e -> e.remove("mgm_id"));
-
-            if (!firstBatch.isEmpty()) {
-                // Generate the insert using the column name retrieved from the select
-                WriteMode insert = dbHelper.generateInsert(localSession, tableName, mgmId, firstBatch.get(0).keySet());
-                insert.executeBatchUpdates(firstBatch);
-                log.debug("Extracted {} rows for table {}", firstBatch.size(), tableName);
-
-                // Iterate further if we can have additional rows
-                if (firstBatch.size() == batchSize) {
-                    dbHelper.<Map<String, Object>>batchStream(query, batchSize, batchSize)
-                            .forEach(batch -> {
-                                batch.forEach(e -> e.remove("mgm_id"));
-                                insert.executeBatchUpdates(batch);
-                                log.debug("Extracted {} rows more for table {}", firstBatch.size(), tableName);
-                            });
-                }
-            }
-            else {
+            Iterator<DataResult<Map<String, Object>>> batches =
+                    dbHelper.batchStream(remoteSession, tableName, batchSize, log).iterator();
+            if (!batches.hasNext()) {
                 log.debug("No data extracted for table {}", tableName);
+                return;
+            }
+
+            // Generate the insert using the column name retrieved from the select
+            DataResult<Map<String, Object>> firstBatch = batches.next();
+            firstBatch.forEach(e -> e.remove("mgm_id"));
+            ReportDbBulkInsert insert = dbHelper.generateBulkInsert(localSession, tableName, mgmId,
+                    firstBatch.get(0).keySet());
+            insert.insert(firstBatch);
+            log.debug("Extracted {} rows for table {}", firstBatch.size(), tableName);
+
+            // Iterate further if we can have additional rows
+            while (batches.hasNext()) {
+                DataResult<Map<String, Object>> batch = batches.next();
+                batch.forEach(e -> e.remove("mgm_id"));
+                insert.insert(batch);
+                log.debug("Extracted {} rows more for table {}", batch.size(), tableName);
             }
         });
     }
@@ -175,6 +182,8 @@ public class HubReportDbUpdateWorker implements QueueWorker {
 
     private void extractDataFromRemoteDatabase(ReportDbHibernateFactory localDB, ReportDbHibernateFactory remoteDB) {
         try {
+            // the tables are read in several queries: they must not change meanwhile
+            dbHelper.beginSnapshot(remoteDB.getSession());
             Stream<String> existingTables = filterExistingTables(remoteDB.getSession(), mgrServerInfo.getId());
             existingTables.forEach(table -> {
                 updateRemoteData(remoteDB.getSession(), localDB.getSession(), table, mgrServerInfo.getId());
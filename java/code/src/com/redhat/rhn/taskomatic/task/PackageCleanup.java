@@ -28,8 +28,8 @@ import org.quartz.JobExecutionException;
 import java.io.File;
 import java.time.LocalTime;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Cleans up orphaned packages
@@ -55,27 +55,27 @@ public class PackageCleanup extends RhnJavaJob {
         try {
             String pkgDir = Config.get().getString("web.mount_point");
 
-            // Retrieve list of orpahned packages
-            List<Row> candidates = findCandidates();
-
-            // Bail if no work to do
-            if (candidates == null || candidates.isEmpty()) {
-                if (log.isDebugEnabled()) {
-                    log.debug("No orphaned packages found");
+            // Delete the orphaned packages from the filesystem as they are read
+            int found = 0;
+            try (Stream<Row> candidates = findCandidates()) {
+                for (Row row : (Iterable<Row>) candidates::iterator) {
+                    found++;
+                    String path = (String) row.get("path");
+                    if (path == null) {
+                        continue;
+                    }
+                    log.info("Deleting package {}", path);
+                    deletePackage(pkgDir, path);
                 }
             }
-            else if (log.isDebugEnabled()) {
-                log.debug("Found {} orphaned packages", candidates.size());
-            }
 
-            // Delete them from the filesystem
-            for (Row row : candidates) {
-                String path = (String) row.get("path");
-                if (path == null) {
-                    continue;
+            if (log.isDebugEnabled()) {
+                if (found == 0) {
+                    log.debug("No orphaned packages found");
+                }
+                else {
+                    log.debug("Found {} orphaned packages", found);
                 }
-                log.info("Deleting package {}", path);
-                deletePackage(pkgDir, path);
             }
 
             // Reset the queue (table)
@@ -159,9 +159,9 @@ public class PackageCleanup extends RhnJavaJob {
         }
     }
 
-    private List<Row> findCandidates() {
+    private Stream<Row> findCandidates() {
         SelectMode query = ModeFactory.getMode(TaskConstants.MODE_NAME,
                 TaskConstants.TASK_QUERY_PKGCLEANUP_FIND_CANDIDATES);
-        return query.execute(Collections.emptyMap());
+        return query.stream(Collections.emptyMap());
     }
 }
@@ -30,7 +30,9 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -71,47 +73,339 @@ public class ReportDBHelper {
     }
 
     /**
-     * Returns the result of a query in a stream of batches.
-     * @param query select query
-     * @param batchSize max size of a batch
-     * @param initialOffset initial offset
-     * @param <T> type of the query result
-     * @return stream of batched results
+     * A column of the primary key or of the order index of a report db table
+     *
+     * @param name the column name
+     * @param type the column type
+     * @param notNull whether the column is declared not null
      */
-    @SuppressWarnings("unchecked")
-    public <T> Stream<DataResult<T>> batchStream(SelectMode query, int batchSize, int initialOffset) {
-        return Stream.iterate(initialOffset, i -> i + batchSize)
-                .map(offset -> (DataResult<T>) query.execute(Map.of("offset", offset, "limit", batchSize)))
-                .takeWhile(batch -> !batch.isEmpty());
-    }
+    private record OrderColumn(String name, String type, boolean notNull) { }
 
-    private String getOrderColumns(Session session, String table, Logger log) {
+    private List<OrderColumn> getOrderColumns(Session session, String table, Logger log) {
+        // The order index is preferred to the primary key, if a table has both
         String orderSQL =
-                "SELECT string_agg(a.attname, ', ') AS order " +
+                "SELECT a.attname AS name, format_type(a.atttypid, a.atttypmod) AS type, a.attnotnull AS not_null, " +
+                "       1 AS priority, cols.position " +
                 "  FROM pg_constraint AS c " +
-                "    CROSS JOIN LATERAL UNNEST(c.conkey) AS cols(colnum) " +
+                "    CROSS JOIN LATERAL UNNEST(c.conkey) WITH ORDINALITY AS cols(colnum, position) " +
                 "    INNER JOIN pg_attribute AS a ON a.attrelid = c.conrelid AND cols.colnum = a.attnum " +
                 " WHERE c.contype = 'p' " +
                 "   AND c.conrelid = '" + table + "'::REGCLASS " +
-                "UNION " +
-                "SELECT string_agg(a.attname, ', ') AS order " +
+                "UNION ALL " +
+                "SELECT a.attname, format_type(a.atttypid, a.atttypmod), a.attnotnull, 0, cols.position " +
                 "  FROM pg_index ix " +
                 "  JOIN pg_class t on t.oid = ix.indrelid " +
                 "  JOIN pg_class i on i.oid = ix.indexrelid " +
-                "  JOIN pg_attribute a on a.attrelid = t.oid and a.attnum = ANY(ix.indkey) " +
+                "  CROSS JOIN LATERAL UNNEST(ix.indkey::int2[]) WITH ORDINALITY AS cols(colnum, position) " +
+                "  JOIN pg_attribute a on a.attrelid = t.oid and a.attnum = cols.colnum " +
                 " WHERE t.relkind = 'r' " +
                 "   AND t.relname = '" + table.toLowerCase() + "' " +
-                "   AND i.relname = '" + table.toLowerCase() + "_order_idx'";
+                "   AND i.relname = '" + table.toLowerCase() + "_order_idx' " +
+                "ORDER BY priority, position";
 
         GeneratedSelectMode orderQuery = new GeneratedSelectMode("orderquery." + table, session, orderSQL , List.of());
 
-        DataResult<Map<String, String>> order = orderQuery.execute();
-        String orderColumns = order.stream().findFirst().map(o -> o.getOrDefault("order", "ctid")).orElse("ctid");
+        DataResult<Map<String, Object>> order = orderQuery.execute();
+        List<OrderColumn> orderColumns = order.stream()
+                .filter(o -> o.get("priority").equals(order.get(0).get("priority")))
+                .map(o -> new OrderColumn((String) o.get("name"), (String) o.get("type"),
+                        Boolean.TRUE.equals(o.get("not_null"))))
+                .toList();
 
         log.debug("Order Columns of {} by: {}", table, orderColumns);
         return orderColumns;
     }
 
+    /**
+     * Returns all the local entries of a report db table in a stream of batches.
+     * <p>
+     * The batches are paginated on the columns of the primary key or of the order index of the table: every batch
+     * starts after the last row of the previous one, so that reading a batch does not need to skip all the rows
+     * read before. Only the tables without any of them are paginated with offsets.
+     *
+     * @param session session the query should use
+     * @param table table name
+     * @param batchSize max size of a batch, exceeded only by the rows with the same order values as the last one
+     * @param log the logger
+     * @return stream of batched results
+     */
+    public Stream<DataResult<Map<String, Object>>> batchStream(Session session, String table, int batchSize,
+                                                              Logger log) {
+        // The mgm_id is the same for all the selected rows, it does not need to be part of the key
+        List<OrderColumn> keyColumns = getOrderColumns(session, table, log).stream()
+                .filter(c -> !"mgm_id".equals(c.name()))
+                .toList();
+
+        final String selectStatement = "SELECT * FROM " + table + " WHERE mgm_id = " + LOCAL_MGM_ID;
+        if (keyColumns.isEmpty()) {
+            SelectMode query = new GeneratedSelectMode("select." + table, session,
+                    selectStatement + " ORDER BY ctid OFFSET :offset LIMIT :limit", List.of("offset", "limit"));
+            return Stream.iterate(0, i -> i + batchSize)
+                    .map(offset -> query.<Map<String, Object>>execute(Map.of("offset", offset, "limit", batchSize)))
+                    .takeWhile(batch -> !batch.isEmpty());
+        }
+
+        List<String> keyNames = keyColumns.stream().map(OrderColumn::name).toList();
+        // Rows with the same order values must not be split between two batches
+        final String orderStatement = " ORDER BY " + String.join(", ", keyNames) +
+                " FETCH FIRST :limit ROWS WITH TIES";
+
+        SelectMode firstQuery = new GeneratedSelectMode("select.first." + table, session,
+                selectStatement + orderStatement, List.of("limit"));
+
+        List<String> nextParameters = new ArrayList<>(keyNames);
+        nextParameters.add("limit");
+        SelectMode nextQuery = new GeneratedSelectMode("select.next." + table, session,
+                selectStatement + " AND " + generateKeysetCondition(keyColumns) + orderStatement, nextParameters);
+
+        return Stream.iterate(
+                firstQuery.<Map<String, Object>>execute(Map.of("limit", batchSize)),
+                batch -> !batch.isEmpty(),
+                batch -> {
+                    if (batch.size() < batchSize) {
+                        return new DataResult<>(List.of());
+                    }
+                    Map<String, Object> lastRow = batch.get(batch.size() - 1);
+                    Map<String, Object> parameters = new HashMap<>();
+                    keyNames.forEach(name -> parameters.put(name, lastRow.get(name)));
+                    parameters.put("limit", batchSize);
+                    return nextQuery.<Map<String, Object>>execute(parameters);
+                });
+    }
+
+    /**
+     * Generates the condition selecting the rows that follow the given key values, in ascending order with nulls last.
+     */
+    private static String generateKeysetCondition(List<OrderColumn> keyColumns) {
+        int notNullPrefix = 0;
+        while (notNullPrefix < keyColumns.size() && keyColumns.get(notNullPrefix).notNull()) {
+            notNullPrefix++;
+        }
+
+        if (notNullPrefix == keyColumns.size()) {
+            // a row comparison is enough, and it is resolved with the index
+            return keyColumns.stream().map(OrderColumn::name).collect(Collectors.joining(", ", "(", ")")) + " > " +
+                    keyColumns.stream().map(c -> ":" + c.name()).collect(Collectors.joining(", ", "(", ")"));
+        }
+
+        // Nulls cannot be compared: the following rows either have a greater value in a column and the same values
+        // in the ones before, or have a null value where the last row did not
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            List<String> conditions = new ArrayList<>();
+            for (OrderColumn previous : keyColumns.subList(0, i)) {
+                conditions.add(previous.name() + (previous.notNull() ? " = " : " IS NOT DISTINCT FROM ") +
+                        castParameter(previous));
+            }
+
+            OrderColumn column = keyColumns.get(i);
+            if (column.notNull()) {
+                conditions.add(column.name() + " > " + castParameter(column));
+            }
+            else {
+                conditions.add(castParameter(column) + " IS NOT NULL AND (" + column.name() + " > " +
+                        castParameter(column) + " OR " + column.name() + " IS NULL)");
+            }
+            alternatives.add(String.join(" AND ", conditions));
+        }
+        String condition = alternatives.stream().collect(Collectors.joining(") OR (", "((", "))"));
+
+        if (notNullPrefix > 0) {
+            // let the index skip the rows before the last one
+            List<OrderColumn> prefix = keyColumns.subList(0, notNullPrefix);
+            condition = prefix.stream().map(OrderColumn::name).collect(Collectors.joining(", ", "(", ")")) + " >= " +
+                    prefix.stream().map(c -> ":" + c.name()).collect(Collectors.joining(", ", "(", ")")) +
+                    " AND " + condition;
+        }
+        return condition;
+    }
+
+    private static String castParameter(OrderColumn column) {
+        return "CAST(:" + column.name() + " AS " + column.type() + ")";
+    }
+
+    /**
+     * Makes all the following queries of the transaction see the same snapshot of the database, taken at the first
+     * one, so that data read with several queries is consistent. Must be called before any query of the transaction.
+     *
+     * @param session the session of the transaction
+     */
+    public void beginSnapshot(Session session) {
+        session.createNativeQuery("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY").executeUpdate();
+    }
+
+    /**
+     * Copies the changes of the local entries of a report db table of a peripheral server into the hub report db.
+     * <p>
+     * The rows are grouped by the first column of the primary key or of the order index of the table, and only a
+     * digest of each group is read from the peripheral: the rows of the groups whose digest differs from the one
+     * of the rows already copied are copied again, and the groups which vanished are deleted. The synced_date of the
+     * rows is not part of the digest, as the peripheral refreshes it in all the rows: the rows of the unchanged groups
+     * get the last synced_date of the peripheral instead. If no row was refreshed in the peripheral since the last
+     * copied one, the table is not compared at all.
+     *
+     * @param remoteSession session of the peripheral report db
+     * @param localSession session of the hub report db
+     * @param table table name
+     * @param mgmId the mgm_id of the peripheral server in the hub report db
+     * @param batchSize max number of groups compared at once, and of rows copied at once unless a group is larger
+     * @param log the logger
+     * @return false if the table has no numeric key column to group the rows by: it must then be copied entirely
+     */
+    public boolean syncChanges(Session remoteSession, Session localSession, String table, long mgmId, int batchSize,
+                               Logger log) {
+        List<OrderColumn> keyColumns = getOrderColumns(remoteSession, table, log).stream()
+                .filter(c -> !"mgm_id".equals(c.name()))
+                .toList();
+        if (keyColumns.isEmpty() || !keyColumns.get(0).notNull() || !keyColumns.get(0).type().matches(
+                "numeric.*|bigint|integer|smallint")) {
+            log.debug("Table {} has no numeric key column to group the rows by", table);
+            return false;
+        }
+        String group = keyColumns.get(0).name();
+
+        Date remoteSynced = getLastSyncedDate(remoteSession, table, LOCAL_MGM_ID);
+        Date localSynced = getLastSyncedDate(localSession, table, mgmId);
+        if (remoteSynced != null && localSynced != null && localSynced.compareTo(remoteSynced) >= 0) {
+            log.debug("No row of table {} refreshed since {}", table, localSynced);
+            return true;
+        }
+
+        List<String> columns = getColumns(remoteSession, table).stream()
+                .filter(c -> !"mgm_id".equals(c) && !"synced_date".equals(c))
+                .toList();
+        String digestSelect = "SELECT " + group + " AS grp, COUNT(*) AS row_count, " +
+                "       md5(string_agg(row_digest, '' ORDER BY row_digest COLLATE \"C\")) AS digest " +
+                "  FROM (SELECT " + group + ", md5(ROW(" + String.join(", ", columns) + ")::TEXT) AS row_digest " +
+                "          FROM " + table + " WHERE mgm_id = %s%s) AS r " +
+                " GROUP BY " + group;
+
+        SelectMode firstGroups = new GeneratedSelectMode("select.digest.first." + table, remoteSession,
+                digestSelect.formatted(LOCAL_MGM_ID, "") + " ORDER BY " + group + " LIMIT :limit", List.of("limit"));
+        SelectMode nextGroups = new GeneratedSelectMode("select.digest.next." + table, remoteSession,
+                digestSelect.formatted(LOCAL_MGM_ID, " AND " + group + " > :last") + " ORDER BY " + group +
+                " LIMIT :limit", List.of("last", "limit"));
+        SelectMode localGroups = new GeneratedSelectMode("select.digest." + table, localSession,
+                digestSelect.formatted(":mgm_id", " AND " + group + " = ANY(:groups)"), List.of("mgm_id", "groups"));
+        SelectMode changedRows = new GeneratedSelectMode("select.changed." + table, remoteSession,
+                "SELECT * FROM " + table + " WHERE mgm_id = " + LOCAL_MGM_ID + " AND " + group + " = ANY(:groups)",
+                List.of("groups"));
+
+        // the rows of the changed groups and of the vanished groups up to the last compared one
+        String deleteChanged = "DELETE FROM " + table + " WHERE mgm_id = :mgm_id AND " + group + " <= :to " +
+                "AND (" + group + " = ANY(:changed) OR NOT " + group + " = ANY(:groups))";
+        WriteMode firstDelete = new GeneratedWriteMode("delete.changed.first." + table, localSession,
+                deleteChanged, List.of("mgm_id", "to", "changed", "groups"));
+        WriteMode nextDelete = new GeneratedWriteMode("delete.changed.next." + table, localSession,
+                deleteChanged + " AND " + group + " > :last", List.of("mgm_id", "to", "changed", "groups", "last"));
+        // the rows of the unchanged groups are not copied again, but were refreshed by the peripheral as well
+        WriteMode refreshUnchanged = new GeneratedWriteMode("update.synced." + table, localSession,
+                "UPDATE " + table + " SET synced_date = :synced WHERE mgm_id = :mgm_id AND " + group +
+                " = ANY(:unchanged) AND synced_date < :synced", List.of("synced", "mgm_id", "unchanged"));
+
+        ReportDbBulkInsert insert = null;
+        Object last = null;
+        int changedGroups = 0;
+        int copiedRows = 0;
+        while (true) {
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("limit", batchSize);
+            if (last != null) {
+                parameters.put("last", last);
+            }
+            DataResult<Map<String, Object>> remoteDigests = (last == null ? firstGroups : nextGroups)
+                    .execute(parameters);
+            if (remoteDigests.isEmpty()) {
+                break;
+            }
+
+            List<Object> groups = remoteDigests.stream().map(d -> d.get("grp")).toList();
+            DataResult<Map<String, Object>> localDigests = localGroups.execute(Map.of("mgm_id", mgmId,
+                    "groups", groups));
+            Map<String, Object> knownDigests = localDigests.stream()
+                    .collect(Collectors.toMap(d -> String.valueOf(d.get("grp")), d -> d.get("digest")));
+            List<Map<String, Object>> changed = remoteDigests.stream()
+                    .filter(d -> !d.get("digest").equals(knownDigests.get(String.valueOf(d.get("grp")))))
+                    .toList();
+
+            Object to = groups.get(groups.size() - 1);
+            Map<String, Object> deleteParameters = new HashMap<>();
+            deleteParameters.put("mgm_id", mgmId);
+            deleteParameters.put("to", to);
+            deleteParameters.put("changed", changed.stream().map(d -> d.get("grp")).toList());
+            deleteParameters.put("groups", groups);
+            if (last != null) {
+                deleteParameters.put("last", last);
+            }
+            (last == null ? firstDelete : nextDelete).executeUpdate(deleteParameters);
+
+            List<Object> unchanged = remoteDigests.stream()
+                    .filter(d -> d.get("digest").equals(knownDigests.get(String.valueOf(d.get("grp")))))
+                    .map(d -> d.get("grp"))
+                    .toList();
+            if (!unchanged.isEmpty() && remoteSynced != null) {
+                refreshUnchanged.executeUpdate(Map.of("synced", remoteSynced, "mgm_id", mgmId,
+                        "unchanged", unchanged));
+            }
+
+            // copy the changed groups, as many at once as fit in a batch
+            List<Object> chunk = new ArrayList<>();
+            long chunkRows = 0;
+            for (int i = 0; i < changed.size(); i++) {
+                chunk.add(changed.get(i).get("grp"));
+                chunkRows += ((Number) changed.get(i).get("row_count")).longValue();
+                if (chunkRows >= batchSize || i == changed.size() - 1) {
+                    DataResult<Map<String, Object>> rows = changedRows.execute(Map.of("groups", chunk));
+                    rows.forEach(e -> e.remove("mgm_id"));
+                    if (insert == null && !rows.isEmpty()) {
+                        insert = generateBulkInsert(localSession, table, mgmId, rows.get(0).keySet());
+                    }
+                    if (insert != null) {
+                        copiedRows += insert.insert(rows);
+                    }
+                    chunk = new ArrayList<>();
+                    chunkRows = 0;
+                }
+            }
+            changedGroups += changed.size();
+
+            last = to;
+            if (remoteDigests.size() < batchSize) {
+                break;
+            }
+        }
+
+        // the groups after the last one of the peripheral vanished
+        WriteMode deleteAfter = new GeneratedWriteMode("delete.after." + table, localSession,
+                "DELETE FROM " + table + " WHERE mgm_id = :mgm_id" + (last == null ? "" : " AND " + group + " > :last"),
+                last == null ? List.of("mgm_id") : List.of("mgm_id", "last"));
+        Map<String, Object> afterParameters = new HashMap<>();
+        afterParameters.put("mgm_id", mgmId);
+        if (last != null) {
+            afterParameters.put("last", last);
+        }
+        deleteAfter.executeUpdate(afterParameters);
+
+        log.debug("Copied {} rows of {} changed groups of table {}", copiedRows, changedGroups, table);
+        return true;
+    }
+
+    private Date getLastSyncedDate(Session session, String table, Object mgmId) {
+        SelectMode query = new GeneratedSelectMode("select.synced." + table, session,
+                "SELECT MAX(synced_date) AS synced FROM " + table + " WHERE mgm_id = :mgm_id", List.of("mgm_id"));
+        DataResult<Map<String, Object>> result = query.execute(Map.of("mgm_id", mgmId));
+        return (Date) result.get(0).get("synced");
+    }
+
+    private List<String> getColumns(Session session, String table) {
+        SelectMode query = new GeneratedSelectMode("select.columns." + table, session,
+                "SELECT attname AS name FROM pg_attribute " +
+                " WHERE attrelid = '" + table + "'::REGCLASS AND attnum > 0 AND NOT attisdropped " +
+                " ORDER BY attnum", List.of());
+        DataResult<Map<String, Object>> result = query.execute();
+        return result.stream().map(c -> (String) c.get("name")).toList();
+    }
+
     /**
      * Generated a query for checking if a table exists
      * @param session session the query should use
@@ -125,21 +419,6 @@ public class ReportDBHelper {
         return new GeneratedSelectMode("exists.reportdbtables" , session, sqlStatement, Collections.emptyList());
     }
 
-    /**
-     * Generated a query for all local entries of a report db table
-     * @param session session the query should use
-     * @param table table name
-     * @param log the logger
-     * @return select mode query
-     */
-    public SelectMode generateQuery(Session session, String table, Logger log) {
-        String orderColumns = getOrderColumns(session, table, log);
-
-        final String sqlStatement = "SELECT * FROM " + table +
-                " WHERE mgm_id = " + LOCAL_MGM_ID +  " ORDER BY " + orderColumns + " OFFSET :offset LIMIT :limit";
-        return new GeneratedSelectMode("select." + table, session, sqlStatement, List.of("offset", "limit"));
-    }
-
     /**
      * Generates a delete statement for a report db table that takes mgm_id as parameter
      * @param session session the query should use
@@ -197,6 +476,31 @@ public class ReportDBHelper {
         return new GeneratedWriteMode("insert." + table, session, sqlStatement, params);
     }
 
+    /**
+     * Generates a bulk insert for a report db table
+     * @param session session the inserts should use
+     * @param table table name
+     * @param mgmId mgmId to insert
+     * @param params table column names (excluding mgm_id)
+     * @return the bulk insert
+     */
+    public ReportDbBulkInsert generateBulkInsert(Session session, String table, long mgmId, Set<String> params) {
+        return new ReportDbBulkInsert(session, table, mgmId, params, false);
+    }
+
+    /**
+     * Generates a bulk insert for a report db table that automatically sets synced_date to current_timestamp
+     * @param session session the inserts should use
+     * @param table table name
+     * @param mgmId mgmId to insert
+     * @param params table column names (excluding mgm_id)
+     * @return the bulk insert
+     */
+    public ReportDbBulkInsert generateBulkInsertWithDate(Session session, String table, long mgmId,
+                                                        Set<String> params) {
+        return new ReportDbBulkInsert(session, table, mgmId, params, true);
+    }
+
     /**
      * Analyzes the report database tables after massive inserts
      * @param session session the query should use
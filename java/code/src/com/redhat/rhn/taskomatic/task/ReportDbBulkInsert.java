@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task;
+
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk inserts rows into a report db table.
+ * <p>
+ * The rows are copied with {@code COPY} into a temporary table, dropped at the end of the transaction, and moved
+ * to the report db table with a single statement. Like the inserts generated by {@link ReportDBHelper}, the rows
+ * conflicting with existing ones are skipped.
+ */
+public class ReportDbBulkInsert {
+
+    private static final String NULL = "\\N";
+
+    private final Session session;
+    private final String table;
+    private final String stagingTable;
+    private final List<String> columns;
+    private final String insertSql;
+
+    /**
+     * Creates a bulk insert for a report db table
+     * @param sessionIn session the inserts should use
+     * @param tableIn table name
+     * @param mgmId mgmId to insert
+     * @param columnsIn table column names (excluding mgm_id and synced_date)
+     * @param withDate whether synced_date must be set to current_timestamp
+     */
+    public ReportDbBulkInsert(Session sessionIn, String tableIn, long mgmId, Collection<String> columnsIn,
+                              boolean withDate) {
+        session = sessionIn;
+        table = tableIn;
+        stagingTable = tableIn.toLowerCase() + "_copy";
+        columns = new ArrayList<>(columnsIn);
+
+        String columnList = String.join(",", columns);
+        insertSql = String.format(
+                "INSERT INTO %s (mgm_id, %s%s) " +
+                "     SELECT %s, %s%s FROM %s " +
+                "ON CONFLICT DO NOTHING",
+                table, withDate ? "synced_date, " : "", columnList,
+                mgmId, withDate ? "current_timestamp, " : "", columnList, stagingTable
+        );
+    }
+
+    /**
+     * Inserts the given rows
+     * @param rows the rows, mapping the column names to their values
+     * @return the number of inserted rows
+     */
+    public int insert(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder data = new StringBuilder();
+        for (Map<String, Object> row : rows) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    data.append('\t');
+                }
+                appendValue(data, row.get(columns.get(i)));
+            }
+            data.append('\n');
+        }
+
+        return session.doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMPORARY TABLE IF NOT EXISTS " + stagingTable + " ON COMMIT DROP AS " +
+                        "SELECT " + String.join(",", columns) + " FROM " + table + " WITH NO DATA");
+
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn("COPY " + stagingTable + " (" + String.join(",", columns) + ") FROM STDIN",
+                        new StringReader(data.toString()));
+
+                int inserted = statement.executeUpdate(insertSql);
+                statement.execute("TRUNCATE " + stagingTable);
+                return inserted;
+            }
+            catch (IOException e) {
+                throw new SQLException("Unable to copy the rows of table " + table, e);
+            }
+        });
+    }
+
+    private static void appendValue(StringBuilder data, Object value) {
+        if (value == null) {
+            data.append(NULL);
+        }
+        else if (value instanceof java.sql.Date) {
+            data.append(value);
+        }
+        else if (value instanceof Date date) {
+            // all the report db timestamps have a time zone: an instant is never ambiguous
+            data.append(date.toInstant());
+        }
+        else {
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\':
+                        data.append("\\\\");
+                        break;
+                    case '\t':
+                        data.append("\\t");
+                        break;
+                    case '\n':
+                        data.append("\\n");
+                        break;
+                    case '\r':
+                        data.append("\\r");
+                        break;
+                    default:
+                        data.append(c);
+                }
+            }
+        }
+    }
+}
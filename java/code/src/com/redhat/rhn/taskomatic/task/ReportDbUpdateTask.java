@@ -11,6 +11,7 @@
 package com.redhat.rhn.taskomatic.task;
 
 import static com.redhat.rhn.common.conf.ConfigDefaults.REPORT_DB_BATCH_SIZE;
+import static com.redhat.rhn.common.conf.ConfigDefaults.REPORT_DB_UPDATE_THREADS;
 import static com.redhat.rhn.taskomatic.task.ReportDBHelper.LOCAL_MGM_ID;
 
 import com.redhat.rhn.common.conf.Config;
@@ -28,14 +29,21 @@ import com.redhat.rhn.domain.notification.types.NotificationData;
 import com.redhat.rhn.domain.notification.types.ReportDatabaseUpdateFailed;
 import com.redhat.rhn.domain.role.RoleFactory;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hibernate.Session;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class ReportDbUpdateTask extends RhnJavaJob {
@@ -69,25 +77,98 @@ public class ReportDbUpdateTask extends RhnJavaJob {
     public static final String REPORT_ID = "report_id";
     public static final String RESULT_TYPE = "result_type";
 
+    /**
+     * A report db table and the query extracting its content
+     *
+     * @param xmlName the name of the queries file
+     * @param tableName the table name, which is also the name of the query
+     * @param filterMap the fields the query is paginated on, with their initial value
+     * @param byId whether the content is extracted id by id, with the {@code _Ids} and {@code _byId} queries
+     */
+    private record ReportDbTable(String xmlName, String tableName, Map<String, Object> filterMap, boolean byId) { }
+
+    private static final List<ReportDbTable> TABLES = List.of(
+            table(GENERAL_REPORT_QUERIES, "SystemGroup", Map.of(SYSTEM_GROUP_ID, 0)),
+            table(GENERAL_REPORT_QUERIES, "SystemGroupPermission", Map.of(SYSTEM_GROUP_ID, 0, ACCOUNT_ID, 0)),
+            table(GENERAL_REPORT_QUERIES, "Account", Map.of(ACCOUNT_ID, 0)),
+            table(GENERAL_REPORT_QUERIES, "AccountGroup", Map.of(ACCOUNT_ID, 0, ACCOUNT_GROUP_ID, 0)),
+
+            table(SYSTEM_REPORT_QUERIES, "System", Map.of(SYSTEM_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemHardware", Map.of(SYSTEM_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemHistory", Map.of(SYSTEM_ID, 0, HISTORY_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemAction", Map.of(SYSTEM_ID, 0, ACTION_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemChannel", Map.of(SYSTEM_ID, 0, CHANNEL_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemConfigChannel", Map.of(SYSTEM_ID, 0, CONFIG_CHANNEL_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemVirtualData", Map.of(INSTANCE_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemNetInterface", Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemNetAddressV4", Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0, ADDRESS, "")),
+            table(SYSTEM_REPORT_QUERIES, "SystemNetAddressV6", Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0, ADDRESS, "")),
+            table(SYSTEM_REPORT_QUERIES, "SystemOutdated", Map.of(SYSTEM_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemGroupMember", Map.of(SYSTEM_ID, 0, SYSTEM_GROUP_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemEntitlement", Map.of(SYSTEM_ID, 0, SYSTEM_GROUP_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemErrata", Map.of(SYSTEM_ID, 0, ERRATA_ID, 0)),
+            byId(SYSTEM_REPORT_QUERIES, "SystemPackageInstalled", Map.of(NAME, "")),
+            byId(SYSTEM_REPORT_QUERIES, "SystemPackageUpdate", Map.of(PACKAGE_ID, 0)),
+            table(SYSTEM_REPORT_QUERIES, "SystemCustomInfo", Map.of(ORGANIZATION, "", SYSTEM_ID, 0, KEY, "")),
+
+            table(CHANNEL_REPORT_QUERIES, "Channel", Map.of(CHANNEL_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "ChannelErrata", Map.of(CHANNEL_ID, 0, ERRATA_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "ChannelPackage", Map.of(CHANNEL_ID, 0, PACKAGE_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "ChannelRepository", Map.of(CHANNEL_ID, 0, REPOSITORY_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "Errata", Map.of(ERRATA_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "Package", Map.of(PACKAGE_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "Repository", Map.of(REPOSITORY_ID, 0)),
+            table(CHANNEL_REPORT_QUERIES, "CLMEnvironmentDifference", Map.of("diff_id", 0)),
+
+            table(SCAP_REPORT_QUERIES, "XccdScan", Map.of(SCAN_ID, 0)),
+            table(SCAP_REPORT_QUERIES, "XccdScanResult", Map.of(SCAN_ID, 0, RULE_ID, 0, IDENT_ID, 0)),
+
+            table(COCO_ATTESTATION_REPORT_QUERIES, "CoCoAttestation", Map.of(REPORT_ID, 0)),
+            table(COCO_ATTESTATION_REPORT_QUERIES, "CoCoAttestationResult", Map.of(REPORT_ID, 0, RESULT_TYPE, 0))
+    );
+
     private final int batchSize;
 
+    private final int threads;
+
     private final ReportDBHelper dbHelper;
 
     /**
      * Default constructor
      */
     public ReportDbUpdateTask() {
-        this(ReportDBHelper.INSTANCE, Config.get().getInt(REPORT_DB_BATCH_SIZE, 2000));
+        this(ReportDBHelper.INSTANCE, Config.get().getInt(REPORT_DB_BATCH_SIZE, 2000),
+                Config.get().getInt(REPORT_DB_UPDATE_THREADS, 4));
     }
 
     /**
-     * Constructor used for unit test to specify the {@link ReportDBHelper}
+     * Constructor used for unit test to specify the {@link ReportDBHelper}. The tables are refreshed one after the
+     * other, in the transaction of the calling thread.
      * @param dbHelperIn the {@link ReportDBHelper}
      * @param batchSizeIn the batch size
      */
     public ReportDbUpdateTask(ReportDBHelper dbHelperIn, int batchSizeIn) {
+        this(dbHelperIn, batchSizeIn, 1);
+    }
+
+    /**
+     * Constructor used for unit test to specify the {@link ReportDBHelper} and the number of threads
+     * @param dbHelperIn the {@link ReportDBHelper}
+     * @param batchSizeIn the batch size
+     * @param threadsIn the number of tables refreshed at the same time
+     */
+    public ReportDbUpdateTask(ReportDBHelper dbHelperIn, int batchSizeIn, int threadsIn) {
         this.dbHelper = dbHelperIn;
         this.batchSize = batchSizeIn;
+        this.threads = threadsIn;
+    }
+
+    private static ReportDbTable table(String xmlName, String tableName, Map<String, Object> filterMap) {
+        return new ReportDbTable(xmlName, tableName, filterMap, false);
+    }
+
+    private static ReportDbTable byId(String xmlName, String tableName, Map<String, Object> filterMap) {
+        return new ReportDbTable(xmlName, tableName, filterMap, true);
     }
 
     @Override
@@ -96,76 +177,12 @@ public class ReportDbUpdateTask extends RhnJavaJob {
         ReportDbHibernateFactory rh = new ReportDbHibernateFactory(rcm);
 
         try {
-            fillReportDbTable(rh.getSession(), GENERAL_REPORT_QUERIES, "SystemGroup",
-                Map.of(SYSTEM_GROUP_ID, 0));
-            fillReportDbTable(rh.getSession(), GENERAL_REPORT_QUERIES, "SystemGroupPermission",
-                Map.of(SYSTEM_GROUP_ID, 0, ACCOUNT_ID, 0));
-            fillReportDbTable(rh.getSession(), GENERAL_REPORT_QUERIES, "Account",
-                Map.of(ACCOUNT_ID, 0));
-            fillReportDbTable(rh.getSession(), GENERAL_REPORT_QUERIES, "AccountGroup",
-                Map.of(ACCOUNT_ID, 0, ACCOUNT_GROUP_ID, 0));
-
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "System",
-                Map.of(SYSTEM_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemHardware",
-                Map.of(SYSTEM_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemHistory",
-                Map.of(SYSTEM_ID, 0, HISTORY_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemAction",
-                Map.of(SYSTEM_ID, 0, ACTION_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemChannel",
-                Map.of(SYSTEM_ID, 0, CHANNEL_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemConfigChannel",
-                Map.of(SYSTEM_ID, 0, CONFIG_CHANNEL_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemVirtualData",
-                Map.of(INSTANCE_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemNetInterface",
-                Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemNetAddressV4",
-                Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0, ADDRESS, ""));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemNetAddressV6",
-                Map.of(SYSTEM_ID, 0, INTERFACE_ID, 0, ADDRESS, ""));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemOutdated",
-                Map.of(SYSTEM_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemGroupMember",
-                Map.of(SYSTEM_ID, 0, SYSTEM_GROUP_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemEntitlement",
-                Map.of(SYSTEM_ID, 0, SYSTEM_GROUP_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemErrata",
-                Map.of(SYSTEM_ID, 0, ERRATA_ID, 0));
-            fillReportDbTableById(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemPackageInstalled",
-                Map.of(NAME, ""));
-            fillReportDbTableById(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemPackageUpdate",
-                Map.of(PACKAGE_ID, 0));
-            fillReportDbTable(rh.getSession(), SYSTEM_REPORT_QUERIES, "SystemCustomInfo",
-                Map.of(ORGANIZATION, "", SYSTEM_ID, 0, KEY, ""));
-
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "Channel",
-                Map.of(CHANNEL_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "ChannelErrata",
-                Map.of(CHANNEL_ID, 0, ERRATA_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "ChannelPackage",
-                Map.of(CHANNEL_ID, 0, PACKAGE_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "ChannelRepository",
-                Map.of(CHANNEL_ID, 0, REPOSITORY_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "Errata",
-                Map.of(ERRATA_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "Package",
-                Map.of(PACKAGE_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "Repository",
-                Map.of(REPOSITORY_ID, 0));
-            fillReportDbTable(rh.getSession(), CHANNEL_REPORT_QUERIES, "CLMEnvironmentDifference",
-                    Map.of("diff_id", 0));
-
-            fillReportDbTable(rh.getSession(), SCAP_REPORT_QUERIES, "XccdScan",
-                Map.of(SCAN_ID, 0));
-            fillReportDbTable(rh.getSession(), SCAP_REPORT_QUERIES, "XccdScanResult",
-                Map.of(SCAN_ID, 0, RULE_ID, 0, IDENT_ID, 0));
-
-            fillReportDbTable(rh.getSession(), COCO_ATTESTATION_REPORT_QUERIES, "CoCoAttestation",
-                    Map.of(REPORT_ID, 0));
-            fillReportDbTable(rh.getSession(), COCO_ATTESTATION_REPORT_QUERIES, "CoCoAttestationResult",
-                    Map.of(REPORT_ID, 0, RESULT_TYPE, 0));
+            if (threads > 1) {
+                fillReportDbTablesInParallel(rh);
+            }
+            else {
+                TABLES.forEach(table -> fillReportDbTable(rh.getSession(), table));
+            }
 
             dbHelper.analyzeReportDb(rh.getSession());
 
@@ -209,6 +226,75 @@ public class ReportDbUpdateTask extends RhnJavaJob {
         HibernateFactory.closeSession();
     }
 
+    /**
+     * Refreshes the tables at the same time, each one with its own connections and transaction. A table is visible
+     * as soon as it is refreshed, and a failure does not roll back the other tables.
+     */
+    private void fillReportDbTablesInParallel(ReportDbHibernateFactory rh) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, TABLES.size()),
+                new BasicThreadFactory.Builder().namingPattern("report-db-update-%d").build());
+        try {
+            Map<ReportDbTable, Future<?>> refreshes = new LinkedHashMap<>();
+            TABLES.forEach(table -> refreshes.put(table, executor.submit(() -> fillReportDbTableAndCommit(rh, table))));
+
+            RuntimeException failure = null;
+            for (Map.Entry<ReportDbTable, Future<?>> refresh : refreshes.entrySet()) {
+                try {
+                    refresh.getValue().get();
+                }
+                catch (ExecutionException e) {
+                    RuntimeException tableFailure = new RuntimeException(
+                            "Unable to refresh table " + refresh.getKey().tableName(), e.getCause());
+                    if (failure == null) {
+                        failure = tableFailure;
+                    }
+                    else {
+                        failure.addSuppressed(tableFailure);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while refreshing the reporting db", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void fillReportDbTableAndCommit(ReportDbHibernateFactory rh, ReportDbTable table) {
+        try {
+            fillReportDbTable(rh.getSession(), table);
+            rh.commitTransaction();
+        }
+        catch (RuntimeException ex) {
+            try {
+                rh.rollbackTransaction();
+            }
+            catch (RuntimeException rollbackException) {
+                log.warn("Unable to rollback transaction", rollbackException);
+            }
+            throw ex;
+        }
+        finally {
+            rh.closeSession();
+            HibernateFactory.closeSession();
+        }
+    }
+
+    private void fillReportDbTable(Session session, ReportDbTable table) {
+        if (table.byId()) {
+            fillReportDbTableById(session, table.xmlName(), table.tableName(), table.filterMap());
+        }
+        else {
+            fillReportDbTable(session, table.xmlName(), table.tableName(), table.filterMap());
+        }
+    }
+
     private void fillReportDbTable(Session session, String xmlName, String tableName, Map<String, Object> filterMap) {
         TimeUtils.logTime(log, "Refreshing table " + tableName, () -> {
             // Remove all the existing data
@@ -264,9 +350,10 @@ public class ReportDbUpdateTask extends RhnJavaJob {
 
         // Generate the insert using the column name retrieved from the select
         Set<String> columnParameters = dataBatch.get(0).keySet();
-        WriteMode insert = dbHelper.generateInsertWithDate(session, tableName, LOCAL_MGM_ID, columnParameters);
+        ReportDbBulkInsert insert = dbHelper.generateBulkInsertWithDate(session, tableName, LOCAL_MGM_ID,
+                columnParameters);
 
-        insert.executeUpdates(dataBatch);
+        insert.insert(dataBatch);
         log.debug("Extracted {} rows for table {}", dataBatch.size(), tableName);
 
         // Iterate further if we can have additional rows
@@ -276,7 +363,7 @@ public class ReportDbUpdateTask extends RhnJavaJob {
             dataBatch = query.execute(parametersMap);
             if (!dataBatch.isEmpty()) {
                 log.debug("Extracted {} rows more for table {}", dataBatch.size(), tableName);
-                insert.executeUpdates(dataBatch);
+                insert.insert(dataBatch);
             }
         }
     }
@@ -135,6 +135,12 @@ public class TaskConstants {
     public static final String TASK_QUERY_REPOMD_GENERATOR_CHANNEL_PACKAGES_BATCH =
         "repomdgenerator_channel_package_batch";
 
+    public static final String TASK_QUERY_REPOMD_GENERATOR_CHANNEL_PACKAGES_KEYSET =
+        "repomdgenerator_channel_package_keyset";
+
+    public static final String TASK_QUERY_REPOMD_GENERATOR_CHANNEL_PACKAGE_MARKERS =
+        "repomdgenerator_channel_package_markers";
+
     public static final String TASK_QUERY_REPOMD_GENERATOR_CAPABILITY_FILES =
         "repomdgenerator_capability_files";
 
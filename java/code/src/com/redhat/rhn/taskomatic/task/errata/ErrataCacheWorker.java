@@ -14,9 +14,11 @@
  */
 package com.redhat.rhn.taskomatic.task.errata;
 
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.domain.task.Task;
 import com.redhat.rhn.domain.task.TaskFactory;
+import com.redhat.rhn.manager.audit.CVEExposureManager;
 import com.redhat.rhn.manager.errata.cache.UpdateErrataCacheCommand;
 import com.redhat.rhn.taskomatic.task.threaded.QueueWorker;
 import com.redhat.rhn.taskomatic.task.threaded.TaskQueue;
@@ -61,6 +63,9 @@ public class ErrataCacheWorker implements QueueWorker {
                     logger.debug("Updating errata cache for sid [{}]", sid);
                 }
                 uecc.updateErrataCacheForServer(sid, false);
+                if (ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+                    CVEExposureManager.enqueue(sid);
+                }
                 if (logger.isDebugEnabled()) {
                     logger.debug("Finished errata cache for sid [{}]", sid);
                 }
@@ -81,6 +86,9 @@ public class ErrataCacheWorker implements QueueWorker {
                     logger.debug("Updating errata cache for cid [{}]", cid);
                 }
                 uecc.updateErrataCacheForChannel(cid);
+                if (ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+                    CVEExposureManager.enqueueByChannel(cid);
+                }
                 if (logger.isDebugEnabled()) {
                     logger.debug("Finished errata cache for cid [{}]", cid);
                 }
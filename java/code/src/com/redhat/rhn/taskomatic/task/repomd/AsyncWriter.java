@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A writer handing its content over, in chunks, to a dedicated thread that writes it to the target writer.
+ * <p>
+ * It lets the repository metadata files be encoded, compressed and digested in parallel, while their content is
+ * still produced by the single thread owning the database session. The number of chunks waiting to be written is
+ * bounded, so a slow target eventually blocks the producer instead of buffering the whole file in memory.
+ */
+public class AsyncWriter extends Writer {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final char[] END = new char[0];
+
+    private final Writer target;
+    private final BlockingQueue<char[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+    private volatile IOException failure;
+
+    private char[] chunk = new char[CHUNK_SIZE];
+    private int position;
+    private boolean closed;
+
+    /**
+     * Start the thread writing to the target
+     *
+     * @param targetIn the writer to write to, closed when this writer is closed
+     * @param nameIn the name of the writing thread
+     */
+    public AsyncWriter(Writer targetIn, String nameIn) {
+        target = targetIn;
+        thread = new Thread(this::drain, nameIn);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void drain() {
+        try (Writer out = target) {
+            while (true) {
+                char[] next = queue.take();
+                if (next == END) {
+                    return;
+                }
+                out.write(next);
+            }
+        }
+        catch (IOException e) {
+            failure = e;
+        }
+        catch (InterruptedException e) {
+            failure = new InterruptedIOException("Interrupted while writing");
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            // unblock a producer waiting for room in the queue
+            queue.clear();
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int n = Math.min(remaining, CHUNK_SIZE - position);
+            System.arraycopy(cbuf, offset, chunk, position, n);
+            position += n;
+            offset += n;
+            remaining -= n;
+            if (position == CHUNK_SIZE) {
+                handOver(chunk);
+                chunk = new char[CHUNK_SIZE];
+                position = 0;
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int n = Math.min(remaining, CHUNK_SIZE - position);
+            str.getChars(offset, offset + n, chunk, position);
+            position += n;
+            offset += n;
+            remaining -= n;
+            if (position == CHUNK_SIZE) {
+                handOver(chunk);
+                chunk = new char[CHUNK_SIZE];
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     * Hands the buffered content over to the writing thread. It does not wait for the content to be written.
+     *
+     * @throws IOException if the writing thread failed
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (position > 0) {
+            char[] partial = new char[position];
+            System.arraycopy(chunk, 0, partial, 0, position);
+            handOver(partial);
+            position = 0;
+        }
+    }
+
+    /**
+     * Writes the remaining content, waits for the writing thread to complete and closes the target.
+     *
+     * @throws IOException if the writing thread failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            handOver(END);
+            thread.join();
+        }
+        catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + thread.getName());
+        }
+        finally {
+            closed = true;
+        }
+        checkFailure();
+    }
+
+    private void handOver(char[] content) throws IOException {
+        try {
+            while (thread.isAlive()) {
+                if (queue.offer(content, 1, TimeUnit.SECONDS)) {
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing to " + thread.getName());
+        }
+        checkFailure();
+        if (content != END) {
+            throw new IOException(thread.getName() + " is not running");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing failed in " + thread.getName(), failure);
+        }
+    }
+}
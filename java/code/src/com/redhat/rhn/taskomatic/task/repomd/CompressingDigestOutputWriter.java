@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -30,6 +31,8 @@ import java.util.zip.GZIPOutputStream;
  */
 public class CompressingDigestOutputWriter extends OutputStream {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private DigestOutputStream uncompressedDigestStream;
     private DigestOutputStream compressedDigestStream;
     private OutputStream compressedStream;
@@ -44,12 +47,29 @@ public class CompressingDigestOutputWriter extends OutputStream {
      */
     public CompressingDigestOutputWriter(OutputStream stream, String checksumAlgo)
                                         throws NoSuchAlgorithmException, IOException {
+        this(stream, checksumAlgo, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     *
+     * @param stream The stream to compress
+     * @param checksumAlgo checksum algorithm
+     * @param compressionLevel the gzip compression level, from 0 to 9, or -1 for the default level
+     * @throws NoSuchAlgorithmException nosuchalgorithmexception
+     * @throws IOException ioexception
+     */
+    public CompressingDigestOutputWriter(OutputStream stream, String checksumAlgo, int compressionLevel)
+                                        throws NoSuchAlgorithmException, IOException {
             compressedDigestStream = new DigestOutputStream(stream,
                     MessageDigest.getInstance(checksumAlgo));
-            compressedStream = new GZIPOutputStream(compressedDigestStream);
+            compressedStream = new GZIPOutputStream(compressedDigestStream, BUFFER_SIZE) {
+                {
+                    def.setLevel(compressionLevel);
+                }
+            };
             uncompressedDigestStream = new DigestOutputStream(compressedStream,
                     MessageDigest.getInstance(checksumAlgo));
-            bufferedStream = new BufferedOutputStream(uncompressedDigestStream);
+            bufferedStream = new BufferedOutputStream(uncompressedDigestStream, BUFFER_SIZE);
     }
 
     /**
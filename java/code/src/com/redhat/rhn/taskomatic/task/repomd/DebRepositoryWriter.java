@@ -117,19 +117,24 @@ public class DebRepositoryWriter extends RepositoryWriter {
         final int batchSize = 1000;
         String packagesFile;
         try (DebPackageWriter writer = new DebPackageWriter(channel, prefix)) {
-            for (long i = 0; i < channel.getPackageCount(); i += batchSize) {
-                DataResult<PackageDto> packageBatch = TaskManager.getChannelPackageDtos(channel, i, batchSize);
+            long lastId = 0;
+            long processed = 0;
+            DataResult<PackageDto> packageBatch;
+            do {
+                packageBatch = TaskManager.getChannelPackageDtosAfter(channel, lastId, batchSize);
                 packageBatch.elaborate();
                 loadExtraTags(packageBatch);
                 for (PackageDto pkgDto : packageBatch) {
                     writer.addPackage(pkgDto);
+                    lastId = pkgDto.getId();
                 }
-                log.info("Processed {} packages", i + packageBatch.getEnd());
+                processed += packageBatch.size();
+                log.info("Processed {} packages", processed);
                 if (commitTransaction) {
                     // commit pre generated package snippets in the cache
                     HibernateFactory.commitTransaction();
                 }
-            }
+            } while (packageBatch.size() == batchSize);
             packagesFile = writer.getFilenamePackages();
         }
         catch (IOException e) {
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.zip.CRC32;
+
+/**
+ * Describes how the compressed metadata files of a channel are split in segments, so that the segments whose
+ * packages did not change can be reused by the next generation.
+ * <p>
+ * The packages are split in segments by id, and the boundaries between the segments only depend on the ids of the
+ * packages around them: adding or removing a package changes its own segment, not the following ones. The key of a
+ * segment also covers the change markers of its packages, so a segment is generated again when any of its packages
+ * changes.
+ */
+public class RepomdSegmentIndex {
+
+    /** The name of the index file, in the repodata directory of the channel */
+    public static final String FILE_NAME = "repomd-segments.json";
+
+    /** The key of the segment holding the beginning of a file, before the first package */
+    public static final String HEADER = "header";
+
+    /** The key of the segment holding the end of a file, after the last package */
+    public static final String FOOTER = "footer";
+
+    private static final Logger LOG = LogManager.getLogger(RepomdSegmentIndex.class);
+
+    /** 1 in 512 packages ends a segment */
+    private static final int BOUNDARY_MASK = 511;
+    private static final int MAX_SEGMENT_SIZE = 2048;
+
+    private String checksumType;
+    private Map<String, FileSegments> files = new HashMap<>();
+
+    /**
+     * A segment of a compressed file
+     */
+    public static class Segment {
+        private String key;
+        private long offset;
+        private long length;
+
+        /**
+         * @param keyIn the key identifying the content of the segment
+         * @param offsetIn the offset of the segment in the compressed file
+         * @param lengthIn the length of the segment in the compressed file
+         */
+        public Segment(String keyIn, long offsetIn, long lengthIn) {
+            key = keyIn;
+            offset = offsetIn;
+            length = lengthIn;
+        }
+
+        /**
+         * @return the key identifying the content of the segment
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the offset of the segment in the compressed file
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return the length of the segment in the compressed file
+         */
+        public long getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * A compressed metadata file and its segments
+     */
+    public static class FileSegments {
+        private String fileName;
+        private String checksum;
+        private String openChecksum;
+        private int compressionLevel;
+        private List<Segment> segments;
+
+        /**
+         * @param fileNameIn the name of the file in the repodata directory
+         * @param checksumIn the checksum of the compressed file
+         * @param openChecksumIn the checksum of the uncompressed content
+         * @param compressionLevelIn the compression level of the segments
+         * @param segmentsIn the segments
+         */
+        public FileSegments(String fileNameIn, String checksumIn, String openChecksumIn, int compressionLevelIn,
+                            List<Segment> segmentsIn) {
+            fileName = fileNameIn;
+            checksum = checksumIn;
+            openChecksum = openChecksumIn;
+            compressionLevel = compressionLevelIn;
+            segments = segmentsIn;
+        }
+
+        /**
+         * @return the name of the file in the repodata directory
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * @return the checksum of the compressed file
+         */
+        public String getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * @return the checksum of the uncompressed content
+         */
+        public String getOpenChecksum() {
+            return openChecksum;
+        }
+
+        /**
+         * @return the compression level of the segments
+         */
+        public int getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        /**
+         * @return the segments of the file
+         */
+        public List<Segment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * @param key the segment key
+         * @return the segment with the given key, if any
+         */
+        public Optional<Segment> getSegment(String key) {
+            return segments.stream().filter(s -> s.getKey().equals(key)).findFirst();
+        }
+    }
+
+    /**
+     * The packages of a segment, to be generated or copied from the previous files
+     *
+     * @param key the key identifying the packages of the segment
+     * @param packageIds the ids of the packages, in ascending order
+     */
+    public record PlannedSegment(String key, List<Long> packageIds) { }
+
+    /**
+     * @param checksumTypeIn the checksum type of the files
+     */
+    public RepomdSegmentIndex(String checksumTypeIn) {
+        checksumType = checksumTypeIn;
+    }
+
+    /**
+     * @return the checksum type of the files
+     */
+    public String getChecksumType() {
+        return checksumType;
+    }
+
+    /**
+     * @param type the type of metadata, e.g. "primary"
+     * @return the segments of the file, if known
+     */
+    public Optional<FileSegments> getFile(String type) {
+        return Optional.ofNullable(files.get(type));
+    }
+
+    /**
+     * @param type the type of metadata, e.g. "primary"
+     * @param file the segments of the file
+     */
+    public void putFile(String type, FileSegments file) {
+        files.put(type, file);
+    }
+
+    /**
+     * Splits the packages of a channel in segments
+     *
+     * @param packageMarkers the change markers of the packages of the channel, by package id
+     * @return the segments
+     */
+    public static List<PlannedSegment> plan(SortedMap<Long, String> packageMarkers) {
+        List<PlannedSegment> planned = new ArrayList<>();
+        List<Long> current = new ArrayList<>();
+        for (Long id : packageMarkers.keySet()) {
+            current.add(id);
+            if (isBoundary(id) || current.size() == MAX_SEGMENT_SIZE) {
+                planned.add(new PlannedSegment(key(current, packageMarkers), current));
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            planned.add(new PlannedSegment(key(current, packageMarkers), current));
+        }
+        return planned;
+    }
+
+    private static boolean isBoundary(long id) {
+        // mix the bits so that consecutive ids do not end segments at regular intervals
+        return ((id * 0x9E3779B97F4A7C15L) >>> 40 & BOUNDARY_MASK) == 0;
+    }
+
+    private static String key(List<Long> ids, Map<Long, String> markers) {
+        CRC32 crc = new CRC32();
+        for (Long id : ids) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                crc.update((int) (id >>> shift));
+            }
+            String marker = markers.get(id);
+            if (marker != null) {
+                crc.update(marker.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return ids.get(0) + "-" + ids.get(ids.size() - 1) + "-" + ids.size() + "-" + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Loads the index of a repodata directory
+     *
+     * @param directory the repodata directory
+     * @return the index, if it exists and is readable
+     */
+    public static Optional<RepomdSegmentIndex> load(File directory) {
+        File indexFile = new File(directory, FILE_NAME);
+        if (!indexFile.isFile()) {
+            return Optional.empty();
+        }
+        try (Reader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            return Optional.ofNullable(new Gson().fromJson(reader, RepomdSegmentIndex.class))
+                    .filter(index -> index.checksumType != null && index.files != null);
+        }
+        catch (IOException | JsonParseException e) {
+            LOG.warn("Ignoring unreadable segment index {}", indexFile, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves the index in a repodata directory
+     *
+     * @param directory the repodata directory
+     * @return the index file
+     * @throws IOException if writing fails
+     */
+    public File save(File directory) throws IOException {
+        File indexFile = new File(directory, FILE_NAME);
+        try (Writer writer = Files.newBufferedWriter(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            new Gson().toJson(this, writer);
+        }
+        return indexFile;
+    }
+}
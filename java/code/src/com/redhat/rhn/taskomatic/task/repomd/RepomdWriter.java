@@ -36,6 +36,7 @@ import java.io.Writer;
 public abstract class RepomdWriter {
 
     protected SimpleContentHandler handler;
+    private XMLSerializer serializer;
 
     private static final String CONTROL_CHARS;
     private static final String CONTROL_CHARS_REPLACEMENT;
@@ -58,8 +59,6 @@ public abstract class RepomdWriter {
 
         OutputFormat of = new OutputFormat();
         of.setPreserveSpace(true);
-        XMLSerializer serializer = null;
-
         if (shouldEscape) {
             // XMLSerializer used to escape chars like < >
             serializer = new XMLSerializer(writer, of);
@@ -85,6 +84,24 @@ public abstract class RepomdWriter {
     }
 
 
+    /**
+     * Writes everything added so far to the writer, so that the following content can go to another segment of the
+     * file. Only supported by the writers not escaping their output.
+     */
+    public void flush() {
+        if (!(serializer instanceof UnescapingXmlSerializer unescaping)) {
+            throw new UnsupportedOperationException("Only unescaping writers can be flushed");
+        }
+        try {
+            // writing nothing completes the pending start tag, if any
+            handler.addCharacters("");
+            unescaping.flush();
+        }
+        catch (SAXException | IOException e) {
+            throw new RepomdRuntimeException(e);
+        }
+    }
+
     protected SimpleContentHandler getTemporaryHandler(OutputStream st) {
         OutputFormat of = new OutputFormat();
         of.setPreserveSpace(true);
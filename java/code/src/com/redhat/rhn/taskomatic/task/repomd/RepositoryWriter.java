@@ -70,6 +70,17 @@ public abstract class RepositoryWriter {
     */
    public abstract void writeRepomdFiles(Channel channel);
 
+   /**
+    * Generates the repository metadata of a channel. Unless forced, writers supporting it may reuse the parts of
+    * the previous metadata that did not change.
+    *
+    * @param channel channelinfo for repomd file creation
+    * @param force whether all the metadata must be generated again
+    */
+   public void writeRepomdFiles(Channel channel, boolean force) {
+       writeRepomdFiles(channel);
+   }
+
    /**
     * Deletes repository cache files
     * @param channelLabelToProcess channel label
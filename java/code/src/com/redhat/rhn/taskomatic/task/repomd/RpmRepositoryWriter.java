@@ -40,6 +40,8 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.DigestInputStream;
@@ -51,7 +53,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  *
@@ -70,9 +77,43 @@ public class RpmRepositoryWriter extends RepositoryWriter {
     private static final String SOLV_FILE = "solv.new";
     private static final String REPO2SOLV = "/usr/bin/repo2solv";
 
+    /** The package metadata files, by type */
+    private static final Map<String, String> SEGMENTED_FILES = new LinkedHashMap<>();
+    static {
+        SEGMENTED_FILES.put("primary", PRIMARY_FILE);
+        SEGMENTED_FILES.put("filelists", FILELISTS_FILE);
+        SEGMENTED_FILES.put("other", OTHER_FILE);
+        SEGMENTED_FILES.put("susedata", SUSEDATA_FILE);
+    }
+
     private static final String GROUP = "groups";
     private static final String MODULES = "modules";
 
+    /**
+     * The index data of the package metadata files
+     *
+     * @param primary the primary file
+     * @param filelists the filelists file
+     * @param other the other file
+     * @param susedata the susedata file
+     * @param segmentIndex the segments of the files, if generated incrementally
+     */
+    private record PackageMetadata(RepomdIndexData primary, RepomdIndexData filelists, RepomdIndexData other,
+                                   RepomdIndexData susedata, RepomdSegmentIndex segmentIndex) { }
+
+    /**
+     * A package metadata file generated in segments
+     *
+     * @param type the type of metadata, e.g. "primary"
+     * @param output the segmented file
+     * @param xml the XML writer
+     * @param adder adds a package to the XML writer
+     * @param previous the segments of the previous version of the file, if reusable
+     */
+    private record SegmentedMetadataFile(String type, SegmentedGzipWriter output,
+                                         RepomdWriter xml, Consumer<PackageDto> adder,
+                                         RepomdSegmentIndex.FileSegments previous) { }
+
     /**
      * Utility class to move/copy files around in the 'repodata' directory
      */
@@ -219,6 +260,18 @@ public class RpmRepositoryWriter extends RepositoryWriter {
      */
     @Override
     public void writeRepomdFiles(Channel channel) {
+        writeRepomdFiles(channel, true);
+    }
+
+    /**
+     * Generates the repository metadata of a channel. When incremental generation is enabled and not forced, the
+     * segments of the previous package metadata files whose packages did not change are reused.
+     *
+     * @param channel channelinfo for repomd file creation
+     * @param force whether all the package metadata must be generated again
+     */
+    @Override
+    public void writeRepomdFiles(Channel channel, boolean force) {
         PackageManager.createRepoEntrys(channel.getId());
 
         // we closed the session, so we need to reload the object
@@ -255,102 +308,15 @@ public class RpmRepositoryWriter extends RepositoryWriter {
         log.info("Generating new repository metadata for channel '{}'({}) {} packages, {} errata", channel.getLabel(),
                 checksumType, channel.getPackageCount(), channel.getErrataCount());
 
-        CompressingDigestOutputWriter primaryFile, filelistsFile, otherFile, susedataFile;
-
-        try {
-            primaryFile = new CompressingDigestOutputWriter(
-                    new FileOutputStream(prefix + PRIMARY_FILE),
-                    checksumAlgo);
-            filelistsFile = new CompressingDigestOutputWriter(
-                    new FileOutputStream(prefix + FILELISTS_FILE),
-                    checksumAlgo);
-            otherFile = new CompressingDigestOutputWriter(
-                    new FileOutputStream(prefix + OTHER_FILE), checksumAlgo);
-            susedataFile = new CompressingDigestOutputWriter(
-                    new FileOutputStream(prefix + SUSEDATA_FILE), checksumAlgo);
-        }
-        catch (IOException | NoSuchAlgorithmException e) {
-            throw new RepomdRuntimeException(e);
-        }
-
-        BufferedWriter primaryBufferedWriter = new BufferedWriter(
-                new OutputStreamWriter(primaryFile));
-        BufferedWriter filelistsBufferedWriter = new BufferedWriter(
-                new OutputStreamWriter(filelistsFile));
-        BufferedWriter otherBufferedWriter = new BufferedWriter(
-                new OutputStreamWriter(otherFile));
-        BufferedWriter susedataBufferedWriter = new BufferedWriter(
-                new OutputStreamWriter(susedataFile));
-        PrimaryXmlWriter primary = new PrimaryXmlWriter(
-                primaryBufferedWriter);
-        FilelistsXmlWriter filelists = new FilelistsXmlWriter(
-                filelistsBufferedWriter);
-        OtherXmlWriter other = new OtherXmlWriter(otherBufferedWriter);
-        SuseDataXmlWriter susedata = new SuseDataXmlWriter(
-                susedataBufferedWriter);
         Date start = new Date();
 
-        primary.begin(channel);
-        filelists.begin(channel);
-        other.begin(channel);
-        susedata.begin(channel);
-
-        // batch the elaboration so we don't have to hold many thousands of packages in memory at once
-        final int batchSize = 1000;
-        for (long i = 0; i < channel.getPackageCount(); i += batchSize) {
-            DataResult<PackageDto> packageBatch = TaskManager.getChannelPackageDtos(channel, i, batchSize);
-            packageBatch.elaborate();
-            for (PackageDto pkgDto : packageBatch) {
-                // this is a sanity check
-                // package may have been deleted before packageBatch.elaborate()
-                if (pkgDto.getChecksum() == null) {
-                    // channel content changed, we cannot guarantee correct repodata
-                    throw new RepomdRuntimeException("Package with id " + pkgDto.getId() +
-                            " removed from server, interrupting repo generation for " +
-                            channel.getLabel());
-                }
-                primary.addPackage(pkgDto);
-                filelists.addPackage(pkgDto);
-                other.addPackage(pkgDto);
-                susedata.addPackage(pkgDto);
-                try {
-                    primaryFile.flush();
-                    filelistsFile.flush();
-                    otherFile.flush();
-                    susedataFile.flush();
-                }
-                catch (IOException e) {
-                    throw new RepomdRuntimeException(e);
-                }
-            }
-            log.info("Processed {} packages", i + packageBatch.getEnd());
-            if (commitTransaction) {
-                // commit pre generated XML snippets in the cache
-                HibernateFactory.commitTransaction();
-            }
-        }
-        primary.end();
-        filelists.end();
-        other.end();
-        susedata.end();
-        try {
-            primaryBufferedWriter.close();
-            filelistsBufferedWriter.close();
-            otherBufferedWriter.close();
-            susedataBufferedWriter.close();
-        }
-        catch (IOException e) {
-            throw new RepomdRuntimeException(e);
-        }
-
-        RepomdIndexData primaryData = new RepomdIndexData(primaryFile.getCompressedChecksum(),
-                primaryFile.getUncompressedChecksum(), channel.getLastModified());
-        RepomdIndexData filelistsData = new RepomdIndexData(filelistsFile.getCompressedChecksum(),
-                filelistsFile.getUncompressedChecksum(), channel.getLastModified());
-        RepomdIndexData otherData = new RepomdIndexData(otherFile.getCompressedChecksum(),
-                otherFile.getUncompressedChecksum(), channel.getLastModified());
-        RepomdIndexData susedataData = new RepomdIndexData(susedataFile.getCompressedChecksum(),
-                susedataFile.getUncompressedChecksum(), channel.getLastModified());
+        PackageMetadata packageMetadata = ConfigDefaults.get().isRepomdIncremental() ?
+                writeSegmentedPackageMetadata(channel, prefix, checksumType, checksumAlgo, force) :
+                writePackageMetadata(channel, prefix, checksumAlgo);
+        RepomdIndexData primaryData = packageMetadata.primary();
+        RepomdIndexData filelistsData = packageMetadata.filelists();
+        RepomdIndexData otherData = packageMetadata.other();
+        RepomdIndexData susedataData = packageMetadata.susedata();
 
         if (log.isDebugEnabled()) {
             log.debug("Starting updateinfo generation for '{}\"", channel.getLabel());
@@ -418,6 +384,15 @@ public class RpmRepositoryWriter extends RepositoryWriter {
                     "modules.yaml", modulesData.getChecksum()));
         }
 
+        if (packageMetadata.segmentIndex() != null) {
+            try {
+                createdFiles.add(packageMetadata.segmentIndex().save(new File(prefix)));
+            }
+            catch (IOException e) {
+                throw new RepomdRuntimeException(e);
+            }
+        }
+
         // Index file should be the last one to be moved; after all the files are ready to be served
         createdFiles.add(organizer.move(REPOMD_FILE, "repomd.xml"));
 
@@ -442,6 +417,297 @@ public class RpmRepositoryWriter extends RepositoryWriter {
                 .forEach(File::delete);
     }
 
+    /**
+     * Generates the primary, filelists, other and susedata files of a channel
+     *
+     * @param channel the channel
+     * @param prefix the repodata directory
+     * @param checksumAlgo the checksum algorithm
+     * @return the index data of the generated files
+     */
+    private PackageMetadata writePackageMetadata(Channel channel, String prefix, String checksumAlgo) {
+        CompressingDigestOutputWriter primaryFile = createMetadataFile(prefix + PRIMARY_FILE, checksumAlgo, "primary");
+        CompressingDigestOutputWriter filelistsFile = createMetadataFile(prefix + FILELISTS_FILE, checksumAlgo,
+                "filelists");
+        CompressingDigestOutputWriter otherFile = createMetadataFile(prefix + OTHER_FILE, checksumAlgo, "other");
+        CompressingDigestOutputWriter susedataFile = createMetadataFile(prefix + SUSEDATA_FILE, checksumAlgo,
+                "susedata");
+        // The XML snippets are produced here, as they may need the database session, while every file is encoded,
+        // compressed and digested by its own thread
+        String threadPrefix = "repomd-" + channel.getLabel() + "-";
+        try (AsyncWriter primaryWriter = new AsyncWriter(new OutputStreamWriter(primaryFile), threadPrefix + "primary");
+             AsyncWriter filelistsWriter = new AsyncWriter(new OutputStreamWriter(filelistsFile),
+                     threadPrefix + "filelists");
+             AsyncWriter otherWriter = new AsyncWriter(new OutputStreamWriter(otherFile), threadPrefix + "other");
+             AsyncWriter susedataWriter = new AsyncWriter(new OutputStreamWriter(susedataFile),
+                     threadPrefix + "susedata")) {
+            PrimaryXmlWriter primary = new PrimaryXmlWriter(primaryWriter);
+            FilelistsXmlWriter filelists = new FilelistsXmlWriter(filelistsWriter);
+            OtherXmlWriter other = new OtherXmlWriter(otherWriter);
+            SuseDataXmlWriter susedata = new SuseDataXmlWriter(susedataWriter);
+
+            primary.begin(channel);
+            filelists.begin(channel);
+            other.begin(channel);
+            susedata.begin(channel);
+
+            // batch the elaboration so we don't have to hold many thousands of packages in memory at once
+            final int batchSize = 1000;
+            long lastId = 0;
+            long processed = 0;
+            DataResult<PackageDto> packageBatch;
+            do {
+                packageBatch = TaskManager.getChannelPackageDtosAfter(channel, lastId, batchSize);
+                packageBatch.elaborate();
+                for (PackageDto pkgDto : packageBatch) {
+                    // this is a sanity check
+                    // package may have been deleted before packageBatch.elaborate()
+                    if (pkgDto.getChecksum() == null) {
+                        // channel content changed, we cannot guarantee correct repodata
+                        throw new RepomdRuntimeException("Package with id " + pkgDto.getId() +
+                                " removed from server, interrupting repo generation for " +
+                                channel.getLabel());
+                    }
+                    primary.addPackage(pkgDto);
+                    filelists.addPackage(pkgDto);
+                    other.addPackage(pkgDto);
+                    susedata.addPackage(pkgDto);
+                    lastId = pkgDto.getId();
+                }
+                processed += packageBatch.size();
+                log.info("Processed {} packages", processed);
+                if (commitTransaction) {
+                    // commit pre generated XML snippets in the cache
+                    HibernateFactory.commitTransaction();
+                }
+            } while (packageBatch.size() == batchSize);
+
+            primary.end();
+            filelists.end();
+            other.end();
+            susedata.end();
+        }
+        catch (IOException e) {
+            throw new RepomdRuntimeException(e);
+        }
+
+        RepomdIndexData primaryData = new RepomdIndexData(primaryFile.getCompressedChecksum(),
+                primaryFile.getUncompressedChecksum(), channel.getLastModified());
+        RepomdIndexData filelistsData = new RepomdIndexData(filelistsFile.getCompressedChecksum(),
+                filelistsFile.getUncompressedChecksum(), channel.getLastModified());
+        RepomdIndexData otherData = new RepomdIndexData(otherFile.getCompressedChecksum(),
+                otherFile.getUncompressedChecksum(), channel.getLastModified());
+        RepomdIndexData susedataData = new RepomdIndexData(susedataFile.getCompressedChecksum(),
+                susedataFile.getUncompressedChecksum(), channel.getLastModified());
+        return new PackageMetadata(primaryData, filelistsData, otherData, susedataData, null);
+    }
+
+    /**
+     * Generates the primary, filelists, other and susedata files of a channel in segments, copying the segments of the
+     * previous files whose packages did not change. If no package changed, the previous files are kept as they are.
+     *
+     * @param channel the channel
+     * @param prefix the repodata directory
+     * @param checksumType the checksum type of the channel
+     * @param checksumAlgo the checksum algorithm
+     * @param force whether the previous files must be ignored
+     * @return the index data of the files
+     */
+    private PackageMetadata writeSegmentedPackageMetadata(Channel channel, String prefix, String checksumType,
+                                                          String checksumAlgo, boolean force) {
+        File directory = new File(prefix);
+        Optional<RepomdSegmentIndex> previousIndex = force ? Optional.empty() : RepomdSegmentIndex.load(directory)
+                .filter(index -> checksumType.equals(index.getChecksumType()));
+        Map<String, RepomdSegmentIndex.FileSegments> previousFiles = new HashMap<>();
+        for (String type : SEGMENTED_FILES.keySet()) {
+            previousIndex.flatMap(index -> index.getFile(type))
+                    .filter(file -> file.getCompressionLevel() == ConfigDefaults.get().getRepomdCompressionLevel(type))
+                    .filter(file -> new File(directory, file.getFileName()).isFile())
+                    .ifPresent(file -> previousFiles.put(type, file));
+        }
+        boolean reusable = previousFiles.size() == SEGMENTED_FILES.size();
+
+        // the markers cover the package, its snippets, its keywords in the channel and its EULAs
+        List<RepomdSegmentIndex.PlannedSegment> plan = RepomdSegmentIndex.plan(
+                TaskManager.getChannelPackageMarkers(channel));
+        List<String> plannedKeys = plan.stream().map(RepomdSegmentIndex.PlannedSegment::key).toList();
+
+        RepomdSegmentIndex segmentIndex = new RepomdSegmentIndex(checksumType);
+        if (reusable && previousFiles.values().stream().allMatch(file -> hasPackageSegments(file, plannedKeys))) {
+            log.info("The packages of channel '{}' did not change, keeping the package metadata files",
+                    channel.getLabel());
+            previousFiles.forEach(segmentIndex::putFile);
+            return new PackageMetadata(toIndexData(previousFiles.get("primary"), channel),
+                    toIndexData(previousFiles.get("filelists"), channel),
+                    toIndexData(previousFiles.get("other"), channel),
+                    toIndexData(previousFiles.get("susedata"), channel), segmentIndex);
+        }
+
+        List<SegmentedMetadataFile> files = new ArrayList<>();
+        List<RandomAccessFile> previousContents = new ArrayList<>();
+        try {
+            for (Map.Entry<String, String> entry : SEGMENTED_FILES.entrySet()) {
+                String type = entry.getKey();
+                SegmentedGzipWriter output = new SegmentedGzipWriter(prefix + entry.getValue(), checksumAlgo,
+                        ConfigDefaults.get().getRepomdCompressionLevel(type));
+                files.add(createSegmentedFile(type, output,
+                        reusable ? previousFiles.get(type) : null));
+            }
+            Map<String, RandomAccessFile> previousContent = new HashMap<>();
+            if (reusable) {
+                for (SegmentedMetadataFile file : files) {
+                    RandomAccessFile content = new RandomAccessFile(
+                            new File(directory, file.previous().getFileName()), "r");
+                    previousContents.add(content);
+                    previousContent.put(file.type(), content);
+                }
+            }
+
+            for (SegmentedMetadataFile file : files) {
+                file.xml().begin(channel);
+                file.xml().flush();
+                file.output().endSegment(RepomdSegmentIndex.HEADER);
+            }
+
+            long lastId = 0;
+            int reused = 0;
+            for (RepomdSegmentIndex.PlannedSegment segment : plan) {
+                if (reusable && files.stream().allMatch(f -> f.previous().getSegment(segment.key()).isPresent())) {
+                    for (SegmentedMetadataFile file : files) {
+                        file.output().copySegment(previousContent.get(file.type()),
+                                file.previous().getSegment(segment.key()).orElseThrow());
+                    }
+                    reused++;
+                }
+                else {
+                    writeSegment(channel, lastId, segment, files);
+                }
+                lastId = segment.packageIds().get(segment.packageIds().size() - 1);
+            }
+
+            for (SegmentedMetadataFile file : files) {
+                file.xml().end();
+                file.output().endSegment(RepomdSegmentIndex.FOOTER);
+                file.output().close();
+            }
+            log.info("Reused {} of {} package segments for channel '{}'", reused, plan.size(), channel.getLabel());
+        }
+        catch (IOException | NoSuchAlgorithmException e) {
+            throw new RepomdRuntimeException(e);
+        }
+        finally {
+            for (RandomAccessFile content : previousContents) {
+                try {
+                    content.close();
+                }
+                catch (IOException e) {
+                    log.warn("Unable to close the previous metadata file", e);
+                }
+            }
+        }
+
+        Map<String, RepomdIndexData> data = new HashMap<>();
+        for (SegmentedMetadataFile file : files) {
+            String checksum = file.output().getCompressedChecksum();
+            String openChecksum = file.output().getUncompressedChecksum();
+            segmentIndex.putFile(file.type(), new RepomdSegmentIndex.FileSegments(
+                    checksum + "-" + file.type() + ".xml.gz", checksum, openChecksum,
+                    ConfigDefaults.get().getRepomdCompressionLevel(file.type()), file.output().getSegments()));
+            data.put(file.type(), new RepomdIndexData(checksum, openChecksum, channel.getLastModified()));
+        }
+        return new PackageMetadata(data.get("primary"), data.get("filelists"), data.get("other"),
+                data.get("susedata"), segmentIndex);
+    }
+
+    private static SegmentedMetadataFile createSegmentedFile(String type, SegmentedGzipWriter output,
+                                                             RepomdSegmentIndex.FileSegments previous) {
+        Writer writer = output.getWriter();
+        return switch (type) {
+            case "primary" -> {
+                PrimaryXmlWriter xml = new PrimaryXmlWriter(writer);
+                yield new SegmentedMetadataFile(type, output, xml, xml::addPackage, previous);
+            }
+            case "filelists" -> {
+                FilelistsXmlWriter xml = new FilelistsXmlWriter(writer);
+                yield new SegmentedMetadataFile(type, output, xml, xml::addPackage, previous);
+            }
+            case "other" -> {
+                OtherXmlWriter xml = new OtherXmlWriter(writer);
+                yield new SegmentedMetadataFile(type, output, xml, xml::addPackage, previous);
+            }
+            case "susedata" -> {
+                SuseDataXmlWriter xml = new SuseDataXmlWriter(writer);
+                yield new SegmentedMetadataFile(type, output, xml, xml::addPackage, previous);
+            }
+            default -> throw new IllegalArgumentException("Unknown metadata type: " + type);
+        };
+    }
+
+    /**
+     * Generates a segment of all the package metadata files
+     */
+    private void writeSegment(Channel channel, long previousId, RepomdSegmentIndex.PlannedSegment segment,
+                              List<SegmentedMetadataFile> files) throws IOException {
+        DataResult<PackageDto> packages = TaskManager.getChannelPackageDtosAfter(channel, previousId,
+                segment.packageIds().size());
+        packages.elaborate();
+        List<Long> ids = packages.stream().map(PackageDto::getId).toList();
+        if (!ids.equals(segment.packageIds())) {
+            // channel content changed, we cannot guarantee correct repodata
+            throw new RepomdRuntimeException("Packages of channel " + channel.getLabel() +
+                    " changed, interrupting repo generation");
+        }
+        for (PackageDto pkgDto : packages) {
+            // package may have been deleted before elaborate()
+            if (pkgDto.getChecksum() == null) {
+                throw new RepomdRuntimeException("Package with id " + pkgDto.getId() +
+                        " removed from server, interrupting repo generation for " + channel.getLabel());
+            }
+            for (SegmentedMetadataFile file : files) {
+                file.adder().accept(pkgDto);
+            }
+        }
+        for (SegmentedMetadataFile file : files) {
+            file.xml().flush();
+            file.output().endSegment(segment.key());
+        }
+        if (commitTransaction) {
+            // commit pre generated XML snippets in the cache
+            HibernateFactory.commitTransaction();
+        }
+    }
+
+    private static boolean hasPackageSegments(RepomdSegmentIndex.FileSegments file, List<String> keys) {
+        List<String> packageKeys = file.getSegments().stream()
+                .map(RepomdSegmentIndex.Segment::getKey)
+                .filter(key -> !RepomdSegmentIndex.HEADER.equals(key) && !RepomdSegmentIndex.FOOTER.equals(key))
+                .toList();
+        return packageKeys.equals(keys);
+    }
+
+    private static RepomdIndexData toIndexData(RepomdSegmentIndex.FileSegments file, Channel channel) {
+        return new RepomdIndexData(file.getChecksum(), file.getOpenChecksum(), channel.getLastModified());
+    }
+
+    /**
+     * Creates a compressed metadata file, using the compression level configured for its type
+     *
+     * @param path the path of the file
+     * @param checksumAlgo the checksum algorithm
+     * @param metadataType the type of metadata, e.g. "primary"
+     * @return the file writer
+     */
+    private static CompressingDigestOutputWriter createMetadataFile(String path, String checksumAlgo,
+                                                                    String metadataType) {
+        try {
+            return new CompressingDigestOutputWriter(new FileOutputStream(path), checksumAlgo,
+                    ConfigDefaults.get().getRepomdCompressionLevel(metadataType));
+        }
+        catch (IOException | NoSuchAlgorithmException e) {
+            throw new RepomdRuntimeException(e);
+        }
+    }
+
     private void generateSolv(Channel channel) {
         String repodir  = mountPoint + File.separator + pathPrefix +
                           File.separator + channel.getLabel() + File.separator;
@@ -595,7 +861,8 @@ public class RpmRepositoryWriter extends RepositoryWriter {
         CompressingDigestOutputWriter updateinfoFile;
         try {
             updateinfoFile = new CompressingDigestOutputWriter(
-                    new FileOutputStream(prefix + UPDATEINFO_FILE), checksumtypeIn);
+                    new FileOutputStream(prefix + UPDATEINFO_FILE), checksumtypeIn,
+                    ConfigDefaults.get().getRepomdCompressionLevel("updateinfo"));
         }
         catch (IOException | NoSuchAlgorithmException e) {
             throw new RepomdRuntimeException(e);
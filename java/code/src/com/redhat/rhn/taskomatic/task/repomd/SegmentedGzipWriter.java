@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd;
+
+import com.redhat.rhn.common.util.StringUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzip file made of several members, one per segment of its content. Since a multi-member gzip file
+ * decompresses to the concatenation of its members, the compressed segments of a previous version of the file can be
+ * copied as they are instead of being compressed again.
+ * <p>
+ * Like {@link CompressingDigestOutputWriter}, it computes the checksums of the compressed and uncompressed content.
+ */
+public class SegmentedGzipWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream fileStream;
+    private final CountingOutputStream compressedStream;
+    private final MessageDigest compressedDigest;
+    private final MessageDigest uncompressedDigest;
+    private final int compressionLevel;
+    private final Writer writer;
+    private final List<RepomdSegmentIndex.Segment> segments = new ArrayList<>();
+
+    private GZIPOutputStream member;
+    private long segmentStart;
+
+    /**
+     * A stream counting the written bytes
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // the members must not close the file
+        }
+    }
+
+    /**
+     * Forwards the uncompressed content to the current gzip member, starting a new one if needed
+     */
+    private class MemberOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            currentMember().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                currentMember().write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Creates the file
+     *
+     * @param path the path of the file
+     * @param checksumAlgo the checksum algorithm
+     * @param compressionLevelIn the gzip compression level, from 0 to 9, or -1 for the default level
+     * @throws IOException if the file cannot be created
+     * @throws NoSuchAlgorithmException if the checksum algorithm is unknown
+     */
+    public SegmentedGzipWriter(String path, String checksumAlgo, int compressionLevelIn)
+            throws IOException, NoSuchAlgorithmException {
+        compressedDigest = MessageDigest.getInstance(checksumAlgo);
+        uncompressedDigest = MessageDigest.getInstance(checksumAlgo);
+        compressionLevel = compressionLevelIn;
+        fileStream = new BufferedOutputStream(new FileOutputStream(path), BUFFER_SIZE);
+        compressedStream = new CountingOutputStream(new DigestOutputStream(fileStream, compressedDigest));
+        writer = new OutputStreamWriter(new DigestOutputStream(new MemberOutputStream(), uncompressedDigest));
+    }
+
+    /**
+     * @return the writer of the content of the current segment
+     */
+    public Writer getWriter() {
+        return writer;
+    }
+
+    private GZIPOutputStream currentMember() throws IOException {
+        if (member == null) {
+            member = new GZIPOutputStream(compressedStream, BUFFER_SIZE) {
+                {
+                    def.setLevel(compressionLevel);
+                }
+            };
+        }
+        return member;
+    }
+
+    /**
+     * Completes the current segment with everything written so far
+     *
+     * @param key the key identifying the content of the segment
+     * @throws IOException if writing fails
+     */
+    public void endSegment(String key) throws IOException {
+        writer.flush();
+        if (member != null) {
+            member.finish();
+            member = null;
+        }
+        segments.add(new RepomdSegmentIndex.Segment(key, segmentStart, compressedStream.count - segmentStart));
+        segmentStart = compressedStream.count;
+    }
+
+    /**
+     * Appends a segment of a previous version of the file, without compressing it again
+     *
+     * @param previousFile the previous version of the file
+     * @param segment the segment to copy
+     * @throws IOException if reading or writing fails
+     */
+    public void copySegment(RandomAccessFile previousFile, RepomdSegmentIndex.Segment segment) throws IOException {
+        ensureSegmentEnded();
+        if (segment.getLength() > 0) {
+            byte[] compressed = new byte[Math.toIntExact(segment.getLength())];
+            previousFile.seek(segment.getOffset());
+            previousFile.readFully(compressed);
+            compressedStream.write(compressed);
+
+            // the checksum of the uncompressed content needs it all
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), BUFFER_SIZE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    uncompressedDigest.update(buffer, 0, n);
+                }
+            }
+        }
+        segments.add(new RepomdSegmentIndex.Segment(segment.getKey(), segmentStart,
+                compressedStream.count - segmentStart));
+        segmentStart = compressedStream.count;
+    }
+
+    private void ensureSegmentEnded() throws IOException {
+        writer.flush();
+        if (member != null) {
+            throw new IllegalStateException("The current segment must be ended before copying another one");
+        }
+    }
+
+    /**
+     * @return the segments written so far
+     */
+    public List<RepomdSegmentIndex.Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the checksum of the compressed file, once it is closed
+     */
+    public String getCompressedChecksum() {
+        return StringUtil.getHexString(compressedDigest.digest());
+    }
+
+    /**
+     * @return the checksum of the uncompressed content, once the file is closed
+     */
+    public String getUncompressedChecksum() {
+        return StringUtil.getHexString(uncompressedDigest.digest());
+    }
+
+    /**
+     * Closes the file. Content written after the last segment end is ignored.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        fileStream.close();
+    }
+}
@@ -56,4 +56,12 @@ public class UnescapingXmlSerializer extends XMLSerializer {
         _printer.printText((char)ch);
     }
 
+    /**
+     * Writes the buffered output to the writer
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        _printer.flush();
+    }
+
 }
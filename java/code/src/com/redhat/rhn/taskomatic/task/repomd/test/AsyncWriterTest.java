@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.redhat.rhn.taskomatic.task.repomd.AsyncWriter;
+import com.redhat.rhn.taskomatic.task.repomd.CompressingDigestOutputWriter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class AsyncWriterTest {
+
+    private static final int PACKAGES = 2_000;
+    static final String[] TYPES = {"primary", "filelists", "other", "susedata"};
+
+    @Test
+    public void testContentIsWrittenInOrder() throws Exception {
+        StringWriter target = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        try (AsyncWriter writer = new AsyncWriter(target, "test")) {
+            for (int i = 0; i < 50_000; i++) {
+                String line = "<package id=\"" + i + "\"/>\n";
+                writer.write(line);
+                expected.append(line);
+                if (i % 1000 == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        assertEquals(expected.toString(), target.toString());
+    }
+
+    @Test
+    public void testCompressedOutput() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        CompressingDigestOutputWriter file = new CompressingDigestOutputWriter(compressed, "SHA-256", 9);
+        String content = "<metadata>" + "<package/>".repeat(100_000) + "</metadata>";
+        try (AsyncWriter writer = new AsyncWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8), "test")) {
+            writer.write(content);
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        CompressingDigestOutputWriter directFile = new CompressingDigestOutputWriter(direct, "SHA-256", 9);
+        try (Writer writer = new OutputStreamWriter(directFile, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        assertEquals(directFile.getUncompressedChecksum(), file.getUncompressedChecksum());
+    }
+
+    @Test
+    public void testFailureIsReported() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> {
+            try (AsyncWriter writer = new AsyncWriter(failing, "failing")) {
+                for (int i = 0; i < 10_000; i++) {
+                    writer.write("<package/>".repeat(100));
+                }
+            }
+        });
+        assertEquals("disk full", e.getCause().getMessage());
+    }
+
+    /**
+     * Generates the metadata of a package, also used by AsyncWriterBenchmark.
+     */
+    static String snippet(String type, int pkg) {
+        StringBuilder sb = new StringBuilder("<package pkgid=\"").append(Integer.toHexString(pkg * 31))
+                .append("\" name=\"package-").append(pkg).append("\" type=\"").append(type).append("\">");
+        int entries = "susedata".equals(type) ? 2 : 12;
+        for (int i = 0; i < entries; i++) {
+            sb.append("<entry name=\"/usr/lib/package-").append(pkg).append("/file-").append(i * pkg % 977)
+                    .append("\" ver=\"").append(pkg % 13).append('.').append(i).append("\"/>");
+        }
+        return sb.append("</package>\n").toString();
+    }
+
+    static CompressingDigestOutputWriter[] createFiles() throws Exception {
+        CompressingDigestOutputWriter[] files = new CompressingDigestOutputWriter[TYPES.length];
+        for (int t = 0; t < TYPES.length; t++) {
+            files[t] = new CompressingDigestOutputWriter(OutputStream.nullOutputStream(), "SHA-256", -1);
+        }
+        return files;
+    }
+
+    /**
+     * Compares the sequential generation of the metadata files of a synthetic channel, flushing every file after each
+     * package, with the pipelined one.
+     */
+    @Test
+    public void testPipelinedMatchesSequential() throws Exception {
+        CompressingDigestOutputWriter[] sequentialFiles = createFiles();
+        List<Writer> sequential = new ArrayList<>();
+        for (CompressingDigestOutputWriter file : sequentialFiles) {
+            sequential.add(new BufferedWriter(new OutputStreamWriter(file)));
+        }
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                sequential.get(t).write(snippet(TYPES[t], pkg));
+                sequentialFiles[t].flush();
+            }
+        }
+        for (Writer writer : sequential) {
+            writer.close();
+        }
+
+        CompressingDigestOutputWriter[] pipelinedFiles = createFiles();
+        List<Writer> pipelined = new ArrayList<>();
+        for (int t = 0; t < TYPES.length; t++) {
+            pipelined.add(new AsyncWriter(new OutputStreamWriter(pipelinedFiles[t]), "pipelined-" + TYPES[t]));
+        }
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                pipelined.get(t).write(snippet(TYPES[t], pkg));
+            }
+        }
+        for (Writer writer : pipelined) {
+            writer.close();
+        }
+
+        for (int t = 0; t < TYPES.length; t++) {
+            assertEquals(sequentialFiles[t].getUncompressedChecksum(), pipelinedFiles[t].getUncompressedChecksum());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.taskomatic.task.repomd.RepomdSegmentIndex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class RepomdSegmentIndexTest {
+
+    @TempDir
+    private Path directory;
+
+    private static Set<String> keys(List<RepomdSegmentIndex.PlannedSegment> plan) {
+        return plan.stream().map(RepomdSegmentIndex.PlannedSegment::key).collect(Collectors.toSet());
+    }
+
+    private static SortedMap<Long, String> markers(long from, long to) {
+        SortedMap<Long, String> markers = new TreeMap<>();
+        LongStream.range(from, to).forEach(id -> markers.put(id, "marker-" + id));
+        return markers;
+    }
+
+    @Test
+    public void testPlanIsStable() {
+        SortedMap<Long, String> packages = markers(1000, 81000);
+        List<RepomdSegmentIndex.PlannedSegment> before = RepomdSegmentIndex.plan(packages);
+        assertTrue(before.size() > 50, "80k packages should be split in many segments");
+        assertEquals(packages.size(), before.stream().mapToInt(s -> s.packageIds().size()).sum());
+
+        // adding a package and removing another one changes at most their own segments
+        packages.remove(40000L);
+        packages.put(90000L, "marker-90000");
+        List<RepomdSegmentIndex.PlannedSegment> after = RepomdSegmentIndex.plan(packages);
+
+        Set<String> changed = new HashSet<>(keys(after));
+        changed.removeAll(keys(before));
+        assertTrue(changed.size() <= 2, "only the segments of the changed packages should change: " + changed);
+    }
+
+    @Test
+    public void testChangedMarkerChangesItsSegment() {
+        SortedMap<Long, String> packages = markers(1000, 81000);
+        List<RepomdSegmentIndex.PlannedSegment> before = RepomdSegmentIndex.plan(packages);
+
+        // same packages, but the metadata of one of them changed
+        packages.put(40000L, "changed");
+        List<RepomdSegmentIndex.PlannedSegment> after = RepomdSegmentIndex.plan(packages);
+        assertEquals(before.size(), after.size());
+
+        Set<String> changed = new HashSet<>(keys(after));
+        changed.removeAll(keys(before));
+        assertEquals(1, changed.size());
+        RepomdSegmentIndex.PlannedSegment changedSegment = after.stream()
+                .filter(s -> changed.contains(s.key()))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(changedSegment.packageIds().contains(40000L));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        RepomdSegmentIndex index = new RepomdSegmentIndex("sha256");
+        index.putFile("primary", new RepomdSegmentIndex.FileSegments("abc-primary.xml.gz", "abc", "def", -1,
+                List.of(new RepomdSegmentIndex.Segment(RepomdSegmentIndex.HEADER, 0, 42),
+                        new RepomdSegmentIndex.Segment("1-2-2-ff", 42, 100))));
+        index.save(directory.toFile());
+
+        RepomdSegmentIndex loaded = RepomdSegmentIndex.load(directory.toFile()).orElseThrow();
+        assertEquals("sha256", loaded.getChecksumType());
+        RepomdSegmentIndex.FileSegments primary = loaded.getFile("primary").orElseThrow();
+        assertEquals("abc-primary.xml.gz", primary.getFileName());
+        assertEquals(100, primary.getSegment("1-2-2-ff").orElseThrow().getLength());
+        assertTrue(loaded.getFile("other").isEmpty());
+
+        Files.writeString(directory.resolve(RepomdSegmentIndex.FILE_NAME), "{not json");
+        assertTrue(RepomdSegmentIndex.load(directory.toFile()).isEmpty());
+    }
+}
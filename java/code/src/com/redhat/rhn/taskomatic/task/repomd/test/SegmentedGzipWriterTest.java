@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.repomd.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.redhat.rhn.common.util.StringUtil;
+import com.redhat.rhn.domain.channel.Channel;
+import com.redhat.rhn.taskomatic.task.repomd.RepomdRuntimeException;
+import com.redhat.rhn.taskomatic.task.repomd.RepomdSegmentIndex;
+import com.redhat.rhn.taskomatic.task.repomd.RepomdWriter;
+import com.redhat.rhn.taskomatic.task.repomd.SegmentedGzipWriter;
+import com.redhat.rhn.taskomatic.task.repomd.SimpleAttributesImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class SegmentedGzipWriterTest {
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * A metadata writer adding packages as they are
+     */
+    private static class TestXmlWriter extends RepomdWriter {
+        TestXmlWriter(Writer writer) {
+            super(writer, false);
+        }
+
+        @Override
+        public void begin(Channel channel) {
+            SimpleAttributesImpl attr = new SimpleAttributesImpl();
+            attr.addAttribute("packages", "3");
+            try {
+                handler.startElement("metadata", attr);
+            }
+            catch (SAXException e) {
+                throw new RepomdRuntimeException(e);
+            }
+        }
+
+        void addPackage(String name) {
+            try {
+                handler.addCharacters("<package name=\"" + name + "\"/>");
+            }
+            catch (SAXException e) {
+                throw new RepomdRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void end() {
+            try {
+                handler.endElement("metadata");
+                handler.endDocument();
+            }
+            catch (SAXException e) {
+                throw new RepomdRuntimeException(e);
+            }
+        }
+    }
+
+    private SegmentedGzipWriter write(String fileName, List<String> segments, Path previous,
+                                      List<RepomdSegmentIndex.Segment> previousSegments) throws Exception {
+        SegmentedGzipWriter output = new SegmentedGzipWriter(directory.resolve(fileName).toString(), "SHA-256", 6);
+        TestXmlWriter xml = new TestXmlWriter(output.getWriter());
+        xml.begin(null);
+        xml.flush();
+        output.endSegment(RepomdSegmentIndex.HEADER);
+        try (RandomAccessFile previousContent = previous == null ? null :
+                new RandomAccessFile(previous.toFile(), "r")) {
+            for (String segment : segments) {
+                RepomdSegmentIndex.Segment reusable = previousSegments == null ? null : previousSegments.stream()
+                        .filter(s -> s.getKey().equals(segment))
+                        .findFirst()
+                        .orElse(null);
+                if (reusable != null) {
+                    output.copySegment(previousContent, reusable);
+                }
+                else {
+                    for (String name : segment.split(",")) {
+                        xml.addPackage(name);
+                    }
+                    xml.flush();
+                    output.endSegment(segment);
+                }
+            }
+        }
+        xml.end();
+        output.endSegment(RepomdSegmentIndex.FOOTER);
+        output.close();
+        return output;
+    }
+
+    private String read(String fileName) throws Exception {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(directory.resolve(fileName).toFile()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testSegmentsAreReused() throws Exception {
+        SegmentedGzipWriter first = write("first.xml.gz", List.of("a,b", "c", "d,e"), null, null);
+        String firstContent = read("first.xml.gz");
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata packages=\"3\">" +
+                "<package name=\"a\"/><package name=\"b\"/><package name=\"c\"/><package name=\"d\"/>" +
+                "<package name=\"e\"/></metadata>", firstContent.trim());
+        assertEquals(5, first.getSegments().size());
+
+        // the middle segment changes, the others are copied from the first file
+        SegmentedGzipWriter second = write("second.xml.gz", List.of("a,b", "c,x", "d,e"),
+                directory.resolve("first.xml.gz"), first.getSegments());
+        SegmentedGzipWriter expected = write("expected.xml.gz", List.of("a,b", "c,x", "d,e"), null, null);
+
+        String secondContent = read("second.xml.gz");
+        assertEquals(read("expected.xml.gz"), secondContent);
+        assertNotEquals(firstContent, secondContent);
+
+        String openChecksum = second.getUncompressedChecksum();
+        assertEquals(expected.getUncompressedChecksum(), openChecksum);
+        assertEquals(StringUtil.getHexString(MessageDigest.getInstance("SHA-256")
+                .digest(secondContent.getBytes(StandardCharsets.UTF_8))), openChecksum);
+
+        // the copied segments are identical
+        assertEquals(first.getSegments().get(1).getLength(), second.getSegments().get(1).getLength());
+        assertEquals(first.getSegments().get(3).getLength(), second.getSegments().get(3).getLength());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.rhn.taskomatic.task.test;
+
+import static com.redhat.rhn.taskomatic.task.ReportDBHelper.LOCAL_MGM_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.common.db.datasource.DataResult;
+import com.redhat.rhn.common.db.datasource.GeneratedSelectMode;
+import com.redhat.rhn.common.hibernate.ConnectionManager;
+import com.redhat.rhn.common.hibernate.ConnectionManagerFactory;
+import com.redhat.rhn.taskomatic.task.ReportDBHelper;
+import com.redhat.rhn.taskomatic.task.ReportDbBulkInsert;
+import com.redhat.rhn.testing.RhnBaseTestCase;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ReportDBHelperTest extends RhnBaseTestCase {
+
+    private static final Logger LOG = LogManager.getLogger(ReportDBHelperTest.class);
+
+    private static final long HUB_MGM_ID = 1000;
+
+    private ConnectionManager reportDbConnectionManager;
+
+    private Session session;
+
+    @BeforeEach
+    public void before() {
+        reportDbConnectionManager = ConnectionManagerFactory.localReportingConnectionManager();
+        session = reportDbConnectionManager.getSession();
+        ReportDBHelper.INSTANCE.generateDelete(session, "SystemCustomInfo")
+                .executeUpdate(Map.of("mgm_id", LOCAL_MGM_ID));
+        for (long mgmId : List.of(LOCAL_MGM_ID, HUB_MGM_ID)) {
+            ReportDBHelper.INSTANCE.generateDelete(session, "SystemPackageInstalled")
+                    .executeUpdate(Map.of("mgm_id", mgmId));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        reportDbConnectionManager.rollbackTransaction();
+        reportDbConnectionManager.closeSession();
+        reportDbConnectionManager.close();
+    }
+
+    private static Map<String, Object> customInfo(long systemId, String key, String value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("system_id", systemId);
+        row.put("organization", "Org with\ttabs");
+        row.put("key", key);
+        row.put("description", null);
+        row.put("value", value);
+        return row;
+    }
+
+    private static Map<String, Object> packageInstalled(long systemId, String name, String version, Date synced) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("system_id", systemId);
+        row.put("name", name);
+        row.put("epoch", null);
+        row.put("version", version);
+        row.put("release", "1.1");
+        row.put("arch", "x86_64");
+        row.put("type", "rpm");
+        row.put("synced_date", synced);
+        return row;
+    }
+
+    private void refreshPeripheral(List<Map<String, Object>> rows) {
+        ReportDBHelper.INSTANCE.generateDelete(session, "SystemPackageInstalled")
+                .executeUpdate(Map.of("mgm_id", LOCAL_MGM_ID));
+        ReportDBHelper.INSTANCE.generateBulkInsert(session, "SystemPackageInstalled", LOCAL_MGM_ID,
+                rows.get(0).keySet()).insert(rows);
+    }
+
+    private Map<String, Date> readHubPackages() {
+        DataResult<Map<String, Object>> rows = new GeneratedSelectMode("select.hub", session,
+                "SELECT * FROM SystemPackageInstalled WHERE mgm_id = " + HUB_MGM_ID, List.of()).execute();
+        return rows.stream().collect(Collectors.toMap(
+                r -> r.get("system_id") + ":" + r.get("name") + "-" + r.get("version"),
+                r -> (Date) r.get("synced_date")));
+    }
+
+    @Test
+    public void canSyncOnlyTheChangedRows() {
+        Date firstRefresh = new Date(1700000000000L);
+        Date secondRefresh = new Date(1700086400000L);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long systemId = 1; systemId <= 5; systemId++) {
+            for (int pkg = 0; pkg < 3; pkg++) {
+                rows.add(packageInstalled(systemId, "pkg" + pkg, "1.0", firstRefresh));
+            }
+        }
+        refreshPeripheral(rows);
+        assertTrue(ReportDBHelper.INSTANCE.syncChanges(session, session, "SystemPackageInstalled", HUB_MGM_ID, 2,
+                LOG));
+        Map<String, Date> hub = readHubPackages();
+        assertEquals(15, hub.size());
+        assertTrue(hub.values().stream().allMatch(firstRefresh::equals));
+
+        // the peripheral refreshes all the rows: system 2 got an update, system 5 and a package of system 1 are gone
+        rows = new ArrayList<>();
+        for (long systemId = 1; systemId <= 4; systemId++) {
+            for (int pkg = systemId == 1 ? 1 : 0; pkg < 3; pkg++) {
+                rows.add(packageInstalled(systemId, "pkg" + pkg, systemId == 2 && pkg == 0 ? "2.0" : "1.0",
+                        secondRefresh));
+            }
+        }
+        refreshPeripheral(rows);
+        assertTrue(ReportDBHelper.INSTANCE.syncChanges(session, session, "SystemPackageInstalled", HUB_MGM_ID, 2,
+                LOG));
+        hub = readHubPackages();
+        assertEquals(11, hub.size());
+        assertEquals(secondRefresh, hub.get("2:pkg0-2.0"));
+        assertEquals(secondRefresh, hub.get("1:pkg1-1.0"));
+        assertFalse(hub.containsKey("1:pkg0-1.0"));
+        assertFalse(hub.keySet().stream().anyMatch(k -> k.startsWith("5:")));
+        // the unchanged systems are not copied again, only their synced date is refreshed
+        assertEquals(secondRefresh, hub.get("3:pkg0-1.0"));
+        assertEquals(secondRefresh, hub.get("4:pkg2-1.0"));
+        assertTrue(hub.values().stream().allMatch(secondRefresh::equals));
+
+        // a table without a numeric key column to group the rows by must be copied entirely
+        assertFalse(ReportDBHelper.INSTANCE.syncChanges(session, session, "SystemCustomInfo", HUB_MGM_ID, 2, LOG));
+    }
+
+    @Test
+    public void canBulkInsertAndReadInBatches() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long systemId = 1; systemId <= 5; systemId++) {
+            for (int key = 0; key < 5; key++) {
+                rows.add(customInfo(systemId, "key" + key, "line 1\nline 2 \\ " + systemId + "." + key));
+            }
+        }
+        // conflicting rows are skipped
+        rows.add(customInfo(1, "key0", "duplicated"));
+
+        Set<String> columns = new LinkedHashSet<>(rows.get(0).keySet());
+        ReportDbBulkInsert insert = ReportDBHelper.INSTANCE.generateBulkInsertWithDate(session, "SystemCustomInfo",
+                LOCAL_MGM_ID, columns);
+        assertEquals(10, insert.insert(rows.subList(0, 10)));
+        assertEquals(15, insert.insert(rows.subList(10, rows.size())));
+
+        List<DataResult<Map<String, Object>>> batches = ReportDBHelper.INSTANCE
+                .batchStream(session, "SystemCustomInfo", 4, LOG)
+                .collect(Collectors.toList());
+        assertEquals(7, batches.size());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 4));
+
+        List<Map<String, Object>> read = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(25, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            Map<String, Object> expected = rows.get(i);
+            Map<String, Object> actual = read.get(i);
+            columns.forEach(column -> assertEquals(expected.get(column), actual.get(column), column));
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.redhat.rhn.webapp;
 import com.redhat.rhn.GlobalInstanceHolder;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 import com.redhat.rhn.common.messaging.MessageQueue;
+import com.redhat.rhn.domain.access.WebEndpointFactory;
 import com.redhat.rhn.manager.satellite.StartupTasksCommand;
 import com.redhat.rhn.manager.satellite.UpgradeCommand;
 
@@ -131,6 +132,7 @@ public class RhnServletListener implements ServletContextListener {
         logStart("Hibernate");
 
         PrometheusExporter.INSTANCE.registerSystemsCollector();
+        PrometheusExporter.INSTANCE.registerRbacCache(WebEndpointFactory.getAccessCacheStatistics());
 
         // the following is not safe to run in the testsuite
         // and will be excluded from test runs
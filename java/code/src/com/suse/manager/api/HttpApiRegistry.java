@@ -14,12 +14,15 @@
  */
 package com.suse.manager.api;
 
+import static com.suse.manager.webui.utils.SparkApplicationHelper.throttling;
 import static com.suse.manager.webui.utils.SparkApplicationHelper.withUser;
 
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.frontend.xmlrpc.BaseHandler;
 import com.redhat.rhn.frontend.xmlrpc.HandlerFactory;
 
 import com.suse.manager.webui.controllers.login.LoginController;
+import com.suse.manager.webui.services.ThrottlingService;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -76,6 +79,8 @@ public class HttpApiRegistry {
     public void initRoutes() {
         final int[] methodCount = {0};
         new HttpApiLoggingInvocationProcessor().register();
+        int rateLimit = ConfigDefaults.get().getApiRateLimit();
+        Map<String, Integer> rateLimitCosts = ConfigDefaults.get().getApiRateLimitCosts();
 
         handlerFactory.getKeys().forEach(namespace -> {
             BaseHandler handler = handlerFactory.getHandler(namespace).get();
@@ -95,6 +100,12 @@ public class HttpApiRegistry {
             methodsByName.forEach((groupKey, methodList) -> {
                 String path = HTTP_API_ROOT + namespace.replace('.', '/') + '/' + groupKey.getLeft();
                 Route route = routeFactory.createRoute(methodList, handler);
+                if (rateLimit > 0) {
+                    // all the methods share the budget of calls of the user
+                    int cost = rateLimitCosts.getOrDefault(namespace + '.' + groupKey.getLeft(), 1);
+                    route = throttling(route, HTTP_API_ROOT, cost, rateLimit,
+                            ThrottlingService.DEF_THROTTLE_PERIOD_SECS);
+                }
                 if (BooleanUtils.isTrue(groupKey.getRight())) {
                     registrationHelper.addGetRoute(path, route);
                 }
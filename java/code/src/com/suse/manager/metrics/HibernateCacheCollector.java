@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Collector for the second level cache of Hibernate: hits, misses, puts and hit ratio of every cache region.
+ * The overall figures are already exported by the Hibernate statistics collector, without the region.
+ */
+public class HibernateCacheCollector extends Collector {
+
+    private static final String PREFIX = "hibernate_cache_region_";
+    private static final List<String> LABELS = List.of("unit", "region");
+
+    private final SessionFactory sessionFactory;
+    private final String unit;
+
+    /**
+     * Standard constructor.
+     * @param sessionFactoryIn the session factory whose cache is collected
+     * @param unitIn the name of the component, like the Hibernate statistics collector
+     */
+    public HibernateCacheCollector(SessionFactory sessionFactoryIn, String unitIn) {
+        this.sessionFactory = sessionFactoryIn;
+        this.unit = unitIn;
+    }
+
+    /**
+     * @return the statistics of the cache regions which are in use, by region name
+     */
+    private Map<String, CacheRegionStatistics> getRegionStatistics() {
+        Map<String, CacheRegionStatistics> regions = new TreeMap<>();
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return regions;
+        }
+
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .forEach(name -> regions.put(name, statistics.getCacheRegionStatistics(name)));
+        regions.values().removeIf(r -> r == null);
+        return regions;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        CounterMetricFamily hits = new CounterMetricFamily(PREFIX + "hits_total",
+                "Number of entities or queries found in the cache region", LABELS);
+        CounterMetricFamily misses = new CounterMetricFamily(PREFIX + "misses_total",
+                "Number of entities or queries looked up in the cache region and not found", LABELS);
+        CounterMetricFamily puts = new CounterMetricFamily(PREFIX + "puts_total",
+                "Number of entities or queries put in the cache region", LABELS);
+        GaugeMetricFamily hitRatio = new GaugeMetricFamily(PREFIX + "hit_ratio",
+                "Ratio of the lookups in the cache region which found the entity or query since the start", LABELS);
+
+        getRegionStatistics().forEach((name, region) -> {
+            List<String> labels = List.of(unit, name);
+            long regionHits = region.getHitCount();
+            long regionMisses = region.getMissCount();
+            long lookups = regionHits + regionMisses;
+            hits.addMetric(labels, regionHits);
+            misses.addMetric(labels, regionMisses);
+            puts.addMetric(labels, region.getPutCount());
+            hitRatio.addMetric(labels, lookups == 0 ? 0 : (double) regionHits / lookups);
+        });
+
+        List<MetricFamilySamples> out = new ArrayList<>();
+        out.add(hits);
+        out.add(misses);
+        out.add(puts);
+        out.add(hitRatio);
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Collector for the message queue: queue depth, wait time and run time per event type.
+ * The average wait time of an event type is obtained dividing the rate of the wait seconds counter by the rate of
+ * the started events counter.
+ */
+public class MessageQueueCollector extends Collector {
+
+    private static final double NANOS_PER_SECOND = 1.0E9;
+
+    private final String poolId;
+    private final Map<String, EventStatistics> events = new ConcurrentHashMap<>();
+
+    /**
+     * Standard constructor.
+     * @param poolIdIn a unique ID for the queue
+     */
+    public MessageQueueCollector(String poolIdIn) {
+        this.poolId = poolIdIn;
+    }
+
+    /**
+     * Records an event being published to the queue.
+     * @param eventType the event type
+     */
+    public void eventQueued(String eventType) {
+        getEvent(eventType).queued.incrementAndGet();
+    }
+
+    /**
+     * Records an event being picked up for execution.
+     * @param eventType the event type
+     * @param waitNanos the time spent in the queue, in nanoseconds
+     */
+    public void eventStarted(String eventType, long waitNanos) {
+        EventStatistics stats = getEvent(eventType);
+        stats.queued.decrementAndGet();
+        stats.running.incrementAndGet();
+        stats.started.incrementAndGet();
+        stats.waitNanos.addAndGet(waitNanos);
+    }
+
+    /**
+     * Records the end of the execution of an event.
+     * @param eventType the event type
+     * @param runNanos the execution time, in nanoseconds
+     */
+    public void eventFinished(String eventType, long runNanos) {
+        EventStatistics stats = getEvent(eventType);
+        stats.running.decrementAndGet();
+        stats.finished.incrementAndGet();
+        stats.runNanos.addAndGet(runNanos);
+    }
+
+    private EventStatistics getEvent(String eventType) {
+        return events.computeIfAbsent(eventType, e -> new EventStatistics());
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples> out = new ArrayList<>();
+
+        GaugeMetricFamily queued = new GaugeMetricFamily(poolId + "_" + "queue_depth",
+                "Number of events waiting for execution", List.of("event"));
+        GaugeMetricFamily running = new GaugeMetricFamily(poolId + "_" + "running",
+                "Number of events being executed", List.of("event"));
+        CounterMetricFamily started = new CounterMetricFamily(poolId + "_" + "started_total",
+                "Number of events picked up for execution", List.of("event"));
+        CounterMetricFamily finished = new CounterMetricFamily(poolId + "_" + "finished_total",
+                "Number of events executed", List.of("event"));
+        CounterMetricFamily wait = new CounterMetricFamily(poolId + "_" + "wait_seconds_total",
+                "Time spent by events waiting for execution", List.of("event"));
+        CounterMetricFamily run = new CounterMetricFamily(poolId + "_" + "run_seconds_total",
+                "Time spent executing events", List.of("event"));
+
+        events.forEach((eventType, stats) -> {
+            List<String> labels = List.of(eventType);
+            queued.addMetric(labels, stats.queued.get());
+            running.addMetric(labels, stats.running.get());
+            started.addMetric(labels, stats.started.get());
+            finished.addMetric(labels, stats.finished.get());
+            wait.addMetric(labels, stats.waitNanos.get() / NANOS_PER_SECOND);
+            run.addMetric(labels, stats.runNanos.get() / NANOS_PER_SECOND);
+        });
+
+        out.add(queued);
+        out.add(running);
+        out.add(started);
+        out.add(finished);
+        out.add(wait);
+        out.add(run);
+        return out;
+    }
+
+    private static class EventStatistics {
+        private final AtomicLong queued = new AtomicLong();
+        private final AtomicLong running = new AtomicLong();
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicLong finished = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong runNanos = new AtomicLong();
+    }
+}
@@ -76,6 +76,46 @@ public enum PrometheusExporter {
         }
     }
 
+    /**
+     * Registers the Salt event queues statistics for monitoring.
+     * @param collector the collector keeping the queues statistics
+     */
+    public void registerSaltEventQueues(SaltEventQueueCollector collector) {
+        if (ENABLED) {
+            collector.register();
+        }
+    }
+
+    /**
+     * Registers the message queue statistics for monitoring.
+     * @param collector the collector keeping the message queue statistics
+     */
+    public void registerMessageQueue(MessageQueueCollector collector) {
+        if (ENABLED) {
+            collector.register();
+        }
+    }
+
+    /**
+     * Registers the RBAC access decision cache statistics for monitoring.
+     * @param collector the collector keeping the cache statistics
+     */
+    public void registerRbacCache(RbacCacheCollector collector) {
+        if (ENABLED) {
+            collector.register();
+        }
+    }
+
+    /**
+     * Registers the statistics of the connections to the Salt API for monitoring.
+     * @param collector the collector keeping the connection statistics
+     */
+    public void registerSaltApiConnections(SaltApiConnectionsCollector collector) {
+        if (ENABLED) {
+            collector.register();
+        }
+    }
+
     /**
      * Registers a Scheduler for monitoring.
      * @param scheduler a scheduler
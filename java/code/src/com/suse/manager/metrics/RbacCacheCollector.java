@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+
+/**
+ * Collector for the RBAC access decision cache: hits and misses per kind of access check, invalidations and cached
+ * users. The hit ratio of a check is obtained dividing the rate of its hits by the rate of its hits and misses.
+ */
+public class RbacCacheCollector extends Collector {
+
+    private final String poolId;
+    private final LongSupplier cachedUsers;
+    private final Map<String, CheckStatistics> checks = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Standard constructor.
+     * @param poolIdIn a unique ID for the cache
+     * @param cachedUsersIn supplies the number of users with cached decisions
+     */
+    public RbacCacheCollector(String poolIdIn, LongSupplier cachedUsersIn) {
+        this.poolId = poolIdIn;
+        this.cachedUsers = cachedUsersIn;
+    }
+
+    /**
+     * Records an access check answered from the cache.
+     * @param check the kind of access check
+     */
+    public void hit(String check) {
+        getCheck(check).hits.incrementAndGet();
+    }
+
+    /**
+     * Records an access check answered from the database.
+     * @param check the kind of access check
+     */
+    public void miss(String check) {
+        getCheck(check).misses.incrementAndGet();
+    }
+
+    /**
+     * Records an invalidation of cached decisions.
+     */
+    public void invalidated() {
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * @param check the kind of access check
+     * @return the number of checks answered from the cache
+     */
+    public long getHits(String check) {
+        return getCheck(check).hits.get();
+    }
+
+    /**
+     * @param check the kind of access check
+     * @return the number of checks answered from the database
+     */
+    public long getMisses(String check) {
+        return getCheck(check).misses.get();
+    }
+
+    private CheckStatistics getCheck(String check) {
+        return checks.computeIfAbsent(check, c -> new CheckStatistics());
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples> out = new ArrayList<>();
+
+        CounterMetricFamily hits = new CounterMetricFamily(poolId + "_" + "hits_total",
+                "Number of access checks answered from the cache", List.of("check"));
+        CounterMetricFamily misses = new CounterMetricFamily(poolId + "_" + "misses_total",
+                "Number of access checks answered from the database", List.of("check"));
+        checks.forEach((check, stats) -> {
+            hits.addMetric(List.of(check), stats.hits.get());
+            misses.addMetric(List.of(check), stats.misses.get());
+        });
+
+        out.add(hits);
+        out.add(misses);
+        out.add(CustomCollectorUtils.counterFor("invalidations_total", "Number of invalidations of cached decisions",
+                invalidations.get(), poolId));
+        out.add(CustomCollectorUtils.gaugeFor("users", "Number of users with cached decisions",
+                cachedUsers.getAsLong(), poolId));
+        return out;
+    }
+
+    private static class CheckStatistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+}
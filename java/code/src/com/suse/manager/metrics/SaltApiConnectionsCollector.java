@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.metrics;
+
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Collector for the pools of connections to the Salt API: connections in use and waited for, and the leases of
+ * connections with the time spent waiting for them, per lane of calls.
+ */
+public class SaltApiConnectionsCollector extends Collector {
+
+    private static final String PREFIX = "salt_api_connections_";
+    private static final List<String> LABELS = List.of("lane");
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private static class Lane {
+        private final ConnPoolControl<?> pool;
+        private final AtomicLong leases = new AtomicLong();
+        private final AtomicLong failedLeases = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        Lane(ConnPoolControl<?> poolIn) {
+            pool = poolIn;
+        }
+    }
+
+    /**
+     * Adds a lane of calls to collect
+     * @param lane the name of the lane
+     * @param pool the connection pool of the lane
+     */
+    public void addLane(String lane, ConnPoolControl<?> pool) {
+        lanes.put(lane, new Lane(pool));
+    }
+
+    /**
+     * Records the lease of a connection
+     * @param lane the name of the lane
+     * @param waitNanos the time waited for the connection in nanoseconds
+     */
+    public void leased(String lane, long waitNanos) {
+        Lane stats = lanes.get(lane);
+        if (stats != null) {
+            stats.leases.incrementAndGet();
+            stats.waitNanos.addAndGet(waitNanos);
+        }
+    }
+
+    /**
+     * Records a lease of a connection which failed, for example because no connection became free in time
+     * @param lane the name of the lane
+     * @param waitNanos the time waited for the connection in nanoseconds
+     */
+    public void leaseFailed(String lane, long waitNanos) {
+        Lane stats = lanes.get(lane);
+        if (stats != null) {
+            stats.failedLeases.incrementAndGet();
+            stats.waitNanos.addAndGet(waitNanos);
+        }
+    }
+
+    /**
+     * @param lane the name of the lane
+     * @return the number of connections leased in the lane
+     */
+    public long getLeases(String lane) {
+        return lanes.get(lane).leases.get();
+    }
+
+    /**
+     * @param lane the name of the lane
+     * @return the number of failed leases in the lane
+     */
+    public long getFailedLeases(String lane) {
+        return lanes.get(lane).failedLeases.get();
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        GaugeMetricFamily leased = new GaugeMetricFamily(PREFIX + "leased",
+                "Number of connections in use", LABELS);
+        GaugeMetricFamily pending = new GaugeMetricFamily(PREFIX + "pending",
+                "Number of calls waiting for a connection", LABELS);
+        GaugeMetricFamily max = new GaugeMetricFamily(PREFIX + "max",
+                "Maximum number of connections", LABELS);
+        CounterMetricFamily leases = new CounterMetricFamily(PREFIX + "leases_total",
+                "Number of connections leased", LABELS);
+        CounterMetricFamily failedLeases = new CounterMetricFamily(PREFIX + "failed_leases_total",
+                "Number of calls which did not get a connection", LABELS);
+        CounterMetricFamily wait = new CounterMetricFamily(PREFIX + "wait_seconds_total",
+                "Time spent by the calls waiting for a connection", LABELS);
+
+        lanes.forEach((name, lane) -> {
+            List<String> labels = List.of(name);
+            PoolStats stats = lane.pool.getTotalStats();
+            leased.addMetric(labels, stats.getLeased());
+            pending.addMetric(labels, stats.getPending());
+            max.addMetric(labels, stats.getMax());
+            leases.addMetric(labels, lane.leases.get());
+            failedLeases.addMetric(labels, lane.failedLeases.get());
+            wait.addMetric(labels, lane.waitNanos.get() / (double) TimeUnit.SECONDS.toNanos(1));
+        });
+
+        List<MetricFamilySamples> out = new ArrayList<>();
+        out.add(leased);
+        out.add(pending);
+        out.add(max);
+        out.add(leases);
+        out.add(failedLeases);
+        out.add(wait);
+        return out;
+    }
+}
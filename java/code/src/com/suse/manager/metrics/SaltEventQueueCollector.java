@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Collector for the Salt event queues: processed and coalesced events, pending events and lag per queue.
+ * The event rate of a queue is obtained with rate() over the processed events counter.
+ */
+public class SaltEventQueueCollector extends Collector {
+
+    private final String poolId;
+    private final Map<Integer, QueueStatistics> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Standard constructor.
+     * @param poolIdIn a unique ID for the queues
+     */
+    public SaltEventQueueCollector(String poolIdIn) {
+        this.poolId = poolIdIn;
+    }
+
+    /**
+     * Records a processed batch of events.
+     * @param queue the queue number
+     * @param popped the number of events popped from the database
+     * @param coalesced the number of events dropped as redundant
+     */
+    public void recordBatch(int queue, long popped, long coalesced) {
+        QueueStatistics stats = getQueue(queue);
+        stats.processed.addAndGet(popped);
+        stats.coalesced.addAndGet(coalesced);
+        stats.lastProcessed.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Updates the number of events waiting in the database.
+     * @param pending the pending events count per queue, starting with queue 0
+     */
+    public void updatePending(List<Long> pending) {
+        for (int i = 0; i < pending.size(); i++) {
+            getQueue(i).pending.set(pending.get(i));
+        }
+    }
+
+    private QueueStatistics getQueue(int queue) {
+        return queues.computeIfAbsent(queue, q -> new QueueStatistics());
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        CounterMetricFamily processed = new CounterMetricFamily(poolId + "_" + "events_processed_total",
+                "Number of events popped from the queue", List.of("queue"));
+        CounterMetricFamily coalesced = new CounterMetricFamily(poolId + "_" + "events_coalesced_total",
+                "Number of redundant events dropped from the queue", List.of("queue"));
+        GaugeMetricFamily pending = new GaugeMetricFamily(poolId + "_" + "events_pending",
+                "Number of events waiting in the queue", List.of("queue"));
+        GaugeMetricFamily lag = new GaugeMetricFamily(poolId + "_" + "events_lag_seconds",
+                "Seconds since the last processed batch while events are pending", List.of("queue"));
+
+        queues.forEach((queue, stats) -> {
+            List<String> labels = List.of(String.format("%d", queue));
+            processed.addMetric(labels, stats.processed.get());
+            coalesced.addMetric(labels, stats.coalesced.get());
+            pending.addMetric(labels, stats.pending.get());
+            lag.addMetric(labels, stats.pending.get() > 0 ? (now - stats.lastProcessed.get()) / 1000.0 : 0);
+        });
+
+        out.add(processed);
+        out.add(coalesced);
+        out.add(pending);
+        out.add(lag);
+        return out;
+    }
+
+    private static class QueueStatistics {
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong lastProcessed = new AtomicLong(System.currentTimeMillis());
+    }
+}
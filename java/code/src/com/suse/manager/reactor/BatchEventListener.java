@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor;
+
+import com.suse.salt.netapi.datatypes.Event;
+import com.suse.salt.netapi.event.EventListener;
+
+import java.util.List;
+
+/**
+ * An {@link EventListener} able to receive a whole batch of events at once. Used by {@link PGEventStream}
+ * when batch mode is enabled.
+ */
+public interface BatchEventListener extends EventListener {
+
+    /**
+     * Notify the listener of a batch of events, in processing order.
+     * All the events are processed within the same transaction.
+     *
+     * @param events the events
+     */
+    default void notifyBatch(List<Event> events) {
+        events.forEach(this::notify);
+    }
+}
@@ -19,7 +19,6 @@ import com.redhat.rhn.common.messaging.MessageAction;
 import com.redhat.rhn.common.messaging.MessageQueue;
 
 import com.suse.salt.netapi.datatypes.Event;
-import com.suse.salt.netapi.event.EventListener;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,7 +30,7 @@ import java.util.stream.Stream;
  * An EventListener that executes notifications immediately in the current thread. This is made to work
  * with {@link PGEventStream}
  */
-public class PGEventListener implements EventListener {
+public class PGEventListener implements BatchEventListener {
     /**
      * Logger for this class
      */
@@ -27,8 +27,10 @@ import com.redhat.rhn.domain.reactor.SaltEventFactory;
 import com.redhat.rhn.frontend.events.TransactionHelper;
 
 import com.suse.manager.metrics.PrometheusExporter;
+import com.suse.manager.metrics.SaltEventQueueCollector;
 import com.suse.salt.netapi.datatypes.Event;
 import com.suse.salt.netapi.event.AbstractEventStream;
+import com.suse.salt.netapi.event.EventListener;
 import com.suse.salt.netapi.exception.SaltException;
 import com.suse.salt.netapi.parser.JsonParser;
 
@@ -37,6 +39,7 @@ import com.impossibl.postgres.api.jdbc.PGNotificationListener;
 import com.impossibl.postgres.jdbc.PGDataSource;
 
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -48,6 +51,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -64,9 +68,17 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
     private static final Logger LOG = LogManager.getLogger(PGEventStream.class);
     private static final int MAX_EVENTS_PER_COMMIT = ConfigDefaults.get().getSaltEventsPerCommit();
     private static final int THREAD_POOL_SIZE = ConfigDefaults.get().getSaltEventThreadPoolSize();
+    private static final boolean BATCH_MODE = ConfigDefaults.get().isSaltEventsBatchMode();
+    private static final int BATCH_SIZE = ConfigDefaults.get().getSaltEventsBatchSize();
+    private static final boolean WORK_STEALING = ConfigDefaults.get().isSaltEventWorkStealing();
 
     private final PGConnection connection;
-    private final List<ThreadPoolExecutor> executorServices = IntStream.range(0, THREAD_POOL_SIZE + 1).mapToObj(i ->
+    private final List<BatchEventListener> batchListeners = new CopyOnWriteArrayList<>();
+    private final List<EventListener> plainListeners = new CopyOnWriteArrayList<>();
+    private final SaltEventQueueCollector queueCollector = new SaltEventQueueCollector("salt_queue");
+    private final List<ThreadPoolExecutor> executorServices = IntStream
+        .range(0, WORK_STEALING ? 0 : THREAD_POOL_SIZE + 1)
+        .mapToObj(i ->
         new ThreadPoolExecutor(
                 1,
                 1,
@@ -79,6 +91,11 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
         )
     ).collect(Collectors.toList());
 
+    // replaces the per-queue executors when work-stealing is enabled
+    private final WorkStealingEventDispatcher dispatcher = WORK_STEALING ?
+            new WorkStealingEventDispatcher(new DispatcherEventSource(),
+                    BATCH_MODE ? BATCH_SIZE : MAX_EVENTS_PER_COMMIT, THREAD_POOL_SIZE + 1) :
+            null;
 
     /**
      * Default constructor, connects to Postgres and waits for events.
@@ -96,7 +113,13 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
         dataSource.setProtocolIoMode("nio");
 
         // register the executor service for exporting metrics
-        PrometheusExporter.INSTANCE.registerThreadPoolList(this.executorServices, "salt_queue");
+        if (dispatcher != null) {
+            PrometheusExporter.INSTANCE.registerThreadPool(dispatcher.getPool(), "salt_event_workers");
+        }
+        else {
+            PrometheusExporter.INSTANCE.registerThreadPoolList(this.executorServices, "salt_queue");
+        }
+        PrometheusExporter.INSTANCE.registerSaltEventQueues(queueCollector);
 
         try {
             int pending = SaltEventFactory.fixQueueNumbers(THREAD_POOL_SIZE);
@@ -139,6 +162,14 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
                         // then schedule tasks for them
                         // this can only happen in case we lost notifications somehow
                         List<Long> allJobs = SaltEventFactory.countSaltEvents(THREAD_POOL_SIZE + 1);
+                        queueCollector.updatePending(allJobs);
+
+                        if (dispatcher != null) {
+                            if (allJobs.stream().mapToLong(l -> l).sum() > 0) {
+                                dispatcher.signal();
+                            }
+                            return;
+                        }
 
                         List<Long> missingJobs = IntStream.range(0, allJobs.size())
                             .mapToObj(i -> executorServices.get(i).getActiveCount() > 0 ? 0 : allJobs.get(i))
@@ -156,6 +187,8 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
                     HibernateFactory.closeSession();
                     cancel();
                     clearListeners(0, "Postgres notification connection was lost");
+                    batchListeners.clear();
+                    plainListeners.clear();
                 }
                 catch (Exception e) {
                     LOG.error("Unexpected exception:", e);
@@ -183,10 +216,15 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
      */
     public void notification(List<Long> counts) {
         LOG.trace("Got notification: {}", counts);
+        if (dispatcher != null) {
+            dispatcher.signal();
+            return;
+        }
         // compute the number of jobs we need to do - each job COMMITs individually
-        // jobs = events / MAX_EVENTS_PER_COMMIT (rounded up)
+        // jobs = events / events per job (rounded up)
+        int eventsPerJob = BATCH_MODE ? BATCH_SIZE : MAX_EVENTS_PER_COMMIT;
         IntStream.range(0, THREAD_POOL_SIZE + 1).forEach(queue -> {
-            long jobs = (counts.get(queue) + MAX_EVENTS_PER_COMMIT - 1) / MAX_EVENTS_PER_COMMIT;
+            long jobs = (counts.get(queue) + eventsPerJob - 1) / eventsPerJob;
 
             // queue one handlingTransaction(processEvents) call per job
             LongStream.range(0L, jobs).forEach(job -> {
@@ -195,7 +233,14 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
                 executor.execute(() -> {
                     List<SaltEvent> uncommittedEvents = new LinkedList<>();
                     TransactionHelper.handlingTransaction(
-                            () -> processEvents(uncommittedEvents, queue),
+                            () -> {
+                                if (BATCH_MODE) {
+                                    processEventBatch(uncommittedEvents, queue);
+                                }
+                                else {
+                                    processEvents(uncommittedEvents, queue);
+                                }
+                            },
                             e -> handleExceptions(uncommittedEvents, e));
                 });
             });
@@ -210,9 +255,19 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
      * @param queue the index of the thread processing the events
      */
     private void processEvents(List<SaltEvent> uncommittedEvents, int queue) {
-        Stream<SaltEvent> events = SaltEventFactory.popSaltEvents(MAX_EVENTS_PER_COMMIT, queue)
-                .sorted(comparing(SaltEvent::getMinionId, nullsLast(naturalOrder())).thenComparing(SaltEvent::getId));
+        processEvents(SaltEventFactory.popSaltEvents(MAX_EVENTS_PER_COMMIT, queue)
+                .sorted(comparing(SaltEvent::getMinionId, nullsLast(naturalOrder())).thenComparing(SaltEvent::getId)),
+                uncommittedEvents, queue);
+    }
 
+    /**
+     * Notifies listeners of already popped events, one by one.
+     *
+     * @param events the events, in processing order
+     * @param uncommittedEvents used to keep track of events being processed
+     * @param queue the index of the queue the events come from
+     */
+    private void processEvents(Stream<SaltEvent> events, List<SaltEvent> uncommittedEvents, int queue) {
         events.forEach(event -> {
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Handling event {} in worker #{}", event.getId(), queue);
@@ -221,6 +276,105 @@ public class PGEventStream extends AbstractEventStream implements PGNotification
             uncommittedEvents.add(event);
             notifyListeners(JsonParser.EVENTS.parse(event.getData()));
         });
+        queueCollector.recordBatch(queue, uncommittedEvents.size(), 0);
+    }
+
+    /**
+     * Pops a whole window of events from suseSaltEvent in one round-trip, drops redundant events of the same
+     * minion and notifies listeners with the resulting batch. Listeners implementing {@link BatchEventListener}
+     * get the whole batch at once, any other listener is notified event by event.
+     *
+     * @param uncommittedEvents used to keep track of events being processed
+     * @param queue the index of the thread processing the events
+     */
+    private void processEventBatch(List<SaltEvent> uncommittedEvents, int queue) {
+        processEventBatch(SaltEventFactory.popSaltEvents(BATCH_SIZE, queue)
+                .sorted(comparing(SaltEvent::getMinionId, nullsLast(naturalOrder())).thenComparing(SaltEvent::getId)),
+                uncommittedEvents, queue);
+    }
+
+    /**
+     * Coalesces already popped events and notifies listeners with the resulting batch.
+     *
+     * @param events the events, in processing order
+     * @param uncommittedEvents used to keep track of events being processed
+     * @param queue the index of the queue the events come from
+     */
+    private void processEventBatch(Stream<SaltEvent> events, List<SaltEvent> uncommittedEvents, int queue) {
+        events.forEach(uncommittedEvents::add);
+
+        List<Pair<SaltEvent, Event>> popped = uncommittedEvents.stream()
+                .map(event -> Pair.of(event, JsonParser.EVENTS.parse(event.getData())))
+                .collect(toList());
+
+        List<Event> batch = SaltEventCoalescer.coalesce(popped, p -> p.getLeft().getMinionId(),
+                        p -> p.getRight().getTag())
+                .stream()
+                .map(Pair::getRight)
+                .collect(toList());
+
+        LOG.trace("Handling batch of {} events ({} coalesced) in worker #{}", batch.size(),
+                popped.size() - batch.size(), queue);
+
+        if (!batch.isEmpty()) {
+            batch.forEach(event -> plainListeners.forEach(listener -> listener.notify(event)));
+            batchListeners.forEach(listener -> listener.notifyBatch(batch));
+        }
+        queueCollector.recordBatch(queue, popped.size(), (long) popped.size() - batch.size());
+    }
+
+    /**
+     * Feeds the {@link WorkStealingEventDispatcher} with the events in suseSaltEvent, processing the events of
+     * each minion in a separate transaction.
+     */
+    private class DispatcherEventSource implements WorkStealingEventDispatcher.EventSource {
+
+        @Override
+        public List<WorkStealingEventDispatcher.ReadyMinion> findReadyMinions(int limit) {
+            try {
+                return SaltEventFactory.findMinionsWithSaltEvents(limit).stream()
+                        .map(p -> new WorkStealingEventDispatcher.ReadyMinion(p.getLeft(), p.getRight()))
+                        .collect(toList());
+            }
+            finally {
+                HibernateFactory.closeSession();
+            }
+        }
+
+        @Override
+        public int process(WorkStealingEventDispatcher.ReadyMinion minion, int limit) {
+            List<SaltEvent> uncommittedEvents = new LinkedList<>();
+            TransactionHelper.handlingTransaction(
+                    () -> {
+                        Stream<SaltEvent> events = SaltEventFactory.popSaltEvents(limit, minion.minionId());
+                        if (BATCH_MODE) {
+                            processEventBatch(events, uncommittedEvents, minion.queue());
+                        }
+                        else {
+                            processEvents(events, uncommittedEvents, minion.queue());
+                        }
+                    },
+                    e -> handleExceptions(uncommittedEvents, e));
+            return uncommittedEvents.size();
+        }
+    }
+
+    @Override
+    public void addEventListener(EventListener listener) {
+        super.addEventListener(listener);
+        if (listener instanceof BatchEventListener batchListener) {
+            batchListeners.add(batchListener);
+        }
+        else {
+            plainListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeEventListener(EventListener listener) {
+        super.removeEventListener(listener);
+        batchListeners.remove(listener);
+        plainListeners.remove(listener);
     }
 
     /**
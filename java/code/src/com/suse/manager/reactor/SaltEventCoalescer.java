@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Removes redundant events from a batch of Salt events.
+ *
+ * Some events only trigger idempotent work whose outcome depends on the latest occurrence only (eg. a minion
+ * start triggers the registration check, a package set beacon schedules a package refresh). When a batch
+ * contains several of them for the same minion, only the last one is kept, in its original position.
+ * Any other event, most notably job returns, is always kept.
+ */
+public class SaltEventCoalescer {
+
+    private static final List<Pattern> COALESCABLE_TAGS = List.of(
+            Pattern.compile("^salt/minion/[^/]+/start$"),
+            Pattern.compile("^minion_start$"),
+            Pattern.compile("^salt/beacon/[^/]+/pkgset/.*$"),
+            Pattern.compile("^salt/beacon/[^/]+/reboot_info/.*$")
+    );
+
+    private SaltEventCoalescer() { }
+
+    /**
+     * Checks if events with the given tag can be coalesced.
+     * @param tag the Salt event tag
+     * @return true if only the last event with this tag is relevant for a minion
+     */
+    public static boolean isCoalescable(String tag) {
+        return tag != null && COALESCABLE_TAGS.stream().anyMatch(p -> p.matcher(tag).matches());
+    }
+
+    /**
+     * Coalesces redundant events of the same minion.
+     *
+     * @param events the events, in processing order
+     * @param minionIdFn function returning the minion id of an event, null if not associated with a minion
+     * @param tagFn function returning the tag of an event
+     * @param <T> the type of the events
+     * @return the events to process, in processing order
+     */
+    public static <T> List<T> coalesce(List<T> events, Function<T, String> minionIdFn, Function<T, String> tagFn) {
+        Set<String> seen = new HashSet<>();
+        List<T> result = new ArrayList<>(events.size());
+
+        // walk backwards so that the last occurrence of every coalescable event is the one being kept
+        for (int i = events.size() - 1; i >= 0; i--) {
+            T event = events.get(i);
+            String minionId = minionIdFn.apply(event);
+            String tag = tagFn.apply(event);
+            if (minionId == null || !isCoalescable(tag) || seen.add(minionId + "\u0000" + tag)) {
+                result.add(event);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatches queued Salt events to a pool of workers, keeping the per-minion ordering.
+ *
+ * Every minion with pending events is put in the ready deque of the queue it was assigned to by the Salt engine.
+ * Workers pick minions from their own queue first and steal from the other queues when their own is empty, so a
+ * skewed queue assignment does not leave workers idle. Only one batch per minion is in flight at any time.
+ */
+public class WorkStealingEventDispatcher {
+
+    private static final Logger LOG = LogManager.getLogger(WorkStealingEventDispatcher.class);
+
+    /**
+     * Maximum number of ready minions loaded from the event source at once
+     */
+    private static final int REFILL_SIZE = 1000;
+
+    /**
+     * Source of the events to dispatch.
+     */
+    public interface EventSource {
+
+        /**
+         * Returns the minions having pending events, oldest events first.
+         * @param limit maximum number of minions to return
+         * @return the minions with their queue
+         */
+        List<ReadyMinion> findReadyMinions(int limit);
+
+        /**
+         * Processes the oldest pending events of a minion.
+         * @param minion the minion
+         * @param limit maximum number of events to process
+         * @return the number of events processed
+         */
+        int process(ReadyMinion minion, int limit);
+    }
+
+    /**
+     * A minion with pending events.
+     * @param queue the queue the events were assigned to
+     * @param minionId the minion id, null for events not associated with any minion
+     */
+    public record ReadyMinion(int queue, String minionId) {
+
+        /**
+         * @return the key used to serialize the processing of the minion events
+         */
+        public String key() {
+            return minionId == null ? "" : minionId;
+        }
+    }
+
+    private final EventSource source;
+    private final int batchSize;
+    private final ThreadPoolExecutor pool;
+
+    private final Map<Integer, Deque<ReadyMinion>> readyQueues = new ConcurrentHashMap<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<String> deferred = ConcurrentHashMap.newKeySet();
+
+    private final int size;
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    // guards the worker count and the pending signal, so that a worker never exits while a signal is missed
+    private final ReentrantLock workersLock = new ReentrantLock();
+    private int workers;
+    private int workerSequence;
+    private boolean signalled;
+
+    /**
+     * Standard constructor.
+     * @param sourceIn the source of the events
+     * @param batchSizeIn the maximum number of events of a minion processed by a worker at once
+     * @param sizeIn the number of workers
+     */
+    public WorkStealingEventDispatcher(EventSource sourceIn, int batchSizeIn, int sizeIn) {
+        this.source = sourceIn;
+        this.batchSize = batchSizeIn;
+        this.size = sizeIn;
+        this.pool = new ThreadPoolExecutor(
+                sizeIn,
+                sizeIn,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new BasicThreadFactory.Builder()
+                        .namingPattern("salt-event-worker-%d")
+                        .build()
+        );
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the worker thread pool, for monitoring purposes
+     */
+    public ThreadPoolExecutor getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the size of the worker pool, fixed when the dispatcher is created
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Notifies the dispatcher that new events are available. Starts idle workers, if any.
+     */
+    public void signal() {
+        workersLock.lock();
+        try {
+            signalled = true;
+            while (workers < size) {
+                workers++;
+                int home = workerSequence++;
+                pool.execute(() -> work(home));
+            }
+        }
+        finally {
+            workersLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if no worker is running and no minion is ready to be processed
+     */
+    public boolean isIdle() {
+        workersLock.lock();
+        try {
+            return workers == 0 && queued.isEmpty() && inFlight.isEmpty();
+        }
+        finally {
+            workersLock.unlock();
+        }
+    }
+
+    private void work(int workerId) {
+        int home = workerId % size;
+        boolean exited = false;
+        try {
+            while (!exited) {
+                consumeSignal();
+                Optional<ReadyMinion> next = take(home);
+                if (next.isEmpty()) {
+                    refill();
+                    next = take(home);
+                }
+                if (next.isPresent()) {
+                    run(next.get());
+                }
+                else {
+                    exited = exitUnlessSignalled();
+                }
+            }
+        }
+        catch (Exception e) {
+            LOG.error("Unexpected exception in Salt event worker", e);
+        }
+        finally {
+            if (!exited) {
+                workersLock.lock();
+                try {
+                    workers--;
+                }
+                finally {
+                    workersLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void consumeSignal() {
+        workersLock.lock();
+        try {
+            signalled = false;
+        }
+        finally {
+            workersLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the worker, unless new events were signalled since it last looked for them.
+     * @return true if the worker must exit
+     */
+    private boolean exitUnlessSignalled() {
+        workersLock.lock();
+        try {
+            if (signalled) {
+                return false;
+            }
+            workers--;
+            return true;
+        }
+        finally {
+            workersLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the first ready minion from the home queue, or steals the last one from any other queue.
+     */
+    private Optional<ReadyMinion> take(int home) {
+        Optional<ReadyMinion> next = poll(readyQueues.get(home), true);
+        if (next.isEmpty()) {
+            next = readyQueues.entrySet().stream()
+                    .filter(e -> e.getKey() != home)
+                    .map(e -> poll(e.getValue(), false))
+                    .flatMap(Optional::stream)
+                    .findFirst();
+        }
+        return next;
+    }
+
+    private Optional<ReadyMinion> poll(Deque<ReadyMinion> deque, boolean first) {
+        if (deque == null) {
+            return Optional.empty();
+        }
+        ReadyMinion minion = first ? deque.pollFirst() : deque.pollLast();
+        while (minion != null) {
+            queued.remove(minion.key());
+            if (inFlight.add(minion.key())) {
+                return Optional.of(minion);
+            }
+            // another worker is processing this minion, it will be queued again once done
+            deferred.add(minion.key());
+            minion = first ? deque.pollFirst() : deque.pollLast();
+        }
+        return Optional.empty();
+    }
+
+    private void refill() {
+        refillLock.lock();
+        try {
+            if (!queued.isEmpty()) {
+                // another worker refilled in the meantime
+                return;
+            }
+            for (ReadyMinion minion : source.findReadyMinions(REFILL_SIZE)) {
+                if (inFlight.contains(minion.key())) {
+                    deferred.add(minion.key());
+                }
+                else {
+                    enqueue(minion);
+                }
+            }
+        }
+        finally {
+            refillLock.unlock();
+        }
+    }
+
+    private void enqueue(ReadyMinion minion) {
+        if (queued.add(minion.key())) {
+            readyQueues.computeIfAbsent(minion.queue() % size, q -> new ConcurrentLinkedDeque<>()).addLast(minion);
+        }
+    }
+
+    private void run(ReadyMinion minion) {
+        int processed = 0;
+        try {
+            LOG.trace("Processing events of minion {} from queue {}", minion.minionId(), minion.queue());
+            processed = source.process(minion, batchSize);
+        }
+        catch (Exception e) {
+            LOG.error("Unable to process events of minion {}", minion.minionId(), e);
+        }
+        finally {
+            inFlight.remove(minion.key());
+            // more events might be pending: queue the minion again, behind the other ready ones
+            boolean wasDeferred = deferred.remove(minion.key());
+            if (processed >= batchSize || wasDeferred) {
+                enqueue(minion);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suse.manager.reactor.SaltEventCoalescer;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Test for {@link SaltEventCoalescer}
+ */
+public class SaltEventCoalescerTest {
+
+    @Test
+    public void testIsCoalescable() {
+        assertTrue(SaltEventCoalescer.isCoalescable("salt/minion/minion1/start"));
+        assertTrue(SaltEventCoalescer.isCoalescable("minion_start"));
+        assertTrue(SaltEventCoalescer.isCoalescable("salt/beacon/minion1/pkgset/changed"));
+        assertTrue(SaltEventCoalescer.isCoalescable("salt/beacon/minion1/reboot_info/"));
+        assertFalse(SaltEventCoalescer.isCoalescable("salt/job/20260101000000000000/ret/minion1"));
+        assertFalse(SaltEventCoalescer.isCoalescable("salt/beacon/minion1/inotify//etc/ansible/hosts"));
+        assertFalse(SaltEventCoalescer.isCoalescable(null));
+    }
+
+    @Test
+    public void testCoalesceKeepsLastOccurrence() {
+        Pair<String, String> start1 = Pair.of("minion1", "salt/minion/minion1/start");
+        Pair<String, String> job1 = Pair.of("minion1", "salt/job/1/ret/minion1");
+        Pair<String, String> start2 = Pair.of("minion1", "salt/minion/minion1/start");
+        Pair<String, String> job2 = Pair.of("minion1", "salt/job/2/ret/minion1");
+        Pair<String, String> pkgset1 = Pair.of("minion1", "salt/beacon/minion1/pkgset/changed");
+        Pair<String, String> pkgset2 = Pair.of("minion1", "salt/beacon/minion1/pkgset/changed");
+
+        List<Pair<String, String>> result = SaltEventCoalescer.coalesce(
+                List.of(start1, job1, start2, pkgset1, job2, pkgset2), Pair::getLeft, Pair::getRight);
+
+        assertEquals(4, result.size());
+        assertSame(job1, result.get(0));
+        assertSame(start2, result.get(1));
+        assertSame(job2, result.get(2));
+        assertSame(pkgset2, result.get(3));
+    }
+
+    @Test
+    public void testCoalesceIsPerMinion() {
+        Pair<String, String> start1 = Pair.of("minion1", "minion_start");
+        Pair<String, String> start2 = Pair.of("minion2", "minion_start");
+        Pair<String, String> noMinion1 = Pair.of(null, "minion_start");
+        Pair<String, String> noMinion2 = Pair.of(null, "minion_start");
+
+        List<Pair<String, String>> events = List.of(start1, start2, noMinion1, noMinion2);
+        assertEquals(events, SaltEventCoalescer.coalesce(events, Pair::getLeft, Pair::getRight));
+    }
+}
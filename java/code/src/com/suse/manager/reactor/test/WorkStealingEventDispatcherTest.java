@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.reactor.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suse.manager.reactor.WorkStealingEventDispatcher;
+import com.suse.manager.reactor.WorkStealingEventDispatcher.ReadyMinion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Replays Salt event traces against the {@link WorkStealingEventDispatcher}. The traces are also used by
+ * WorkStealingEventDispatcherBenchmark.
+ */
+public class WorkStealingEventDispatcherTest {
+
+    static final int QUEUES = 8;
+    private static final long EVENT_COST_MS = 2;
+
+    /**
+     * A queued event of the trace.
+     * @param id the event id, in insertion order
+     * @param queue the queue assigned by the Salt engine
+     * @param minionId the minion id
+     */
+    record TraceEvent(long id, int queue, String minionId) { }
+
+    /**
+     * In-memory replacement of the suseSaltEvent table, recording the processing order.
+     */
+    static class TraceEventSource implements WorkStealingEventDispatcher.EventSource {
+
+        private final Map<String, LinkedList<TraceEvent>> pending = new LinkedHashMap<>();
+        private final Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+        private final Set<String> running = ConcurrentHashMap.newKeySet();
+        private volatile boolean concurrentMinion = false;
+
+        TraceEventSource(List<TraceEvent> trace) {
+            trace.forEach(this::add);
+        }
+
+        synchronized void add(TraceEvent event) {
+            pending.computeIfAbsent(event.minionId(), m -> new LinkedList<>()).add(event);
+        }
+
+        @Override
+        public synchronized List<ReadyMinion> findReadyMinions(int limit) {
+            return pending.values().stream()
+                    .filter(events -> !events.isEmpty())
+                    .map(LinkedList::getFirst)
+                    .sorted(Comparator.comparing(TraceEvent::id))
+                    .limit(limit)
+                    .map(e -> new ReadyMinion(e.queue(), e.minionId()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public int process(ReadyMinion minion, int limit) {
+            List<TraceEvent> events = new ArrayList<>();
+            synchronized (this) {
+                LinkedList<TraceEvent> minionEvents = pending.get(minion.minionId());
+                while (!minionEvents.isEmpty() && events.size() < limit) {
+                    events.add(minionEvents.removeFirst());
+                }
+            }
+            if (!running.add(minion.minionId())) {
+                concurrentMinion = true;
+            }
+            events.forEach(this::handle);
+            running.remove(minion.minionId());
+            return events.size();
+        }
+
+        void handle(TraceEvent event) {
+            try {
+                Thread.sleep(EVENT_COST_MS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.computeIfAbsent(event.minionId(), m -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(event.id());
+        }
+
+        synchronized boolean isEmpty() {
+            return pending.values().stream().allMatch(List::isEmpty);
+        }
+    }
+
+    /**
+     * Builds a skewed trace: a chatty minion and many quiet ones hashed to queue 1, one quiet minion on each
+     * of the other queues.
+     */
+    static List<TraceEvent> skewedTrace() {
+        List<TraceEvent> trace = new ArrayList<>();
+        long id = 0;
+        for (int round = 0; round < 10; round++) {
+            trace.add(new TraceEvent(id++, 1, "chatty"));
+            for (int m = 0; m < 20; m++) {
+                trace.add(new TraceEvent(id++, 1, "hot-" + m));
+            }
+            for (int q = 2; q < QUEUES; q++) {
+                trace.add(new TraceEvent(id++, q, "quiet-" + q));
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Replays the events of the source with a work-stealing dispatcher.
+     * @return the time taken to drain the source, in nanoseconds
+     */
+    static long replayWorkStealing(TraceEventSource source) throws Exception {
+        WorkStealingEventDispatcher dispatcher = new WorkStealingEventDispatcher(source, 1, QUEUES);
+        long start = System.nanoTime();
+        dispatcher.signal();
+        awaitDrained(source, dispatcher);
+        long elapsed = System.nanoTime() - start;
+        dispatcher.getPool().shutdown();
+        return elapsed;
+    }
+
+    private static void awaitDrained(TraceEventSource source, WorkStealingEventDispatcher dispatcher)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!(source.isEmpty() && dispatcher.isIdle()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    static void assertOrdered(List<TraceEvent> trace, TraceEventSource source) {
+        Map<String, List<Long>> expected = trace.stream().collect(Collectors.groupingBy(TraceEvent::minionId,
+                Collectors.mapping(TraceEvent::id, Collectors.toList())));
+        assertEquals(expected, source.processed);
+    }
+
+    @Test
+    public void testKeepsPerMinionOrdering() throws Exception {
+        List<TraceEvent> trace = skewedTrace();
+        TraceEventSource source = new TraceEventSource(trace);
+
+        replayWorkStealing(source);
+
+        assertOrdered(trace, source);
+        assertTrue(!source.concurrentMinion, "events of a minion were processed concurrently");
+    }
+
+    @Test
+    public void testSignalsAreNotLost() throws Exception {
+        TraceEventSource source = new TraceEventSource(List.of());
+        WorkStealingEventDispatcher dispatcher = new WorkStealingEventDispatcher(source, 1, 2);
+
+        // every event is signalled once, while the workers are busy, idle or about to exit
+        List<TraceEvent> trace = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            TraceEvent event = new TraceEvent(id, (int) (id % 2), "minion-" + id % 7);
+            trace.add(event);
+            source.add(event);
+            dispatcher.signal();
+            if (id % 50 == 0) {
+                Thread.sleep(EVENT_COST_MS);
+            }
+        }
+
+        awaitDrained(source, dispatcher);
+        dispatcher.getPool().shutdown();
+
+        assertTrue(source.isEmpty(), "events were left pending without any worker");
+        assertOrdered(trace, source);
+    }
+}
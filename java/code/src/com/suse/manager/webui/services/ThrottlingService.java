@@ -14,29 +14,46 @@
  */
 package com.suse.manager.webui.services;
 
-import org.apache.commons.lang3.tuple.Pair;
-
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * The service to apply rate-limiting to any arbitrary resource
+ *
+ * The calls of a user to a resource are limited with a token bucket holding maxCalls tokens and refilled at the
+ * rate of maxCalls tokens per period, implemented as a generic cell rate algorithm: the state of a bucket is the
+ * single time at which it will be full again, updated with compare-and-set. A bucket which is full again holds no
+ * information and is evicted.
  */
 public class ThrottlingService {
     public static final long DEF_THROTTLE_PERIOD_SECS = 60;
     public static final long DEF_MAX_CALLS_PER_PERIOD = 100;
 
-    // Call history map of: Route X User X FirstCallTime & CallCount
-    private final Map<String, Map<Long, Pair<LocalDateTime, AtomicLong>>> routeCallMap;
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Route X User X time in nanoseconds at which the bucket of the user is full again
+    private final Map<String, Map<Long, Long>> routeCallMap;
+    private final LongSupplier clock;
+    private final AtomicLong lastEviction;
 
     /**
      * Construct a {@link ThrottlingService} instance
      */
     public ThrottlingService() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Construct a {@link ThrottlingService} instance
+     * @param clockIn the source of the current time in nanoseconds
+     */
+    public ThrottlingService(LongSupplier clockIn) {
         routeCallMap = new ConcurrentHashMap<>();
+        clock = clockIn;
+        lastEviction = new AtomicLong(clock.getAsLong());
     }
 
     /**
@@ -64,21 +81,65 @@ public class ThrottlingService {
      * @throws TooManyCallsException if the rate-limit is exceeded
      */
     public void call(long uid, String path, long maxCalls, long period) throws TooManyCallsException {
-        routeCallMap.putIfAbsent(path, new ConcurrentHashMap<>());
-        Map<Long, Pair<LocalDateTime, AtomicLong>> userCallCount = routeCallMap.get(path);
+        call(uid, path, 1, maxCalls, period);
+    }
+
+    /**
+     * Log a single call to the resource, counting as cost calls
+     *
+     * Calls are logged per resource, per user. If the rate-limit is exceeded, the call throws a
+     * {@link TooManyCallsException}. Otherwise, the caller should continue to execute the call.
+     * @param uid the user ID
+     * @param path the resource path
+     * @param cost the number of calls the call counts for, at most maxCalls
+     * @param maxCalls maximum number of allowed calls per throttling period
+     * @param period the throttling period in seconds
+     * @throws TooManyCallsException if the rate-limit is exceeded
+     */
+    public void call(long uid, String path, long cost, long maxCalls, long period) throws TooManyCallsException {
+        long now = clock.getAsLong();
+        evictIdleUsers(now);
 
-        if (userCallCount.containsKey(uid)) {
-            Pair<LocalDateTime, AtomicLong> callInfo = userCallCount.get(uid);
-            if (ChronoUnit.SECONDS.between(callInfo.getLeft(), LocalDateTime.now()) < period) {
-                long callCount = userCallCount.get(uid).getRight().incrementAndGet();
-                if (callCount > maxCalls) {
-                    throw new TooManyCallsException();
-                }
+        long periodNanos = TimeUnit.SECONDS.toNanos(period);
+        long increment = periodNanos / maxCalls * Math.min(cost, maxCalls);
+        Map<Long, Long> userCalls = routeCallMap.computeIfAbsent(path, p -> new ConcurrentHashMap<>());
+        while (true) {
+            Long fullAt = userCalls.get(uid);
+            long newFullAt = (fullAt == null || fullAt - now < 0 ? now : fullAt) + increment;
+            long excess = newFullAt - now - periodNanos;
+            if (excess > 0) {
+                throw new TooManyCallsException(TimeUnit.NANOSECONDS.toSeconds(excess) + 1);
+            }
+            boolean updated = fullAt == null ?
+                    userCalls.putIfAbsent(uid, newFullAt) == null :
+                    userCalls.replace(uid, fullAt, newFullAt);
+            if (updated) {
                 return;
             }
         }
+    }
 
-        // Reset count
-        userCallCount.put(uid, Pair.of(LocalDateTime.now(), new AtomicLong(1)));
+    /**
+     * Removes the buckets which are full again, at most once per eviction interval
+     * @param now the current time in nanoseconds
+     */
+    private void evictIdleUsers(long now) {
+        long last = lastEviction.get();
+        if (now - last < EVICTION_INTERVAL_NANOS || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        // the conditional removal keeps a bucket updated by a concurrent call
+        routeCallMap.values().forEach(userCalls -> userCalls.forEach((uid, fullAt) -> {
+            if (fullAt - now <= 0) {
+                userCalls.remove(uid, fullAt);
+            }
+        }));
+    }
+
+    /**
+     * @return the number of users with calls still counted, over all the resources
+     */
+    public int getTrackedUsers() {
+        return routeCallMap.values().stream().mapToInt(Map::size).sum();
     }
 }
@@ -18,4 +18,21 @@ package com.suse.manager.webui.services;
  * Exception thrown when calls to a {@link spark.Route} exceeds the rate-limit
  */
 public class TooManyCallsException extends Throwable {
+
+    private final long retryAfter;
+
+    /**
+     * Constructor
+     * @param retryAfterIn the number of seconds after which the call would be allowed
+     */
+    public TooManyCallsException(long retryAfterIn) {
+        retryAfter = retryAfterIn;
+    }
+
+    /**
+     * @return the number of seconds after which the call would be allowed
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.webui.services.impl;
+
+import com.suse.manager.metrics.SaltApiConnectionsCollector;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pool of connections to the Salt API of one lane of calls. It records the connections leased and the time
+ * the calls waited for them.
+ */
+public class SaltApiConnectionPool extends PoolingNHttpClientConnectionManager {
+
+    private final String lane;
+    private final SaltApiConnectionsCollector statistics;
+
+    /**
+     * Creates a pool
+     * @param laneIn the name of the lane using the pool
+     * @param size the maximum number of connections
+     * @param statisticsIn the statistics to record the leases in
+     * @throws IOReactorException if the I/O reactor of the connections cannot be created
+     */
+    public SaltApiConnectionPool(String laneIn, int size, SaltApiConnectionsCollector statisticsIn)
+            throws IOReactorException {
+        super(new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT));
+        lane = laneIn;
+        statistics = statisticsIn;
+        // all the calls go to the same host: the limit per route is the limit of the pool
+        setMaxTotal(size);
+        setDefaultMaxPerRoute(size);
+        statistics.addLane(lane, this);
+    }
+
+    /**
+     * @return the name of the lane using the pool
+     */
+    public String getLane() {
+        return lane;
+    }
+
+    @Override
+    public Future<NHttpClientConnection> requestConnection(HttpRoute route, Object state, long connectTimeout,
+            long leaseTimeout, TimeUnit timeUnit, FutureCallback<NHttpClientConnection> callback) {
+        long requested = System.nanoTime();
+        return super.requestConnection(route, state, connectTimeout, leaseTimeout, timeUnit,
+                new FutureCallback<>() {
+                    @Override
+                    public void completed(NHttpClientConnection connection) {
+                        statistics.leased(lane, System.nanoTime() - requested);
+                        if (callback != null) {
+                            callback.completed(connection);
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        statistics.leaseFailed(lane, System.nanoTime() - requested);
+                        if (callback != null) {
+                            callback.failed(e);
+                        }
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        if (callback != null) {
+                            callback.cancelled();
+                        }
+                    }
+                });
+    }
+}
@@ -24,6 +24,8 @@ import com.redhat.rhn.domain.server.MinionServerFactory;
 import com.redhat.rhn.domain.server.ServerFactory;
 import com.redhat.rhn.manager.system.SystemManager;
 
+import com.suse.manager.metrics.PrometheusExporter;
+import com.suse.manager.metrics.SaltApiConnectionsCollector;
 import com.suse.manager.reactor.PGEventStream;
 import com.suse.manager.reactor.messaging.ApplyStatesEventMessage;
 import com.suse.manager.ssl.SSLCertPair;
@@ -93,8 +95,8 @@ import com.google.gson.reflect.TypeToken;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
-import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -143,9 +145,19 @@ public class SaltService implements SystemQuery, SaltApi {
     private static final String SALT_PASSWORD = com.redhat.rhn.common.conf.Config.get().getString("server.secret_key");
     private static final AuthModule AUTH_MODULE = AuthModule.FILE;
 
-    // Shared salt client instance
+    // Shared salt client instances: the calls waiting for minion jobs and the short control calls use separate
+    // connection pools, so that a wave of jobs cannot starve the control calls
     private final SaltClient saltClient;
-    private final CloseableHttpAsyncClient asyncHttpClient;
+    private final SaltClient controlSaltClient;
+    private final List<CloseableHttpAsyncClient> asyncHttpClients;
+
+    private static final String JOB_LANE = "job";
+    private static final String CONTROL_LANE = "control";
+
+    // functions of the local and runner calls which return quickly, executed in the control lane like the wheel
+    // calls and the publication of asynchronous calls
+    private static final Set<String> CONTROL_FUNCTIONS = Set.of("test.ping", "match.compound", "grains.item",
+            "grains.items", "config.get", "status.uptime", "saltutil.running", "jobs.list_job", "jobs.list_jobs");
 
     // executing salt-ssh calls
     private final SaltSSHService saltSSHService;
@@ -188,16 +200,16 @@ public class SaltService implements SystemQuery, SaltApi {
                 .setConnectionRequestTimeout(5 * 60 * 1000)
                 .setCookieSpec(CookieSpecs.STANDARD)
                 .build();
-        HttpAsyncClientBuilder httpClientBuilder = HttpAsyncClients.custom();
-        httpClientBuilder.setDefaultRequestConfig(requestConfig);
-
-        asyncHttpClient = httpClientBuilder
-                .setMaxConnPerRoute(20)
-                .setMaxConnTotal(20)
-                .build();
-        asyncHttpClient.start();
-
-        saltClient = new SaltClient(SALT_MASTER_URI, new HttpAsyncClientImpl(asyncHttpClient));
+        SaltApiConnectionsCollector connectionStatistics = new SaltApiConnectionsCollector();
+        CloseableHttpAsyncClient jobHttpClient = createHttpClient(requestConfig, JOB_LANE,
+                ConfigDefaults.get().getSaltApiJobConnections(), connectionStatistics);
+        CloseableHttpAsyncClient controlHttpClient = createHttpClient(requestConfig, CONTROL_LANE,
+                ConfigDefaults.get().getSaltApiControlConnections(), connectionStatistics);
+        asyncHttpClients = List.of(jobHttpClient, controlHttpClient);
+        PrometheusExporter.INSTANCE.registerSaltApiConnections(connectionStatistics);
+
+        saltClient = new SaltClient(SALT_MASTER_URI, new HttpAsyncClientImpl(jobHttpClient));
+        controlSaltClient = new SaltClient(SALT_MASTER_URI, new HttpAsyncClientImpl(controlHttpClient));
         saltSSHService = new SaltSSHService(saltClient, SaltActionChainGeneratorService.INSTANCE);
         defaultBatch = Batch.custom().withBatchAsAmount(ConfigDefaults.get().getSaltBatchSize())
                         .withDelay(ConfigDefaults.get().getSaltBatchDelay())
@@ -212,8 +224,9 @@ public class SaltService implements SystemQuery, SaltApi {
      * @param client Salt client
      */
     public SaltService(SaltClient client) {
-        asyncHttpClient = null;
+        asyncHttpClients = List.of();
         saltClient = client;
+        controlSaltClient = client;
         saltSSHService = new SaltSSHService(saltClient, SaltActionChainGeneratorService.INSTANCE);
         defaultBatch = Batch.custom().withBatchAsAmount(ConfigDefaults.get().getSaltBatchSize())
                 .withDelay(ConfigDefaults.get().getSaltBatchDelay())
@@ -226,18 +239,42 @@ public class SaltService implements SystemQuery, SaltApi {
      * Close the opened resources when the service is no longer needed
      */
     public void close() {
-        if (asyncHttpClient == null) {
-            return;
+        for (CloseableHttpAsyncClient asyncHttpClient : asyncHttpClients) {
+            try {
+                asyncHttpClient.close();
+            }
+            catch (IOException eIn) {
+                LOG.warn("Failed to close HTTP client", eIn);
+            }
         }
+    }
 
+    private static CloseableHttpAsyncClient createHttpClient(RequestConfig requestConfig, String lane, int size,
+            SaltApiConnectionsCollector connectionStatistics) {
         try {
-            asyncHttpClient.close();
+            CloseableHttpAsyncClient asyncHttpClient = HttpAsyncClients.custom()
+                    .setDefaultRequestConfig(requestConfig)
+                    .setConnectionManager(new SaltApiConnectionPool(lane, size, connectionStatistics))
+                    .build();
+            asyncHttpClient.start();
+            return asyncHttpClient;
         }
-        catch (IOException eIn) {
-            LOG.warn("Failed to close HTTP client", eIn);
+        catch (IOReactorException e) {
+            throw new RhnRuntimeException("Unable to create the pool of Salt API connections for " + lane, e);
         }
     }
 
+    /**
+     * Returns the client of the lane executing a synchronous call: the calls of quick functions go to the control
+     * lane, the others, which can wait for minion jobs or copy files, to the job lane.
+     * @param call the local or runner call
+     * @return the Salt client
+     */
+    private SaltClient clientFor(AbstractCall<?> call) {
+        Object function = call.getPayload().get("fun");
+        return function != null && CONTROL_FUNCTIONS.contains(function) ? controlSaltClient : saltClient;
+    }
+
     /**
      * Synchronously executes a salt function on a single minion and returns the result.
      *
@@ -364,7 +401,7 @@ public class SaltService implements SystemQuery, SaltApi {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Runner callSync: {}", runnerCallToString(call));
             }
-            Result<R> result = adaptException(call.callSync(saltClient, PW_AUTH));
+            Result<R> result = adaptException(call.callSync(clientFor(call), PW_AUTH));
             return result.fold(errorHandler, Optional::of);
         }
         catch (SaltException e) {
@@ -435,7 +472,7 @@ public class SaltService implements SystemQuery, SaltApi {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Wheel callSync: {}", wheelCallToString(call));
             }
-            WheelResult<Result<R>> result = adaptException(call.callSync(saltClient, PW_AUTH));
+            WheelResult<Result<R>> result = adaptException(call.callSync(controlSaltClient, PW_AUTH));
             return result.getData().getResult().fold(errorHandler, Optional::of);
         }
         catch (SaltException e) {
@@ -648,7 +685,7 @@ public class SaltService implements SystemQuery, SaltApi {
             LocalCall<R> callIn, Target<?> target, EventStream events,
             CompletableFuture<GenericError> cancel) throws SaltException {
         LocalCall<R> call = callIn.withMetadata(ScheduleMetadata.getDefaultMetadata().withBatchMode());
-        return adaptException(call.callAsync(saltClient, target, PW_AUTH, events, cancel, defaultBatch));
+        return adaptException(call.callAsync(controlSaltClient, target, PW_AUTH, events, cancel, defaultBatch));
     }
 
     /**
@@ -917,7 +954,7 @@ public class SaltService implements SystemQuery, SaltApi {
                 LOG.debug("Local callSync: {}", SaltService.localCallToString(callIn));
             }
             List<Map<String, Result<T>>> callResult =
-                    adaptException(callIn.withMetadata(metadata).callSync(saltClient,
+                    adaptException(callIn.withMetadata(metadata).callSync(clientFor(callIn),
                             new MinionList(regularMinionIds), PW_AUTH, defaultBatch));
             results.putAll(
                     callResult.stream().flatMap(map -> map.entrySet().stream())
@@ -937,7 +974,7 @@ public class SaltService implements SystemQuery, SaltApi {
             LOG.debug("Local callSync: {}", SaltService.localCallToString(callIn));
         }
         List<Map<String, Result<T>>> callResult =
-                adaptException(callIn.withMetadata(metadata).callSync(saltClient,
+                adaptException(callIn.withMetadata(metadata).callSync(clientFor(callIn),
                         target, PW_AUTH, defaultBatch));
         return callResult.stream().flatMap(map -> map.entrySet().stream())
                 .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
@@ -1010,7 +1047,8 @@ public class SaltService implements SystemQuery, SaltApi {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Local callAsync: {}", SaltService.localCallToString(callIn));
         }
-        return adaptException(callIn.withMetadata(metadata).callAsync(saltClient, target, PW_AUTH, defaultBatch));
+        return adaptException(callIn.withMetadata(metadata).callAsync(controlSaltClient, target, PW_AUTH,
+                defaultBatch));
     }
 
     /**
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.manager.webui.services.impl.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.suse.manager.metrics.SaltApiConnectionsCollector;
+import com.suse.manager.webui.services.impl.SaltApiConnectionPool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.prometheus.client.Collector;
+
+public class SaltApiConnectionPoolTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private SaltApiConnectionsCollector statistics;
+    private CloseableHttpAsyncClient jobClient;
+    private CloseableHttpAsyncClient controlClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/job", exchange -> {
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange);
+        });
+        server.createContext("/control", this::respond);
+        // the server must not be the bottleneck
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        statistics = new SaltApiConnectionsCollector();
+        jobClient = HttpAsyncClients.custom()
+                .setConnectionManager(new SaltApiConnectionPool("job", 1, statistics))
+                .build();
+        controlClient = HttpAsyncClients.custom()
+                .setConnectionManager(new SaltApiConnectionPool("control", 1, statistics))
+                .build();
+        jobClient.start();
+        controlClient.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        release.countDown();
+        jobClient.close();
+        controlClient.close();
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        // every call leases a new connection
+        exchange.getResponseHeaders().add("Connection", "close");
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    private HttpGet get(String path) {
+        return new HttpGet("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void testSaturatedJobLaneDoesNotBlockControlLane() throws Exception {
+        Future<HttpResponse> runningJob = jobClient.execute(get("/job"), null);
+        Future<HttpResponse> waitingJob = jobClient.execute(get("/job"), null);
+
+        // the job lane has its only connection in use, the control lane is free
+        HttpResponse control = controlClient.execute(get("/control"), null).get(10, TimeUnit.SECONDS);
+        assertEquals(200, control.getStatusLine().getStatusCode());
+        assertFalse(runningJob.isDone());
+        assertFalse(waitingJob.isDone());
+        assertEquals(1, statistics.getLeases("job"));
+        assertEquals(1, statistics.getLeases("control"));
+
+        release.countDown();
+        assertEquals(200, runningJob.get(10, TimeUnit.SECONDS).getStatusLine().getStatusCode());
+        assertEquals(200, waitingJob.get(10, TimeUnit.SECONDS).getStatusLine().getStatusCode());
+        assertEquals(2, statistics.getLeases("job"));
+        assertEquals(0, statistics.getFailedLeases("job"));
+    }
+
+    @Test
+    public void testCollect() throws Exception {
+        controlClient.execute(get("/control"), null).get(10, TimeUnit.SECONDS);
+
+        Collector.MetricFamilySamples leases = statistics.collect().stream()
+                .filter(f -> f.name.equals("salt_api_connections_leases_total"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, leases.samples.size());
+        leases.samples.forEach(s -> assertEquals(s.labelValues.get(0).equals("control") ? 1.0 : 0.0, s.value));
+
+        Collector.MetricFamilySamples max = statistics.collect().stream()
+                .filter(f -> f.name.equals("salt_api_connections_max"))
+                .findFirst()
+                .orElseThrow();
+        max.samples.forEach(s -> assertEquals(1.0, s.value));
+    }
+}
@@ -15,6 +15,7 @@
 package com.suse.manager.webui.services.test;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.suse.manager.webui.services.ThrottlingService;
@@ -25,6 +26,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.api.function.ThrowingConsumer;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class ThrottlingServiceTest {
     private ThrottlingService service;
 
@@ -74,4 +81,90 @@ public class ThrottlingServiceTest {
         assertThrows(TooManyCallsException.class, () -> call.accept(1L), "Call must not be allowed");
         assertDoesNotThrow(() -> call.accept(2L), "Call from a different user must be allowed");
     }
+
+    @Test
+    public void testSlidingWindow() {
+        AtomicLong now = new AtomicLong();
+        ThrottlingService throttling = new ThrottlingService(now::get);
+        Executable call = () -> throttling.call(1, "/my/resource", 4, 60);
+
+        for (int i = 0; i < 4; i++) {
+            assertDoesNotThrow(call, "Calls up to the limit must be allowed");
+        }
+        assertThrows(TooManyCallsException.class, call, "Call over the limit must not be allowed");
+
+        // a call is given back every 15 seconds, not all of them at the end of the period
+        now.addAndGet(TimeUnit.SECONDS.toNanos(15));
+        assertDoesNotThrow(call, "Call must be allowed once a call is given back");
+        assertThrows(TooManyCallsException.class, call, "Call must not be allowed");
+    }
+
+    @Test
+    public void testRetryAfter() {
+        AtomicLong now = new AtomicLong();
+        ThrottlingService throttling = new ThrottlingService(now::get);
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 2, 60));
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 2, 60));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        TooManyCallsException e = assertThrows(TooManyCallsException.class,
+                () -> throttling.call(1, "/my/resource", 2, 60));
+        assertEquals(21, e.getRetryAfter());
+    }
+
+    @Test
+    public void testCost() {
+        AtomicLong now = new AtomicLong();
+        ThrottlingService throttling = new ThrottlingService(now::get);
+
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 3, 4, 60), "Call must be allowed");
+        assertThrows(TooManyCallsException.class, () -> throttling.call(1, "/my/resource", 2, 4, 60),
+                "Call costing more than what is left must not be allowed");
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 1, 4, 60), "Cheaper call must be allowed");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 10, 4, 60),
+                "Call costing more than the limit must be allowed with a full budget");
+        assertThrows(TooManyCallsException.class, () -> throttling.call(1, "/my/resource", 1, 4, 60));
+    }
+
+    @Test
+    public void testIdleUsersEviction() {
+        AtomicLong now = new AtomicLong();
+        ThrottlingService throttling = new ThrottlingService(now::get);
+        assertDoesNotThrow(() -> throttling.call(1, "/my/resource", 2, 60));
+        assertDoesNotThrow(() -> throttling.call(2, "/my/resource", 2, 60));
+        assertEquals(2, throttling.getTrackedUsers());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(55));
+        assertDoesNotThrow(() -> throttling.call(2, "/my/resource", 2, 60));
+        assertEquals(2, throttling.getTrackedUsers());
+
+        // the budget of user 1 is full again, user 2 still has a call counted
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertDoesNotThrow(() -> throttling.call(3, "/other/resource", 2, 60));
+        assertEquals(2, throttling.getTrackedUsers());
+    }
+
+    @Test
+    public void testConcurrentCalls() throws InterruptedException {
+        AtomicInteger allowed = new AtomicInteger();
+        // a period long enough for no call to be given back during the test
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                try {
+                    service.call(1, "/my/resource", 100, 3600);
+                    allowed.incrementAndGet();
+                }
+                catch (TooManyCallsException e) {
+                    // expected once the limit is reached
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertEquals(100, allowed.get());
+    }
 }
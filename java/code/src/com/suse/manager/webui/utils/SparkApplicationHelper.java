@@ -421,13 +421,42 @@ public class SparkApplicationHelper {
                 THROTTLER.call(user.getId(), req.pathInfo(), maxCalls, period);
             }
             catch (TooManyCallsException e) {
-                res.header("Retry-After", Long.toString(period));
+                res.header("Retry-After", Long.toString(e.getRetryAfter()));
                 Spark.halt(429, "Too many requests");
             }
             return route.handle(req, res, user);
         };
     }
 
+    /**
+     * Apply rate-limiting to a group of endpoints sharing the same budget of calls
+     *
+     * The calls of the authenticated users to all the routes of the same resource count against a single limit,
+     * each call counting as many calls as its cost. Anonymous calls are not limited. If the consumer exceeds the
+     * limit, the call returns a 429 (Too many requests) response with a 'Retry-After' header (RFC 6585).
+     * @param route the route
+     * @param resource the name of the resource shared by the routes
+     * @param cost the number of calls a call to the route counts for
+     * @param maxCalls maximum number of allowed calls per throttling period
+     * @param period the throttling period in seconds
+     * @return the route
+     */
+    public static Route throttling(Route route, String resource, long cost, long maxCalls, long period) {
+        return (req, res) -> {
+            User user = new RequestContext(req.raw()).getCurrentUser();
+            if (user != null) {
+                try {
+                    THROTTLER.call(user.getId(), resource, cost, maxCalls, period);
+                }
+                catch (TooManyCallsException e) {
+                    res.header("Retry-After", Long.toString(e.getRetryAfter()));
+                    Spark.halt(429, "Too many requests");
+                }
+            }
+            return route.handle(req, res);
+        };
+    }
+
     /**
      * Returns true if the response content type is application/json
      * @param response the response
@@ -15,14 +15,11 @@
 
 package com.suse.oval;
 
-import static java.util.stream.Collectors.groupingBy;
-
-import com.redhat.rhn.common.db.datasource.CallableMode;
+import com.redhat.rhn.common.conf.ConfigDefaults;
 import com.redhat.rhn.common.db.datasource.DataResult;
 import com.redhat.rhn.common.db.datasource.ModeFactory;
 import com.redhat.rhn.common.db.datasource.Row;
 import com.redhat.rhn.common.db.datasource.SelectMode;
-import com.redhat.rhn.common.db.datasource.WriteMode;
 import com.redhat.rhn.common.hibernate.HibernateFactory;
 
 import com.suse.oval.manager.OVALLookupHelper;
@@ -35,12 +32,17 @@ import com.suse.oval.vulnerablepkgextractor.VulnerablePackagesExtractors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class OVALCachingFactory extends HibernateFactory {
@@ -50,62 +52,98 @@ public class OVALCachingFactory extends HibernateFactory {
         // Left empty on purpose
     }
 
-    private static void clearOVALMetadataByPlatform(String platformCpe) {
-        WriteMode mode = ModeFactory.getWriteMode("oval_queries", "clear_oval_metadata_by_platform");
-        mode.executeUpdate(Map.of("cpe", platformCpe));
-    }
-
     /**
      * Extracts and save the list of vulnerable packages from {@code rootType}
      *
      * @param rootType the OVAL root to extract from
      * */
     public static void savePlatformsVulnerablePackages(OvalRootType rootType) {
-        CallableMode mode = ModeFactory.getCallableMode("oval_queries", "add_product_vulnerable_package");
-
         OVALLookupHelper ovalLookupHelper = new OVALLookupHelper(rootType);
 
-        List<ProductVulnerablePackages> productVulnerablePackages = new ArrayList<>();
-        for (DefinitionType definition : rootType.getDefinitions()) {
-            VulnerablePackagesExtractor vulnerablePackagesExtractor =
-                    VulnerablePackagesExtractors.create(definition, rootType.getOsFamily(), ovalLookupHelper);
+        try (OVALStagingFile stagingFile = new OVALStagingFile()) {
+            for (DefinitionType definition : rootType.getDefinitions()) {
+                VulnerablePackagesExtractor vulnerablePackagesExtractor =
+                        VulnerablePackagesExtractors.create(definition, rootType.getOsFamily(), ovalLookupHelper);
 
-            productVulnerablePackages.addAll(vulnerablePackagesExtractor.extract());
+                vulnerablePackagesExtractor.extract().forEach(stagingFile::add);
+            }
+            savePlatformsVulnerablePackages(stagingFile);
         }
+    }
 
-        // Clear previous OVAL metadata
-        productVulnerablePackages.stream()
-                .collect(groupingBy(ProductVulnerablePackages::getProductCpe))
-                .keySet().forEach(OVALCachingFactory::clearOVALMetadataByPlatform);
-
-        // Write OVAL metadata in batches
-        DataResult<Map<String, Object>> batch = new DataResult<>(new ArrayList<>(1000));
-        for (ProductVulnerablePackages pvp : productVulnerablePackages) {
-            for (String cve : pvp.getCves()) {
-                for (VulnerablePackage vulnerablePackage : pvp.getVulnerablePackages()) {
-                    Map<String, Object> params = new HashMap<>();
-                    params.put("product_name", pvp.getProductCpe());
-                    params.put("cve_name", cve);
-                    params.put("package_name", vulnerablePackage.getName());
-                    params.put("fix_version", vulnerablePackage.getFixVersion().orElse(null));
-
-                    batch.add(params);
-
-                    if (batch.size() % 1000 == 0) {
-                        mode.getQuery().executeBatchUpdates(batch);
-                        batch.clear();
-                        commitTransaction();
-
-                        Session session = getSession();
-                        if (!inTransaction()) {
-                            session.beginTransaction();
-                        }
-                    }
-                }
-            }
+    /**
+     * Extracts the list of vulnerable packages from the given OVAL file, cleaning up the OVAL resources on
+     * the fly. This does not access the database.
+     * <p>
+     * The file is streamed: tests, objects and states are kept in memory only when needed by the vulnerable package
+     * extractors of {@code osFamily}, and definitions are processed one at a time.
+     *
+     * @param ovalFile the OVAL file to extract from
+     * @param osFamily the osFamily of the OVAL
+     * @param osVersion the osVersion of the OVAL
+     * @param consumer the consumer of the extracted vulnerable packages
+     * */
+    public static void extractPlatformsVulnerablePackages(File ovalFile, OsFamily osFamily, String osVersion,
+                                                          Consumer<ProductVulnerablePackages> consumer) {
+        OvalParser parser = new OvalParser();
+
+        OVALLookupHelper ovalLookupHelper = new OVALLookupHelper();
+        if (VulnerablePackagesExtractors.requiresLookupHelper(osFamily)) {
+            parser.parseResources(ovalFile,
+                    test -> {
+                        OVALCleaner.cleanupTest(test, osFamily, osVersion);
+                        ovalLookupHelper.addTest(test);
+                    },
+                    object -> {
+                        OVALCleaner.cleanupObject(object, osFamily, osVersion);
+                        ovalLookupHelper.addObject(object);
+                    },
+                    state -> {
+                        OVALCleaner.cleanupState(state, osFamily, osVersion);
+                        ovalLookupHelper.addState(state);
+                    });
         }
 
-        mode.getQuery().executeBatchUpdates(new DataResult<>(batch));
+        parser.parseDefinitions(ovalFile, definition -> {
+            if (OVALCleaner.cleanupDefinition(definition, osFamily, osVersion)) {
+                VulnerablePackagesExtractors.create(definition, osFamily, ovalLookupHelper).extract()
+                        .forEach(consumer);
+            }
+        });
+    }
+
+    /**
+     * Bulk loads the vulnerable packages of the given staging file, replacing the previous OVAL metadata of the
+     * products it contains.
+     * <p>
+     * The rows are copied into a temporary table with {@code COPY}, then the missing CVEs, platforms and
+     * packages are created and the vulnerable packages of each platform are swapped with set based statements.
+     * The transaction is not committed: readers see the previous metadata until the caller commits.
+     *
+     * @param stagingFile the staging file to load
+     * */
+    public static void savePlatformsVulnerablePackages(OVALStagingFile stagingFile) {
+        ModeFactory.getWriteMode("oval_queries", "create_oval_staging").executeUpdate(Map.of());
+
+        long copied = getSession().doReturningWork(connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try (Reader reader = stagingFile.openReader()) {
+                return copyManager.copyIn(
+                        "COPY suseOVALStaging (product_cpe, cve_name, package_name, fix_version) FROM STDIN", reader);
+            }
+            catch (IOException e) {
+                throw new SQLException("Unable to read the OVAL staging file", e);
+            }
+        });
+        LOG.debug("Copied {} vulnerable package rows into the OVAL staging table", copied);
+
+        if (ConfigDefaults.get().isCveAuditPrecomputedExposure()) {
+            // The vulnerabilities of the systems running the staged products must be evaluated again
+            ModeFactory.getWriteMode("oval_queries", "enqueue_exposure_servers_by_oval_staging")
+                    .executeUpdate(Map.of());
+        }
+        ModeFactory.getWriteMode("oval_queries", "insert_oval_staging_references").executeUpdate(Map.of());
+        ModeFactory.getWriteMode("oval_queries", "swap_oval_platform_vulnerable_packages").executeUpdate(Map.of());
     }
 
     /**
@@ -132,6 +170,98 @@ public class OVALCachingFactory extends HibernateFactory {
         }).collect(Collectors.toList());
     }
 
+    /**
+     * The systems visible to a user, with the availability of the data sources used to audit them.
+     *
+     * @param id the server id
+     * @param name the server name
+     * @param ovalAvailable whether OVAL vulnerability records exist for the OS of the server
+     * @param errataAvailable whether the CVE channels of the server contain erratas
+     */
+    public record AuditedSystem(Long id, String name, boolean ovalAvailable, boolean errataAvailable) { }
+
+    /**
+     * An installed version of a package that the OVAL data of a server product declares vulnerable to a CVE.
+     *
+     * @param serverId the server id
+     * @param vulnerablePackage the vulnerable package
+     * @param installed the installed version of the package
+     */
+    public record InstalledVulnerablePackage(Long serverId, VulnerablePackage vulnerablePackage,
+                                             ShallowSystemPackage installed) { }
+
+    /**
+     * List the systems visible to the given user together with the availability of OVAL and channels data.
+     *
+     * @param userId the user id
+     * @return the visible systems, ordered by id
+     */
+    public static List<AuditedSystem> listAuditedSystems(Long userId) {
+        SelectMode mode = ModeFactory.getMode("oval_queries", "list_user_systems_oval_audit_sources");
+        DataResult<Row> result = mode.execute(Map.of("user_id", userId));
+
+        return result.stream()
+                .map(row -> new AuditedSystem(
+                        (Long) row.get("server_id"),
+                        (String) row.get("server_name"),
+                        (Boolean) row.get("oval_available"),
+                        (Boolean) row.get("errata_available")))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lookup, for all the systems visible to the given user at once, the installed packages that the OVAL data of
+     * the system product declares vulnerable to the given cve.
+     *
+     * @param userId the user id
+     * @param cve the cve
+     * @return the installed vulnerable packages, grouped by server id
+     */
+    public static Map<Long, List<InstalledVulnerablePackage>> getInstalledVulnerablePackagesByUserAndCve(
+            Long userId, String cve) {
+        SelectMode mode = ModeFactory.getMode("oval_queries", "list_user_systems_installed_vulnerable_packages");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("user_id", userId);
+        params.put("cve_name", cve);
+
+        DataResult<Row> result = mode.execute(params);
+
+        return result.stream()
+                .map(row -> toInstalledVulnerablePackage((Long) row.get("server_id"), row))
+                .collect(Collectors.groupingBy(InstalledVulnerablePackage::serverId));
+    }
+
+    /**
+     * Lookup the installed packages of the given server that the OVAL data of the server product declares
+     * vulnerable, for all the CVEs at once.
+     *
+     * @param serverId the server id
+     * @return the installed vulnerable packages, grouped by cve id
+     */
+    public static Map<Long, List<InstalledVulnerablePackage>> getInstalledVulnerablePackagesByServer(Long serverId) {
+        SelectMode mode = ModeFactory.getMode("oval_queries", "list_system_installed_vulnerable_packages");
+        DataResult<Row> result = mode.execute(Map.of("sid", serverId));
+
+        return result.stream().collect(Collectors.groupingBy(row -> (Long) row.get("cve_id"),
+                Collectors.mapping(row -> toInstalledVulnerablePackage(serverId, row), Collectors.toList())));
+    }
+
+    private static InstalledVulnerablePackage toInstalledVulnerablePackage(Long serverId, Row row) {
+        VulnerablePackage vulnerablePackage = new VulnerablePackage();
+        vulnerablePackage.setName((String) row.get("vulnerable_pkg_name"));
+        vulnerablePackage.setFixVersion((String) row.get("vulnerable_pkg_fix_version"));
+
+        ShallowSystemPackage installed = new ShallowSystemPackage();
+        installed.setName(vulnerablePackage.getName());
+        installed.setEpoch((String) row.get("epoch"));
+        installed.setVersion((String) row.get("version"));
+        installed.setRelease((String) row.get("release"));
+        installed.setType((String) row.get("type"));
+
+        return new InstalledVulnerablePackage(serverId, vulnerablePackage, installed);
+    }
+
     /**
      * Verify the presence of OVAL data in the database for the given CVE to determine whether an audit of the CVE
      * can be conducted.
@@ -57,22 +57,41 @@ public class OVALCleaner {
         root.setOsFamily(osFamily);
         root.setOsVersion(osVersion);
 
-        if (osFamily == OsFamily.REDHAT_ENTERPRISE_LINUX) {
-            root.getDefinitions().removeIf(def -> def.getId().contains("unaffected"));
+        root.getDefinitions().removeIf(definition -> !cleanupDefinition(definition, osFamily, osVersion));
+        root.getTests().forEach(test -> cleanupTest(test, osFamily, osVersion));
+        root.getStates().forEach(state -> cleanupState(state, osFamily, osVersion));
+        root.getObjects().forEach(object -> cleanupObject(object, osFamily, osVersion));
+    }
+
+    /**
+     * Cleanup the given {@code definition} based on {@code osFamily} and {@code osVersion}, if relevant.
+     *
+     * @param definition the OVAL definition to clean up
+     * @param osFamily the osFamily of the OVAL
+     * @param osVersion the osVersion of the OVAL
+     * @return {@code True} if the definition is relevant and was cleaned up, {@code False} if it should be ignored
+     * */
+    public static boolean cleanupDefinition(DefinitionType definition, OsFamily osFamily, String osVersion) {
+        if (!isRelevant(definition, osFamily)) {
+            return false;
+        }
+        doCleanupDefinition(definition, osFamily, osVersion);
+        return true;
+    }
+
+    private static boolean isRelevant(DefinitionType definition, OsFamily osFamily) {
+        if (osFamily == OsFamily.REDHAT_ENTERPRISE_LINUX && definition.getId().contains("unaffected")) {
+            return false;
         }
 
         // Debian OVAL files could contain patch definitions, but we're only interested in vulnerability definitions
-        if (osFamily == OsFamily.DEBIAN || osFamily == OsFamily.UBUNTU) {
-            root.getDefinitions().removeIf(def -> def.getDefinitionClass() != DefinitionClassEnum.VULNERABILITY);
+        if ((osFamily == OsFamily.DEBIAN || osFamily == OsFamily.UBUNTU) &&
+                definition.getDefinitionClass() != DefinitionClassEnum.VULNERABILITY) {
+            return false;
         }
 
         // Although it's rare, but it's possible to get null criteria trees.
-        root.getDefinitions().removeIf(def -> def.getCriteria() == null);
-
-        root.getDefinitions().forEach(definition -> doCleanupDefinition(definition, osFamily, osVersion));
-        root.getTests().forEach(test -> doCleanupTest(test, osFamily, osVersion));
-        root.getStates().forEach(state -> doCleanupState(state, osFamily, osVersion));
-        root.getObjects().forEach(object -> doCleanupObject(object, osFamily, osVersion));
+        return definition.getCriteria() != null;
     }
 
     private static void doCleanupDefinition(DefinitionType definition, OsFamily osFamily, String osVersion) {
@@ -135,7 +154,14 @@ public class OVALCleaner {
         definition.setOsVersion(osVersion);
     }
 
-    private static void doCleanupTest(TestType test, OsFamily osFamily, String osVersion) {
+    /**
+     * Cleanup the given {@code test} based on {@code osFamily} and {@code osVersion}
+     *
+     * @param test the OVAL test to clean up
+     * @param osFamily the osFamily of the OVAL
+     * @param osVersion the osVersion of the OVAL
+     * */
+    public static void cleanupTest(TestType test, OsFamily osFamily, String osVersion) {
         if (osFamily == OsFamily.DEBIAN) {
             test.setId(convertDebianId(test.getId(), osVersion));
             test.setObjectRef(convertDebianId(test.getObjectRef(), osVersion));
@@ -143,13 +169,27 @@ public class OVALCleaner {
         }
     }
 
-    private static void doCleanupState(StateType state, OsFamily osFamily, String osVersion) {
+    /**
+     * Cleanup the given {@code state} based on {@code osFamily} and {@code osVersion}
+     *
+     * @param state the OVAL state to clean up
+     * @param osFamily the osFamily of the OVAL
+     * @param osVersion the osVersion of the OVAL
+     * */
+    public static void cleanupState(StateType state, OsFamily osFamily, String osVersion) {
         if (osFamily == OsFamily.DEBIAN) {
             state.setId(convertDebianId(state.getId(), osVersion));
         }
     }
 
-    private static void doCleanupObject(ObjectType object, OsFamily osFamily, String osVersion) {
+    /**
+     * Cleanup the given {@code object} based on {@code osFamily} and {@code osVersion}
+     *
+     * @param object the OVAL object to clean up
+     * @param osFamily the osFamily of the OVAL
+     * @param osVersion the osVersion of the OVAL
+     * */
+    public static void cleanupObject(ObjectType object, OsFamily osFamily, String osVersion) {
         if (osFamily == OsFamily.DEBIAN) {
             object.setId(convertDebianId(object.getId(), osVersion));
         }
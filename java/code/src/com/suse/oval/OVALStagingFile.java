@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.suse.oval;
+
+import com.suse.oval.vulnerablepkgextractor.ProductVulnerablePackages;
+import com.suse.oval.vulnerablepkgextractor.VulnerablePackage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A temporary file holding the vulnerable packages extracted from the OVAL files of a product, in the text format of
+ * the PostgreSQL {@code COPY} command. The rows are (product cpe, cve name, package name, fix version).
+ * <p>
+ * Staging the extracted data on disk decouples the extraction, which can run in parallel for several products,
+ * from the bulk load into the database, while keeping the memory usage bounded.
+ */
+public class OVALStagingFile implements AutoCloseable {
+
+    private static final String NULL = "\\N";
+
+    private final Path path;
+    private Writer writer;
+    private long rows;
+
+    /**
+     * Creates a new empty staging file
+     */
+    public OVALStagingFile() {
+        try {
+            path = Files.createTempFile("oval-staging-", ".copy");
+            writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to create OVAL staging file", e);
+        }
+    }
+
+    /**
+     * Appends the given vulnerable packages, one row per cve and package
+     *
+     * @param pvp the vulnerable packages of a product
+     */
+    public void add(ProductVulnerablePackages pvp) {
+        try {
+            for (String cve : pvp.getCves()) {
+                for (VulnerablePackage vulnerablePackage : pvp.getVulnerablePackages()) {
+                    writer.write(escape(pvp.getProductCpe()));
+                    writer.write('\t');
+                    writer.write(escape(cve));
+                    writer.write('\t');
+                    writer.write(escape(vulnerablePackage.getName()));
+                    writer.write('\t');
+                    writer.write(vulnerablePackage.getFixVersion().map(OVALStagingFile::escape).orElse(NULL));
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to write OVAL staging file " + path, e);
+        }
+    }
+
+    /**
+     * Completes the staging file and opens it for reading
+     *
+     * @return a reader of the staged rows
+     * @throws IOException if the file cannot be read
+     */
+    public Reader openReader() throws IOException {
+        closeWriter();
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of staged rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Escapes the characters having a special meaning in the {@code COPY} text format
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Deletes the staging file
+     */
+    @Override
+    public void close() {
+        try {
+            closeWriter();
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete OVAL staging file " + path, e);
+        }
+    }
+}
@@ -16,21 +16,87 @@
 package com.suse.oval;
 
 import com.suse.oval.exceptions.OvalParserException;
+import com.suse.oval.ovaltypes.DefinitionType;
+import com.suse.oval.ovaltypes.ObjectType;
 import com.suse.oval.ovaltypes.OvalRootType;
+import com.suse.oval.ovaltypes.StateType;
+import com.suse.oval.ovaltypes.TestType;
+import com.suse.oval.ovaltypes.linux.DpkginfoObject;
+import com.suse.oval.ovaltypes.linux.DpkginfoState;
+import com.suse.oval.ovaltypes.linux.DpkginfoTest;
+import com.suse.oval.ovaltypes.linux.RpminfoObject;
+import com.suse.oval.ovaltypes.linux.RpminfoState;
+import com.suse.oval.ovaltypes.linux.RpminfoTest;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * The Oval Parser is responsible for parsing OVAL(Open Vulnerability and Assessment Language) documents
+ *
+ * OVAL files can be several hundreds of megabytes big: besides unmarshalling a whole document with
+ * {@link #parse(File)}, the parser can stream the OVAL resources one by one, so that only the resources currently
+ * processed are kept in memory.
  */
 public class OvalParser {
 
+    private static final String OVAL_NS = "http://oval.mitre.org/XMLSchema/oval-definitions-5";
+    private static final String OVAL_LINUX_NS = OVAL_NS + "#linux";
+
+    private static final Map<QName, Class<? extends DefinitionType>> DEFINITION_ELEMENTS = Map.of(
+            new QName(OVAL_NS, "definition"), DefinitionType.class);
+
+    private static final Map<QName, Class<? extends TestType>> TEST_ELEMENTS = Map.of(
+            new QName(OVAL_LINUX_NS, "rpminfo_test"), RpminfoTest.class,
+            new QName(OVAL_LINUX_NS, "dpkginfo_test"), DpkginfoTest.class,
+            new QName(OVAL_NS, "test"), TestType.class);
+
+    private static final Map<QName, Class<? extends ObjectType>> OBJECT_ELEMENTS = Map.of(
+            new QName(OVAL_LINUX_NS, "rpminfo_object"), RpminfoObject.class,
+            new QName(OVAL_LINUX_NS, "dpkginfo_object"), DpkginfoObject.class,
+            new QName(OVAL_NS, "object"), ObjectType.class);
+
+    private static final Map<QName, Class<? extends StateType>> STATE_ELEMENTS = Map.of(
+            new QName(OVAL_LINUX_NS, "rpminfo_state"), RpminfoState.class,
+            new QName(OVAL_LINUX_NS, "dpkginfo_state"), DpkginfoState.class,
+            new QName(OVAL_NS, "state"), StateType.class);
+
+    /**
+     * Depth of the OVAL resources in the document: oval_definitions, then the section (e.g. definitions), then
+     * the resources themselves.
+     */
+    private static final int RESOURCE_DEPTH = 3;
+
+    private static JAXBContext jaxbContext;
+
+    /**
+     * Returns the JAXB context for OVAL documents. Creating a context is expensive and contexts are thread safe,
+     * so it is created only once.
+     */
+    private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(OvalRootType.class);
+        }
+        return jaxbContext;
+    }
+
     /**
      * Parse the given OVAL file
      *
@@ -39,8 +105,7 @@ public class OvalParser {
      * */
     public OvalRootType parse(File ovalFile) throws OvalParserException {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(OvalRootType.class);
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            Unmarshaller unmarshaller = getJaxbContext().createUnmarshaller();
             return (OvalRootType) unmarshaller.unmarshal(ovalFile);
         }
         catch (JAXBException e) {
@@ -63,4 +128,94 @@ public class OvalParser {
         }
     }
 
+    /**
+     * Streams the definitions of the given OVAL file, one at a time. The tests, objects and states are skipped.
+     *
+     * @param ovalFile the OVAL file to parse
+     * @param definitionConsumer the consumer of the parsed definitions
+     */
+    public void parseDefinitions(File ovalFile, Consumer<DefinitionType> definitionConsumer)
+            throws OvalParserException {
+        Map<QName, ResourceHandler<?>> handlers = new HashMap<>();
+        register(handlers, DEFINITION_ELEMENTS, definitionConsumer);
+        stream(ovalFile, handlers);
+    }
+
+    /**
+     * Streams the tests, objects and states of the given OVAL file, one at a time. The definitions are skipped.
+     *
+     * @param ovalFile the OVAL file to parse
+     * @param testConsumer the consumer of the parsed tests
+     * @param objectConsumer the consumer of the parsed objects
+     * @param stateConsumer the consumer of the parsed states
+     */
+    public void parseResources(File ovalFile, Consumer<TestType> testConsumer, Consumer<ObjectType> objectConsumer,
+                               Consumer<StateType> stateConsumer) throws OvalParserException {
+        Map<QName, ResourceHandler<?>> handlers = new HashMap<>();
+        register(handlers, TEST_ELEMENTS, testConsumer);
+        register(handlers, OBJECT_ELEMENTS, objectConsumer);
+        register(handlers, STATE_ELEMENTS, stateConsumer);
+        stream(ovalFile, handlers);
+    }
+
+    /**
+     * Unmarshalls an OVAL resource element and passes it to a consumer.
+     *
+     * @param type the type of the resource
+     * @param consumer the consumer of the resource
+     * @param <T> the type of the resource
+     */
+    private record ResourceHandler<T>(Class<? extends T> type, Consumer<T> consumer) {
+        void handle(Unmarshaller unmarshaller, XMLStreamReader reader) throws JAXBException {
+            consumer.accept(unmarshaller.unmarshal(reader, type).getValue());
+        }
+    }
+
+    private static <T> void register(Map<QName, ResourceHandler<?>> handlers,
+                                     Map<QName, Class<? extends T>> elements, Consumer<T> consumer) {
+        elements.forEach((name, type) -> handlers.put(name, new ResourceHandler<>(type, consumer)));
+    }
+
+    private void stream(File ovalFile, Map<QName, ResourceHandler<?>> handlers) {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = null;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(ovalFile.toPath()))) {
+            reader = inputFactory.createXMLStreamReader(input);
+            Unmarshaller unmarshaller = getJaxbContext().createUnmarshaller();
+
+            int depth = 0;
+            while (reader.hasNext()) {
+                if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    ResourceHandler<?> handler = depth == RESOURCE_DEPTH ? handlers.get(reader.getName()) : null;
+                    if (handler != null) {
+                        // the unmarshaller consumes the whole element, including its end tag
+                        handler.handle(unmarshaller, reader);
+                        depth--;
+                        continue;
+                    }
+                }
+                else if (reader.getEventType() == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+                reader.next();
+            }
+        }
+        catch (JAXBException | XMLStreamException | IOException e) {
+            throw new OvalParserException("Failed to parse the given OVAL file at: " + ovalFile.getAbsolutePath(), e);
+        }
+        finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                }
+                catch (XMLStreamException e) {
+                    // nothing to do, the underlying stream is closed anyway
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.suse.oval;
+
+import com.redhat.rhn.domain.rhnpackage.PackageEvr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The packages installed on a system, indexed by name. The installed versions of a package are sorted by EVR,
+ * lowest first, so that checking whether a package is installed or patched does not require scanning all the
+ * installed packages of the system.
+ */
+public class SystemPackageIndex {
+
+    private static final Comparator<PackageEvr> EVR_ORDER = Comparator
+            .comparing((PackageEvr evr) -> Objects.toString(evr.getType(), ""))
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Map<String, List<PackageEvr>> versionsByName;
+
+    /**
+     * Builds the index of the given installed packages
+     *
+     * @param installedPackages the packages installed on the system
+     */
+    public SystemPackageIndex(Collection<ShallowSystemPackage> installedPackages) {
+        versionsByName = new HashMap<>();
+        for (ShallowSystemPackage installed : installedPackages) {
+            versionsByName.computeIfAbsent(installed.getName(), name -> new ArrayList<>(1))
+                    .add(installed.getPackageEVR());
+        }
+        versionsByName.values().forEach(versions -> versions.sort(EVR_ORDER));
+    }
+
+    /**
+     * @param name the package name
+     * @return {@code True} if at least one version of the package is installed
+     */
+    public boolean isInstalled(String name) {
+        return versionsByName.containsKey(name);
+    }
+
+    /**
+     * Checks whether all the installed versions of a package are at least at the given fix version. Since the
+     * versions are sorted, only the lowest installed version of each package type is compared.
+     *
+     * @param name the package name
+     * @param fixVersion the version fixing the vulnerability
+     * @return {@code True} if no installed version of the package is lower than {@code fixVersion}
+     */
+    public boolean isPatched(String name, String fixVersion) {
+        String previousType = null;
+        for (PackageEvr installed : versionsByName.getOrDefault(name, List.of())) {
+            String type = installed.getType();
+            if (previousType != null && previousType.equals(type)) {
+                continue;
+            }
+            previousType = type;
+
+            PackageEvr fixEvr = "deb".equals(type) ?
+                    PackageEvr.parseDebian(fixVersion) :
+                    PackageEvr.parseRpm(fixVersion);
+            if (installed.compareTo(fixEvr) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -20,6 +20,7 @@ import com.suse.oval.ovaltypes.OvalRootType;
 import com.suse.oval.ovaltypes.StateType;
 import com.suse.oval.ovaltypes.TestType;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -31,6 +32,15 @@ public class OVALLookupHelper {
     private final OvalTestManager testManager;
     private final OvalObjectManager objectManager;
 
+    /**
+     * Creates an empty helper, to be filled as OVAL resources are parsed
+     */
+    public OVALLookupHelper() {
+        this.stateManager = new OvalStateManager(List.of());
+        this.testManager = new OvalTestManager(List.of());
+        this.objectManager = new OvalObjectManager(List.of());
+    }
+
     /**
      * Standard constructor
      *
@@ -42,6 +52,33 @@ public class OVALLookupHelper {
         this.objectManager = new OvalObjectManager(rootType.getObjects());
     }
 
+    /**
+     * Adds an OVAL test to the lookup indexes
+     *
+     * @param test the test to add
+     */
+    public void addTest(TestType test) {
+        testManager.add(test);
+    }
+
+    /**
+     * Adds an OVAL state to the lookup indexes
+     *
+     * @param state the state to add
+     */
+    public void addState(StateType state) {
+        stateManager.add(state);
+    }
+
+    /**
+     * Adds an OVAL object to the lookup indexes
+     *
+     * @param object the object to add
+     */
+    public void addObject(ObjectType object) {
+        objectManager.add(object);
+    }
+
     /**
      * Looks up an OVAL test with an id of {@code testId}
      *
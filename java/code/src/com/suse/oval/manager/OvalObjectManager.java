@@ -39,6 +39,15 @@ public class OvalObjectManager {
         }
     }
 
+    /**
+     * Stores an OVAL object to lookup later
+     *
+     * @param object the object to store
+     * */
+    public void add(ObjectType object) {
+        objectsMap.put(object.getId(), object);
+    }
+
     /**
      * Looks up an OVAL object with an id of {@code objectId}
      *
@@ -39,6 +39,15 @@ public class OvalStateManager {
         }
     }
 
+    /**
+     * Stores an OVAL state to lookup later
+     *
+     * @param state the state to store
+     * */
+    public void add(StateType state) {
+        statesMap.put(state.getId(), state);
+    }
+
     /**
      * Looks up an OVAL state with an id of {@code stateId} or throws an exception if none is found.
      *
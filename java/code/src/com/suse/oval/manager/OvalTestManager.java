@@ -40,6 +40,15 @@ public class OvalTestManager {
         }
     }
 
+    /**
+     * Stores an OVAL test to lookup later
+     *
+     * @param test the test to store
+     * */
+    public void add(TestType test) {
+        testsMap.put(test.getId(), test);
+    }
+
     /**
      * Looks up an OVAL test with an id of {@code testId} or throws an exception if none is found.
      *
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.oval.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.suse.oval.OVALStagingFile;
+import com.suse.oval.vulnerablepkgextractor.ProductVulnerablePackages;
+import com.suse.oval.vulnerablepkgextractor.VulnerablePackage;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.List;
+
+public class OVALStagingFileTest {
+
+    private static VulnerablePackage vulnerablePackage(String name, String fixVersion) {
+        VulnerablePackage vulnerablePackage = new VulnerablePackage();
+        vulnerablePackage.setName(name);
+        vulnerablePackage.setFixVersion(fixVersion);
+        return vulnerablePackage;
+    }
+
+    @Test
+    public void testCopyFormat() throws Exception {
+        ProductVulnerablePackages pvp = new ProductVulnerablePackages();
+        pvp.setProductCpe("cpe:/o:suse:sles:15:sp5");
+        pvp.setCves(List.of("CVE-2023-1", "CVE-2023-2"));
+        pvp.setVulnerablePackages(List.of(
+                vulnerablePackage("kernel-default", "0:5.14.21-150500.55.1"),
+                vulnerablePackage("weird\tname\\with\nspecials", null)));
+
+        try (OVALStagingFile stagingFile = new OVALStagingFile()) {
+            stagingFile.add(pvp);
+
+            assertEquals(4, stagingFile.getRows());
+            try (Reader reader = stagingFile.openReader()) {
+                assertEquals(
+                        "cpe:/o:suse:sles:15:sp5\tCVE-2023-1\tkernel-default\t0:5.14.21-150500.55.1\n" +
+                        "cpe:/o:suse:sles:15:sp5\tCVE-2023-1\tweird\\tname\\\\with\\nspecials\t\\N\n" +
+                        "cpe:/o:suse:sles:15:sp5\tCVE-2023-2\tkernel-default\t0:5.14.21-150500.55.1\n" +
+                        "cpe:/o:suse:sles:15:sp5\tCVE-2023-2\tweird\\tname\\\\with\\nspecials\t\\N\n",
+                        IOUtils.toString(reader));
+            }
+        }
+    }
+}
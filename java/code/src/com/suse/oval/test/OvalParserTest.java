@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.suse.oval.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.redhat.rhn.testing.TestUtils;
+
+import com.suse.oval.OvalParser;
+import com.suse.oval.ovaltypes.DefinitionType;
+import com.suse.oval.ovaltypes.ObjectType;
+import com.suse.oval.ovaltypes.OvalRootType;
+import com.suse.oval.ovaltypes.StateType;
+import com.suse.oval.ovaltypes.TestType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class OvalParserTest {
+
+    private static final int GENERATED_DEFINITIONS = 50;
+
+    private final OvalParser parser = new OvalParser();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"oval-def-1.xml", "oval-def-2.xml", "oval-def-3.xml"})
+    public void testStreamingMatchesFullParse(String fileName) throws Exception {
+        File ovalFile = new File(TestUtils.findTestData("/com/redhat/rhn/manager/audit/test/oval/" + fileName)
+                .toURI());
+        OvalRootType root = parser.parse(ovalFile);
+
+        List<DefinitionType> definitions = new ArrayList<>();
+        List<TestType> tests = new ArrayList<>();
+        List<ObjectType> objects = new ArrayList<>();
+        List<StateType> states = new ArrayList<>();
+        parser.parseDefinitions(ovalFile, definitions::add);
+        parser.parseResources(ovalFile, tests::add, objects::add, states::add);
+
+        assertFalse(definitions.isEmpty());
+        assertEquals(describeDefinitions(root.getDefinitions()), describeDefinitions(definitions));
+        assertEquals(describeTests(root.getTests()), describeTests(tests));
+        assertEquals(root.getObjects().stream().map(o -> o.getClass().getSimpleName() + o.getId() + o.getPackageName())
+                        .collect(Collectors.toList()),
+                objects.stream().map(o -> o.getClass().getSimpleName() + o.getId() + o.getPackageName())
+                        .collect(Collectors.toList()));
+        assertEquals(root.getStates().stream().map(s -> s.getClass().getSimpleName() + s.getId())
+                        .collect(Collectors.toList()),
+                states.stream().map(s -> s.getClass().getSimpleName() + s.getId()).collect(Collectors.toList()));
+    }
+
+    private static List<String> describeDefinitions(List<DefinitionType> definitions) {
+        return definitions.stream()
+                .map(d -> d.getId() + " " + d.getDefinitionClass() + " " + d.getMetadata().getTitle() + " " +
+                        d.getCriteria().getChildren().size())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> describeTests(List<TestType> tests) {
+        return tests.stream()
+                .map(t -> t.getClass().getSimpleName() + " " + t.getId() + " " + t.getObjectRef() + " " +
+                        t.getStateRef().orElse(null))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testStreamingGeneratedFeed(@TempDir Path tempDir) throws Exception {
+        File ovalFile = generateFeed(tempDir.resolve("oval-generated.xml"), GENERATED_DEFINITIONS, 1);
+        OvalRootType root = parser.parse(ovalFile);
+
+        List<DefinitionType> definitions = new ArrayList<>();
+        parser.parseDefinitions(ovalFile, definitions::add);
+
+        // the definitions are handed over one by one, in document order
+        assertEquals(GENERATED_DEFINITIONS, definitions.size());
+        for (int i = 0; i < GENERATED_DEFINITIONS; i++) {
+            assertEquals("oval:org.opensuse.security:def:" + i, definitions.get(i).getId());
+            assertEquals("CVE-2023-" + i, definitions.get(i).getMetadata().getTitle());
+        }
+        assertEquals(describeDefinitions(root.getDefinitions()), describeDefinitions(definitions));
+    }
+
+    /**
+     * Generates an OVAL feed, also used by OvalParserBenchmark.
+     *
+     * @param path the file to generate
+     * @param definitions the number of definitions
+     * @param descriptionRepeats how many times the sentence of the definition descriptions is repeated
+     * @return the generated file
+     * @throws IOException if the file cannot be written
+     */
+    static File generateFeed(Path path, int definitions, int descriptionRepeats) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.println("<oval_definitions xmlns=\"http://oval.mitre.org/XMLSchema/oval-definitions-5\">");
+            out.println("<definitions>");
+            String description = "A vulnerability in a package allowing remote attackers to do bad things. "
+                    .repeat(descriptionRepeats);
+            for (int i = 0; i < definitions; i++) {
+                out.printf("<definition id=\"oval:org.opensuse.security:def:%d\" version=\"1\" " +
+                        "class=\"vulnerability\"><metadata><title>CVE-2023-%d</title>" +
+                        "<affected family=\"unix\"><platform>openSUSE Leap 15.4</platform></affected>" +
+                        "<description>%s</description><advisory from=\"security@suse.de\">" +
+                        "<cve href=\"https://www.suse.com/security/cve/CVE-2023-%d/\">CVE-2023-%d</cve>" +
+                        "<affected_cpe_list><cpe>cpe:/o:opensuse:leap:15.4</cpe></affected_cpe_list>" +
+                        "</advisory></metadata><criteria operator=\"AND\">" +
+                        "<criterion test_ref=\"oval:org.opensuse.security:tst:1\" comment=\"Leap is installed\"/>" +
+                        "<criterion test_ref=\"oval:org.opensuse.security:tst:%d\" comment=\"pkg is affected\"/>" +
+                        "</criteria></definition>%n", i, i, description, i, i, i + 2);
+            }
+            out.println("</definitions>");
+            out.println("</oval_definitions>");
+        }
+        return path.toFile();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.suse.oval.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.redhat.rhn.domain.rhnpackage.PackageEvr;
+
+import com.suse.oval.ShallowSystemPackage;
+import com.suse.oval.SystemPackageIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class SystemPackageIndexTest {
+
+    static ShallowSystemPackage pkg(String name, String epoch, String version, String release, String type) {
+        ShallowSystemPackage pkg = new ShallowSystemPackage();
+        pkg.setName(name);
+        pkg.setEpoch(epoch);
+        pkg.setVersion(version);
+        pkg.setRelease(release);
+        pkg.setType(type);
+        return pkg;
+    }
+
+    @Test
+    public void testLookup() {
+        SystemPackageIndex index = new SystemPackageIndex(List.of(
+                pkg("kernel-default", null, "5.14.21", "150500.55.19.1", "rpm"),
+                pkg("kernel-default", null, "5.14.21", "150500.55.7.1", "rpm"),
+                pkg("kernel-default", null, "5.3.18", "150300.59.1", "rpm"),
+                pkg("openssl", "1", "1.1.1l", "150500.17.1", "rpm")));
+
+        assertTrue(index.isInstalled("kernel-default"));
+        assertTrue(index.isInstalled("openssl"));
+        assertFalse(index.isInstalled("kernel-rt"));
+
+        // a package that is not installed has nothing to patch
+        assertTrue(index.isPatched("kernel-rt", "0:5.14.21-150500.55.19.1"));
+        // the lowest installed version decides, whatever the insertion order
+        assertFalse(index.isPatched("kernel-default", "0:5.14.21-150500.55.7.1"));
+        assertTrue(index.isPatched("kernel-default", "0:5.3.18-150300.59.1"));
+    }
+
+    @Test
+    public void testIsPatched() {
+        SystemPackageIndex index = new SystemPackageIndex(List.of(
+                pkg("kernel-default", null, "5.14.21", "150500.55.19.1", "rpm"),
+                pkg("kernel-default", null, "5.14.21", "150500.55.7.1", "rpm"),
+                pkg("openssl", "1", "1.1.1l", "150500.17.1", "rpm"),
+                pkg("libc6", null, "2.36", "9+deb12u3", "deb")));
+
+        // every installed version must be at least the fix version
+        assertTrue(index.isPatched("kernel-default", "0:5.14.21-150500.55.7.1"));
+        assertFalse(index.isPatched("kernel-default", "0:5.14.21-150500.55.12.1"));
+        assertTrue(index.isPatched("openssl", "1:1.1.1l-150500.17.1"));
+        assertFalse(index.isPatched("openssl", "1:1.1.1l-150500.17.2"));
+        assertTrue(index.isPatched("libc6", "2.36-9+deb12u3"));
+        assertFalse(index.isPatched("libc6", "2.36-9+deb12u4"));
+    }
+
+    /**
+     * The lookup implementation used before the index: linear scans of the installed packages list. Also used by
+     * SystemPackageIndexBenchmark.
+     */
+    static boolean isPatchedLinear(List<ShallowSystemPackage> installedPackages, String name,
+                                           String fixVersion) {
+        boolean installed = installedPackages.stream().anyMatch(p -> Objects.equals(p.getName(), name));
+        return !installed || installedPackages.stream()
+                .filter(p -> Objects.equals(p.getName(), name))
+                .allMatch(p -> p.getPackageEVR().compareTo(PackageEvr.parseRpm(fixVersion)) >= 0);
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        List<String> names = List.of("kernel-default", "openssl", "glibc", "vim", "not-installed");
+        List<String> fixVersions = List.of("0:1.4-1", "0:1.5-1", "0:1.5-2", "1:1.0-1");
+
+        for (int s = 0; s < 10; s++) {
+            // some systems have several versions of a package installed, some none
+            List<ShallowSystemPackage> installedPackages = new ArrayList<>();
+            for (int i = 0; i < names.size() - 1; i++) {
+                for (int v = 0; v <= (s + i) % 3; v++) {
+                    installedPackages.add(pkg(names.get(i), null, "1." + ((s + i + v) % 7), "1", "rpm"));
+                }
+            }
+
+            SystemPackageIndex index = new SystemPackageIndex(installedPackages);
+            for (String name : names) {
+                for (String fixVersion : fixVersions) {
+                    assertEquals(isPatchedLinear(installedPackages, name, fixVersion),
+                            !index.isInstalled(name) || index.isPatched(name, fixVersion),
+                            name + " " + fixVersion + " on system " + s);
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,26 @@ public class VulnerablePackagesExtractors {
 
     private VulnerablePackagesExtractors() {
     }
+
+    /**
+     * Checks whether the extractors for the given {@code osFamily} need to look up OVAL tests, objects and states
+     *
+     * @param osFamily the os family
+     * @return {@code True} if an {@link OVALLookupHelper} with the OVAL resources is needed, {@code False} otherwise
+     * */
+    public static boolean requiresLookupHelper(OsFamily osFamily) {
+        switch (osFamily) {
+            case LEAP:
+            case LEAP_MICRO:
+            case SUSE_LINUX_ENTERPRISE_SERVER:
+            case SUSE_LINUX_ENTERPRISE_DESKTOP:
+            case SUSE_LINUX_ENTERPRISE_MICRO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Create and returns a {@link VulnerablePackagesExtractor} instance based on the given {@code osFamily} argument
      *
@@ -53,7 +53,8 @@ public class AttestationQueueProcessor {
                 "attestation-processor-worker"
             ),
             moduleLoader,
-            configuration.getBatchSize()
+            configuration.getBatchSize(),
+            Duration.ofSeconds(configuration.getResultTimeoutInSeconds())
         );
     }
 
@@ -63,17 +64,20 @@ public class AttestationQueueProcessor {
      * @param service the attestation result service
      * @param executorService the executor to perform the process
      * @param moduleLoader the attestation module loader
-     * @param batchSize the batch size
+     * @param maxInFlight the maximum number of results processed at the same time
+     * @param resultTimeout the maximum time allowed to process a single result
      */
     protected AttestationQueueProcessor(
         DataSource dataSource,
         AttestationResultService service,
         ExecutorService executorService,
         AttestationModuleLoader moduleLoader,
-        int batchSize
+        int maxInFlight,
+        Duration resultTimeout
     ) {
         listeningThread = new ListeningThread(dataSource);
-        processingThread = new ProcessingThread(service, executorService, moduleLoader, batchSize);
+        processingThread = new ProcessingThread(service, executorService, moduleLoader, maxInFlight,
+            resultTimeout);
 
         // Link the two threads
         listeningThread.setProcessingThread(processingThread);
@@ -113,4 +117,12 @@ public class AttestationQueueProcessor {
     public boolean isRunning() {
         return listeningThread.isRunning() || processingThread.isRunning();
     }
+
+    /**
+     * Retrieves the throughput and latency statistics of this processor
+     * @return the processing metrics
+     */
+    ProcessingMetrics getMetrics() {
+        return processingThread.getMetrics();
+    }
 }
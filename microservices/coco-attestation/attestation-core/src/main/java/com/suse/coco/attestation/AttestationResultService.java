@@ -16,7 +16,6 @@ import com.suse.coco.model.AttestationStatus;
 import com.suse.coco.module.AttestationWorker;
 import com.suse.common.database.DatabaseSessionFactory;
 
-import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.logging.log4j.LogManager;
@@ -24,9 +23,9 @@ import org.apache.logging.log4j.Logger;
 
 import java.time.OffsetDateTime;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Service class to handle {@link AttestationResult} in the database
@@ -53,38 +52,38 @@ public class AttestationResultService {
     }
 
     /**
-     * Retrieve the ids of the available attestation results with the given state and result type.
+     * Claim the oldest pending attestation result of the given types and process it. The result is extracted from
+     * the database and locked for update until the processing is completed, results already locked by another
+     * worker are skipped.
      * @param resultTypeList a list of possible result types to match
-     * @param batchSize the number of results to fetch at max
-     * @return the ids of the attestation results matching the criteria
-     */
-    public List<Long> getPendingResultByType(Collection<Integer> resultTypeList, int batchSize) {
-        try (SqlSession session = sessionFactory.openSession()) {
-            return session.selectList(
-                "AttestationResult.listPendingForResultType",
-                Map.of("supportedTypes", resultTypeList, "batchSize", batchSize)
-            );
-        }
-    }
-
-    /**
-     * Process an attestation result. The result is extracted from the database and locked for update.
-     * @param id the id of the attestation result
      * @param worker the worker processing the attestation result
+     * @return the processed attestation result or an empty optional if there was no result available to process
      */
-    public void processAttestationResult(long id, AttestationWorker worker) {
+    public Optional<AttestationResult> processNextPendingResult(Collection<Integer> resultTypeList,
+                                                                AttestationWorker worker) {
         SqlSession session = sessionFactory.openSession();
 
         try {
-            AttestationResult result = lockAttestationResult(session, id);
+            AttestationResult result = session.selectOne(
+                "AttestationResult.selectNextPendingForUpdate",
+                Map.of("supportedTypes", resultTypeList)
+            );
+
             if (result == null) {
-                LOGGER.info("AttestationResult with id {} already taken - skipping", id);
+                LOGGER.debug("No pending attestation result available for processing");
                 session.rollback();
-                return;
+                return Optional.empty();
             }
 
+            long id = result.getId();
             LOGGER.info("AttestationResult with id {} selected for processing", id);
             boolean success = worker.process(session, result);
+
+            // The worker is interrupted when exceeding the processing timeout. Clear the flag to store the outcome.
+            if (Thread.interrupted()) {
+                LOGGER.warn("Processing of AttestationResult with id {} was interrupted", id);
+            }
+
             if (success) {
                 result.setStatus(AttestationStatus.SUCCEEDED);
                 result.setAttested(OffsetDateTime.now());
@@ -97,28 +96,15 @@ public class AttestationResultService {
             session.update("AttestationResult.update", result);
             session.commit();
             LOGGER.info("AttestationResult with id {} completed - result is {}", id, result.getStatus());
+            return Optional.of(result);
         }
         catch (Exception ex) {
-            LOGGER.debug("Unexpected error while processing of result {}", id, ex);
+            LOGGER.error("Unexpected error while processing the next pending result", ex);
             session.rollback();
+            return Optional.empty();
         }
         finally {
             session.close();
         }
     }
-
-    private static AttestationResult lockAttestationResult(SqlSession session, long id) {
-        try {
-            return session.selectOne("AttestationResult.selectForUpdate", id);
-        }
-        catch (PersistenceException ex) {
-            // If the error was due to the row being lock, just return null no need
-            if (ex.getMessage() != null && ex.getMessage().contains("could not obtain lock on row")) {
-                return null;
-            }
-
-            // Something different happened, better propagate the exception for logging purposes
-            throw ex;
-        }
-    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ */
+
+package com.suse.coco.attestation;
+
+import com.suse.coco.model.AttestationStatus;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency statistics of the {@link ProcessingThread}. The values are accumulated by the workers and
+ * periodically reported and reset.
+ */
+class ProcessingMetrics {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProcessingMetrics.class);
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder totalLatency = new LongAdder();
+
+    private final LongAccumulator maxLatency = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * Statistics collected during an interval
+     * @param succeeded the number of results successfully attested
+     * @param failed the number of results that failed the attestation
+     * @param timedOut the number of results that exceeded the processing timeout
+     * @param errors the number of times the processing of the next result failed with an error
+     * @param averageLatency the average time spent to process a result
+     * @param maxLatency the maximum time spent to process a result
+     */
+    record Snapshot(long succeeded, long failed, long timedOut, long errors, Duration averageLatency,
+                    Duration maxLatency) {
+
+        /**
+         * Retrieves the number of processed results
+         * @return the count of results processed in the interval
+         */
+        long processed() {
+            return succeeded + failed;
+        }
+    }
+
+    /**
+     * Records the completion of an attestation result.
+     * @param status the final status of the result
+     * @param latency the time spent to process the result
+     * @param timedOutIn true if the processing exceeded the timeout
+     */
+    public void record(AttestationStatus status, Duration latency, boolean timedOutIn) {
+        if (status == AttestationStatus.SUCCEEDED) {
+            succeeded.increment();
+        }
+        else {
+            failed.increment();
+        }
+
+        if (timedOutIn) {
+            timedOut.increment();
+        }
+
+        totalLatency.add(latency.toMillis());
+        maxLatency.accumulate(latency.toMillis());
+    }
+
+    /**
+     * Records an error processing the next result. The result, if one was claimed, is left in the queue and is
+     * not counted as processed.
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Retrieves the statistics collected so far and resets them
+     * @return the statistics since the last reset
+     */
+    public Snapshot snapshotAndReset() {
+        long succeededCount = succeeded.sumThenReset();
+        long failedCount = failed.sumThenReset();
+        long processed = succeededCount + failedCount;
+        long latency = totalLatency.sumThenReset();
+
+        return new Snapshot(
+            succeededCount,
+            failedCount,
+            timedOut.sumThenReset(),
+            errors.sumThenReset(),
+            Duration.ofMillis(processed == 0 ? 0 : latency / processed),
+            Duration.ofMillis(maxLatency.getThenReset())
+        );
+    }
+
+    /**
+     * Logs the statistics collected during the given interval, if any result has been processed or any error
+     * occurred, and resets them.
+     * @param interval the time elapsed since the last report
+     * @param inFlight the number of results currently being processed
+     */
+    public void report(Duration interval, int inFlight) {
+        Snapshot snapshot = snapshotAndReset();
+        if (snapshot.processed() == 0 && snapshot.errors() == 0) {
+            return;
+        }
+
+        LOGGER.info("Processed {} attestation results in the last {}s ({} succeeded, {} failed, {} timed out, " +
+                "{} errors) - throughput {}/min, average latency {} ms, max latency {} ms, {} in flight",
+            snapshot.processed(), interval.toSeconds(), snapshot.succeeded(), snapshot.failed(), snapshot.timedOut(),
+            snapshot.errors(), snapshot.processed() * 60 / Math.max(1, interval.toSeconds()),
+            snapshot.averageLatency().toMillis(), snapshot.maxLatency().toMillis(), inFlight);
+    }
+}
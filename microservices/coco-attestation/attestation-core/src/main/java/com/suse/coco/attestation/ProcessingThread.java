@@ -11,25 +11,51 @@
 
 package com.suse.coco.attestation;
 
+import com.suse.coco.model.AttestationResult;
 import com.suse.coco.module.AttestationModuleLoader;
 import com.suse.coco.module.AttestationWorker;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Main processing thread of the {@link AttestationQueueProcessor}. Extracts the attestation result of the supported
  * types and uses the correct {@link com.suse.coco.module.AttestationModule} to process them.
+ * <p>
+ * The results are processed as a continuous pipeline: up to {@code maxInFlight} workers run at the same time and
+ * each of them claims the next pending result when it starts, so that a slow attestation only occupies its own
+ * slot. A worker exceeding the result timeout is interrupted. A worker failing to process a result does not mark the
+ * queue as drained: the pending results are retried after a short delay.
  */
 class ProcessingThread extends AbstractProcessorThread {
 
     private static final Logger LOGGER = LogManager.getLogger(ProcessingThread.class);
 
+    private static final Duration METRICS_INTERVAL = Duration.ofMinutes(1);
+
+    private static final Duration ERROR_RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * The outcome of a worker trying to process the next pending result
+     */
+    private enum Outcome {
+        /** A result was claimed and processed */
+        PROCESSED,
+        /** No result was left to claim */
+        DRAINED,
+        /** The processing failed: the pending results, if any, are left in the queue */
+        FAILED
+    }
+
     private final Object dataAvailableLock = new Object();
 
     private final AttestationModuleLoader moduleLoader;
@@ -38,18 +64,44 @@ class ProcessingThread extends AbstractProcessorThread {
 
     private final ExecutorService executorService;
 
-    private final int batchSize;
+    private final ScheduledExecutorService timerService;
+
+    private final ProcessingMetrics metrics;
+
+    private final int maxInFlight;
+
+    private final Duration resultTimeout;
 
     private ListeningThread listeningThread;
 
+    // The following fields are guarded by dataAvailableLock
+    private int inFlight;
+
+    private long dataSequence;
+
+    private long drainedSequence;
+
     ProcessingThread(AttestationResultService serviceIn, ExecutorService executorServiceIn,
-                     AttestationModuleLoader moduleLoaderIn, int batchSizeIn) {
+                     AttestationModuleLoader moduleLoaderIn, int maxInFlightIn, Duration resultTimeoutIn) {
         super("attestation-processor-main");
 
         moduleLoader = moduleLoaderIn;
         service = serviceIn;
         executorService = executorServiceIn;
-        batchSize = batchSizeIn;
+        maxInFlight = maxInFlightIn;
+        resultTimeout = resultTimeoutIn;
+
+        timerService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attestation-processor-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metrics = new ProcessingMetrics();
+
+        inFlight = 0;
+        // Assume there is data to process at startup
+        dataSequence = 1;
+        drainedSequence = 0;
     }
 
     public void setListeningThread(ListeningThread listeningThreadIn) {
@@ -63,6 +115,7 @@ class ProcessingThread extends AbstractProcessorThread {
     public void notifyDataAvailable() {
         if (isRunning()) {
             synchronized (dataAvailableLock) {
+                dataSequence++;
                 dataAvailableLock.notifyAll();
             }
         }
@@ -79,39 +132,20 @@ class ProcessingThread extends AbstractProcessorThread {
 
     @Override
     public void run() {
+        long intervalSeconds = METRICS_INTERVAL.toSeconds();
+        timerService.scheduleAtFixedRate(() -> metrics.report(METRICS_INTERVAL, getInFlight()),
+            intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+
         try {
             while (!Thread.currentThread().isInterrupted() && listeningThread.isRunning()) {
-                // Load the pending attestation results of the supported types
-                List<Long> results = service.getPendingResultByType(moduleLoader.getSupportedResultTypes(), batchSize);
-                if (results.isEmpty()) {
-                    LOGGER.info("No attestation result to process - Waiting");
-                    synchronized (dataAvailableLock) {
-                        dataAvailableLock.wait();
-                    }
+                // Wait for a free slot, as long as there is something to process
+                Optional<Long> sequence = acquireSlot();
+                if (sequence.isEmpty()) {
                     continue;
                 }
 
-                LOGGER.info("Processing attestation results {}", results);
-                CountDownLatch workersDone = new CountDownLatch(results.size());
-
-                // Process each one of them in a separate worker thread
-                results.forEach(resultId -> executorService.execute(() -> {
-                    try {
-                        service.processAttestationResult(resultId, (session, result) -> {
-                            AttestationWorker worker = moduleLoader.createWorker(result.getResultType());
-                            return worker.process(session, result);
-                        });
-                    }
-                    catch (Exception ex) {
-                        LOGGER.error("Unable to correctly process attestation result with id {}", resultId, ex);
-                    }
-                    finally {
-                        workersDone.countDown();
-                    }
-                }));
-
-                // Wait for all workers to complete
-                workersDone.await();
+                // Let a worker thread claim and process the next pending result
+                executorService.execute(() -> processNextResult(sequence.get()));
             }
         }
         catch (InterruptedException ex) {
@@ -135,8 +169,156 @@ class ProcessingThread extends AbstractProcessorThread {
                     }
                 }
             }
+
+            timerService.shutdownNow();
+            metrics.report(METRICS_INTERVAL, 0);
         }
 
         LOGGER.debug("Processor thread is stopped");
     }
+
+    /**
+     * Retrieves the statistics collected by this thread
+     * @return the processing metrics
+     */
+    ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+
+    private int getInFlight() {
+        synchronized (dataAvailableLock) {
+            return inFlight;
+        }
+    }
+
+    private Optional<Long> acquireSlot() throws InterruptedException {
+        synchronized (dataAvailableLock) {
+            while (inFlight >= maxInFlight || drainedSequence >= dataSequence) {
+                if (!listeningThread.isRunning()) {
+                    return Optional.empty();
+                }
+
+                dataAvailableLock.wait();
+            }
+
+            inFlight++;
+            return Optional.of(dataSequence);
+        }
+    }
+
+    private void releaseSlot(long sequence, Outcome outcome) {
+        synchronized (dataAvailableLock) {
+            inFlight--;
+
+            // Nothing was left to claim: wait for a new notification before starting other workers
+            if (outcome == Outcome.DRAINED && sequence > drainedSequence) {
+                LOGGER.info("No attestation result to process - Waiting");
+                drainedSequence = sequence;
+            }
+
+            dataAvailableLock.notifyAll();
+        }
+    }
+
+    private void processNextResult(long sequence) {
+        Instant start = Instant.now();
+        ResultTimeout timeout = new ResultTimeout(Thread.currentThread());
+        ScheduledFuture<?> timeoutFuture = timerService.schedule(timeout, resultTimeout.toMillis(),
+            TimeUnit.MILLISECONDS);
+
+        Outcome outcome = Outcome.FAILED;
+        try {
+            Optional<AttestationResult> processed = service.processNextPendingResult(
+                moduleLoader.getSupportedResultTypes(),
+                (session, result) -> {
+                    timeout.setResultId(result.getId());
+                    AttestationWorker worker = moduleLoader.createWorker(result.getResultType());
+                    return worker.process(session, result);
+                }
+            );
+
+            outcome = processed.isPresent() ? Outcome.PROCESSED : Outcome.DRAINED;
+            boolean timedOut = timeout.complete();
+            processed.ifPresent(result ->
+                metrics.record(result.getStatus(), Duration.between(start, Instant.now()), timedOut)
+            );
+        }
+        catch (Exception ex) {
+            LOGGER.error("Unable to correctly process the next attestation result", ex);
+            metrics.recordError();
+        }
+        finally {
+            timeout.complete();
+            timeoutFuture.cancel(false);
+            if (outcome == Outcome.FAILED) {
+                waitBeforeRetry();
+            }
+            releaseSlot(sequence, outcome);
+        }
+    }
+
+    /**
+     * Keeps the slot of a failed worker for a while, so that a persistent failure, like the database being
+     * unavailable, does not make the other workers retry in a tight loop.
+     */
+    private static void waitBeforeRetry() {
+        try {
+            Thread.sleep(ERROR_RETRY_DELAY.toMillis());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Interrupts the worker thread processing a result, unless the processing has already been completed.
+     */
+    private class ResultTimeout implements Runnable {
+
+        private final Thread workerThread;
+
+        private Long resultId;
+
+        private boolean completed;
+
+        private boolean timedOut;
+
+        ResultTimeout(Thread workerThreadIn) {
+            workerThread = workerThreadIn;
+            completed = false;
+            timedOut = false;
+        }
+
+        public synchronized void setResultId(Long resultIdIn) {
+            this.resultId = resultIdIn;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (completed) {
+                return;
+            }
+
+            LOGGER.warn("AttestationResult with id {} exceeded the processing timeout of {}s - interrupting",
+                resultId, resultTimeout.toSeconds());
+            timedOut = true;
+            workerThread.interrupt();
+        }
+
+        /**
+         * Marks the processing as completed. Must be called by the worker thread.
+         * @return true if the worker was interrupted because it exceeded the timeout
+         */
+        public synchronized boolean complete() {
+            if (!completed) {
+                completed = true;
+                // Clear any interruption still pending, so that it does not leak into the next task of the thread
+                if (timedOut) {
+                    Thread.interrupted();
+                }
+            }
+
+            return timedOut;
+        }
+    }
 }
@@ -37,11 +37,18 @@ public interface Configuration {
     String getDatabaseConnectionString();
 
     /**
-     * Retrieves the number of attestation results to process at a time.
+     * Retrieves the number of attestation results to process at a time. A new result is claimed as soon as the
+     * processing of another one completes.
      * @return the maximum number of attestation results to process.
      */
     int getBatchSize();
 
+    /**
+     * The number of seconds allowed to process a single attestation result before its worker is interrupted.
+     * @return the processing timeout of an attestation result, in seconds.
+     */
+    long getResultTimeoutInSeconds();
+
     /**
      * Retrieves the number of core threads for the queue processor
      * @return the number of core threads
@@ -89,6 +89,11 @@ public class DefaultConfiguration implements Configuration {
         return configurationSource.requireInteger("processor_batchSize");
     }
 
+    @Override
+    public long getResultTimeoutInSeconds() {
+        return configurationSource.requireInteger("processor_resultTimeout");
+    }
+
     @Override
     public Properties toProperties() {
         return configurationSource.toProperties();
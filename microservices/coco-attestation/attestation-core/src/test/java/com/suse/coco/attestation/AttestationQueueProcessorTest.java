@@ -12,6 +12,7 @@
 package com.suse.coco.attestation;
 
 import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -22,9 +23,12 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.suse.coco.model.AttestationResult;
+import com.suse.coco.model.AttestationStatus;
 import com.suse.coco.module.AttestationModuleLoader;
 
 import org.awaitility.Awaitility;
@@ -42,9 +46,15 @@ import org.postgresql.jdbc.PgConnection;
 
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -79,7 +89,8 @@ class AttestationQueueProcessorTest {
     public void setUp() throws SQLException, InterruptedException {
         Awaitility.setDefaultTimeout(5, TimeUnit.SECONDS);
 
-        processor = new AttestationQueueProcessor(dataSource, resultService, executorService, moduleLoader, 10);
+        processor = new AttestationQueueProcessor(dataSource, resultService, executorService, moduleLoader, 10,
+            Duration.ofMinutes(5));
 
         // Basic mocking
         when(dataSource.getConnection())
@@ -98,10 +109,10 @@ class AttestationQueueProcessorTest {
             // Return a new notification each quarter of a second
             .thenAnswer(answersWithDelay(250, ivn -> new PGNotification[0]));
 
-        // Simulate the executor shutdown
-        when(executorService.isShutdown()).thenReturn(false);
-        when(executorService.isTerminated()).thenReturn(false);
-        when(executorService.awaitTermination(anyLong(), any())).thenReturn(true);
+        // Simulate the executor shutdown. Lenient since some tests use a real executor.
+        lenient().when(executorService.isShutdown()).thenReturn(false);
+        lenient().when(executorService.isTerminated()).thenReturn(false);
+        lenient().when(executorService.awaitTermination(anyLong(), any())).thenReturn(true);
     }
 
     @AfterEach
@@ -217,6 +228,137 @@ class AttestationQueueProcessorTest {
             });
     }
 
+    @Test
+    @DisplayName("A result taking long to process does not block the processing of the other results")
+    void slowResultDoesNotBlockTheOthers() throws InterruptedException {
+        when(pgConnection.getQueryExecutor())
+            .thenReturn(queryExecutor);
+
+        CountDownLatch releaseSlowResult = new CountDownLatch(1);
+        AtomicInteger claimed = new AtomicInteger(0);
+
+        when(resultService.processNextPendingResult(any(), any())).thenAnswer(invocation -> {
+            int current = claimed.incrementAndGet();
+            if (current == 1) {
+                // The first result hangs until released
+                releaseSlowResult.await();
+                return Optional.of(createResult(current, AttestationStatus.SUCCEEDED));
+            }
+
+            return current <= 6 ? Optional.of(createResult(current, AttestationStatus.SUCCEEDED)) : Optional.empty();
+        });
+
+        var pipelineProcessor = new AttestationQueueProcessor(dataSource, resultService,
+            Executors.newFixedThreadPool(2), moduleLoader, 2, Duration.ofMinutes(5));
+        pipelineProcessor.start();
+
+        try {
+            // All the other results are processed by the second slot while the first one is still running
+            await("The other results to be processed")
+                .untilAsserted(() -> assertTrue(claimed.get() >= 7));
+            assertEquals(1, releaseSlowResult.getCount());
+
+            releaseSlowResult.countDown();
+
+            await("The slow result to be completed")
+                .untilAsserted(() -> assertEquals(6, pipelineProcessor.getMetrics().snapshotAndReset().succeeded()));
+        }
+        finally {
+            releaseSlowResult.countDown();
+            pipelineProcessor.stop();
+            pipelineProcessor.awaitTermination();
+        }
+    }
+
+    @Test
+    @DisplayName("A result exceeding the processing timeout is interrupted")
+    void resultExceedingTimeoutIsInterrupted() throws InterruptedException {
+        when(pgConnection.getQueryExecutor())
+            .thenReturn(queryExecutor);
+
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        AtomicInteger claimed = new AtomicInteger(0);
+
+        when(resultService.processNextPendingResult(any(), any())).thenAnswer(invocation -> {
+            if (claimed.incrementAndGet() > 1) {
+                return Optional.empty();
+            }
+
+            try {
+                Thread.sleep(Duration.ofSeconds(20).toMillis());
+                return Optional.of(createResult(1, AttestationStatus.SUCCEEDED));
+            }
+            catch (InterruptedException ex) {
+                interrupted.set(true);
+                return Optional.of(createResult(1, AttestationStatus.FAILED));
+            }
+        });
+
+        var pipelineProcessor = new AttestationQueueProcessor(dataSource, resultService,
+            Executors.newFixedThreadPool(2), moduleLoader, 2, Duration.ofMillis(500));
+        pipelineProcessor.start();
+
+        try {
+            await("The result to be interrupted")
+                .untilAsserted(() -> assertTrue(interrupted.get()));
+
+            await("The timeout to be recorded")
+                .untilAsserted(() -> {
+                    ProcessingMetrics.Snapshot snapshot = pipelineProcessor.getMetrics().snapshotAndReset();
+                    assertEquals(1, snapshot.failed());
+                    assertEquals(1, snapshot.timedOut());
+                });
+        }
+        finally {
+            pipelineProcessor.stop();
+            pipelineProcessor.awaitTermination();
+        }
+    }
+
+    @Test
+    @DisplayName("A failure processing the results does not mark the queue as drained")
+    void failureIsRetried() throws InterruptedException {
+        when(pgConnection.getQueryExecutor())
+            .thenReturn(queryExecutor);
+
+        AtomicInteger calls = new AtomicInteger(0);
+
+        when(resultService.processNextPendingResult(any(), any())).thenAnswer(invocation -> {
+            int current = calls.incrementAndGet();
+            if (current == 1) {
+                throw new IllegalStateException("Database unavailable");
+            }
+
+            return current <= 3 ? Optional.of(createResult(current, AttestationStatus.SUCCEEDED)) : Optional.empty();
+        });
+
+        var pipelineProcessor = new AttestationQueueProcessor(dataSource, resultService,
+            Executors.newFixedThreadPool(1), moduleLoader, 1, Duration.ofMinutes(5));
+        pipelineProcessor.start();
+
+        try {
+            // No notification is received: the pending results are only processed if the failure is retried
+            await("The pending results to be processed after the failure")
+                .untilAsserted(() -> assertTrue(calls.get() >= 4));
+
+            ProcessingMetrics.Snapshot snapshot = pipelineProcessor.getMetrics().snapshotAndReset();
+            assertEquals(2, snapshot.succeeded());
+            assertEquals(0, snapshot.failed());
+            assertEquals(1, snapshot.errors());
+        }
+        finally {
+            pipelineProcessor.stop();
+            pipelineProcessor.awaitTermination();
+        }
+    }
+
+    private static AttestationResult createResult(long id, AttestationStatus status) {
+        AttestationResult result = new AttestationResult();
+        result.setId(id);
+        result.setStatus(status);
+        return result;
+    }
+
     private static Thread getThreadByName(String name) {
         return Thread.getAllStackTraces().keySet().stream()
             .filter(t -> Objects.equals(t.getName(), name))
@@ -12,6 +12,7 @@
 package com.suse.coco.attestation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,7 +25,6 @@ import com.suse.coco.model.AttestationResult;
 import com.suse.coco.model.AttestationStatus;
 import com.suse.coco.module.AttestationWorker;
 
-import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.logging.log4j.LogManager;
@@ -40,12 +40,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 class AttestationResultServiceTest {
 
     private static final Logger LOGGER = LogManager.getLogger(AttestationResultServiceTest.class);
 
+    private static final String NEXT_PENDING = "AttestationResult.selectNextPendingForUpdate";
+
     @Mock
     private SqlSession session;
 
@@ -67,41 +70,23 @@ class AttestationResultServiceTest {
     }
 
     @Test
-    @DisplayName("The attestation results are listed and filtered by the result types")
-    void canListPendingResultsByType() {
-        when(session.selectList(
-            "AttestationResult.listPendingForResultType",
-            Map.of("supportedTypes", List.of(1, 2, 3), "batchSize", 10)
-        )).thenReturn(List.of(5L, 7L, 13L));
-
-        List<Long> resultIds = service.getPendingResultByType(List.of(1, 2, 3), 10);
-        assertEquals(List.of(5L, 7L, 13L), resultIds);
-
-        verify(session).selectList(
-            "AttestationResult.listPendingForResultType",
-            Map.of("supportedTypes", List.of(1, 2, 3), "batchSize", 10)
-        );
-        verify(session).close();
-
-        verifyNoMoreInteractions(session);
-    }
-
-    @Test
-    @DisplayName("An attestation result is locked, successfully processed by the worker and the result is updated")
+    @DisplayName("An attestation result is claimed, successfully processed by the worker and the result is updated")
     void canProcessAttestationResultAndMarkAsSucceeded() {
         AttestationResult attestationResult = new AttestationResult();
         attestationResult.setId(5L);
         attestationResult.setStatus(AttestationStatus.PENDING);
         attestationResult.setAttested(null);
 
-        when(session.selectOne("AttestationResult.selectForUpdate", 5L)).thenReturn(attestationResult);
+        when(session.selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1, 2, 3)))).thenReturn(attestationResult);
         when(worker.process(session, attestationResult)).thenReturn(true);
 
         OffsetDateTime callStart = OffsetDateTime.now();
-        service.processAttestationResult(5L, worker);
+        Optional<AttestationResult> processed = service.processNextPendingResult(List.of(1, 2, 3), worker);
         OffsetDateTime callEnd = OffsetDateTime.now();
 
-        verify(session).selectOne("AttestationResult.selectForUpdate", 5L);
+        assertEquals(Optional.of(attestationResult), processed);
+
+        verify(session).selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1, 2, 3)));
         verify(worker).process(session, attestationResult);
         verify(session).update("AttestationResult.update", attestationResult);
         verify(session).commit();
@@ -119,19 +104,20 @@ class AttestationResultServiceTest {
     }
 
     @Test
-    @DisplayName("An attestation result is locked, worker fails to process and the result is updated")
+    @DisplayName("An attestation result is claimed, worker fails to process and the result is updated")
     void canProcessAttestationResultAndMarkAsFailed() {
         AttestationResult attestationResult = new AttestationResult();
         attestationResult.setId(5L);
         attestationResult.setStatus(AttestationStatus.PENDING);
         attestationResult.setAttested(null);
 
-        when(session.selectOne("AttestationResult.selectForUpdate", 5L)).thenReturn(attestationResult);
+        when(session.selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)))).thenReturn(attestationResult);
         when(worker.process(session, attestationResult)).thenReturn(false);
 
-        service.processAttestationResult(5L, worker);
+        Optional<AttestationResult> processed = service.processNextPendingResult(List.of(1), worker);
+        assertEquals(Optional.of(attestationResult), processed);
 
-        verify(session).selectOne("AttestationResult.selectForUpdate", 5L);
+        verify(session).selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)));
         verify(worker).process(session, attestationResult);
         verify(session).update("AttestationResult.update", attestationResult);
         verify(session).commit();
@@ -147,14 +133,41 @@ class AttestationResultServiceTest {
     }
 
     @Test
-    @DisplayName("Nothing is processed if the attestation result has already been updated")
-    void doesNotProcessIfAttestationResultIsAlreadyProcessed() {
-        // Select for update returns null when another process already updated the same row
-        when(session.selectOne("AttestationResult.selectForUpdate", 5L)).thenReturn(null);
+    @DisplayName("An interrupted worker does not prevent the result from being updated")
+    void canProcessAttestationResultWhenWorkerIsInterrupted() {
+        AttestationResult attestationResult = new AttestationResult();
+        attestationResult.setId(5L);
+        attestationResult.setStatus(AttestationStatus.PENDING);
+
+        when(session.selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)))).thenReturn(attestationResult);
+        when(worker.process(session, attestationResult)).thenAnswer(invocation -> {
+            // Simulate the interruption due to the processing timeout
+            Thread.currentThread().interrupt();
+            return false;
+        });
 
-        service.processAttestationResult(5L, worker);
+        Optional<AttestationResult> processed = service.processNextPendingResult(List.of(1), worker);
+        assertEquals(Optional.of(attestationResult), processed);
 
-        verify(session).selectOne("AttestationResult.selectForUpdate", 5L);
+        // The interruption is consumed and the outcome is stored
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(AttestationStatus.FAILED, attestationResult.getStatus());
+
+        verify(session).update("AttestationResult.update", attestationResult);
+        verify(session).commit();
+        verify(session).close();
+    }
+
+    @Test
+    @DisplayName("Nothing is processed if there are no pending results left to claim")
+    void doesNotProcessIfNoAttestationResultIsAvailable() {
+        // Select for update returns null when all the pending rows are already processed or locked by other workers
+        when(session.selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)))).thenReturn(null);
+
+        Optional<AttestationResult> processed = service.processNextPendingResult(List.of(1), worker);
+        assertTrue(processed.isEmpty());
+
+        verify(session).selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)));
         verify(session).rollback();
         verify(session).close();
 
@@ -163,19 +176,24 @@ class AttestationResultServiceTest {
     }
 
     @Test
-    @DisplayName("Nothing is processed if the attestation result cannot be locked")
-    void doesNotProcessIfAttestationResultCannotBeLocked() {
-        // Select for update returns null when another process already updated the same row
-        when(session.selectOne("AttestationResult.selectForUpdate", 5L))
-            .thenThrow(new PersistenceException("PG/SQL Error: could not obtain lock on row"));
+    @DisplayName("The changes are rolled back if the processing fails unexpectedly")
+    void rollsBackIfTheProcessingFails() {
+        AttestationResult attestationResult = new AttestationResult();
+        attestationResult.setId(5L);
+        attestationResult.setStatus(AttestationStatus.PENDING);
+
+        when(session.selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)))).thenReturn(attestationResult);
+        when(worker.process(session, attestationResult)).thenThrow(new IllegalStateException("Unexpected failure"));
 
-        service.processAttestationResult(5L, worker);
+        Optional<AttestationResult> processed = service.processNextPendingResult(List.of(1), worker);
+        assertTrue(processed.isEmpty());
 
-        verify(session).selectOne("AttestationResult.selectForUpdate", 5L);
+        verify(session).selectOne(NEXT_PENDING, Map.of("supportedTypes", List.of(1)));
+        verify(worker).process(session, attestationResult);
         verify(session).rollback();
         verify(session).close();
 
         verifyNoMoreInteractions(session);
-        verifyNoInteractions(worker);
+        verifyNoMoreInteractions(worker);
     }
 }
@@ -13,6 +13,7 @@ package com.suse.coco.module.snpguest;
 
 import com.suse.coco.module.AttestationModule;
 import com.suse.coco.module.AttestationWorker;
+import com.suse.coco.module.snpguest.io.CertificateCache;
 
 import java.util.List;
 
@@ -26,6 +27,9 @@ public class SNPGuestModule implements AttestationModule {
      */
     public static final int SEV_SNP = 1;
 
+    // Shared by all the workers, so that the certificates are reused across the reports of the same host
+    private final CertificateCache certificateCache = new CertificateCache();
+
     @Override
     public String getName() {
         return SNPGuestModule.class.getName();
@@ -38,7 +42,7 @@ public class SNPGuestModule implements AttestationModule {
 
     @Override
     public AttestationWorker getWorker() {
-        return new SNPGuestWorker();
+        return new SNPGuestWorker(certificateCache);
     }
 
     @Override
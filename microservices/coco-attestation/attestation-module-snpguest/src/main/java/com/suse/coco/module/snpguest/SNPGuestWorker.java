@@ -16,6 +16,7 @@ import com.suse.coco.module.AttestationWorker;
 import com.suse.coco.module.snpguest.execution.AbstractSNPGuestWrapper;
 import com.suse.coco.module.snpguest.execution.ProcessOutput;
 import com.suse.coco.module.snpguest.execution.SNPGuestWrapperFactory;
+import com.suse.coco.module.snpguest.io.CertificateCache;
 import com.suse.coco.module.snpguest.io.VerificationDirectoryProvider;
 import com.suse.coco.module.snpguest.model.AttestationReport;
 import com.suse.coco.module.snpguest.model.EpycGeneration;
@@ -43,27 +44,50 @@ public class SNPGuestWorker implements AttestationWorker {
 
     private final ByteSequenceFinder sequenceFinder;
 
+    private final CertificateCache certificateCache;
+
     private final StringBuilder outputBuilder;
 
     /**
      * Default constructor.
      */
     public SNPGuestWorker() {
+        this(new CertificateCache());
+    }
+
+    /**
+     * Builds a worker sharing the given certificate cache.
+     * @param certificateCacheIn the cache of the certificates and of their verification results
+     */
+    public SNPGuestWorker(CertificateCache certificateCacheIn) {
         this(new VerificationDirectoryProvider(), SNPGuestWrapperFactory.createSNPGuestWrapper(),
-                new ByteSequenceFinder());
+                new ByteSequenceFinder(), certificateCacheIn);
     }
 
     /**
-     * Constructor with explicit dependencies, for unit test only.
+     * Constructor with explicit dependencies, for unit test only. The certificates are never cached.
      * @param directoryProviderIn the verification directory provider
      * @param abstractSnpGuestWrapperIn the snpguest executor
      * @param sequenceFinderIn the byte sequence finder
      */
     SNPGuestWorker(VerificationDirectoryProvider directoryProviderIn, AbstractSNPGuestWrapper abstractSnpGuestWrapperIn,
                    ByteSequenceFinder sequenceFinderIn) {
+        this(directoryProviderIn, abstractSnpGuestWrapperIn, sequenceFinderIn, CertificateCache.disabled());
+    }
+
+    /**
+     * Constructor with explicit dependencies, for unit test only.
+     * @param directoryProviderIn the verification directory provider
+     * @param abstractSnpGuestWrapperIn the snpguest executor
+     * @param sequenceFinderIn the byte sequence finder
+     * @param certificateCacheIn the certificate cache
+     */
+    SNPGuestWorker(VerificationDirectoryProvider directoryProviderIn, AbstractSNPGuestWrapper abstractSnpGuestWrapperIn,
+                   ByteSequenceFinder sequenceFinderIn, CertificateCache certificateCacheIn) {
         this.directoryProvider = directoryProviderIn;
         this.snpGuest = abstractSnpGuestWrapperIn;
         this.sequenceFinder = sequenceFinderIn;
+        this.certificateCache = certificateCacheIn;
         this.outputBuilder = new StringBuilder();
     }
 
@@ -122,6 +146,9 @@ public class SNPGuestWorker implements AttestationWorker {
                         appendSuccess("VLEK certification retrieved successfully");
                     }
                 }
+                else if (certificateCache.restoreVCEK(report, workingDir)) {
+                    appendSuccess("VCEK retrieved from cache");
+                }
                 else {
                     // Download the VCEK for this cpu model
                     processOutput = snpGuest.fetchVCEK(report.getCpuGeneration(), certsPath, reportPath);
@@ -131,17 +158,25 @@ public class SNPGuestWorker implements AttestationWorker {
                     }
                     else {
                         appendSuccess("VCEK fetched successfully", processOutput);
+                        certificateCache.storeVCEK(report, workingDir);
                     }
                 }
 
-                // Verify the certificates
-                processOutput = snpGuest.verifyCertificates(certsPath);
-                if (processOutput.getExitCode() != 0) {
-                    appendError("Unable to verify the validity of the certificates", processOutput);
-                    return false;
+                // Verify the certificates, unless the same chain has already been validated
+                Optional<ProcessOutput> cachedVerification = certificateCache.getChainVerification(certsPath);
+                if (cachedVerification.isPresent()) {
+                    appendSuccess("Certification chain already validated", cachedVerification.get());
                 }
                 else {
-                    appendSuccess("Certification chain validated successfully", processOutput);
+                    processOutput = snpGuest.verifyCertificates(certsPath);
+                    if (processOutput.getExitCode() != 0) {
+                        appendError("Unable to verify the validity of the certificates", processOutput);
+                        return false;
+                    }
+                    else {
+                        appendSuccess("Certification chain validated successfully", processOutput);
+                        certificateCache.storeChainVerification(certsPath, processOutput);
+                    }
                 }
 
                 // Verify the actual attestation report
@@ -148,6 +148,8 @@ public abstract class AbstractSNPGuestWrapper {
             );
         }
         catch (InterruptedException ex) {
+            // Do not leave the process running when the processing is aborted
+            snpguestProcess.destroyForcibly();
             Thread.currentThread().interrupt();
             throw new ExecutionException("Unable to get snpguest execution result", ex);
         }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ */
+
+package com.suse.coco.module.snpguest.io;
+
+import com.suse.coco.module.snpguest.execution.ProcessOutput;
+import com.suse.coco.module.snpguest.model.AttestationReport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cache of the certificate material used to verify the attestation reports. The VCEK fetched from the AMD KDS only
+ * depends on the chip id and the TCB version of the host, so it is stored on disk and reused for all the reports
+ * generated on the same host. The outcome of the certificate chain verification is memoized for each set of
+ * certificates. All the entries expire after the configured time.
+ */
+public class CertificateCache {
+
+    /**
+     * Default path where the fetched certificates are stored
+     */
+    public static final Path DEFAULT_CACHE_PATH = Path.of("/var/cache/coco-attestation/certs");
+
+    /**
+     * Default time after which a cached entry is not used anymore
+     */
+    public static final Duration DEFAULT_EXPIRATION = Duration.ofDays(7);
+
+    private static final Logger LOGGER = LogManager.getLogger(CertificateCache.class);
+
+    // Offsets and sizes of the fields within the SEV-SNP attestation report, as defined by the AMD specification
+    private static final int REPORTED_TCB_OFFSET = 0x180;
+
+    private static final int REPORTED_TCB_SIZE = 8;
+
+    private static final int CHIP_ID_OFFSET = 0x1A0;
+
+    private static final int CHIP_ID_SIZE = 64;
+
+    private final Path cacheDir;
+
+    private final Duration expiration;
+
+    private final Clock clock;
+
+    private final Map<String, VerifiedChain> verifiedChains;
+
+    /**
+     * Verification result of a set of certificates
+     * @param output the output of the verification process
+     * @param verified when the verification was performed
+     */
+    private record VerifiedChain(ProcessOutput output, Instant verified) {
+    }
+
+    /**
+     * Default constructor. Stores the certificates in {@link #DEFAULT_CACHE_PATH} and expires them after
+     * {@link #DEFAULT_EXPIRATION}.
+     */
+    public CertificateCache() {
+        this(DEFAULT_CACHE_PATH, DEFAULT_EXPIRATION, Clock.systemUTC());
+    }
+
+    /**
+     * Builds a certificate cache.
+     * @param cacheDirIn the directory where the fetched certificates are stored. If null, only the certificate chain
+     * verification results are cached.
+     * @param expirationIn the time after which a cached entry is not used anymore
+     * @param clockIn the clock used to evaluate the expiration
+     */
+    public CertificateCache(Path cacheDirIn, Duration expirationIn, Clock clockIn) {
+        this.cacheDir = cacheDirIn;
+        this.expiration = expirationIn;
+        this.clock = clockIn;
+        this.verifiedChains = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a cache that never stores anything.
+     * @return a certificate cache that is always empty
+     */
+    public static CertificateCache disabled() {
+        return new CertificateCache(null, Duration.ZERO, Clock.systemUTC());
+    }
+
+    /**
+     * Copies the cached VCEK matching the given report in the verification directory.
+     * @param report the attestation report
+     * @param directory the verification directory
+     * @return true if a valid VCEK was found in the cache and copied to the directory
+     */
+    public boolean restoreVCEK(AttestationReport report, VerificationDirectory directory) {
+        Optional<Path> cachedFile = getVCEKCachePath(report);
+        if (cachedFile.isEmpty() || !Files.isReadable(cachedFile.get())) {
+            return false;
+        }
+
+        try {
+            Instant lastModified = Files.getLastModifiedTime(cachedFile.get()).toInstant();
+            if (isExpired(lastModified)) {
+                LOGGER.debug("Cached VCEK {} is expired", cachedFile.get());
+                Files.deleteIfExists(cachedFile.get());
+                return false;
+            }
+
+            Files.copy(cachedFile.get(), directory.getVCEKPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("Using cached VCEK {}", cachedFile.get());
+            return true;
+        }
+        catch (IOException ex) {
+            LOGGER.warn("Unable to use the cached VCEK {}", cachedFile.get(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Stores the VCEK fetched in the verification directory, so that it can be reused for the reports coming from
+     * the same host.
+     * @param report the attestation report the VCEK was fetched for
+     * @param directory the verification directory containing the VCEK
+     */
+    public void storeVCEK(AttestationReport report, VerificationDirectory directory) {
+        Optional<Path> cachedFile = getVCEKCachePath(report);
+        if (cachedFile.isEmpty()) {
+            return;
+        }
+
+        try {
+            Path parentDir = cachedFile.get().getParent();
+            Files.createDirectories(parentDir,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+
+            // Copy to a temporary file first, to never expose a partially written certificate to the other workers
+            Path temporaryFile = Files.createTempFile(parentDir, "vcek-", ".tmp");
+            try {
+                Files.copy(directory.getVCEKPath(), temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.setLastModifiedTime(temporaryFile, FileTime.from(clock.instant()));
+                Files.move(temporaryFile, cachedFile.get(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            LOGGER.debug("Stored VCEK in cache as {}", cachedFile.get());
+        }
+        catch (IOException ex) {
+            LOGGER.warn("Unable to store the VCEK in the cache directory {}", cacheDir, ex);
+        }
+    }
+
+    /**
+     * Retrieves the memoized successful verification of the given certificates.
+     * @param certsDir the directory containing the certificate chain
+     * @return the output of the previous verification, if the same certificates have already been verified
+     */
+    public Optional<ProcessOutput> getChainVerification(Path certsDir) {
+        if (expiration.isZero()) {
+            return Optional.empty();
+        }
+
+        Optional<String> key = computeCertificatesDigest(certsDir);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+
+        VerifiedChain chain = verifiedChains.get(key.get());
+        if (chain == null) {
+            return Optional.empty();
+        }
+
+        if (isExpired(chain.verified())) {
+            verifiedChains.remove(key.get(), chain);
+            return Optional.empty();
+        }
+
+        return Optional.of(chain.output());
+    }
+
+    /**
+     * Memoizes the successful verification of the given certificates.
+     * @param certsDir the directory containing the certificate chain
+     * @param output the output of the verification process
+     */
+    public void storeChainVerification(Path certsDir, ProcessOutput output) {
+        if (expiration.isZero() || output.getExitCode() != 0) {
+            return;
+        }
+
+        computeCertificatesDigest(certsDir)
+            .ifPresent(key -> verifiedChains.put(key, new VerifiedChain(output, clock.instant())));
+    }
+
+    private boolean isExpired(Instant timestamp) {
+        return timestamp.plus(expiration).isBefore(clock.instant());
+    }
+
+    private Optional<Path> getVCEKCachePath(AttestationReport report) {
+        if (cacheDir == null || expiration.isZero()) {
+            return Optional.empty();
+        }
+
+        byte[] data = report.getReport();
+        if (data == null || data.length < CHIP_ID_OFFSET + CHIP_ID_SIZE) {
+            return Optional.empty();
+        }
+
+        byte[] chipId = Arrays.copyOfRange(data, CHIP_ID_OFFSET, CHIP_ID_OFFSET + CHIP_ID_SIZE);
+        // A masked chip id is all zeros and cannot identify the host
+        if (Arrays.equals(chipId, new byte[CHIP_ID_SIZE])) {
+            return Optional.empty();
+        }
+
+        byte[] reportedTcb = Arrays.copyOfRange(data, REPORTED_TCB_OFFSET, REPORTED_TCB_OFFSET + REPORTED_TCB_SIZE);
+
+        HexFormat hex = HexFormat.of();
+        String fileName = hex.formatHex(chipId) + "-" + hex.formatHex(reportedTcb) + ".der";
+        return Optional.of(cacheDir.resolve(report.getCpuGeneration().name().toLowerCase()).resolve(fileName));
+    }
+
+    private static Optional<String> computeCertificatesDigest(Path certsDir) {
+        try (Stream<Path> files = Files.list(certsDir)) {
+            List<Path> certificates = files
+                .filter(Files::isRegularFile)
+                .sorted()
+                .toList();
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path certificate : certificates) {
+                // Use the fixed size digest of the content to avoid ambiguities between name and content
+                byte[] contentDigest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(certificate));
+
+                digest.update(certificate.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(contentDigest);
+            }
+
+            return Optional.of(HexFormat.of().formatHex(digest.digest()));
+        }
+        catch (IOException | NoSuchAlgorithmException ex) {
+            LOGGER.debug("Unable to compute the digest of the certificates in {}", certsDir, ex);
+            return Optional.empty();
+        }
+    }
+}
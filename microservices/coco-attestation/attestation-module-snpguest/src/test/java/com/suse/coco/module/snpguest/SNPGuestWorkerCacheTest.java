@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ */
+
+package com.suse.coco.module.snpguest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.suse.coco.model.AttestationResult;
+import com.suse.coco.model.AttestationStatus;
+import com.suse.coco.module.snpguest.execution.AbstractSNPGuestWrapper;
+import com.suse.coco.module.snpguest.execution.ProcessOutput;
+import com.suse.coco.module.snpguest.io.CertificateCache;
+import com.suse.coco.module.snpguest.io.VerificationDirectory;
+import com.suse.coco.module.snpguest.io.VerificationDirectoryProvider;
+import com.suse.coco.module.snpguest.model.AttestationReport;
+import com.suse.coco.module.snpguest.model.EpycGeneration;
+import com.suse.common.io.ByteSequenceFinder;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Simulates the attestation of many confidential VMs running on a few hosts, to verify the certificates are
+ * fetched and validated only once per host.
+ */
+@ExtendWith(MockitoExtension.class)
+class SNPGuestWorkerCacheTest {
+
+    private static final int HOSTS = 3;
+
+    private static final int REPORTS_PER_HOST = 50;
+
+    private Path tempPath;
+
+    private MutableClock clock;
+
+    private Map<Long, AttestationReport> reportsMap;
+
+    @Mock
+    private SqlSession session;
+
+    @Mock
+    private VerificationDirectoryProvider directoryProvider;
+
+    @Mock
+    private AbstractSNPGuestWrapper snpWrapper;
+
+    private CertificateCache certificateCache;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempPath = Files.createTempDirectory("snpguest-worker-cache-test");
+        clock = new MutableClock(Instant.now());
+        reportsMap = new HashMap<>();
+
+        certificateCache = new CertificateCache(tempPath.resolve("cache"), Duration.ofDays(7), clock);
+
+        when(session.selectOne(eq("SNPGuestModule.retrieveReport"), anyLong()))
+            .thenAnswer(invocation -> reportsMap.get(invocation.<Long>getArgument(1)));
+
+        when(directoryProvider.createDirectoryFor(anyLong(), any()))
+            .thenAnswer(invocation -> createDirectory(invocation.getArgument(0), invocation.getArgument(1)));
+
+        // The VCEK of each host is simulated by the chip id stored in the report
+        when(snpWrapper.fetchVCEK(eq(EpycGeneration.MILAN), any(), any())).thenAnswer(invocation -> {
+            byte[] reportData = Files.readAllBytes(invocation.<Path>getArgument(2));
+            Files.write(invocation.<Path>getArgument(1).resolve(VerificationDirectory.VCEK_FILE),
+                Arrays.copyOfRange(reportData, 0x1A0, 0x1E0));
+            return new ProcessOutput(0, "Fetch ok", "");
+        });
+
+        when(snpWrapper.verifyCertificates(any())).thenReturn(new ProcessOutput(0, "Certificates ok", ""));
+        when(snpWrapper.verifyAttestation(eq(EpycGeneration.MILAN), any(), any()))
+            .thenReturn(new ProcessOutput(0, "Attestation ok", ""));
+        when(snpWrapper.displayReport(any())).thenReturn(new ProcessOutput(0, "dummy-report", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        // Delete test files
+        try (Stream<Path> fileStream = Files.walk(tempPath)) {
+            fileStream
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    @DisplayName("The certificates are fetched and verified once per host")
+    void fetchesAndVerifiesCertificatesOncePerHost() throws ExecutionException {
+        attestReportsFromAllHosts(1, 10);
+
+        // Every report is verified, but the certificate chain only once per host
+        verify(snpWrapper, times(HOSTS)).fetchVCEK(eq(EpycGeneration.MILAN), any(), any());
+        verify(snpWrapper, times(HOSTS)).verifyCertificates(any());
+        verify(snpWrapper, times(HOSTS * REPORTS_PER_HOST)).verifyAttestation(eq(EpycGeneration.MILAN), any(), any());
+    }
+
+    @Test
+    @DisplayName("The certificates are fetched again when the TCB version changes or the cache expires")
+    void fetchesCertificatesAgainWhenTcbChangesOrCacheExpires() throws ExecutionException {
+        attestReportsFromAllHosts(1, 10);
+
+        // The hosts are updated to a new TCB version: the VCEK needs to be fetched again
+        attestReportsFromAllHosts(1000, 11);
+
+        // After the expiration everything is fetched and verified again
+        clock.advance(Duration.ofDays(8));
+        attestReportsFromAllHosts(2000, 11);
+
+        verify(snpWrapper, times(HOSTS * 3)).fetchVCEK(eq(EpycGeneration.MILAN), any(), any());
+        // The VCEK returned by the simulated KDS does not depend on the TCB version, so the chain stays the same
+        verify(snpWrapper, times(HOSTS * 2)).verifyCertificates(any());
+        verify(snpWrapper, times(HOSTS * REPORTS_PER_HOST * 3))
+            .verifyAttestation(eq(EpycGeneration.MILAN), any(), any());
+    }
+
+    private void attestReportsFromAllHosts(long firstId, int tcb) {
+        long id = firstId;
+        for (int report = 0; report < REPORTS_PER_HOST; report++) {
+            for (int host = 1; host <= HOSTS; host++) {
+                AttestationResult result = createResult(id++, host, tcb);
+
+                // A new worker for each result, as done by the module, sharing the same cache
+                SNPGuestWorker worker = new SNPGuestWorker(directoryProvider, snpWrapper, new ByteSequenceFinder(),
+                    certificateCache);
+
+                assertTrue(worker.process(session, result), result.getProcessOutput());
+            }
+        }
+    }
+
+    private AttestationResult createResult(long id, int host, int tcb) {
+        byte[] nonce = ("NONCE-" + id).getBytes(StandardCharsets.UTF_8);
+
+        byte[] data = new byte[0x4A0];
+        System.arraycopy(nonce, 0, data, 0x50, nonce.length);
+        Arrays.fill(data, 0x180, 0x188, (byte) tcb);
+        Arrays.fill(data, 0x1A0, 0x1E0, (byte) host);
+
+        AttestationReport report = new AttestationReport();
+        report.setId(id);
+        report.setCpuGeneration(EpycGeneration.MILAN);
+        report.setRandomNonce(nonce);
+        report.setReport(data);
+        reportsMap.put(id, report);
+
+        AttestationResult result = new AttestationResult();
+        result.setId(id);
+        result.setReportId(id);
+        result.setStatus(AttestationStatus.PENDING);
+        return result;
+    }
+
+    private VerificationDirectory createDirectory(long resultId, AttestationReport report) throws IOException {
+        Path basePath = Files.createTempDirectory(tempPath, "snp-guest-worker-" + resultId + "-");
+        Path certsPath = Files.createDirectories(basePath.resolve("certs"));
+
+        Files.writeString(certsPath.resolve("ark.pem"), "Milan ROOT fake certificate");
+        Files.writeString(certsPath.resolve("ask.pem"), "Milan INTERMEDIATE fake certificate");
+        Files.write(basePath.resolve(VerificationDirectory.REPORT_FILE), report.getReport());
+
+        VerificationDirectory directory = mock(VerificationDirectory.class,
+            withSettings().strictness(Strictness.LENIENT));
+        when(directory.getCertsPath()).thenReturn(certsPath);
+        when(directory.getReportPath()).thenReturn(basePath.resolve(VerificationDirectory.REPORT_FILE));
+        when(directory.getVCEKPath()).thenReturn(certsPath.resolve(VerificationDirectory.VCEK_FILE));
+        when(directory.isVCEKAvailable())
+            .thenAnswer(invocation -> Files.exists(certsPath.resolve(VerificationDirectory.VCEK_FILE)));
+
+        doAnswer(invocation -> {
+            try (Stream<Path> fileStream = Files.walk(basePath)) {
+                fileStream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+            return null;
+        }).when(directory).close();
+
+        return directory;
+    }
+
+    /**
+     * A clock that can be moved forward to simulate the passing of time
+     */
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instantIn) {
+            this.instant = instantIn;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
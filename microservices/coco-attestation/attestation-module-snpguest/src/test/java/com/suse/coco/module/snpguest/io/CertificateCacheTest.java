@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ */
+
+package com.suse.coco.module.snpguest.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suse.coco.module.snpguest.execution.ProcessOutput;
+import com.suse.coco.module.snpguest.model.AttestationReport;
+import com.suse.coco.module.snpguest.model.EpycGeneration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+class CertificateCacheTest {
+
+    private Path tempPath;
+
+    private Path cachePath;
+
+    private VerificationDirectory directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempPath = Files.createTempDirectory("certificate-cache-test");
+        cachePath = tempPath.resolve("cache");
+
+        Path workingPath = tempPath.resolve("work");
+        Files.createDirectories(workingPath.resolve("certs"));
+        Files.writeString(workingPath.resolve("certs").resolve("ark.pem"), "Milan ROOT fake certificate");
+        Files.writeString(workingPath.resolve("certs").resolve("ask.pem"), "Milan INTERMEDIATE fake certificate");
+
+        directory = new VerificationDirectory(workingPath);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // Delete test files
+        try (Stream<Path> fileStream = Files.walk(tempPath)) {
+            fileStream
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    @DisplayName("The VCEK is cached by chip id and TCB version and expires after the configured time")
+    void canStoreAndRestoreVCEK() throws IOException {
+        Instant now = Instant.now();
+        CertificateCache cache = new CertificateCache(cachePath, Duration.ofDays(7), Clock.fixed(now, ZoneOffset.UTC));
+
+        AttestationReport report = createReport(1, 10);
+        assertFalse(cache.restoreVCEK(report, directory));
+
+        // Store the fetched VCEK
+        Files.writeString(directory.getVCEKPath(), "VCEK of host 1");
+        cache.storeVCEK(report, directory);
+        Files.delete(directory.getVCEKPath());
+
+        // Another report from the same host reuses it
+        assertTrue(cache.restoreVCEK(createReport(1, 10), directory));
+        assertEquals("VCEK of host 1", Files.readString(directory.getVCEKPath()));
+
+        // A different host or a different TCB version do not
+        assertFalse(cache.restoreVCEK(createReport(2, 10), directory));
+        assertFalse(cache.restoreVCEK(createReport(1, 11), directory));
+
+        // The entry is not used anymore once expired
+        CertificateCache expiredCache = new CertificateCache(cachePath, Duration.ofDays(7),
+            Clock.fixed(now.plus(Duration.ofDays(8)), ZoneOffset.UTC));
+        assertFalse(expiredCache.restoreVCEK(createReport(1, 10), directory));
+    }
+
+    @Test
+    @DisplayName("The VCEK is not cached when the report does not identify the host")
+    void doesNotCacheVCEKWithoutChipId() throws IOException {
+        CertificateCache cache = new CertificateCache(cachePath, Duration.ofDays(7), Clock.systemUTC());
+        Files.writeString(directory.getVCEKPath(), "VCEK");
+
+        // Masked chip id
+        AttestationReport maskedReport = createReport(0, 10);
+        cache.storeVCEK(maskedReport, directory);
+        assertFalse(cache.restoreVCEK(maskedReport, directory));
+
+        // Report too short to contain the chip id
+        AttestationReport shortReport = createReport(1, 10);
+        shortReport.setReport("REPORT".getBytes(StandardCharsets.UTF_8));
+        cache.storeVCEK(shortReport, directory);
+        assertFalse(cache.restoreVCEK(shortReport, directory));
+
+        assertFalse(Files.exists(cachePath));
+    }
+
+    @Test
+    @DisplayName("Only the successful chain verifications are memoized, for the same set of certificates")
+    void canMemoizeChainVerification() throws IOException {
+        CertificateCache cache = new CertificateCache(cachePath, Duration.ofDays(7), Clock.systemUTC());
+        Path certsPath = directory.getCertsPath();
+
+        assertEquals(Optional.empty(), cache.getChainVerification(certsPath));
+
+        // Failures are not memoized
+        cache.storeChainVerification(certsPath, new ProcessOutput(1, "", "Verification FAILED"));
+        assertEquals(Optional.empty(), cache.getChainVerification(certsPath));
+
+        ProcessOutput success = new ProcessOutput(0, "Certificates ok", "");
+        cache.storeChainVerification(certsPath, success);
+        assertEquals(Optional.of(success), cache.getChainVerification(certsPath));
+
+        // A different certificate invalidates the memoized result
+        Files.writeString(directory.getVCEKPath(), "VCEK of host 1");
+        assertEquals(Optional.empty(), cache.getChainVerification(certsPath));
+    }
+
+    @Test
+    @DisplayName("A disabled cache never stores anything")
+    void disabledCacheIsAlwaysEmpty() throws IOException {
+        CertificateCache cache = CertificateCache.disabled();
+        AttestationReport report = createReport(1, 10);
+
+        Files.writeString(directory.getVCEKPath(), "VCEK of host 1");
+        cache.storeVCEK(report, directory);
+        assertFalse(cache.restoreVCEK(report, directory));
+
+        cache.storeChainVerification(directory.getCertsPath(), new ProcessOutput(0, "Certificates ok", ""));
+        assertEquals(Optional.empty(), cache.getChainVerification(directory.getCertsPath()));
+    }
+
+    private static AttestationReport createReport(int host, int tcb) {
+        byte[] data = new byte[0x4A0];
+        Arrays.fill(data, 0x180, 0x188, (byte) tcb);
+        Arrays.fill(data, 0x1A0, 0x1E0, (byte) host);
+
+        AttestationReport report = new AttestationReport();
+        report.setCpuGeneration(EpycGeneration.MILAN);
+        report.setReport(data);
+
+        return report;
+    }
+}
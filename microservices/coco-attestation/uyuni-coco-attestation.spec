@@ -124,6 +124,9 @@ for FILE in $(find -name *.pem -type f -printf '%%P\n'); do
     install -D -p -m 644 $FILE %{buildroot}%{_datadir}/coco-attestation/certs/$FILE
 done
 cd -
+
+# Cache of the certificates fetched from the AMD KDS
+install -d -m 700 %{buildroot}%{_localstatedir}/cache/coco-attestation/certs
 %endif
 
 %files core -f .mfiles
@@ -145,6 +148,8 @@ cd -
 %dir %{_datadir}/coco-attestation/certs/
 %{_datadir}/coco-attestation/lib/attestation-module-snpguest.jar
 %{_datadir}/coco-attestation/certs/*
+%dir %attr(700, root, root) %{_localstatedir}/cache/coco-attestation/
+%dir %attr(700, root, root) %{_localstatedir}/cache/coco-attestation/certs/
 %license LICENSE
 %endif
 
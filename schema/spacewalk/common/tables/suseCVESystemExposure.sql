@@ -0,0 +1,37 @@
+--
+-- Copyright (c) 2025 SUSE LLC
+--
+-- This software is licensed to you under the GNU General Public License,
+-- version 2 (GPLv2). There is NO WARRANTY for this software, express or
+-- implied, including the implied warranties of MERCHANTABILITY or FITNESS
+-- FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+-- along with this software; if not, see
+-- http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+--
+-- Red Hat trademarks are not licensed under GPLv2. No permission is
+-- granted to use or replicate Red Hat trademarks that are incorporated
+-- in this software or its documentation.
+--
+
+CREATE TABLE suseCVESystemExposure
+(
+    server_id          NUMERIC NOT NULL
+                           CONSTRAINT suse_cvese_sid_fk
+                               REFERENCES rhnServer (id)
+                               ON DELETE CASCADE,
+    cve_id             NUMERIC NOT NULL
+                           CONSTRAINT suse_cvese_cveid_fk
+                               REFERENCES rhnCve (id)
+                               ON DELETE CASCADE,
+    patch_status       VARCHAR(64) NOT NULL,
+    scan_data_sources  VARCHAR(32) NOT NULL,
+    created            TIMESTAMPTZ
+                           DEFAULT (current_timestamp) NOT NULL,
+    CONSTRAINT suse_cvese_sid_cveid_pk PRIMARY KEY (server_id, cve_id)
+)
+
+;
+
+CREATE INDEX suse_cvese_cveid_idx
+    ON suseCVESystemExposure (cve_id)
+    ;
@@ -0,0 +1,38 @@
+--
+-- Copyright (c) 2025 SUSE LLC
+--
+-- This software is licensed to you under the GNU General Public License,
+-- version 2 (GPLv2). There is NO WARRANTY for this software, express or
+-- implied, including the implied warranties of MERCHANTABILITY or FITNESS
+-- FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+-- along with this software; if not, see
+-- http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+--
+-- Red Hat trademarks are not licensed under GPLv2. No permission is
+-- granted to use or replicate Red Hat trademarks that are incorporated
+-- in this software or its documentation.
+--
+
+CREATE TABLE suseCVESystemExposureChannel
+(
+    server_id     NUMERIC NOT NULL,
+    cve_id        NUMERIC NOT NULL,
+    channel_id    NUMERIC NOT NULL
+                      CONSTRAINT suse_cvesec_cid_fk
+                          REFERENCES rhnChannel (id)
+                          ON DELETE CASCADE,
+    channel_rank  NUMERIC NOT NULL,
+    CONSTRAINT suse_cvesec_sid_cveid_fk FOREIGN KEY (server_id, cve_id)
+        REFERENCES suseCVESystemExposure (server_id, cve_id)
+        ON DELETE CASCADE
+)
+
+;
+
+CREATE UNIQUE INDEX suse_cvesec_sid_cveid_cid_uq
+    ON suseCVESystemExposureChannel (server_id, cve_id, channel_id)
+    ;
+
+CREATE INDEX suse_cvesec_cid_idx
+    ON suseCVESystemExposureChannel (channel_id)
+    ;
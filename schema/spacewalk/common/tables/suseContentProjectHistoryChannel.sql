@@ -0,0 +1,34 @@
+--
+-- Copyright (c) 2025 SUSE LLC
+--
+-- This software is licensed to you under the GNU General Public License,
+-- version 2 (GPLv2). There is NO WARRANTY for this software, express or
+-- implied, including the implied warranties of MERCHANTABILITY or FITNESS
+-- FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+-- along with this software; if not, see
+-- http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+--
+-- Red Hat trademarks are not licensed under GPLv2. No permission is
+-- granted to use or replicate Red Hat trademarks that are incorporated
+-- in this software or its documentation.
+--
+
+CREATE TABLE suseContentProjectHistoryChannel(
+    id                NUMERIC NOT NULL
+                          CONSTRAINT suse_ct_prj_hist_ch_id_pk PRIMARY KEY,
+    entry_id          NUMERIC NOT NULL
+                          CONSTRAINT suse_ct_prj_hist_ch_eid_fk
+                              REFERENCES suseContentProjectHistoryEntry(id)
+                              ON DELETE CASCADE,
+    environment_label VARCHAR(16) NOT NULL,
+    channel_label     VARCHAR(128) NOT NULL,
+    started           TIMESTAMPTZ NOT NULL,
+    duration_ms       NUMERIC NOT NULL
+)
+
+;
+
+CREATE SEQUENCE suse_ct_prj_hist_ch_seq;
+
+CREATE INDEX suse_ct_prj_hist_ch_eid_idx
+    ON suseContentProjectHistoryChannel(entry_id);
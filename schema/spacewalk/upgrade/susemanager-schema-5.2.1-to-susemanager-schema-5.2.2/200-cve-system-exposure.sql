@@ -0,0 +1,90 @@
+--
+-- Copyright (c) 2025 SUSE LLC
+--
+-- This software is licensed to you under the GNU General Public License,
+-- version 2 (GPLv2). There is NO WARRANTY for this software, express or
+-- implied, including the implied warranties of MERCHANTABILITY or FITNESS
+-- FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+-- along with this software; if not, see
+-- http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+
+CREATE TABLE IF NOT EXISTS suseCVESystemExposure
+(
+    server_id          NUMERIC NOT NULL
+                           CONSTRAINT suse_cvese_sid_fk
+                               REFERENCES rhnServer (id)
+                               ON DELETE CASCADE,
+    cve_id             NUMERIC NOT NULL
+                           CONSTRAINT suse_cvese_cveid_fk
+                               REFERENCES rhnCve (id)
+                               ON DELETE CASCADE,
+    patch_status       VARCHAR(64) NOT NULL,
+    scan_data_sources  VARCHAR(32) NOT NULL,
+    created            TIMESTAMPTZ
+                           DEFAULT (current_timestamp) NOT NULL,
+    CONSTRAINT suse_cvese_sid_cveid_pk PRIMARY KEY (server_id, cve_id)
+);
+
+CREATE INDEX IF NOT EXISTS suse_cvese_cveid_idx
+    ON suseCVESystemExposure (cve_id);
+
+CREATE TABLE IF NOT EXISTS suseCVESystemExposureChannel
+(
+    server_id     NUMERIC NOT NULL,
+    cve_id        NUMERIC NOT NULL,
+    channel_id    NUMERIC NOT NULL
+                      CONSTRAINT suse_cvesec_cid_fk
+                          REFERENCES rhnChannel (id)
+                          ON DELETE CASCADE,
+    channel_rank  NUMERIC NOT NULL,
+    CONSTRAINT suse_cvesec_sid_cveid_fk FOREIGN KEY (server_id, cve_id)
+        REFERENCES suseCVESystemExposure (server_id, cve_id)
+        ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS suse_cvesec_sid_cveid_cid_uq
+    ON suseCVESystemExposureChannel (server_id, cve_id, channel_id);
+
+CREATE INDEX IF NOT EXISTS suse_cvesec_cid_idx
+    ON suseCVESystemExposureChannel (channel_id);
+
+CREATE TABLE IF NOT EXISTS suseCVESystemExposureErrata
+(
+    server_id  NUMERIC NOT NULL,
+    cve_id     NUMERIC NOT NULL,
+    errata_id  NUMERIC NOT NULL
+                   CONSTRAINT suse_cvesee_eid_fk
+                       REFERENCES rhnErrata (id)
+                       ON DELETE CASCADE,
+    CONSTRAINT suse_cvesee_sid_cveid_fk FOREIGN KEY (server_id, cve_id)
+        REFERENCES suseCVESystemExposure (server_id, cve_id)
+        ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS suse_cvesee_sid_cveid_eid_uq
+    ON suseCVESystemExposureErrata (server_id, cve_id, errata_id);
+
+CREATE INDEX IF NOT EXISTS suse_cvesee_eid_idx
+    ON suseCVESystemExposureErrata (errata_id);
+
+CREATE TABLE IF NOT EXISTS suseCVEExposureQueue
+(
+    server_id  NUMERIC NOT NULL
+                   CONSTRAINT suse_cveeq_sid_pk PRIMARY KEY
+                   CONSTRAINT suse_cveeq_sid_fk
+                       REFERENCES rhnServer (id)
+                       ON DELETE CASCADE,
+    created    TIMESTAMPTZ
+                   DEFAULT (current_timestamp) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS suseCVESystemExposureState
+(
+    server_id  NUMERIC NOT NULL
+                   CONSTRAINT suse_cvess_sid_pk PRIMARY KEY
+                   CONSTRAINT suse_cvess_sid_fk
+                       REFERENCES rhnServer (id)
+                       ON DELETE CASCADE,
+    evaluated  TIMESTAMPTZ
+                   DEFAULT (current_timestamp) NOT NULL
+);
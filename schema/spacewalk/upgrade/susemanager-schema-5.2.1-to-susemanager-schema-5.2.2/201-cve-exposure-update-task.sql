@@ -0,0 +1,12 @@
+INSERT INTO rhnTaskoTask (id, name, class)
+  SELECT sequence_nextval('rhn_tasko_task_id_seq'), 'cve-exposure-update', 'com.redhat.rhn.taskomatic.task.CVEExposureUpdate' FROM dual
+  WHERE NOT EXISTS (SELECT 1 FROM rhnTaskoTask WHERE name = 'cve-exposure-update');
+
+INSERT INTO rhnTaskoTemplate (id, bunch_id, task_id, ordering, start_if)
+  SELECT sequence_nextval('rhn_tasko_template_id_seq'),
+                         (SELECT id FROM rhnTaskoBunch WHERE name='errata-cache-bunch'),
+                         (SELECT id FROM rhnTaskoTask WHERE name='cve-exposure-update'),
+                         2, null FROM dual
+  WHERE NOT EXISTS (SELECT 1 FROM rhnTaskoTemplate
+                    WHERE  bunch_id = (SELECT id FROM rhnTaskoBunch WHERE name='errata-cache-bunch')
+                    AND    task_id = (SELECT id FROM rhnTaskoTask WHERE name='cve-exposure-update'));
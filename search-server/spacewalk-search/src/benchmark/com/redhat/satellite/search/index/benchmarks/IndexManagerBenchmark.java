@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.satellite.search.index.benchmarks;
+
+import com.redhat.satellite.search.index.IndexManager;
+import com.redhat.satellite.search.index.Result;
+import com.redhat.satellite.search.index.builder.BuilderFactory;
+import com.redhat.satellite.search.index.builder.DocumentBuilder;
+import com.redhat.satellite.search.tests.BaseTestCase;
+import com.redhat.satellite.search.tests.TestUtil;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the bulk indexing of packages and the latency of the queries run while
+ * the index is updated. The number of packages is set with the
+ * search.benchmark.packages system property.
+ *
+ * Not part of the tests: run it with "ant benchmark".
+ */
+public class IndexManagerBenchmark extends BaseTestCase {
+
+    private static Logger log = LogManager.getLogger(IndexManagerBenchmark.class);
+    private static final int PACKAGES = Integer.getInteger("search.benchmark.packages", 2000);
+    private static final int QUERIES = 200;
+    // packages indexed between two commits, like the checkpoints of the indexing tasks
+    private static final int BATCH = 10;
+
+    private IndexManager indexManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        indexManager = (IndexManager)
+            container.getComponentInstance(IndexManager.class);
+    }
+
+    private Document buildPackage(long id) {
+        Map<String, String> attrs = new HashMap<String, String>();
+        attrs.put("name", "package" + id);
+        attrs.put("version", "1.0." + id % 100);
+        attrs.put("release", "150600." + id % 10);
+        attrs.put("filename", "package" + id + "-1.0-1.x86_64.rpm");
+        attrs.put("description", "Description of the package number " + id);
+        attrs.put("summary", "Package " + id);
+        attrs.put("arch", "x86_64");
+        DocumentBuilder pdb = BuilderFactory.getBuilder(BuilderFactory.PACKAGES_TYPE);
+        return pdb.buildDocument(id, attrs);
+    }
+
+    private void runQueries() throws Exception {
+        for (int i = 0; i < QUERIES; i++) {
+            List<Result> results = indexManager.search(BuilderFactory.PACKAGES_TYPE,
+                    "name:package" + (1 + i * PACKAGES / QUERIES), "en");
+            assertFalse(results.isEmpty());
+        }
+    }
+
+    public void testPackageIndexingAndQueryLatency() throws Exception {
+        long start = System.nanoTime();
+        for (long id = 1; id <= PACKAGES; id++) {
+            indexManager.addUniqueToIndex(BuilderFactory.PACKAGES_TYPE, buildPackage(id),
+                    "id", "en");
+            if (id % BATCH == 0) {
+                indexManager.commit(BuilderFactory.PACKAGES_TYPE);
+            }
+        }
+        indexManager.commit(BuilderFactory.PACKAGES_TYPE);
+        long indexingMillis = (System.nanoTime() - start) / 1000000;
+
+        // the first round warms up the query code
+        runQueries();
+        start = System.nanoTime();
+        runQueries();
+        long queryMicros = (System.nanoTime() - start) / 1000 / QUERIES;
+
+        log.info("Indexed " + PACKAGES + " packages in " + indexingMillis + " ms (" +
+                PACKAGES * 1000L / Math.max(indexingMillis, 1) + " packages/s), " +
+                "average query latency " + queryMicros + " us");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Class[] getComponentClasses() {
+        return TestUtil.buildComponentsList(IndexManager.class);
+    }
+}
@@ -15,6 +15,7 @@
 
 package com.redhat.satellite.search.db;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.SqlSession;
 
 import java.sql.SQLException;
@@ -67,6 +68,17 @@ public class Query<T> {
         return retval;
     }
 
+    /**
+     * Open a cursor on the results of the query, fetching the rows as they are
+     * iterated. It is closed with the query.
+     * @param param query param
+     * @return cursor of T
+     * @throws SQLException something bad happened
+     */
+    public Cursor<T> cursor(Object param) throws SQLException {
+        return session.selectCursor(queryName, param);
+    }
+
     /**
      * Load single object from query
      * @param param query apram
@@ -32,6 +32,8 @@ import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.Explanation;
@@ -41,11 +43,12 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.LockObtainFailedException;
+import org.picocontainer.Startable;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -55,9 +58,13 @@ import java.util.TreeMap;
 /**
  * Indexing workhorse class
  *
+ * Every index has one writer, opened on first use and kept open until the server
+ * stops, and one searcher shared by the searches. The changes made through the
+ * writer are visible to the searches once they are committed.
+ *
  * @version $Rev$
  */
-public class IndexManager {
+public class IndexManager implements Startable {
 
     private static Logger log = LogManager.getLogger(IndexManager.class);
     private String indexWorkDir;
@@ -73,6 +80,9 @@ public class IndexManager {
     // Name conflict with our Configuration class and Hadoop's
     private Map<String, String> docLocaleLookUp = new TreeMap<String, String>
                                                                                                 (String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, IndexWriter> writers = new HashMap<String, IndexWriter>();
+    private final Map<String, SearcherManager> searchers =
+        new HashMap<String, SearcherManager>();
     /**
      * Constructor
      *
@@ -100,6 +110,71 @@ public class IndexManager {
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void start() {
+        // the writers and searchers are opened on first use
+        removeStaleLocks();
+    }
+
+    /**
+     * Removes the index locks left over by a server which did not stop properly.
+     * The writers of this server are the only ones of its indexes and none of them
+     * is open yet, so any lock found now is stale. Once the server runs, the locks
+     * are left alone: a writer failing to get one gives up.
+     */
+    private void removeStaleLocks() {
+        File[] indexDirs = new File(indexWorkDir).listFiles();
+        if (indexDirs == null) {
+            return;
+        }
+        for (File indexDir : indexDirs) {
+            if (!indexDir.isDirectory()) {
+                continue;
+            }
+            try {
+                Directory dir = FSDirectory.getDirectory(indexDir);
+                try {
+                    if (IndexWriter.isLocked(dir)) {
+                        log.warn("Removing stale lock of index " + indexDir.getName());
+                        IndexWriter.unlock(dir);
+                    }
+                }
+                finally {
+                    dir.close();
+                }
+            }
+            catch (IOException e) {
+                log.error("Could not check the lock of index " + indexDir.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Commits and closes the writers, closes the searchers
+     */
+    public synchronized void stop() {
+        for (Map.Entry<String, IndexWriter> writer : writers.entrySet()) {
+            try {
+                writer.getValue().close();
+            }
+            catch (IOException e) {
+                log.error("Could not close the writer of index " + writer.getKey(), e);
+            }
+        }
+        writers.clear();
+        for (Map.Entry<String, SearcherManager> searcher : searchers.entrySet()) {
+            try {
+                searcher.getValue().close();
+            }
+            catch (IOException e) {
+                log.error("Could not close the searcher of index " + searcher.getKey(), e);
+            }
+        }
+        searchers.clear();
+    }
+
     /**
      * @return String of the index working directory
      */
@@ -142,12 +217,12 @@ public class IndexManager {
     public List<Result> search(String indexName, String query, String lang,
             boolean isFineGrained)
             throws IndexingException, QueryParseException {
+        SearcherManager manager = null;
         IndexSearcher searcher = null;
-        IndexReader reader = null;
         List<Result> retval = null;
         try {
-            reader = getIndexReader(indexName, lang);
-            searcher = getIndexSearcher(indexName, lang);
+            manager = getSearcherManager(indexName);
+            searcher = manager.acquire();
             QueryParser qp = getQueryParser(indexName, lang, isFineGrained);
             Query q = qp.parse(query);
             if (log.isDebugEnabled()) {
@@ -161,7 +236,7 @@ public class IndexManager {
             Set<Term> queryTerms = null;
             try {
                 queryTerms = new HashSet<Term>();
-                Query newQ = q.rewrite(reader);
+                Query newQ = q.rewrite(searcher.getIndexReader());
                 newQ.extractTerms(queryTerms);
             }
             catch (Exception e) {
@@ -189,10 +264,7 @@ public class IndexManager {
         finally {
             try {
                 if (searcher != null) {
-                    searcher.close();
-                }
-                if (reader != null) {
-                    reader.close();
+                    manager.release(searcher);
                 }
             }
             catch (IOException ex) {
@@ -204,7 +276,7 @@ public class IndexManager {
 
 
     /**
-     * Create an empty index if it exists
+     * Create an empty index if it does not exist
      *
      * @param indexName index to use
      * @param lang language.
@@ -212,36 +284,13 @@ public class IndexManager {
      */
     public void createIndex(String indexName, String lang)
         throws IndexingException {
-
-        try {
-            IndexWriter writer = getIndexWriter(indexName, lang);
-            try {
-                writer.flush();
-            }
-            finally {
-                try {
-                    writer.close();
-                }
-                finally {
-                    // unlock it if it is locked.
-                    unlockIndex(indexName);
-                }
-            }
-        }
-        catch (CorruptIndexException e) {
-            throw new IndexingException(e);
-        }
-        catch (LockObtainFailedException e) {
-            throw new IndexingException(e);
-        }
-        catch (IOException e) {
-            throw new IndexingException(e);
-        }
+        commit(indexName);
     }
 
 
     /**
-     * Adds a document to an index
+     * Adds a document to an index. The document is visible to the searches
+     * once the index is committed.
      *
      * @param indexName index to use
      * @param doc Document to be indexed.
@@ -252,32 +301,18 @@ public class IndexManager {
         throws IndexingException {
 
         try {
-            IndexWriter writer = getIndexWriter(indexName, lang);
-            try {
-                writer.addDocument(doc);
-                writer.flush();
-            }
-            finally {
-                try {
-                    writer.close();
-                }
-                finally {
-                    // unlock it if it is locked.
-                    unlockIndex(indexName);
-                }
-            }
-        }
-        catch (CorruptIndexException e) {
-            throw new IndexingException(e);
-        }
-        catch (LockObtainFailedException e) {
-            throw new IndexingException(e);
+            getIndexWriter(indexName).addDocument(doc);
         }
         catch (IOException e) {
             throw new IndexingException(e);
         }
     }
+
     /**
+     * Adds a document to an index, replacing the documents with the same value of
+     * the unique field. The document is visible to the searches once the index is
+     * committed.
+     *
      * @param indexName
      * @param doc document with data to index
      * @param uniqueField field in doc which identifies this uniquely
@@ -287,41 +322,18 @@ public class IndexManager {
     public void addUniqueToIndex(String indexName, Document doc,
             String uniqueField, String lang)
         throws IndexingException {
-        IndexReader reader = null;
-        int numFound = 0;
         try {
-            reader = getIndexReader(indexName, lang);
-            Term term = new Term(uniqueField, doc.get(uniqueField));
-            numFound = reader.docFreq(term);
-        }
-        catch (FileNotFoundException e) {
-            // Index doesn't exist, so this add will be unique
-            // we don't need to do anything/
+            getIndexWriter(indexName).updateDocument(
+                    new Term(uniqueField, doc.get(uniqueField)), doc);
         }
         catch (IOException e) {
             throw new IndexingException(e);
         }
-        finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                }
-                catch (IOException e) {
-                    //
-                }
-            }
-        }
-        if (numFound > 0) {
-            log.info("Found " + numFound + " <" + indexName + " docs for " +
-                    uniqueField + ":" + doc.get(uniqueField) +
-                    " will remove them now.");
-            removeFromIndex(indexName, uniqueField, doc.get(uniqueField));
-        }
-        addToIndex(indexName, doc, lang);
     }
 
     /**
-     * Remove a document from an index
+     * Remove a document from an index. The removal is visible to the searches once
+     * the index is committed.
      *
      * @param indexName index to use
      * @param uniqueField field name which represents this data's unique id
@@ -332,22 +344,8 @@ public class IndexManager {
             throws IndexingException {
         log.info("Removing <" + indexName + "> " + uniqueField + ":" +
                 objectId);
-        Term t = new Term(uniqueField, objectId);
-        IndexReader reader;
         try {
-            reader = getIndexReader(indexName, IndexHandler.DEFAULT_LANG);
-            try {
-                reader.deleteDocuments(t);
-                reader.flush();
-            }
-            finally {
-               if (reader != null) {
-                    reader.close();
-               }
-            }
-        }
-        catch (CorruptIndexException e) {
-            throw new IndexingException(e);
+            getIndexWriter(indexName).deleteDocuments(new Term(uniqueField, objectId));
         }
         catch (IOException e) {
             throw new IndexingException(e);
@@ -355,49 +353,47 @@ public class IndexManager {
     }
 
     /**
-     * Unlocks the index at the given directory if it is currently locked.
-     * Otherwise, does nothing.
-     * @param indexName index name
-     * @throws IOException thrown if there is a problem unlocking the index.
+     * Commits the changes made to an index, making them durable and visible to the
+     * searches. Creates the index if it does not exist.
+     *
+     * @param indexName index to commit
+     * @throws IndexingException something went wrong committing the index
      */
-    private void unlockIndex(String indexName) throws IOException {
-        String path = indexWorkDir + indexName;
-        File f = new File(path);
-        Directory dir = FSDirectory.getDirectory(f);
-        if (IndexReader.isLocked(dir)) {
-            IndexReader.unlock(dir);
+    public void commit(String indexName) throws IndexingException {
+        try {
+            getIndexWriter(indexName).commit();
         }
+        catch (IOException e) {
+            throw new IndexingException(e);
+        }
+    }
+
+    private Directory getDirectory(String indexName) throws IOException {
+        return FSDirectory.getDirectory(new File(indexWorkDir + indexName));
     }
 
-    private IndexWriter getIndexWriter(String name, String lang)
+    private synchronized IndexWriter getIndexWriter(String name)
             throws CorruptIndexException, LockObtainFailedException,
             IOException {
-        String path = indexWorkDir + name;
-        File f = new File(path);
-        f.mkdirs();
-        Analyzer analyzer = getAnalyzer(name, lang);
-        IndexWriter writer = new IndexWriter(path, analyzer);
-        writer.setUseCompoundFile(true);
+        IndexWriter writer = writers.get(name);
+        if (writer == null) {
+            Directory dir = getDirectory(name);
+            writer = new IndexWriter(dir, getAnalyzer(name, IndexHandler.DEFAULT_LANG),
+                    IndexWriter.MaxFieldLength.LIMITED);
+            writer.setUseCompoundFile(true);
+            writers.put(name, writer);
+        }
         return writer;
     }
 
-    private IndexReader getIndexReader(String indexName, String locale)
-            throws CorruptIndexException, IOException {
-        String path = indexWorkDir + indexName;
-        log.info("IndexManager::getIndexReader(" + indexName + ", " + locale +
-                ") path = " + path);
-        File f = new File(path);
-        IndexReader retval = IndexReader.open(FSDirectory.getDirectory(f));
-        return retval;
-    }
-
-    private IndexSearcher getIndexSearcher(String indexName, String locale)
-            throws CorruptIndexException, IOException {
-        String path = indexWorkDir + indexName;
-        log.info("IndexManager::getIndexSearcher(" + indexName + ", " + locale +
-                ") path = " + path);
-        IndexSearcher retval = new IndexSearcher(path);
-        return retval;
+    private synchronized SearcherManager getSearcherManager(String indexName)
+            throws IOException {
+        SearcherManager manager = searchers.get(indexName);
+        if (manager == null) {
+            manager = new SearcherManager(getDirectory(indexName));
+            searchers.put(indexName, manager);
+        }
+        return manager;
     }
 
     private QueryParser getQueryParser(String indexName, String lang,
@@ -585,57 +581,57 @@ public class IndexManager {
     }
 
     /**
-     * Removes any documents which are not related to the passed in Set of good value
-     * @param ids Set of ids of all known/good values
+     * Returns the values of the unique field of the documents of an index, read
+     * from the terms of the field without loading the documents.
      * @param indexName index name to operate on
      * @param uniqField the name of the field in the Document to uniquely identify
      * this record
-     * @return the number of documents deleted
+     * @return the values of the unique field
+     * @throws IndexingException something went wrong reading the index
      */
-    public int deleteRecordsNotInList(Set<String> ids, String indexName,
-            String uniqField) {
-        int count = 0;
-        IndexReader reader = null;
+    public Set<String> getUniqueIds(String indexName, String uniqField)
+        throws IndexingException {
+        Set<String> ids = new HashSet<String>();
+        SearcherManager manager = null;
+        IndexSearcher searcher = null;
         try {
-            reader = getIndexReader(indexName, IndexHandler.DEFAULT_LANG);
-
-            // Use maxDoc() to iterate over all docs, numDocs() returns the
-            // number of currently alive docs leaving out the deleted ones.
-            int maxDoc = reader.maxDoc();
-            for (int i = 0; i < maxDoc; i++) {
-                if (!reader.isDeleted(i)) {
-                    Document doc = reader.document(i);
-                    String uniqId = doc.getField(uniqField).stringValue();
-                    if (!ids.contains(uniqId)) {
-                        log.info(indexName + ":" + uniqField  + ":  <" + uniqId +
-                                "> not found in list of current/good values " +
-                                "assuming this has been deleted from Database and we " +
-                                "should remove it.");
-                        removeFromIndex(indexName, uniqField, uniqId);
-                        count++;
+            manager = getSearcherManager(indexName);
+            searcher = manager.acquire();
+            IndexReader reader = searcher.getIndexReader();
+            TermEnum terms = reader.terms(new Term(uniqField, ""));
+            TermDocs docs = reader.termDocs();
+            try {
+                do {
+                    Term term = terms.term();
+                    if (term == null || !term.field().equals(uniqField)) {
+                        break;
                     }
-                }
+                    // the terms of the deleted documents stay until the segments merge
+                    docs.seek(term);
+                    if (docs.next()) {
+                        ids.add(term.text());
+                    }
+                } while (terms.next());
+            }
+            finally {
+                docs.close();
+                terms.close();
             }
         }
         catch (IOException e) {
-            e.printStackTrace();
-            log.info("deleteRecordsNotInList() caught exception : " + e);
-        }
-        catch (IndexingException e) {
-            e.printStackTrace();
-            log.info("deleteRecordsNotInList() caught exception : " + e);
+            throw new IndexingException(e);
         }
         finally {
-            if (reader != null) {
+            if (searcher != null) {
                 try {
-                    reader.close();
+                    manager.release(searcher);
                 }
                 catch (IOException e) {
                     //
                 }
             }
         }
-        return count;
+        return ids;
     }
 
     private void debugExplainResults(String indexName, Hits hits, IndexSearcher searcher,
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2025 SUSE LLC
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+
+package com.redhat.satellite.search.index;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Shares one searcher of an index between the searches. The searcher is reopened
+ * when the index changed since it was opened, the searcher it replaces is closed
+ * once the last search using it released it.
+ */
+public class SearcherManager {
+
+    private final Directory directory;
+    private IndexSearcher current;
+    // searches using every searcher still open
+    private final Map<IndexSearcher, Integer> references =
+        new IdentityHashMap<IndexSearcher, Integer>();
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     * @param directoryIn directory of the index
+     */
+    public SearcherManager(Directory directoryIn) {
+        directory = directoryIn;
+    }
+
+    /**
+     * Returns the searcher of the last committed state of the index. It must be
+     * released after the search.
+     * @return the searcher
+     * @throws IOException if the index cannot be opened
+     */
+    public synchronized IndexSearcher acquire() throws IOException {
+        if (closed) {
+            throw new IOException("The searcher of " + directory + " is closed");
+        }
+        if (current == null) {
+            current = new IndexSearcher(IndexReader.open(directory));
+            references.put(current, 0);
+        }
+        else if (!current.getIndexReader().isCurrent()) {
+            IndexReader reader = current.getIndexReader().reopen();
+            if (reader != current.getIndexReader()) {
+                IndexSearcher previous = current;
+                current = new IndexSearcher(reader);
+                references.put(current, 0);
+                closeIfUnused(previous);
+            }
+        }
+        references.put(current, references.get(current) + 1);
+        return current;
+    }
+
+    /**
+     * Releases a searcher returned by acquire()
+     * @param searcher the searcher
+     * @throws IOException if the searcher cannot be closed
+     */
+    public synchronized void release(IndexSearcher searcher) throws IOException {
+        references.put(searcher, references.get(searcher) - 1);
+        if (searcher != current || closed) {
+            closeIfUnused(searcher);
+        }
+    }
+
+    /**
+     * Closes the searcher, right away if no search is using it, otherwise when the
+     * last one releases it.
+     * @throws IOException if the searcher cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (current != null) {
+            closeIfUnused(current);
+        }
+    }
+
+    private void closeIfUnused(IndexSearcher searcher) throws IOException {
+        if (references.get(searcher) == 0) {
+            references.remove(searcher);
+            // the searcher does not close a reader it was given
+            searcher.close();
+            searcher.getIndexReader().close();
+        }
+    }
+}
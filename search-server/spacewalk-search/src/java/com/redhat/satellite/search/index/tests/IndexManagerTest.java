@@ -1,5 +1,6 @@
 package com.redhat.satellite.search.index.tests;
 
+import com.redhat.satellite.search.config.Configuration;
 import com.redhat.satellite.search.index.IndexManager;
 import com.redhat.satellite.search.index.IndexingException;
 import com.redhat.satellite.search.index.QueryParseException;
@@ -9,11 +10,21 @@ import com.redhat.satellite.search.index.builder.PackageDocumentBuilder;
 import com.redhat.satellite.search.tests.BaseTestCase;
 import com.redhat.satellite.search.tests.TestUtil;
 
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.Lock;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class IndexManagerTest extends BaseTestCase {
 
@@ -51,12 +62,101 @@ public class IndexManagerTest extends BaseTestCase {
         DocumentBuilder pdb = new PackageDocumentBuilder();
         Document doc = pdb.buildDocument(objectId, meta);
         indexManager.addToIndex(index, doc, "en");
+        indexManager.commit(index);
         List<Result> results = indexManager.search(index, "name:foo", "en");
         assertTrue(results.size() >= 1);
         results = indexManager.search(index, "desc:really", "en");
         assertTrue(results.size() >= 1);
     }
 
+    public void testAddUniqueReplacesDocument()
+        throws IndexingException, QueryParseException {
+
+        String index = "foo";
+        DocumentBuilder pdb = new PackageDocumentBuilder();
+        Map<String, String> meta = new HashMap<String, String>();
+        meta.put("name", "foo");
+        meta.put("desc", "A really nice foo");
+        indexManager.addUniqueToIndex(index, pdb.buildDocument(123L, meta), "id", "en");
+        indexManager.commit(index);
+        assertEquals(1, indexManager.search(index, "name:foo", "en").size());
+
+        // replacing the document does not duplicate it
+        meta.put("desc", "A rather nice foo");
+        indexManager.addUniqueToIndex(index, pdb.buildDocument(123L, meta), "id", "en");
+        indexManager.commit(index);
+        assertEquals(1, indexManager.search(index, "name:foo", "en").size());
+
+        // the searches only see the committed changes
+        indexManager.addUniqueToIndex(index, pdb.buildDocument(124L, meta), "id", "en");
+        assertEquals(1, indexManager.search(index, "name:foo", "en").size());
+        indexManager.commit(index);
+        assertEquals(2, indexManager.search(index, "name:foo", "en").size());
+
+        indexManager.removeFromIndex(index, "id", "123");
+        indexManager.commit(index);
+        List<Result> results = indexManager.search(index, "name:foo", "en");
+        assertEquals(1, results.size());
+        assertEquals("124", results.get(0).getId());
+    }
+
+    public void testGetUniqueIds() throws IndexingException {
+        String index = "foo";
+        DocumentBuilder pdb = new PackageDocumentBuilder();
+        Map<String, String> meta = new HashMap<String, String>();
+        meta.put("name", "foo");
+        for (long id = 1; id <= 3; id++) {
+            indexManager.addUniqueToIndex(index, pdb.buildDocument(id, meta), "id", "en");
+        }
+        indexManager.commit(index);
+        indexManager.removeFromIndex(index, "id", "2");
+        indexManager.commit(index);
+
+        Set<String> ids = indexManager.getUniqueIds(index, "id");
+        assertEquals(new HashSet<String>(Arrays.asList("1", "3")), ids);
+    }
+
+    /**
+     * Creates the index and locks it, as a writer would. Lucene breaks the locks
+     * when creating an index, so it must exist already.
+     */
+    private Lock lockIndex(String index) throws IOException {
+        Configuration config = (Configuration)
+            container.getComponentInstanceOfType(Configuration.class);
+        File indexDir = new File(config.getString("search.index_work_dir", null), index);
+        Directory dir = FSDirectory.getDirectory(indexDir);
+        new IndexWriter(dir, new StandardAnalyzer(), true,
+                IndexWriter.MaxFieldLength.LIMITED).close();
+        Lock lock = dir.makeLock(IndexWriter.WRITE_LOCK_NAME);
+        assertTrue(lock.obtain());
+        return lock;
+    }
+
+    public void testLockOfConcurrentWriterIsKept() throws Exception {
+        String index = "foo";
+        Lock lock = lockIndex(index);
+        try {
+            indexManager.commit(index);
+            fail("the lock of the concurrent writer was broken");
+        }
+        catch (IndexingException e) {
+            // the indexing tasks skip their run on this failure
+            assertTrue(e.getMessage().contains("LockObtainFailedException: Lock obtain timed out"));
+        }
+
+        lock.release();
+        indexManager.commit(index);
+    }
+
+    public void testStaleLockIsRemovedAtStart() throws Exception {
+        String index = "foo";
+        // lock left over by a server which did not stop properly
+        lockIndex(index);
+
+        indexManager.stop();
+        indexManager.start();
+        indexManager.commit(index);
+    }
 
     @SuppressWarnings("unchecked")
     @Override
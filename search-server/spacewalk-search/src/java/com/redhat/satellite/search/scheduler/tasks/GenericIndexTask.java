@@ -14,6 +14,7 @@
  */
 package com.redhat.satellite.search.scheduler.tasks;
 
+import com.redhat.satellite.search.config.Configuration;
 import com.redhat.satellite.search.db.DatabaseManager;
 import com.redhat.satellite.search.db.Query;
 import com.redhat.satellite.search.db.WriteQuery;
@@ -23,6 +24,7 @@ import com.redhat.satellite.search.index.IndexingException;
 import com.redhat.satellite.search.index.builder.BuilderFactory;
 import com.redhat.satellite.search.index.builder.DocumentBuilder;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.document.Document;
@@ -32,22 +34,38 @@ import org.quartz.JobExecutionException;
 import org.quartz.StatefulJob;
 
 import java.sql.SQLException;
-import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * GenericIndexTask
+ *
+ * Streams the records to index from the database, indexes them by batches, the
+ * documents of a batch being built and analyzed in parallel, and commits the
+ * index and the last record indexed once per batch.
+ *
  * @version $Rev$
  */
 public abstract class GenericIndexTask implements StatefulJob {
 
     private static Logger log = LogManager.getLogger(GenericIndexTask.class);
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    // shared by the tasks, which run one at a time per index
+    private static final ExecutorService INDEXERS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "index-builder");
+                t.setDaemon(true);
+                return t;
+            });
     private String lang = "en";
     /**
      * {@inheritDoc}
@@ -59,26 +77,19 @@ public abstract class GenericIndexTask implements StatefulJob {
             (DatabaseManager)jobData.get("databaseManager");
         IndexManager indexManager =
             (IndexManager)jobData.get("indexManager");
+        Configuration config = (Configuration)jobData.get("configuration");
+        int batchSize = config == null ? DEFAULT_BATCH_SIZE :
+            config.getInt("search.index_batch_size", DEFAULT_BATCH_SIZE);
 
         try {
             //try to create the index first incase we never actually
             //   have any records (BZ 537502)
             indexManager.createIndex(getIndexName(), lang);
-            List<GenericRecord> data = getRecords(databaseManager);
-            int count = 0;
-            log.info(super.getClass().toString() + "found [" +
-                    data.size() + "] items to index");
-            for (Iterator<GenericRecord> iter = data.iterator(); iter.hasNext();) {
-                GenericRecord current = iter.next();
-                indexRecord(indexManager, current);
-                count++;
-                if (count == 10 || !iter.hasNext()) {
-                    if (System.getProperties().get("isTesting") == null) {
-                        updateLastRecord(databaseManager, current.getId());
-                    }
-                    count = 0;
-                }
-            }
+            // the records changed from now on are indexed by the next run
+            Date runStart = new Date();
+            int count = indexRecords(databaseManager, indexManager, batchSize, runStart);
+            log.info(getClass().getSimpleName() + " indexed " + count +
+                    " records in <" + getIndexName() + ">");
             //
             // Check to see if any records have been deleted from database, so
             // we should delete from our indexes.
@@ -100,11 +111,89 @@ public abstract class GenericIndexTask implements StatefulJob {
             throw new JobExecutionException(e);
         }
     }
+
+    /**
+     * Indexes the records to index by batches
+     * @return the number of records indexed
+     */
+    private int indexRecords(DatabaseManager databaseManager,
+            IndexManager indexManager, int batchSize, Date runStart)
+        throws SQLException, IndexingException {
+        int count = 0;
+        Query<GenericRecord> query = databaseManager.getQuery(getQueryRecordsToIndex());
+        try {
+            Cursor<GenericRecord> records = query.cursor(getRecordsParams(databaseManager));
+            List<GenericRecord> batch = new ArrayList<GenericRecord>(batchSize);
+            for (GenericRecord record : records) {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    indexBatch(databaseManager, indexManager, batch, runStart);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                indexBatch(databaseManager, indexManager, batch, runStart);
+                count += batch.size();
+            }
+        }
+        finally {
+            query.close();
+        }
+        return count;
+    }
+
+    /**
+     * Indexes a batch of records, commits the index then records the last record
+     * of the batch as indexed
+     */
+    private void indexBatch(DatabaseManager databaseManager,
+            IndexManager indexManager, List<GenericRecord> batch, Date runStart)
+        throws SQLException, IndexingException {
+        List<Future<Void>> indexed = new ArrayList<Future<Void>>(batch.size());
+        for (GenericRecord record : batch) {
+            indexed.add(INDEXERS.submit(() -> {
+                indexRecord(indexManager, record);
+                return null;
+            }));
+        }
+        try {
+            for (Future<Void> result : indexed) {
+                result.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IndexingException) {
+                throw (IndexingException)e.getCause();
+            }
+            throw new IndexingException(e.getCause());
+        }
+        finally {
+            for (Future<Void> result : indexed) {
+                result.cancel(false);
+            }
+        }
+        // the checkpoint must not be ahead of the committed index
+        indexManager.commit(getIndexName());
+        long lastId = batch.get(batch.size() - 1).getId();
+        if (System.getProperties().get("isTesting") == null) {
+            updateLastRecord(databaseManager, lastId, runStart);
+        }
+        log.info(getClass().getSimpleName() + " indexed " + batch.size() +
+                " records up to " + lastId + " in <" + getIndexName() + ">");
+    }
+
     /**
      * @param databaseManager
      * @param sid
+     * @param lastModified
      */
-    private void updateLastRecord(DatabaseManager databaseManager, long sid)
+    private void updateLastRecord(DatabaseManager databaseManager, long sid,
+            Date lastModified)
         throws SQLException {
 
         WriteQuery updateQuery = databaseManager.getWriterQuery(getQueryUpdateLastRecord());
@@ -113,7 +202,7 @@ public abstract class GenericIndexTask implements StatefulJob {
         try {
             Map<String, Object> params = new HashMap<String, Object>();
             params.put("id", sid);
-            params.put("last_modified", Calendar.getInstance().getTime());
+            params.put("last_modified", lastModified);
 
             if (updateQuery.update(params) == 0) {
                 insertQuery = databaseManager.getWriterQuery(getQueryCreateLastRecord());
@@ -143,8 +232,10 @@ public abstract class GenericIndexTask implements StatefulJob {
         throws IndexingException {
 
         Map<String, String> attrs = getFieldMap(data);
-        log.info(super.getClass().toString() + " Indexing object: " +
-                data.getId() + ": " + attrs.toString());
+        if (log.isDebugEnabled()) {
+            log.debug(getClass().getSimpleName() + " Indexing object: " +
+                    data.getId() + ": " + attrs.toString());
+        }
         DocumentBuilder pdb = BuilderFactory.getBuilder(getIndexName());
         Document doc = pdb.buildDocument(new Long(data.getId()), attrs);
         indexManager.addUniqueToIndex(getIndexName(), doc, getUniqueFieldId(),
@@ -154,12 +245,11 @@ public abstract class GenericIndexTask implements StatefulJob {
 
     /**
      * @param databaseManager
-     * @return
+     * @return the parameters of the query of the records to index
      */
-    private List<GenericRecord> getRecords(DatabaseManager databaseManager)
+    private Map<String, Object> getRecordsParams(DatabaseManager databaseManager)
         throws SQLException {
         // What was the last object id we indexed?
-        List<GenericRecord> retval = null;
         Query<Long> query = databaseManager.getQuery(getQueryLastRecord());
         Long sid = null;
         try {
@@ -184,53 +274,46 @@ public abstract class GenericIndexTask implements StatefulJob {
             lastRun = new Date(0);
         }
         // Lookup what objects have not been indexed, or need to be reindexed.
-        Query<GenericRecord> srvrQuery = databaseManager.getQuery(
-                getQueryRecordsToIndex());
-        try {
-            Map<String, Object> params = new HashMap<String, Object>();
-            params.put("id", sid);
-            params.put("last_modified", lastRun);
-            log.info("GenericIndexTask<" + super.getClass().toString() +
-                    " last processed id = " + sid + ", lastRun was " + lastRun);
-            retval = srvrQuery.loadList(params);
-            log.info("GenericIndexTask<" + super.getClass().toString() +
-                    " number of results returned = " + retval.size());
-        }
-        finally {
-            srvrQuery.close();
-        }
-        return retval;
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("id", sid);
+        params.put("last_modified", lastRun);
+        log.info("GenericIndexTask<" + super.getClass().toString() +
+                " last processed id = " + sid + ", lastRun was " + lastRun);
+        return params;
     }
 
     /**
      * Will determine if any records have been deleted from the DB, then will
-     * delete those records from the lucene index.
+     * delete those records from the lucene index: the ids of the database are
+     * streamed and removed from the ids of the index, the ids left are deleted.
      * @return number of deleted records
      */
     protected int handleDeletedRecords(DatabaseManager databaseManager,
             IndexManager indexManager)
-        throws SQLException {
-        List<Object> records = null;
-        Query<Object> query = null;
-        String uniqField = null;
-        String indexName = null;
-        HashSet<String> idSet = null;
+        throws SQLException, IndexingException {
+        String uniqField = getUniqueFieldId();
+        String indexName = getIndexName();
+        Set<String> deleted = indexManager.getUniqueIds(indexName, uniqField);
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+        Query<Object> query = databaseManager.getQuery(getQueryAllIds());
         try {
-            query = databaseManager.getQuery(getQueryAllIds());
-            records = query.loadList(Collections.EMPTY_MAP);
-            idSet = new HashSet<String>();
+            Cursor<Object> records = query.cursor(Collections.EMPTY_MAP);
             for (Object record : records) {
-                idSet.add(record.toString());
+                deleted.remove(record.toString());
             }
-            uniqField = getUniqueFieldId();
-            indexName = getIndexName();
         }
         finally {
-            if (query != null) {
-                query.close();
-            }
+            query.close();
+        }
+        for (String uniqId : deleted) {
+            indexManager.removeFromIndex(indexName, uniqField, uniqId);
+        }
+        if (!deleted.isEmpty()) {
+            indexManager.commit(indexName);
         }
-        return indexManager.deleteRecordsNotInList(idSet, indexName, uniqField);
+        return deleted.size();
     }
 
     /**
@@ -68,6 +68,8 @@ public class IndexErrataTask implements Job {
                 indexErrata(indexManager, current);
                 count++;
                 if (count == 10 || !iter.hasNext()) {
+                    // the checkpoint must not be ahead of the committed index
+                    indexManager.commit("errata");
                     if (System.getProperties().get("isTesting") == null) {
                         updateLastErrataId(databaseManager, current.getId());
                     }
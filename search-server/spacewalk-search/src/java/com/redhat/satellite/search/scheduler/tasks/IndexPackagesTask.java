@@ -70,6 +70,8 @@ public class IndexPackagesTask implements Job {
                 indexPackage(indexManager, current);
                 count++;
                 if (count == 10 || !iter.hasNext()) {
+                    // the checkpoint must not be ahead of the committed index
+                    indexManager.commit("package");
                     if (System.getProperties().get("isTesting") == null) {
                         updateLastPackageId(databaseManager, current.getId());
                     }
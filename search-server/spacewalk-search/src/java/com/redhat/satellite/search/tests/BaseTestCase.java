@@ -23,8 +23,9 @@ public abstract class BaseTestCase extends TestCase {
         super.tearDown();
         Configuration config = (Configuration)
             container.getComponentInstanceOfType(Configuration.class);
-        TestUtil.cleanupDirectories(config);
+        // the components close their indexes when stopping
         container.stop();
+        TestUtil.cleanupDirectories(config);
     }
 
     @SuppressWarnings("unchecked")